@@ -22,11 +22,26 @@ import uk.co.real_logic.artio.dictionary.ir.Dictionary;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.*;
 
 public final class CodecGenerationTool
 {
+    /**
+     * Comma separated names or types of the messages to generate codecs for, defaults to all messages. Session
+     * messages are always generated.
+     */
+    public static final String INCLUDE_MESSAGES_PROP = "fix.codecs.include_messages";
+    /** Comma separated names or types of the messages not to generate codecs for. */
+    public static final String EXCLUDE_MESSAGES_PROP = "fix.codecs.exclude_messages";
+    /** Comma separated names of the fields to generate, defaults to all fields. */
+    public static final String INCLUDE_FIELDS_PROP = "fix.codecs.include_fields";
+    /** Comma separated names of the fields not to generate. */
+    public static final String EXCLUDE_FIELDS_PROP = "fix.codecs.exclude_fields";
+
     public static void main(final String[] args) throws Exception
     {
         if (args.length < 2)
@@ -35,8 +50,25 @@ public final class CodecGenerationTool
         }
 
         final String outputPath = args[0];
-        final String files = args[1];
-        final  String[] fileNames = files.split(";");
+        for (int i = 1; i < args.length; i++)
+        {
+            final String arg = args[i];
+            final int separator = arg.indexOf('=');
+            if (separator == -1)
+            {
+                generate(outputPath, PARENT_PACKAGE, arg);
+            }
+            else
+            {
+                generate(outputPath, arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    private static void generate(final String outputPath, final String parentPackage, final String files)
+        throws Exception
+    {
+        final String[] fileNames = files.split(";");
         if (fileNames.length > 2)
         {
             System.err.printf("Two many dictionary files(1 or 2 dictionaries supported).%s", files);
@@ -49,23 +81,27 @@ public final class CodecGenerationTool
             dictionary = parseDictionary(xmlFile, dictionary);
         }
 
-        final PackageOutputManager parent = new PackageOutputManager(outputPath, PARENT_PACKAGE);
-        final PackageOutputManager decoder = new PackageOutputManager(outputPath, DECODER_PACKAGE);
+        dictionary = trimDictionary(dictionary);
 
-        final EnumGenerator enumGenerator = new EnumGenerator(dictionary, PARENT_PACKAGE, parent);
-        final ConstantGenerator constantGenerator = new ConstantGenerator(dictionary, PARENT_PACKAGE, parent);
+        final String encoderPackage = parentPackage + ".builder";
+        final String decoderPackage = parentPackage + ".decoder";
+        final PackageOutputManager parent = new PackageOutputManager(outputPath, parentPackage);
+        final PackageOutputManager decoder = new PackageOutputManager(outputPath, decoderPackage);
+
+        final EnumGenerator enumGenerator = new EnumGenerator(dictionary, parentPackage, parent);
+        final ConstantGenerator constantGenerator = new ConstantGenerator(dictionary, parentPackage, parent);
 
         final EncoderGenerator encoderGenerator = new EncoderGenerator(
             dictionary,
             1,
-            ENCODER_PACKAGE,
-            PARENT_PACKAGE,
-            new PackageOutputManager(outputPath, ENCODER_PACKAGE), Validation.class);
+            encoderPackage,
+            parentPackage,
+            new PackageOutputManager(outputPath, encoderPackage), Validation.class);
 
         final DecoderGenerator decoderGenerator = new DecoderGenerator(
-            dictionary, 1, DECODER_PACKAGE, PARENT_PACKAGE, decoder, Validation.class);
-        final PrinterGenerator printerGenerator = new PrinterGenerator(dictionary, DECODER_PACKAGE, decoder);
-        final AcceptorGenerator acceptorGenerator = new AcceptorGenerator(dictionary, DECODER_PACKAGE, decoder);
+            dictionary, 1, decoderPackage, parentPackage, decoder, Validation.class);
+        final PrinterGenerator printerGenerator = new PrinterGenerator(dictionary, decoderPackage, decoder);
+        final AcceptorGenerator acceptorGenerator = new AcceptorGenerator(dictionary, decoderPackage, decoder);
 
         enumGenerator.generate();
         constantGenerator.generate();
@@ -77,6 +113,47 @@ public final class CodecGenerationTool
         acceptorGenerator.generate();
     }
 
+    private static Dictionary trimDictionary(final Dictionary dictionary)
+    {
+        final List<String> includedMessages = listProperty(INCLUDE_MESSAGES_PROP);
+        final List<String> excludedMessages = listProperty(EXCLUDE_MESSAGES_PROP);
+        final List<String> includedFields = listProperty(INCLUDE_FIELDS_PROP);
+        final List<String> excludedFields = listProperty(EXCLUDE_FIELDS_PROP);
+        if (includedMessages.isEmpty() && excludedMessages.isEmpty() &&
+            includedFields.isEmpty() && excludedFields.isEmpty())
+        {
+            return dictionary;
+        }
+
+        return new DictionaryTrimmer()
+            .includeMessages(includedMessages)
+            .excludeMessages(excludedMessages)
+            .includeFields(includedFields)
+            .excludeFields(excludedFields)
+            .trim(dictionary);
+    }
+
+    private static List<String> listProperty(final String propertyName)
+    {
+        final String value = System.getProperty(propertyName);
+        if (value == null || value.trim().isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        final List<String> values = new ArrayList<>();
+        for (final String element : value.split(","))
+        {
+            final String trimmed = element.trim();
+            if (!trimmed.isEmpty())
+            {
+                values.add(trimmed);
+            }
+        }
+
+        return values;
+    }
+
     private static Dictionary parseDictionary(final File xmlFile, final Dictionary parentDictionary) throws Exception
     {
         final DictionaryParser parser = new DictionaryParser();
@@ -100,7 +177,16 @@ public final class CodecGenerationTool
     private static void printUsageAndExit()
     {
         System.err.println("Usage: CodecGenerationTool </path/to/output-directory> " +
-            "<[/path/to/fixt-xml/dictionary;]/path/to/xml/dictionary>");
+            "<[package=][/path/to/fixt-xml/dictionary;]/path/to/xml/dictionary> ...");
+        System.err.println(
+            "Each set of dictionaries is generated into its own package, defaulting to " + PARENT_PACKAGE +
+            ", so that codecs for several FIX versions can be used by one engine.");
+        System.err.printf(
+            "Optionally trim the generated codecs with the %s, %s, %s and %s system properties.%n",
+            INCLUDE_MESSAGES_PROP,
+            EXCLUDE_MESSAGES_PROP,
+            INCLUDE_FIELDS_PROP,
+            EXCLUDE_FIELDS_PROP);
         System.exit(-1);
     }
 }
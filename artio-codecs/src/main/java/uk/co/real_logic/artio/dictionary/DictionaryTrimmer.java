@@ -0,0 +1,287 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary;
+
+import org.agrona.collections.IntHashSet;
+import uk.co.real_logic.artio.dictionary.ir.*;
+import uk.co.real_logic.artio.dictionary.ir.Entry.Element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trims a dictionary down to the messages and fields that an application uses, so that the codecs generated
+ * from it are smaller and their decode switches only contain the tags that the application cares about.
+ *
+ * Messages can be included or excluded by either their name or message type, and fields by their name. Empty
+ * include lists include everything. The header and trailer are always kept whole, as is the first entry of each
+ * repeating group that is kept, since it delimits the group's elements. The session messages (Logon, Heartbeat,
+ * TestRequest, ResendRequest, Reject, SequenceReset and Logout) are always kept, since a session can't run without
+ * them, and so are the required fields of each kept message, group and component. Excluding either of these is an
+ * error. Groups and components that are left without any of the kept fields are removed. Fields that no kept
+ * message refers to are removed from the dictionary, so generated decoders skip them as unknown fields when codec
+ * validation is disabled. Validating decoders reject messages that contain removed fields, so trimmed codecs are
+ * intended to be used with validation disabled.
+ */
+public final class DictionaryTrimmer
+{
+    private static final Set<String> SESSION_MESSAGE_TYPES = new HashSet<>(Arrays.asList(
+        "A", "0", "1", "2", "3", "4", "5"));
+
+    private final Set<String> includedMessages = new HashSet<>();
+    private final Set<String> excludedMessages = new HashSet<>();
+    private final Set<String> includedFields = new HashSet<>();
+    private final Set<String> excludedFields = new HashSet<>();
+
+    private final Map<Aggregate, Aggregate> trimmedAggregates = new IdentityHashMap<>();
+    private final Map<Aggregate, Aggregate> wholeAggregates = new IdentityHashMap<>();
+    private final IntHashSet keptFieldNumbers = new IntHashSet();
+
+    public DictionaryTrimmer includeMessages(final Collection<String> namesOrTypes)
+    {
+        includedMessages.addAll(namesOrTypes);
+        return this;
+    }
+
+    public DictionaryTrimmer excludeMessages(final Collection<String> namesOrTypes)
+    {
+        excludedMessages.addAll(namesOrTypes);
+        return this;
+    }
+
+    public DictionaryTrimmer includeFields(final Collection<String> names)
+    {
+        includedFields.addAll(names);
+        return this;
+    }
+
+    public DictionaryTrimmer excludeFields(final Collection<String> names)
+    {
+        excludedFields.addAll(names);
+        return this;
+    }
+
+    /**
+     * Create a trimmed copy of a dictionary, the dictionary itself isn't modified.
+     *
+     * @param dictionary the dictionary to trim.
+     * @return the trimmed copy of the dictionary.
+     */
+    public Dictionary trim(final Dictionary dictionary)
+    {
+        trimmedAggregates.clear();
+        wholeAggregates.clear();
+        keptFieldNumbers.clear();
+
+        final Component header = dictionary.header() == null ? null : (Component)copy(dictionary.header(), true);
+        final Component trailer = dictionary.trailer() == null ? null : (Component)copy(dictionary.trailer(), true);
+
+        final List<Message> messages = new ArrayList<>();
+        for (final Message message : dictionary.messages())
+        {
+            if (keepMessage(message))
+            {
+                messages.add((Message)copy(message, false));
+            }
+        }
+
+        final Map<String, Component> components = new HashMap<>();
+        dictionary.components().forEach((name, component) ->
+        {
+            // Components that are only used by the header or trailer are kept whole.
+            Aggregate copy = trimmedAggregates.get(component);
+            if (copy == null)
+            {
+                copy = wholeAggregates.get(component);
+            }
+
+            if (copy != null && !copy.entries().isEmpty())
+            {
+                components.put(name, (Component)copy);
+            }
+        });
+
+        for (final Message message : messages)
+        {
+            collectFieldNumbers(message);
+        }
+        if (header != null)
+        {
+            collectFieldNumbers(header);
+        }
+        if (trailer != null)
+        {
+            collectFieldNumbers(trailer);
+        }
+        components.values().forEach(this::collectFieldNumbers);
+
+        final Map<String, Field> fields = new HashMap<>();
+        dictionary.fields().forEach((name, field) ->
+        {
+            if (keptFieldNumbers.contains(field.number()))
+            {
+                fields.put(name, field);
+            }
+        });
+
+        return new Dictionary(
+            messages,
+            fields,
+            components,
+            header,
+            trailer,
+            dictionary.specType(),
+            dictionary.majorVersion(),
+            dictionary.minorVersion());
+    }
+
+    private boolean keepMessage(final Message message)
+    {
+        final String name = message.name();
+        final String type = message.fullType();
+        final boolean excluded = excludedMessages.contains(name) || excludedMessages.contains(type);
+        if (SESSION_MESSAGE_TYPES.contains(type))
+        {
+            if (excluded)
+            {
+                throw new IllegalArgumentException(
+                    "Unable to exclude " + name + " as it's a session message that a FIX session needs");
+            }
+
+            return true;
+        }
+
+        final boolean included = includedMessages.isEmpty() ||
+            includedMessages.contains(name) || includedMessages.contains(type);
+
+        return included && !excluded;
+    }
+
+    private boolean keepField(final Field field)
+    {
+        final String name = field.name();
+        return (includedFields.isEmpty() || includedFields.contains(name)) && !excludedFields.contains(name);
+    }
+
+    private Aggregate copy(final Aggregate aggregate, final boolean whole)
+    {
+        final Map<Aggregate, Aggregate> copies = whole ? wholeAggregates : trimmedAggregates;
+        final Aggregate existing = copies.get(aggregate);
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        final boolean isGroup = aggregate instanceof Group;
+        final Aggregate copy;
+        if (aggregate instanceof Message)
+        {
+            final Message message = (Message)aggregate;
+            copy = new Message(message.name(), message.fullType(), message.category());
+        }
+        else if (isGroup)
+        {
+            copy = ((Group)aggregate).copyWithoutEntries();
+        }
+        else
+        {
+            copy = new Component(aggregate.name());
+        }
+        copies.put(aggregate, copy);
+
+        final List<Entry> entries = aggregate.entries();
+        for (int i = 0; i < entries.size(); i++)
+        {
+            final Entry entry = entries.get(i);
+            final boolean isGroupDelimiter = isGroup && i == 0;
+            final Element element = copyElement(aggregate, entry, whole || isGroupDelimiter);
+            if (element != null)
+            {
+                copy.entries().add(new Entry(entry.required(), element));
+            }
+        }
+
+        // A group that only has its delimiter left is removed, unless the delimiter was kept for its own sake.
+        if (isGroup && !whole && copy.entries().size() == 1 && !keepsOwnDelimiter(entries.get(0)))
+        {
+            copy.entries().clear();
+        }
+
+        return copy;
+    }
+
+    private boolean keepsOwnDelimiter(final Entry delimiter)
+    {
+        final Element element = delimiter.element();
+        return element instanceof Field && keepField((Field)element);
+    }
+
+    private Element copyElement(final Aggregate parent, final Entry entry, final boolean whole)
+    {
+        final Element element = entry.element();
+        if (element instanceof Field)
+        {
+            if (whole)
+            {
+                return element;
+            }
+
+            if (entry.required())
+            {
+                if (excludedFields.contains(element.name()))
+                {
+                    throw new IllegalArgumentException(
+                        "Unable to exclude " + element.name() + " as it's required by " + parent.name());
+                }
+
+                return element;
+            }
+
+            return keepField((Field)element) ? element : null;
+        }
+
+        final Aggregate copy = copy((Aggregate)element, whole);
+        return copy.entries().isEmpty() ? null : (Element)copy;
+    }
+
+    private void collectFieldNumbers(final Aggregate aggregate)
+    {
+        if (aggregate instanceof Group)
+        {
+            keptFieldNumbers.add(((Field)((Group)aggregate).numberField().element()).number());
+        }
+
+        for (final Entry entry : aggregate.entries())
+        {
+            final Element element = entry.element();
+            if (element instanceof Field)
+            {
+                keptFieldNumbers.add(((Field)element).number());
+            }
+            else
+            {
+                collectFieldNumbers((Aggregate)element);
+            }
+        }
+    }
+}
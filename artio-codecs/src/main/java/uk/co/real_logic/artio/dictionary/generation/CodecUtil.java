@@ -39,6 +39,8 @@ public final class CodecUtil
     public static final int ENUM_UNKNOWN_INT = Integer.MAX_VALUE;
     public static final String ENUM_UNKNOWN_STRING = Character.toString(ENUM_UNKNOWN_CHAR);
 
+    public static final int UNKNOWN_FIELD_INDEX = -1;
+
     /**
      * NB: only valid for ASCII bytes.
      */
@@ -117,4 +119,66 @@ public final class CodecUtil
 
         return result;
     }
+
+    // Bitsets of dense field indices, used by generated decoders to track which fields they've seen.
+
+    public static int bitSetLength(final int fieldCount)
+    {
+        return (fieldCount + 63) >>> 6;
+    }
+
+    /**
+     * Set the bit for a field index.
+     *
+     * @param bits the bitset.
+     * @param index the dense index of the field.
+     * @return true if the bit wasn't already set, false otherwise.
+     */
+    public static boolean setBit(final long[] bits, final int index)
+    {
+        final int word = index >>> 6;
+        final long bit = 1L << index;
+        final long value = bits[word];
+        bits[word] = value | bit;
+
+        return (value & bit) == 0;
+    }
+
+    public static void clearBit(final long[] bits, final int index)
+    {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Find the lowest set bit.
+     *
+     * @param bits the bitset.
+     * @return the lowest index whose bit is set, or {@link #UNKNOWN_FIELD_INDEX} if none are set.
+     */
+    public static int firstSetBit(final long[] bits)
+    {
+        for (int word = 0; word < bits.length; word++)
+        {
+            final long value = bits[word];
+            if (value != 0)
+            {
+                return (word << 6) + Long.numberOfTrailingZeros(value);
+            }
+        }
+
+        return UNKNOWN_FIELD_INDEX;
+    }
+
+    public static void clearBits(final long[] bits)
+    {
+        for (int word = 0; word < bits.length; word++)
+        {
+            bits[word] = 0;
+        }
+    }
+
+    public static void copyBits(final long[] from, final long[] to)
+    {
+        System.arraycopy(from, 0, to, 0, from.length);
+    }
 }
@@ -24,13 +24,17 @@ import uk.co.real_logic.artio.fields.*;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static uk.co.real_logic.artio.dictionary.generation.AggregateType.*;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.bitSetLength;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.setBit;
 import static uk.co.real_logic.artio.dictionary.generation.ConstantGenerator.sizeHashSet;
 import static uk.co.real_logic.artio.dictionary.generation.EnumGenerator.NULL_VAL_NAME;
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.rethrown;
@@ -134,7 +138,7 @@ public class DecoderGenerator extends Generator
 
         interfaces.add(Decoder.class.getSimpleName());
 
-        out.append(classDeclaration(className, interfaces, false));
+        out.append(classDeclaration(className, interfaces, isGroup));
         validation(out, aggregate, type);
         if (isMessage)
         {
@@ -242,10 +246,11 @@ public class DecoderGenerator extends Generator
             "        {\n" +
             "            invalidTagId = NO_ERROR;\n" +
             "            rejectReason = NO_ERROR;\n" +
-            "            missingRequiredFields.clear();\n" +
+            "            clearBits(missingRequiredFields);\n" +
             (isGroup ? "" :
             "            unknownFields.clear();\n" +
-            "            alreadyVisitedFields.clear();\n") +
+            "            clearBits(alreadyVisitedFields);\n" +
+            "            alreadyVisitedUnknownFields.clear();\n") +
             "        }\n";
     }
 
@@ -255,6 +260,9 @@ public class DecoderGenerator extends Generator
         final List<Field> requiredFields = requiredFields(aggregate.entries()).collect(toList());
         out.append(generateFieldDictionary(requiredFields, REQUIRED_FIELDS));
 
+        final int[] fieldTags = fieldTags(aggregate);
+        out.append(fieldIndexes(aggregate, fieldTags, requiredFields));
+
         if (aggregate.containsGroup())
         {
             final List<Field> groupFields = aggregate
@@ -303,9 +311,10 @@ public class DecoderGenerator extends Generator
 
         out.append(String.format(
             (isGroup ? "" :
-            "    private final IntHashSet alreadyVisitedFields = new IntHashSet(%5$d);\n\n" +
+            "    private final long[] alreadyVisitedFields = new long[%1$d];\n\n" +
+            "    private final IntHashSet alreadyVisitedUnknownFields = new IntHashSet(10);\n\n" +
             "    private final IntHashSet unknownFields = new IntHashSet(10);\n\n") +
-            "    private final IntHashSet missingRequiredFields = new IntHashSet(%1$d);\n\n" +
+            "    private final long[] missingRequiredFields = new long[%1$d];\n\n" +
             "    private int invalidTagId = NO_ERROR;\n\n" +
             "    public int invalidTagId()\n" +
             "    {\n" +
@@ -323,12 +332,12 @@ public class DecoderGenerator extends Generator
             "        {\n" +
             "            return false;\n" +
             "        }\n" +
-            "        final IntIterator missingFieldsIterator = missingRequiredFields.iterator();\n" +
+            "        final int missingFieldIndex = firstSetBit(missingRequiredFields);\n" +
             (isMessage ? "        final IntIterator unknownFieldsIterator = unknownFields.iterator();\n" : "") +
             "%2$s" +
-            "        if (missingFieldsIterator.hasNext())\n" +
+            "        if (missingFieldIndex != UNKNOWN_FIELD_INDEX)\n" +
             "        {\n" +
-            "            invalidTagId = missingFieldsIterator.nextValue();\n" +
+            "            invalidTagId = FIELD_TAGS[missingFieldIndex];\n" +
             "            rejectReason = " + REQUIRED_TAG_MISSING + ";\n" +
             "            return false;\n" +
             "        }\n" +
@@ -336,11 +345,65 @@ public class DecoderGenerator extends Generator
             "%4$s" +
             "        return true;\n" +
             "    }\n\n",
-            sizeHashSet(requiredFields),
+            bitSetLength(fieldTags.length),
             messageValidation,
             enumValidation,
-            groupValidation,
-            2 * aggregate.allChildEntries().count()));
+            groupValidation));
+    }
+
+    // Every tag that the aggregate's decode method switches on gets a dense index so that the fields that
+    // have been seen can be tracked in a bitset, unknown tags are tracked in a set.
+    private String fieldIndexes(final Aggregate aggregate, final int[] fieldTags, final List<Field> requiredFields)
+    {
+        final long[] requiredFieldBits = new long[bitSetLength(fieldTags.length)];
+        requiredFields.forEach((field) -> setBit(requiredFieldBits, Arrays.binarySearch(fieldTags, field.number())));
+
+        final String fieldTagsList = Arrays
+            .stream(fieldTags)
+            .mapToObj(String::valueOf)
+            .collect(joining(", "));
+
+        final String requiredFieldBitsList = Arrays
+            .stream(requiredFieldBits)
+            .mapToObj((bits) -> "0x" + Long.toHexString(bits) + "L")
+            .collect(joining(", "));
+
+        final StringBuilder cases = new StringBuilder();
+        for (int i = 0; i < fieldTags.length; i++)
+        {
+            cases.append(String.format("            case %d:\n                return %d;\n", fieldTags[i], i));
+        }
+
+        return String.format(
+            "    private static final int[] FIELD_TAGS = { %1$s };\n\n" +
+            "    private static final long[] REQUIRED_FIELD_BITS = { %2$s };\n\n" +
+            "    private int fieldIndex(final int tag)\n" +
+            "    {\n" +
+            "        switch (tag)\n" +
+            "        {\n" +
+            "%3$s" +
+            "            default:\n" +
+            "                return UNKNOWN_FIELD_INDEX;\n" +
+            "        }\n" +
+            "    }\n\n",
+            fieldTagsList,
+            requiredFieldBitsList,
+            cases);
+    }
+
+    private int[] fieldTags(final Aggregate aggregate)
+    {
+        return fieldTags(aggregate.entries()).distinct().sorted().toArray();
+    }
+
+    private IntStream fieldTags(final List<Entry> entries)
+    {
+        return entries
+            .stream()
+            .flatMapToInt((entry) -> entry.match(
+                (e, field) -> IntStream.of(field.number()),
+                (e, group) -> IntStream.of(((Field)group.numberField().element()).number()),
+                (e, component) -> fieldTags(component.entries())));
     }
 
     private String generateFieldDictionary(final Collection<Field> fields, final String name)
@@ -553,9 +616,10 @@ public class DecoderGenerator extends Generator
                 "    {\n" +
                 "        return next;\n" +
                 "    }\n\n" +
-                "    private IntHashSet seenFields = new IntHashSet(%2$d);\n\n",
+                "    private final long[] seenFields = new long[%2$d];\n\n" +
+                "    private final IntHashSet seenUnknownFields = new IntHashSet(10);\n\n",
                 decoderClassName(aggregate),
-                sizeHashSet(aggregate.entries())));
+                bitSetLength(fieldTags(aggregate).length)));
         }
     }
 
@@ -676,9 +740,10 @@ public class DecoderGenerator extends Generator
             fieldName,
             name);
 
+        // String based enums are decoded straight from the buffer, rather than the copied chars.
         final String enumValueDecoder = String.format(
             type.isStringBased() ?
-            "%1$s.decode(%2$s, %2$sLength)" :
+            "%1$s.decode(buffer, %2$sOffset, %2$sLength)" :
             "%1$s.decode(%2$s)",
             name,
             fieldName);
@@ -892,14 +957,18 @@ public class DecoderGenerator extends Generator
             "        int seenFieldCount = 0;\n" +
             "        if (" + CODEC_VALIDATION_ENABLED + ")\n" +
             "        {\n" +
-            "            missingRequiredFields.copy(" + REQUIRED_FIELDS + ");\n" +
-            (isGroup ? "" : "            alreadyVisitedFields.clear();\n") +
+            "            copyBits(REQUIRED_FIELD_BITS, missingRequiredFields);\n" +
+            (isGroup ? "" :
+            "            clearBits(alreadyVisitedFields);\n" +
+            "            alreadyVisitedUnknownFields.clear();\n") +
             "        }\n" +
             "        this.buffer = buffer;\n" +
             "        final int end = offset + length;\n" +
             "        int position = offset;\n" +
             (hasCommonCompounds ? "        position += header.decode(buffer, position, length);\n" : "") +
-            (isGroup ? "        seenFields.clear();\n" : "") +
+            (isGroup ?
+            "        clearBits(seenFields);\n" +
+            "        seenUnknownFields.clear();\n" : "") +
             "        int tag;\n\n" +
             "        while (position < end)\n" +
             "        {\n" +
@@ -924,13 +993,18 @@ public class DecoderGenerator extends Generator
             headerValidation(isHeader) +
 
             (isGroup ? "" :
-            "                if (!alreadyVisitedFields.add(tag))\n" +
+            "                final int fieldIndex = fieldIndex(tag);\n" +
+            "                if (fieldIndex == UNKNOWN_FIELD_INDEX ?\n" +
+            "                    !alreadyVisitedUnknownFields.add(tag) : !setBit(alreadyVisitedFields, fieldIndex))\n" +
             "                {\n" +
             "                    invalidTagId = tag;\n" +
             "                    rejectReason = " + TAG_APPEARS_MORE_THAN_ONCE + ";\n" +
             "                }\n") +
 
-            "                missingRequiredFields.remove(tag);\n" +
+            "                if (fieldIndex != UNKNOWN_FIELD_INDEX)\n" +
+            "                {\n" +
+            "                    clearBit(missingRequiredFields, fieldIndex);\n" +
+            "                }\n" +
             "                seenFieldCount++;\n" +
             "            }\n" +
             "            switch (tag)\n" +
@@ -992,7 +1066,9 @@ public class DecoderGenerator extends Generator
         if (isGroup)
         {
             endGroupCheck = String.format(
-                "            if (!seenFields.add(tag))\n" +
+                "            final int fieldIndex = fieldIndex(tag);\n" +
+                "            if (fieldIndex == UNKNOWN_FIELD_INDEX ?\n" +
+                "                !seenUnknownFields.add(tag) : !setBit(seenFields, fieldIndex))\n" +
                 "            {\n" +
                 "                if (next == null)\n" +
                 "                {\n" +
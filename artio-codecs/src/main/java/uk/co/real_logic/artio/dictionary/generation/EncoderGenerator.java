@@ -32,6 +32,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.joining;
 import static uk.co.real_logic.artio.dictionary.generation.AggregateType.GROUP;
+import static uk.co.real_logic.artio.dictionary.generation.AggregateType.HEADER;
 import static uk.co.real_logic.artio.dictionary.generation.EnumGenerator.hasEnumGenerated;
 import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.fileHeader;
 import static uk.co.real_logic.artio.util.MutableAsciiBuffer.LONGEST_INT_LENGTH;
@@ -54,6 +55,16 @@ public class EncoderGenerator extends Generator
         "    }\n\n" +
         "    public int encode(final MutableAsciiBuffer buffer, final int offset, final int bodyStart)\n" +
         "    {\n" +
+        "        return encode(buffer, offset, bodyStart, null, 0);\n" +
+        "    }\n\n" +
+        "    // A beginString of null uses the BeginString of the dictionary that this codec was generated from.\n" +
+        "    public int encode(\n" +
+        "        final MutableAsciiBuffer buffer,\n" +
+        "        final int offset,\n" +
+        "        final int bodyStart,\n" +
+        "        final byte[] beginString,\n" +
+        "        final int beginStringLength)\n" +
+        "    {\n" +
         "        int position = offset;\n\n";
 
     private static final String GROUP_ENCODE_PREFIX =
@@ -74,6 +85,12 @@ public class EncoderGenerator extends Generator
         "        int position = start;\n\n" +
         "        position += header.encode(buffer, position);\n";
 
+    private static final String HEADER_BEGIN_STRING_LENGTH =
+        "    int beginStringLength()\n" +
+        "    {\n" +
+        "        return beginStringLength;\n" +
+        "    }\n\n";
+
     // returns length as int
     private static final String OTHER_ENCODE_PREFIX =
         "    public int encode(final MutableAsciiBuffer buffer, final int offset)\n" +
@@ -87,6 +104,8 @@ public class EncoderGenerator extends Generator
         "        }\n";
 
     private static final int MAX_BODY_LENGTH_FIELD_LENGTH = String.valueOf(Integer.MAX_VALUE).length();
+    // Leaves room for the header's BeginString to override the dictionary's with any standard version.
+    private static final int MAX_BEGIN_STRING_LENGTH = "FIXT.1.1".length();
     public static final String METHOD_DELIMITER = "\n\n";
 
     private static String encoderClassName(final String name)
@@ -119,11 +138,14 @@ public class EncoderGenerator extends Generator
         validateHasField(header, BODY_LENGTH);
 
         this.initialArraySize = initialArraySize;
-        headerPrefixString = String.format("8=%s.%d.%d\0019=",
+        final String beginString = String.format("%s.%d.%d",
             dictionary.specType(),
             dictionary.majorVersion(), dictionary.minorVersion());
+        headerPrefixString = "8=" + beginString + "\0019=";
 
-        maxHeaderPrefixLength = headerPrefixString.length() + MAX_BODY_LENGTH_FIELD_LENGTH;
+        maxHeaderPrefixLength = headerPrefixString.length() +
+            Math.max(0, MAX_BEGIN_STRING_LENGTH - beginString.length()) +
+            MAX_BODY_LENGTH_FIELD_LENGTH;
     }
 
     private void validateHasField(final Component header, final String fieldName)
@@ -194,6 +216,10 @@ public class EncoderGenerator extends Generator
             final Group group = (Group)aggregate;
             out.append(nextMethod(group));
         }
+        else if (type == HEADER)
+        {
+            out.append(HEADER_BEGIN_STRING_LENGTH);
+        }
         precomputedHeaders(out, aggregate.entries());
         setters(out, className, aggregate.entries());
         out.append(encodeMethod(aggregate.entries(), type));
@@ -513,7 +539,10 @@ public class EncoderGenerator extends Generator
         if (hasCommonCompounds)
         {
             suffix =
-                "        position += trailer.encode(buffer, position, start);\n" +
+                "        position += header.hasBeginString() ?\n" +
+                "            trailer.encode(\n" +
+                "                buffer, position, start, header.beginString(), header.beginStringLength()) :\n" +
+                "            trailer.encode(buffer, position, start);\n" +
                 "        final int realStart = trailer.realStart;" +
                 "        return Encoder.result(position - realStart, realStart);\n" +
                 "    }\n\n";
@@ -559,9 +588,23 @@ public class EncoderGenerator extends Generator
             "        final int bodyLength = position - bodyStart;\n" +
             "        buffer.putSeparator(bodyStart - 1);\n" +
             "        final int bodyLengthStart = buffer.putNaturalFromEnd(bodyLength, bodyStart - 1);\n" +
-            "        final int realStart = bodyLengthStart - HEADER_PREFIX_STRING.length;\n" +
-            "        this.realStart = realStart;" +
-            "        buffer.putBytes(realStart, HEADER_PREFIX_STRING);\n" +
+            "        final int realStart;\n" +
+            "        if (beginString == null)\n" +
+            "        {\n" +
+            "            realStart = bodyLengthStart - HEADER_PREFIX_STRING.length;\n" +
+            "            buffer.putBytes(realStart, HEADER_PREFIX_STRING);\n" +
+            "        }\n" +
+            "        else\n" +
+            "        {\n" +
+            // Splice the BeginString between the "8=" and "\0019=" of the dictionary's prefix
+            "            final int headerPrefixLength = HEADER_PREFIX_STRING.length;\n" +
+            "            final int beginStringEnd = bodyLengthStart - 3;\n" +
+            "            buffer.putBytes(beginStringEnd, HEADER_PREFIX_STRING, headerPrefixLength - 3, 3);\n" +
+            "            realStart = beginStringEnd - beginStringLength - 2;\n" +
+            "            buffer.putBytes(realStart + 2, beginString, 0, beginStringLength);\n" +
+            "            buffer.putBytes(realStart, HEADER_PREFIX_STRING, 0, 2);\n" +
+            "        }\n" +
+            "        this.realStart = realStart;\n" +
             formatTag("checkSum", "") +
             // 17 to account for the common sized prefix size before bodyStart.
             // position - 3, to get back to the point before the checksum, ie skip behind (10)
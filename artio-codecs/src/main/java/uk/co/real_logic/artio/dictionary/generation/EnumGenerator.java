@@ -18,17 +18,18 @@ package uk.co.real_logic.artio.dictionary.generation;
 import org.agrona.LangUtil;
 import org.agrona.collections.IntHashSet;
 import org.agrona.generation.OutputManager;
-import uk.co.real_logic.artio.dictionary.CharArrayMap;
 import uk.co.real_logic.artio.dictionary.ir.Dictionary;
 import uk.co.real_logic.artio.dictionary.ir.Field;
 import uk.co.real_logic.artio.dictionary.ir.Field.Type;
 import uk.co.real_logic.artio.dictionary.ir.Field.Value;
+import uk.co.real_logic.artio.util.AsciiBuffer;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
 
 import static java.lang.String.format;
 import static java.util.stream.Collectors.joining;
@@ -113,10 +114,8 @@ public final class EnumGenerator
             try
             {
                 out.append(fileHeader(builderPackage));
-                out.append(importFor(CharArrayMap.class));
+                out.append(importFor(AsciiBuffer.class));
                 out.append(importFor(IntHashSet.class));
-                out.append(importFor(Map.class));
-                out.append(importFor(HashMap.class));
                 out.append(generateEnumDeclaration(enumName));
 
                 out.append(generateEnumValues(valuesWithSentinels, type));
@@ -210,27 +209,35 @@ public final class EnumGenerator
         switch (type)
         {
             case STRING:
-                return "    public static boolean isValid(final char[] representation, final int length)\n" +
-                       "    {\n" +
-                       "        return charMap.containsKey(representation, length);\n" +
-                       "    }\n";
+            case CURRENCY:
+            case EXCHANGE:
+            case COUNTRY:
+            case LANGUAGE:
+                return format(
+                    "    public static boolean isValid(final char[] representation, final int length)\n" +
+                    "    {\n" +
+                    "        return decode(representation, 0, length) != %1$s;\n" +
+                    "    }\n",
+                    UNKNOWN_NAME);
 
             case MULTIPLEVALUESTRING:
             case MULTIPLESTRINGVALUE:
-                return "    public static boolean isValid(final char[] representation, final int length)\n" +
-                       "    {\n" +
-                       "        int offset = 0;\n" +
-                       "        for (int i = 0; i < length; i++)\n" +
-                       "        {\n" +
-                       "            if (representation[i] == ' ')\n" +
-                       "            {\n" +
-                       "                if (! charMap.containsKey(representation, offset, i - offset))\n" +
-                       "                    return false;\n" +
-                       "                offset = i + 1;\n" +
-                       "            }\n" +
-                       "        }\n" +
-                       "        return charMap.containsKey(representation, offset, length - offset);\n" +
-                       "    }\n";
+                return format(
+                    "    public static boolean isValid(final char[] representation, final int length)\n" +
+                    "    {\n" +
+                    "        int offset = 0;\n" +
+                    "        for (int i = 0; i < length; i++)\n" +
+                    "        {\n" +
+                    "            if (representation[i] == ' ')\n" +
+                    "            {\n" +
+                    "                if (decode(representation, offset, i - offset) == %1$s)\n" +
+                    "                    return false;\n" +
+                    "                offset = i + 1;\n" +
+                    "            }\n" +
+                    "        }\n" +
+                    "        return decode(representation, offset, length - offset) != %1$s;\n" +
+                    "    }\n",
+                    UNKNOWN_NAME);
 
             case MULTIPLECHARVALUE:
                 final String multiCharValues = allValues
@@ -282,32 +289,32 @@ public final class EnumGenerator
             case STRING:
             case MULTIPLEVALUESTRING:
             case MULTIPLESTRINGVALUE:
-                final String entries = allValues
-                    .stream()
-                    .map((v) -> format("        stringMap.put(%s, %s);\n", literal(v, type), v.description()))
-                    .collect(joining());
-
+            case CURRENCY:
+            case EXCHANGE:
+            case COUNTRY:
+            case LANGUAGE:
+                // Values are found by switching on their length and then their first character, so decoding
+                // doesn't need to allocate or hash, and can be done straight from the buffer.
                 return format(
-                    "    private static final CharArrayMap<%1$s> charMap;\n" +
-                    "    static\n" +
+                    "    public static %1$s decode(final char[] representation, final int length)\n" +
+                    "    {\n" +
+                    "        return decode(representation, 0, length);\n" +
+                    "    }\n" +
+                    "\n" +
+                    "    public static %1$s decode(final char[] representation, final int offset, final int length)\n" +
                     "    {\n" +
-                    "        final Map<String, %1$s> stringMap = new HashMap<>();\n" +
                     "%2$s" +
-                    "        charMap = new CharArrayMap<>(stringMap);\n" +
                     "    }\n" +
                     "\n" +
-                    "    public static %1$s decode(final char[] representation, final int length)\n" +
+                    "    public static %1$s decode(final AsciiBuffer buffer, final int offset, final int length)\n" +
                     "    {\n" +
-                            "        final %1$s value = charMap.get(representation, length);\n" +
-                            "        if (value == null)\n" +
-                            "        {\n" +
-                            "            return %3$s;\n" +
-                            "        }\n" +
-                            "        return value;\n" +
-                    "    }\n",
+                    "%3$s" +
+                    "    }\n" +
+                    "\n",
                     typeName,
-                    entries,
-                    UNKNOWN_NAME);
+                    lengthAndFirstCharSwitch(allValues, (i) -> "representation[" + offsetBy(i) + "]"),
+                    lengthAndFirstCharSwitch(allValues, (i) -> "(char)buffer.getByte(" + offsetBy(i) + ")"));
+
             case MULTIPLECHARVALUE:
 
                 return format(
@@ -326,14 +333,103 @@ public final class EnumGenerator
         }
     }
 
+    private static String lengthAndFirstCharSwitch(final List<Value> allValues, final IntFunction<String> charAt)
+    {
+        final TreeMap<Integer, Map<Character, List<Value>>> valuesByLengthAndFirstChar = new TreeMap<>();
+        for (final Value value : allValues)
+        {
+            final String representation = value.representation();
+            final int length = representation.length();
+            final char firstChar = length == 0 ? 0 : representation.charAt(0);
+            valuesByLengthAndFirstChar
+                .computeIfAbsent(length, (ignore) -> new TreeMap<>())
+                .computeIfAbsent(firstChar, (ignore) -> new ArrayList<>())
+                .add(value);
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("        switch (length)\n");
+        sb.append("        {\n");
+        valuesByLengthAndFirstChar.forEach((length, valuesByFirstChar) ->
+        {
+            if (length > valuesByLengthAndFirstChar.firstKey())
+            {
+                sb.append("\n");
+            }
+
+            sb.append(format("            case %d:\n", length));
+            if (length == 0)
+            {
+                final Value emptyValue = valuesByFirstChar.get((char)0).get(0);
+                sb.append(format("                return %s;\n", emptyValue.description()));
+                return;
+            }
+
+            sb.append(format("                switch (%s)\n", charAt.apply(0)));
+            sb.append("                {\n");
+            valuesByFirstChar.forEach((firstChar, values) ->
+            {
+                sb.append(format("                    case %s:\n", charLiteral(firstChar)));
+                if (length == 1)
+                {
+                    sb.append(format("                        return %s;\n", values.get(0).description()));
+                    return;
+                }
+
+                for (final Value value : values)
+                {
+                    final String representation = value.representation();
+                    final StringBuilder condition = new StringBuilder();
+                    for (int i = 1; i < length; i++)
+                    {
+                        if (i > 1)
+                        {
+                            condition.append(" &&\n                            ");
+                        }
+                        condition.append(format("%s == %s", charAt.apply(i), charLiteral(representation.charAt(i))));
+                    }
+
+                    sb.append(format(
+                        "                        if (%s)\n" +
+                        "                        {\n" +
+                        "                            return %s;\n" +
+                        "                        }\n",
+                        condition,
+                        value.description()));
+                }
+                sb.append("                        break;\n");
+            });
+            sb.append("                }\n");
+            sb.append("                break;\n");
+        });
+        sb.append("        }\n\n");
+        sb.append(format("        return %s;\n", UNKNOWN_NAME));
+
+        return sb.toString();
+    }
+
+    private static String offsetBy(final int index)
+    {
+        return index == 0 ? "offset" : "offset + " + index;
+    }
+
+    private static String charLiteral(final char value)
+    {
+        switch (value)
+        {
+            case '\'':
+                return "'\\''";
+            case '\\':
+                return "'\\\\'";
+            default:
+                return "'" + value + "'";
+        }
+    }
+
     private boolean hasGeneratedValueOf(final Type type)
     {
         switch (type)
         {
-            case CURRENCY:
-            case EXCHANGE:
-            case COUNTRY:
-            case LANGUAGE:
             case UTCTIMEONLY:
             case UTCDATEONLY:
             case MONTHYEAR:
@@ -207,11 +207,6 @@ public final class Field implements Element
         }
     }
 
-    // TODO: provide lookup table support for:
-    // CURRENCY
-    // EXCHANGE
-    // COUNTRY
-
     public static class Value
     {
         private final String representation;
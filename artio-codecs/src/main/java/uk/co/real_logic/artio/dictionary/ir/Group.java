@@ -32,6 +32,14 @@ public final class Group extends Aggregate implements Element
         return numberField;
     }
 
+    /**
+     * @return a group with the same name and number field as this one, but without any entries.
+     */
+    public Group copyWithoutEntries()
+    {
+        return new Group(name(), numberField);
+    }
+
     public static Group of(final Field field)
     {
         final String name = field.name();
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary;
+
+import org.agrona.generation.StringWriterOutputManager;
+import org.junit.Test;
+import uk.co.real_logic.artio.builder.Decoder;
+import uk.co.real_logic.artio.dictionary.generation.ConstantGenerator;
+import uk.co.real_logic.artio.dictionary.generation.DecoderGenerator;
+import uk.co.real_logic.artio.dictionary.generation.EnumGenerator;
+import uk.co.real_logic.artio.dictionary.generation.ValidationOff;
+import uk.co.real_logic.artio.dictionary.ir.*;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.agrona.generation.CompilerUtil.compileInMemory;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.*;
+import static uk.co.real_logic.artio.dictionary.ExampleDictionary.*;
+import static uk.co.real_logic.artio.util.Reflection.get;
+
+public class DictionaryTrimmerTest
+{
+    private final DictionaryTrimmer trimmer = new DictionaryTrimmer();
+
+    @Test
+    public void keepsOnlyIncludedMessages()
+    {
+        final Dictionary dictionary = trimmer
+            .includeMessages(asList("Heartbeat", ALL_REQ_FIELD_TYPES_MESSAGE_TYPE))
+            .trim(MESSAGE_EXAMPLE);
+
+        assertThat(messageNames(dictionary), contains("Heartbeat", ALL_REQ_FIELD_TYPES_MESSAGE_NAME));
+        assertThat(dictionary.fields(), not(hasKey("OtherField")));
+        assertThat(dictionary.fields(), hasKey(STRING_RF));
+    }
+
+    @Test
+    public void removesExcludedMessages()
+    {
+        final Dictionary dictionary = trimmer
+            .excludeMessages(asList(OTHER_MESSAGE_TYPE, FIELDS_MESSAGE))
+            .trim(MESSAGE_EXAMPLE);
+
+        final List<String> messageNames = messageNames(dictionary);
+        assertThat(messageNames, not(hasItems("OtherMessage")));
+        assertThat(messageNames, not(hasItems(FIELDS_MESSAGE)));
+        assertThat(messageNames, hasItems("Heartbeat", ALL_REQ_FIELD_TYPES_MESSAGE_NAME));
+        assertThat(dictionary.fields(), not(hasKey("CurrencyField")));
+    }
+
+    @Test
+    public void removesExcludedFields()
+    {
+        final Dictionary dictionary = trimmer
+            .excludeFields(asList("TestReqID", "BooleanField"))
+            .trim(MESSAGE_EXAMPLE);
+
+        final List<String> heartbeatFields = entryNames(message(dictionary, "Heartbeat"));
+        assertThat(heartbeatFields, not(hasItems("TestReqID")));
+        assertThat(heartbeatFields, not(hasItems("BooleanField")));
+        assertThat(heartbeatFields, hasItems("OnBehalfOfCompID", "IntField", EG_COMPONENT));
+        assertThat(dictionary.fields(), not(hasKey("TestReqID")));
+        assertThat(dictionary.fields(), hasKey("IntField"));
+    }
+
+    @Test
+    public void keepsSessionMessagesThatAreNotIncluded()
+    {
+        final Dictionary dictionary = trimmer
+            .includeMessages(singletonList(ALL_REQ_FIELD_TYPES_MESSAGE_TYPE))
+            .trim(MESSAGE_EXAMPLE);
+
+        assertThat(messageNames(dictionary), contains("Heartbeat", ALL_REQ_FIELD_TYPES_MESSAGE_NAME));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsExcludingSessionMessages()
+    {
+        trimmer.excludeMessages(singletonList("0")).trim(MESSAGE_EXAMPLE);
+    }
+
+    @Test
+    public void keepsRequiredFieldsThatAreNotIncluded()
+    {
+        final Dictionary dictionary = trimmer
+            .includeMessages(singletonList("Heartbeat"))
+            .includeFields(singletonList("TestReqID"))
+            .trim(MESSAGE_EXAMPLE);
+
+        final List<String> heartbeatFields = entryNames(message(dictionary, "Heartbeat"));
+        assertThat(heartbeatFields, hasItems("OnBehalfOfCompID", "TestReqID", "IntField", "FloatField"));
+        assertThat(heartbeatFields, not(hasItems("BooleanField")));
+        assertThat(dictionary.fields(), hasKey("FloatField"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsExcludingRequiredFields()
+    {
+        trimmer.excludeFields(singletonList("FloatField")).trim(MESSAGE_EXAMPLE);
+    }
+
+    @Test
+    public void keepsHeaderTrailerAndGroupDelimiters()
+    {
+        final Dictionary dictionary = trimmer
+            .includeMessages(singletonList("Heartbeat"))
+            .includeFields(asList("IntField", "NestedField"))
+            .trim(MESSAGE_EXAMPLE);
+
+        assertEquals(entryNames(MESSAGE_EXAMPLE.header()), entryNames(dictionary.header()));
+        assertEquals(entryNames(MESSAGE_EXAMPLE.trailer()), entryNames(dictionary.trailer()));
+
+        final Message heartbeat = message(dictionary, "Heartbeat");
+        final Group egGroup = (Group)element(heartbeat, "EgGroupGroup");
+        assertEquals(asList("GroupField", "NestedGroupGroup"), entryNames(egGroup));
+
+        assertThat(dictionary.fields(), hasKey(NO_EG_GROUP));
+        assertThat(dictionary.fields(), hasKey("GroupField"));
+        assertThat(dictionary.fields(), hasKey("NestedField"));
+        assertThat(dictionary.fields(), not(hasKey("TestReqID")));
+    }
+
+    @Test
+    public void removesGroupsAndComponentsWithoutKeptFields()
+    {
+        final Dictionary dictionary = trimmer
+            .includeMessages(singletonList("Heartbeat"))
+            .includeFields(singletonList("IntField"))
+            .trim(MESSAGE_EXAMPLE);
+
+        assertEquals(
+            asList("OnBehalfOfCompID", "IntField", "FloatField", "SomeTimeField", "SecondEgGroupGroup"),
+            entryNames(message(dictionary, "Heartbeat")));
+        assertThat(dictionary.components(), not(hasKey(EG_COMPONENT)));
+        assertThat(dictionary.fields(), not(hasKey(NO_EG_GROUP)));
+        assertThat(dictionary.fields(), not(hasKey(NO_COMPONENT_GROUP)));
+    }
+
+    @Test
+    public void doesNotModifyTheOriginalDictionary()
+    {
+        final List<String> heartbeatFields = entryNames(message(MESSAGE_EXAMPLE, "Heartbeat"));
+        final int fieldCount = MESSAGE_EXAMPLE.fields().size();
+
+        trimmer.excludeFields(asList("TestReqID", "BooleanField")).trim(MESSAGE_EXAMPLE);
+
+        assertEquals(heartbeatFields, entryNames(message(MESSAGE_EXAMPLE, "Heartbeat")));
+        assertEquals(fieldCount, MESSAGE_EXAMPLE.fields().size());
+    }
+
+    @Test
+    public void trimmedDecodersSkipRemovedFields() throws Exception
+    {
+        final Dictionary dictionary = trimmer
+            .includeMessages(singletonList("Heartbeat"))
+            .excludeFields(singletonList("BooleanField"))
+            .trim(MESSAGE_EXAMPLE);
+
+        final StringWriterOutputManager outputManager = new StringWriterOutputManager();
+        new ConstantGenerator(dictionary, TEST_PACKAGE, outputManager).generate();
+        new EnumGenerator(dictionary, TEST_PARENT_PACKAGE, outputManager).generate();
+        new DecoderGenerator(
+            dictionary, 1, TEST_PACKAGE, TEST_PARENT_PACKAGE, outputManager, ValidationOff.class).generate();
+        final Map<String, CharSequence> sources = outputManager.getSources();
+
+        assertThat(sources, not(hasKey(OTHER_MESSAGE_DECODER)));
+
+        final Class<?> heartbeat = compileInMemory(HEARTBEAT_DECODER, sources);
+        final Decoder decoder = (Decoder)heartbeat.getConstructor().newInstance();
+        final byte[] message = DERIVED_FIELDS_MESSAGE.replace("\001127=", "\001118=Y\001127=").getBytes(US_ASCII);
+        final int length = decoder.decode(new MutableAsciiBuffer(message), 0, message.length);
+
+        assertEquals(message.length, length);
+        assertEquals(2, get(decoder, "intField"));
+        assertFalse(asList(heartbeat.getMethods()).stream().anyMatch((m) -> m.getName().equals("booleanField")));
+    }
+
+    private static List<String> messageNames(final Dictionary dictionary)
+    {
+        return dictionary.messages().stream().map(Message::name).collect(toList());
+    }
+
+    private static Message message(final Dictionary dictionary, final String name)
+    {
+        return dictionary.messages().stream().filter((message) -> message.name().equals(name)).findFirst().get();
+    }
+
+    private static Entry.Element element(final Aggregate aggregate, final String name)
+    {
+        return aggregate.entries().stream()
+            .map(Entry::element)
+            .filter((element) -> element.name().equals(name))
+            .findFirst()
+            .get();
+    }
+
+    private static List<String> entryNames(final Aggregate aggregate)
+    {
+        return aggregate.entries().stream().map((entry) -> entry.element().name()).collect(toList());
+    }
+}
@@ -58,6 +58,7 @@ public final class ExampleDictionary
     public static final String OTHER_ENUM = PARENT_PACKAGE + "." + "OtherEnum";
     public static final String STRING_ENUM = PARENT_PACKAGE + "." + "stringEnum";
     public static final String MULTI_STRING_VALUE_ENUM = PARENT_PACKAGE + "." + "multiStringValueEnum";
+    public static final String CURRENCY_ENUM = PARENT_PACKAGE + "." + "currencyEnum";
 
     public static final String TEST_PARENT_PACKAGE = PARENT_PACKAGE;
 
@@ -196,6 +197,10 @@ public final class ExampleDictionary
         "8=FIX.4.4\0019=53\00135=0\001115=abc\001116=2\001117=1.1\001127=19700101-00:00:00.001" +
         "\00110=043\001";
 
+    public static final String NO_OPTIONAL_FIXT_MESSAGE =
+        "8=FIXT.1.1\0019=53\00135=0\001115=abc\001116=2\001117=1.1\001127=19700101-00:00:00.001" +
+        "\00110=121\001";
+
     public static final String MISSING_REQUIRED_FIELDS_MESSAGE =
         "8=FIX.4.4\0019=0027\00135=0\001115=abc\001117=1.1\001127=19700101-00:00:00.001" +
         "\00110=161\001";
@@ -548,11 +553,17 @@ public final class ExampleDictionary
             .addValue("A", "_A")
             .addValue("AA", "_AAA");
 
+        final Field currencyEnum = new Field(127, "currencyEnum", CURRENCY)
+            .addValue("GBP", "PoundSterling")
+            .addValue("GBX", "PenceSterling")
+            .addValue("USD", "USDollar");
+
         final Map<String, Field> fieldEgFields = new HashMap<>();
         fieldEgFields.put("EgEnum", egEnum);
         fieldEgFields.put("OtherEnum", otherEnum);
         fieldEgFields.put("stringEnum", stringEnum);
         fieldEgFields.put("multiStringValueEnum", multiStringValueEnum);
+        fieldEgFields.put("currencyEnum", currencyEnum);
         fieldEgFields.put("egNotEnum", new Field(125, "EgNotEnum", Type.CHAR));
 
         return new Dictionary(emptyList(), fieldEgFields, emptyMap(), null, null,
@@ -61,4 +61,23 @@ public class CodecUtilTest
         final int secondHash = CodecUtil.hashCode("abczyx".toCharArray(), 3, 3);
         assertEquals(firstHash, secondHash);
     }
+
+    @Test
+    public void shouldTrackBitsAcrossWords()
+    {
+        final long[] bits = new long[CodecUtil.bitSetLength(100)];
+        assertEquals(2, bits.length);
+        assertEquals(CodecUtil.UNKNOWN_FIELD_INDEX, CodecUtil.firstSetBit(bits));
+
+        assertTrue(CodecUtil.setBit(bits, 70));
+        assertFalse(CodecUtil.setBit(bits, 70));
+        assertTrue(CodecUtil.setBit(bits, 6));
+        assertEquals(6, CodecUtil.firstSetBit(bits));
+
+        CodecUtil.clearBit(bits, 6);
+        assertEquals(70, CodecUtil.firstSetBit(bits));
+
+        CodecUtil.clearBits(bits);
+        assertEquals(CodecUtil.UNKNOWN_FIELD_INDEX, CodecUtil.firstSetBit(bits));
+    }
 }
@@ -41,6 +41,7 @@ import uk.co.real_logic.artio.util.Reflection;
 
 import static java.lang.reflect.Modifier.isAbstract;
 import static java.lang.reflect.Modifier.isPublic;
+import static java.lang.reflect.Modifier.isStatic;
 import static org.junit.Assert.*;
 import static uk.co.real_logic.artio.builder.Decoder.NO_ERROR;
 import static uk.co.real_logic.artio.dictionary.ExampleDictionary.*;
@@ -134,6 +135,19 @@ public class DecoderGeneratorTest
         assertTrue("Not public", isPublic(modifiers));
     }
 
+    @Test
+    public void shouldShareFieldIndexTablesBetweenDecoders() throws Exception
+    {
+        final Class<?> nestedGroup = heartbeat.getClassLoader().loadClass(
+            heartbeat.getName() + "$EgGroupGroupDecoder$NestedGroupGroupDecoder");
+
+        for (final Class<?> decoder : Arrays.asList(heartbeat, nestedGroup))
+        {
+            assertTrue(isStatic(decoder.getDeclaredField("FIELD_TAGS").getModifiers()));
+            assertTrue(isStatic(decoder.getDeclaredField("REQUIRED_FIELD_BITS").getModifiers()));
+        }
+    }
+
     @Test
     public void generatesGetters() throws NoSuchMethodException
     {
@@ -212,6 +212,19 @@ public class EncoderGeneratorTest
         assertEncodesTo(encoder, NO_OPTIONAL_MESSAGE);
     }
 
+    @Test
+    public void encodesBeginStringOfHeaderInsteadOfDictionaryVersion() throws Exception
+    {
+        final Encoder encoder = (Encoder)heartbeat.getConstructor().newInstance();
+
+        setRequiredFields(encoder);
+        setupHeader(encoder);
+        setupTrailer(encoder);
+        setCharSequence(Reflection.get(encoder, "header"), "beginString", "FIXT.1.1");
+
+        assertEncodesTo(encoder, NO_OPTIONAL_FIXT_MESSAGE);
+    }
+
     @Test
     public void automaticallyComputesDerivedHeaderAndTrailerFields() throws Exception
     {
@@ -21,11 +21,14 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -141,6 +144,40 @@ public class EnumGeneratorTest
         assertEquals(values[2], decode.invoke(null, "AA ".toCharArray(), 2));
     }
 
+    @Test
+    public void generatesBufferBasedDecode() throws Exception
+    {
+        final Class<?> clazz = compile(STRING_ENUM, sources);
+        final Enum[] values = (Enum[])clazz.getEnumConstants();
+
+        final Method decode = clazz.getMethod("decode", AsciiBuffer.class, int.class, int.class);
+        final AsciiBuffer buffer = new MutableAsciiBuffer("=0|A|AA|B|".getBytes(US_ASCII));
+
+        assertEquals(values[0], decode.invoke(null, buffer, 1, 1));
+        assertEquals(values[1], decode.invoke(null, buffer, 3, 1));
+        assertEquals(values[2], decode.invoke(null, buffer, 5, 2));
+        assertEquals(values[values.length - 1], decode.invoke(null, buffer, 8, 1));
+        assertEquals(values[values.length - 1], decode.invoke(null, buffer, 3, 3));
+    }
+
+    @Test
+    public void generatesCurrencyEnumLookup() throws Exception
+    {
+        final Class<?> clazz = compile(CURRENCY_ENUM, sources);
+        final Enum[] values = (Enum[])clazz.getEnumConstants();
+
+        final Method decode = clazz.getMethod("decode", char[].class, int.class);
+        final Method decodeBuffer = clazz.getMethod("decode", AsciiBuffer.class, int.class, int.class);
+        final Method isValid = clazz.getMethod("isValid", char[].class, int.class);
+
+        assertEquals(values[0], decode.invoke(null, "GBP".toCharArray(), 3));
+        assertEquals(values[1], decode.invoke(null, "GBX".toCharArray(), 3));
+        assertEquals(values[2], decode.invoke(null, "USD".toCharArray(), 3));
+        assertEquals(values[1], decodeBuffer.invoke(null, new MutableAsciiBuffer("GBX".getBytes(US_ASCII)), 0, 3));
+        assertTrue((boolean)isValid.invoke(null, "USD".toCharArray(), 3));
+        assertFalse((boolean)isValid.invoke(null, "GBY".toCharArray(), 3));
+    }
+
     @Test
     public void generateMultiStringValueValidation() throws Exception
     {
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio;
+
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.NanoClock;
+import org.agrona.concurrent.SystemNanoClock;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.hints.ThreadHints;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idle strategy that learns how long an agent usually waits for work and only spins when work is likely to
+ * arrive soon, otherwise it parks with an exponential backoff.
+ *
+ * The gaps between the last unit of work and the next one, after the agent has had to idle, are recorded
+ * in a power of two histogram. If the configured percentile of those gaps is within the maximum spin
+ * period then the agent spins for that long after its last unit of work before parking, otherwise it
+ * parks straight away. The histogram decays over time so that it tracks changes in the arrival rate.
+ *
+ * The time spent idle and the time spent working can be exported through counters, see
+ * {@link #counters(AtomicCounter, AtomicCounter)}.
+ *
+ * Not thread safe, each agent should have its own instance.
+ */
+public final class AdaptiveIdleStrategy implements IdleStrategy
+{
+    public static final long DEFAULT_MAX_SPIN_PERIOD_IN_NS = 50_000;
+    public static final long DEFAULT_MIN_PARK_PERIOD_IN_NS = 1_000;
+    public static final long DEFAULT_MAX_PARK_PERIOD_IN_NS = 1 << 20;
+    public static final int DEFAULT_SPIN_PERCENTILE = 90;
+
+    private static final int BUCKET_COUNT = 64;
+    private static final int RECALCULATE_INTERVAL = 64;
+    private static final int DECAY_THRESHOLD = 4096;
+    private static final long NO_WORK = Long.MIN_VALUE;
+
+    private final long[] gapBuckets = new long[BUCKET_COUNT];
+    private final NanoClock clock;
+    private final long maxSpinPeriodInNs;
+    private final long minParkPeriodInNs;
+    private final long maxParkPeriodInNs;
+    private final int spinPercentile;
+
+    private AtomicCounter idleTimeInNsCounter;
+    private AtomicCounter workTimeInNsCounter;
+
+    private long gapCount;
+    private int samplesSinceRecalculation;
+    private long spinWindowInNs;
+    private long parkPeriodInNs;
+    private long lastWorkTimeInNs = NO_WORK;
+    private boolean idledSinceWork;
+    private long lastTimeInNs;
+    private long idleTimeInNs;
+    private long workTimeInNs;
+
+    public AdaptiveIdleStrategy()
+    {
+        this(
+            DEFAULT_MAX_SPIN_PERIOD_IN_NS,
+            DEFAULT_MIN_PARK_PERIOD_IN_NS,
+            DEFAULT_MAX_PARK_PERIOD_IN_NS,
+            DEFAULT_SPIN_PERCENTILE,
+            new SystemNanoClock());
+    }
+
+    /**
+     * Create an adaptive idle strategy.
+     *
+     * @param maxSpinPeriodInNs the longest period to spin for after a unit of work before parking.
+     * @param minParkPeriodInNs the initial park period once the strategy has stopped spinning.
+     * @param maxParkPeriodInNs the longest park period that the exponential backoff reaches.
+     * @param spinPercentile the percentile, between 1 and 100, of gaps between work that spinning should cover.
+     * @param clock the clock used to measure the gaps between work.
+     */
+    public AdaptiveIdleStrategy(
+        final long maxSpinPeriodInNs,
+        final long minParkPeriodInNs,
+        final long maxParkPeriodInNs,
+        final int spinPercentile,
+        final NanoClock clock)
+    {
+        if (spinPercentile < 1 || spinPercentile > 100)
+        {
+            throw new IllegalArgumentException("spinPercentile must be between 1 and 100: " + spinPercentile);
+        }
+
+        if (minParkPeriodInNs > maxParkPeriodInNs)
+        {
+            throw new IllegalArgumentException(String.format(
+                "minParkPeriodInNs (%d) must not be greater than maxParkPeriodInNs (%d)",
+                minParkPeriodInNs,
+                maxParkPeriodInNs));
+        }
+
+        this.maxSpinPeriodInNs = maxSpinPeriodInNs;
+        this.minParkPeriodInNs = minParkPeriodInNs;
+        this.maxParkPeriodInNs = maxParkPeriodInNs;
+        this.spinPercentile = spinPercentile;
+        this.clock = clock;
+        parkPeriodInNs = minParkPeriodInNs;
+        lastTimeInNs = clock.nanoTime();
+    }
+
+    /**
+     * Export the time spent idle and working through counters. The counters can only be set once, since an
+     * instance only measures a single agent.
+     *
+     * @param idleTimeInNsCounter the counter to update with the total time spent idle.
+     * @param workTimeInNsCounter the counter to update with the total time spent working.
+     * @return this
+     * @throws IllegalStateException if counters have already been set, eg: because the instance has been
+     * given to more than one agent.
+     */
+    public AdaptiveIdleStrategy counters(
+        final AtomicCounter idleTimeInNsCounter, final AtomicCounter workTimeInNsCounter)
+    {
+        if (hasCounters())
+        {
+            throw new IllegalStateException(
+                "Counters have already been set, each agent should have its own AdaptiveIdleStrategy");
+        }
+
+        this.idleTimeInNsCounter = idleTimeInNsCounter;
+        this.workTimeInNsCounter = workTimeInNsCounter;
+        return this;
+    }
+
+    /**
+     * Check whether counters have been set on this instance.
+     *
+     * @return true if {@link #counters(AtomicCounter, AtomicCounter)} has been called, false otherwise.
+     */
+    public boolean hasCounters()
+    {
+        return idleTimeInNsCounter != null || workTimeInNsCounter != null;
+    }
+
+    public void idle(final int workCount)
+    {
+        final long timeInNs = clock.nanoTime();
+        final long elapsedInNs = timeInNs - lastTimeInNs;
+        lastTimeInNs = timeInNs;
+
+        if (workCount > 0)
+        {
+            workTimeInNs += elapsedInNs;
+            if (workTimeInNsCounter != null)
+            {
+                workTimeInNsCounter.setOrdered(workTimeInNs);
+            }
+
+            onWork(timeInNs);
+            return;
+        }
+
+        idledSinceWork = true;
+        idleTimeInNs += elapsedInNs;
+
+        if (lastWorkTimeInNs != NO_WORK && timeInNs - lastWorkTimeInNs < spinWindowInNs)
+        {
+            ThreadHints.onSpinWait();
+        }
+        else
+        {
+            park(timeInNs);
+        }
+
+        if (idleTimeInNsCounter != null)
+        {
+            idleTimeInNsCounter.setOrdered(idleTimeInNs);
+        }
+    }
+
+    public void idle()
+    {
+        idle(0);
+    }
+
+    public void reset()
+    {
+        parkPeriodInNs = minParkPeriodInNs;
+    }
+
+    long spinWindowInNs()
+    {
+        return spinWindowInNs;
+    }
+
+    long idleTimeInNs()
+    {
+        return idleTimeInNs;
+    }
+
+    long workTimeInNs()
+    {
+        return workTimeInNs;
+    }
+
+    private void park(final long timeInNs)
+    {
+        LockSupport.parkNanos(parkPeriodInNs);
+        parkPeriodInNs = Math.min(parkPeriodInNs << 1, maxParkPeriodInNs);
+
+        final long parkedTimeInNs = clock.nanoTime();
+        idleTimeInNs += parkedTimeInNs - timeInNs;
+        lastTimeInNs = parkedTimeInNs;
+    }
+
+    private void onWork(final long timeInNs)
+    {
+        // Back to back units of work don't tell us how long to wait, only gaps that needed idling do.
+        if (idledSinceWork && lastWorkTimeInNs != NO_WORK)
+        {
+            recordGap(timeInNs - lastWorkTimeInNs);
+        }
+
+        lastWorkTimeInNs = timeInNs;
+        idledSinceWork = false;
+        parkPeriodInNs = minParkPeriodInNs;
+    }
+
+    private void recordGap(final long gapInNs)
+    {
+        final long[] gapBuckets = this.gapBuckets;
+        gapBuckets[bucket(gapInNs)]++;
+        gapCount++;
+
+        if (gapCount >= DECAY_THRESHOLD)
+        {
+            decay();
+        }
+
+        if (++samplesSinceRecalculation >= RECALCULATE_INTERVAL)
+        {
+            samplesSinceRecalculation = 0;
+            recalculateSpinWindow();
+        }
+    }
+
+    private void decay()
+    {
+        final long[] gapBuckets = this.gapBuckets;
+        long gapCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            final long count = gapBuckets[i] >> 1;
+            gapBuckets[i] = count;
+            gapCount += count;
+        }
+        this.gapCount = gapCount;
+    }
+
+    private void recalculateSpinWindow()
+    {
+        final long[] gapBuckets = this.gapBuckets;
+        final long threshold = (gapCount * spinPercentile + 99) / 100;
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            cumulativeCount += gapBuckets[i];
+            if (cumulativeCount >= threshold)
+            {
+                final long upperBoundInNs = upperBound(i);
+                spinWindowInNs = upperBoundInNs <= maxSpinPeriodInNs ? upperBoundInNs : 0;
+                return;
+            }
+        }
+
+        spinWindowInNs = 0;
+    }
+
+    private static int bucket(final long gapInNs)
+    {
+        return gapInNs <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(gapInNs);
+    }
+
+    private static long upperBound(final int bucket)
+    {
+        return bucket >= 62 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+    }
+}
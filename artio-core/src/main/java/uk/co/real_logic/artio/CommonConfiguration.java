@@ -19,6 +19,8 @@ import io.aeron.Aeron;
 import org.agrona.IoUtil;
 import org.agrona.concurrent.BackoffIdleStrategy;
 import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.session.Session;
+import uk.co.real_logic.artio.session.SessionCodecRegistry;
 import uk.co.real_logic.artio.session.SessionCustomisationStrategy;
 import uk.co.real_logic.artio.session.SessionIdStrategy;
 import uk.co.real_logic.artio.timing.HistogramHandler;
@@ -201,6 +203,7 @@ public class CommonConfiguration
     private AuthenticationStrategy authenticationStrategy = AuthenticationStrategy.none();
     private MessageValidationStrategy messageValidationStrategy = MessageValidationStrategy.none();
     private SessionCustomisationStrategy sessionCustomisationStrategy = SessionCustomisationStrategy.none();
+    private String[] acceptedBeginStrings = { Constants.VERSION };
     private int monitoringBuffersLength = getInteger(
         MONITORING_BUFFERS_LENGTH_PROPERTY, DEFAULT_MONITORING_BUFFER_LENGTH);
     private String monitoringFile = null;
@@ -312,6 +315,37 @@ public class CommonConfiguration
         return this;
     }
 
+    /**
+     * Sets the versions of FIX, identified by their BeginString, that acceptor sessions can logon with. A session
+     * then uses the BeginString of its logon message for the rest of its messages.
+     * <p>
+     * Defaults to the version of the session codecs, see {@link SessionCodecRegistry} for selecting the
+     * application's codecs for a session's version.
+     *
+     * @param acceptedBeginStrings the versions of FIX that acceptor sessions can logon with.
+     * @return this
+     */
+    public CommonConfiguration acceptedBeginStrings(final String... acceptedBeginStrings)
+    {
+        if (acceptedBeginStrings.length == 0)
+        {
+            throw new IllegalArgumentException("At least one BeginString must be accepted");
+        }
+
+        for (final String beginString : acceptedBeginStrings)
+        {
+            Session.validateBeginString(beginString);
+        }
+
+        this.acceptedBeginStrings = acceptedBeginStrings.clone();
+        return this;
+    }
+
+    public String[] acceptedBeginStrings()
+    {
+        return acceptedBeginStrings;
+    }
+
     public CommonConfiguration reasonableTransmissionTimeInMs(final long reasonableTransmissionTimeInMs)
     {
         this.reasonableTransmissionTimeInMs = reasonableTransmissionTimeInMs;
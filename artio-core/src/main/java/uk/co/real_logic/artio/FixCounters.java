@@ -27,6 +27,9 @@ public class FixCounters implements AutoCloseable
     private final AtomicCounter failedReplayPublications;
 
     private AtomicCounter failedRaftPublications = null;
+    private AtomicCounter receiveBufferPoolBorrowedBytes = null;
+    private AtomicCounter receiveBufferPoolFreeBytes = null;
+    private AtomicCounter standbyLagBytes = null;
 
     FixCounters(final CountersManager countersManager)
     {
@@ -61,6 +64,36 @@ public class FixCounters implements AutoCloseable
         return failedRaftPublications;
     }
 
+    public AtomicCounter receiveBufferPoolBorrowedBytes()
+    {
+        if (receiveBufferPoolBorrowedBytes == null)
+        {
+            receiveBufferPoolBorrowedBytes = countersManager.newCounter("Receive buffer pool borrowed bytes");
+        }
+
+        return receiveBufferPoolBorrowedBytes;
+    }
+
+    public AtomicCounter receiveBufferPoolFreeBytes()
+    {
+        if (receiveBufferPoolFreeBytes == null)
+        {
+            receiveBufferPoolFreeBytes = countersManager.newCounter("Receive buffer pool free bytes");
+        }
+
+        return receiveBufferPoolFreeBytes;
+    }
+
+    public AtomicCounter standbyLagBytes()
+    {
+        if (standbyLagBytes == null)
+        {
+            standbyLagBytes = countersManager.newCounter("Archived bytes not yet streamed to standby");
+        }
+
+        return standbyLagBytes;
+    }
+
     public AtomicCounter messagesRead(final long connectionId, final String address)
     {
         return newCounter("Messages Read from " + address + " id = " + connectionId);
@@ -76,6 +109,11 @@ public class FixCounters implements AutoCloseable
         return newCounter("Invalid Library Attempts for " + address + " id = " + connectionId);
     }
 
+    public AtomicCounter rateLimitedMessages(final long connectionId, final String address)
+    {
+        return newCounter("Rate limited messages for " + address + " id = " + connectionId);
+    }
+
     public AtomicCounter sentMsgSeqNo(final long connectionId)
     {
         return newCounter("Last Sent MsgSeqNo for " + connectionId);
@@ -86,6 +124,16 @@ public class FixCounters implements AutoCloseable
         return newCounter("Last Received MsgSeqNo for " + connectionId);
     }
 
+    public AtomicCounter idleTimeInNs(final String agentName)
+    {
+        return newCounter("Idle time in ns for " + agentName);
+    }
+
+    public AtomicCounter workTimeInNs(final String agentName)
+    {
+        return newCounter("Work time in ns for " + agentName);
+    }
+
     private AtomicCounter newCounter(final String label)
     {
         return countersManager.newCounter(label);
@@ -97,6 +145,9 @@ public class FixCounters implements AutoCloseable
         failedOutboundPublications.close();
         failedReplayPublications.close();
         CloseHelper.close(failedRaftPublications);
+        CloseHelper.close(receiveBufferPoolBorrowedBytes);
+        CloseHelper.close(receiveBufferPoolFreeBytes);
+        CloseHelper.close(standbyLagBytes);
     }
 
 }
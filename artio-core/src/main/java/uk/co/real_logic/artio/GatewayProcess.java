@@ -35,6 +35,7 @@ public class GatewayProcess implements AutoCloseable
     public static final int INBOUND_LIBRARY_STREAM = 1;
     public static final int OUTBOUND_LIBRARY_STREAM = 2;
     public static final int OUTBOUND_REPLAY_STREAM = 3;
+    public static final int STANDBY_SNAPSHOT_STREAM = 4;
 
     /** Common id used by messages in both engine and library */
     public static final long NO_CORRELATION_ID = 0;
@@ -73,6 +74,24 @@ public class GatewayProcess implements AutoCloseable
             };
     }
 
+    protected void initIdleCounters(final IdleStrategy idleStrategy, final String agentName)
+    {
+        if (idleStrategy instanceof AdaptiveIdleStrategy)
+        {
+            final AdaptiveIdleStrategy adaptiveIdleStrategy = (AdaptiveIdleStrategy)idleStrategy;
+            // Checked before the counters are allocated so that they don't leak.
+            if (adaptiveIdleStrategy.hasCounters())
+            {
+                throw new IllegalArgumentException(
+                    "The " + agentName + " idle strategy is already used by another agent, " +
+                    "each agent should have its own AdaptiveIdleStrategy");
+            }
+
+            final String name = configuration.agentNamePrefix() + agentName;
+            adaptiveIdleStrategy.counters(fixCounters.idleTimeInNs(name), fixCounters.workTimeInNs(name));
+        }
+    }
+
     protected void initAeron(final CommonConfiguration configuration)
     {
         aeronConnect(configureAeronContext(configuration));
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio;
+
+import io.aeron.driver.Configuration;
+import io.aeron.driver.MediaDriver;
+import io.aeron.driver.ThreadingMode;
+import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.LowResourceEngineScheduler;
+import uk.co.real_logic.artio.library.LibraryConfiguration;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static io.aeron.logbuffer.LogBufferDescriptor.LOG_META_DATA_LENGTH;
+import static io.aeron.logbuffer.LogBufferDescriptor.TERM_MAX_LENGTH;
+import static io.aeron.logbuffer.LogBufferDescriptor.TERM_MIN_LENGTH;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static java.util.Collections.singletonList;
+
+/**
+ * A deployment profile for an engine and its libraries that run on the same host, communicating over IPC through
+ * an embedded media driver whose buffers are sized from the expected load rather than Aeron's defaults.
+ *
+ * The term length is the smallest power of two whose publication window can hold a burst of
+ * {@link #burstDurationInMs(long)} worth of the expected messages, plus a heartbeat per second from each
+ * expected session, and that lets Aeron carry a message of {@link #maxMessageLength(int)}. The IPC MTU is
+ * set so that such a message isn't fragmented.
+ *
+ * For example:
+ * <pre>
+ * try (IpcDeploymentProfile profile = new IpcDeploymentProfile()
+ *     .expectedMessagesPerSecond(50_000)
+ *     .expectedSessions(200)
+ *     .launchMediaDriver())
+ * {
+ *     System.out.println(profile);
+ *     final FixEngine engine = FixEngine.launch(profile.applyTo(engineConfiguration));
+ *     final FixLibrary library = FixLibrary.connect(profile.applyTo(libraryConfiguration));
+ *     ...
+ * }
+ * </pre>
+ *
+ * The driver is IPC only in that the profile only configures IPC channels, so no UDP sockets are opened.
+ */
+public final class IpcDeploymentProfile implements AutoCloseable
+{
+    public static final int DEFAULT_EXPECTED_MESSAGES_PER_SECOND = 10_000;
+    public static final int DEFAULT_EXPECTED_SESSIONS = 100;
+    public static final int DEFAULT_AVERAGE_MESSAGE_LENGTH = 256;
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = EngineConfiguration.DEFAULT_RECEIVER_BUFFER_SIZE;
+    public static final long DEFAULT_BURST_DURATION_IN_MS = 100;
+
+    /**
+     * The length that Aeron and Artio's own framing add to each FIX message.
+     */
+    static final int FRAMING_LENGTH = HEADER_LENGTH + MessageHeaderEncoder.ENCODED_LENGTH +
+        FixMessageEncoder.BLOCK_LENGTH + FixMessageEncoder.bodyHeaderLength();
+
+    private int expectedMessagesPerSecond = DEFAULT_EXPECTED_MESSAGES_PER_SECOND;
+    private int expectedSessions = DEFAULT_EXPECTED_SESSIONS;
+    private int averageMessageLength = DEFAULT_AVERAGE_MESSAGE_LENGTH;
+    private int maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+    private long burstDurationInMs = DEFAULT_BURST_DURATION_IN_MS;
+    private boolean runDriverOnEngineThread = false;
+    private String aeronDirectoryName = null;
+
+    private MediaDriver mediaDriver;
+
+    /**
+     * Sets the number of FIX messages per second that are expected to pass between the engine and its libraries.
+     *
+     * @param expectedMessagesPerSecond the number of messages per second.
+     * @return this
+     */
+    public IpcDeploymentProfile expectedMessagesPerSecond(final int expectedMessagesPerSecond)
+    {
+        this.expectedMessagesPerSecond = requirePositive(expectedMessagesPerSecond, "expectedMessagesPerSecond");
+        return this;
+    }
+
+    /**
+     * Sets the number of sessions that are expected to be connected at once.
+     *
+     * @param expectedSessions the number of sessions.
+     * @return this
+     */
+    public IpcDeploymentProfile expectedSessions(final int expectedSessions)
+    {
+        this.expectedSessions = requirePositive(expectedSessions, "expectedSessions");
+        return this;
+    }
+
+    /**
+     * Sets the average length in bytes of a FIX message.
+     *
+     * @param averageMessageLength the average length in bytes of a FIX message.
+     * @return this
+     */
+    public IpcDeploymentProfile averageMessageLength(final int averageMessageLength)
+    {
+        this.averageMessageLength = requirePositive(averageMessageLength, "averageMessageLength");
+        return this;
+    }
+
+    /**
+     * Sets the length in bytes of the longest FIX message, this should be at least the engine's
+     * {@link EngineConfiguration#receiverBufferSize()}.
+     *
+     * @param maxMessageLength the length in bytes of the longest FIX message.
+     * @return this
+     */
+    public IpcDeploymentProfile maxMessageLength(final int maxMessageLength)
+    {
+        this.maxMessageLength = requirePositive(maxMessageLength, "maxMessageLength");
+        return this;
+    }
+
+    /**
+     * Sets how long a burst of messages at the expected rate the publication window should be able to hold
+     * before a reader that has fallen behind back pressures the publisher.
+     *
+     * @param burstDurationInMs the length of the burst in milliseconds.
+     * @return this
+     */
+    public IpcDeploymentProfile burstDurationInMs(final long burstDurationInMs)
+    {
+        if (burstDurationInMs <= 0)
+        {
+            throw new IllegalArgumentException("burstDurationInMs must be positive: " + burstDurationInMs);
+        }
+
+        this.burstDurationInMs = burstDurationInMs;
+        return this;
+    }
+
+    /**
+     * Runs the media driver's agent and the engine's Aeron client conductor on the engine's thread, alongside all
+     * of the engine's agents, using a {@link LowResourceEngineScheduler}. This minimises the number of threads
+     * at the cost of the engine's latency.
+     *
+     * @param runDriverOnEngineThread true to run the media driver on the engine's thread.
+     * @return this
+     */
+    public IpcDeploymentProfile runDriverOnEngineThread(final boolean runDriverOnEngineThread)
+    {
+        this.runDriverOnEngineThread = runDriverOnEngineThread;
+        return this;
+    }
+
+    /**
+     * Sets the directory of the media driver, defaults to Aeron's default directory.
+     *
+     * @param aeronDirectoryName the directory of the media driver.
+     * @return this
+     */
+    public IpcDeploymentProfile aeronDirectoryName(final String aeronDirectoryName)
+    {
+        this.aeronDirectoryName = aeronDirectoryName;
+        return this;
+    }
+
+    /**
+     * Launch the embedded media driver for this profile.
+     *
+     * @return this
+     * @throws IllegalStateException if the media driver has already been launched.
+     */
+    public IpcDeploymentProfile launchMediaDriver()
+    {
+        if (mediaDriver != null)
+        {
+            throw new IllegalStateException("The media driver has already been launched");
+        }
+
+        mediaDriver = MediaDriver.launch(mediaDriverContext());
+        aeronDirectoryName = mediaDriver.aeronDirectoryName();
+        return this;
+    }
+
+    /**
+     * Create the context of the media driver for this profile, for applications that launch it themselves.
+     *
+     * @return the context of the media driver for this profile.
+     */
+    public MediaDriver.Context mediaDriverContext()
+    {
+        final MediaDriver.Context context = new MediaDriver.Context()
+            .threadingMode(runDriverOnEngineThread ? ThreadingMode.INVOKER : ThreadingMode.SHARED)
+            .dirDeleteOnStart(true)
+            .ipcTermBufferLength(termBufferLength())
+            .ipcMtuLength(mtuLength());
+
+        if (aeronDirectoryName != null)
+        {
+            context.aeronDirectoryName(aeronDirectoryName);
+        }
+
+        return context;
+    }
+
+    /**
+     * Configure an engine to use this profile's media driver over IPC.
+     *
+     * @param configuration the engine's configuration.
+     * @return the engine's configuration.
+     * @throws IllegalStateException if the driver runs on the engine's thread but hasn't been launched.
+     */
+    public EngineConfiguration applyTo(final EngineConfiguration configuration)
+    {
+        configuration.libraryAeronChannel(IPC_CHANNEL);
+        applyAeronDirectory(configuration);
+
+        if (runDriverOnEngineThread)
+        {
+            if (mediaDriver == null)
+            {
+                throw new IllegalStateException(
+                    "The media driver must be launched before an engine can run it on its thread");
+            }
+
+            configuration.scheduler(new LowResourceEngineScheduler(mediaDriver.sharedAgentInvoker()));
+        }
+
+        return configuration;
+    }
+
+    /**
+     * Configure a library to use this profile's media driver over IPC.
+     *
+     * @param configuration the library's configuration.
+     * @return the library's configuration.
+     */
+    public LibraryConfiguration applyTo(final LibraryConfiguration configuration)
+    {
+        configuration.libraryAeronChannels(singletonList(IPC_CHANNEL));
+        applyAeronDirectory(configuration);
+        return configuration;
+    }
+
+    private void applyAeronDirectory(final CommonConfiguration configuration)
+    {
+        if (aeronDirectoryName != null)
+        {
+            configuration.aeronContext().aeronDirectoryName(aeronDirectoryName);
+        }
+    }
+
+    /**
+     * Get the length of each term of the IPC publications' log buffers.
+     *
+     * @return the length in bytes of each term.
+     */
+    public int termBufferLength()
+    {
+        final long frameLength = BitUtil.align(averageMessageLength + FRAMING_LENGTH, FRAME_ALIGNMENT);
+        final long messagesPerSecond = (long)expectedMessagesPerSecond + expectedSessions;
+        final long burstLength = messagesPerSecond * frameLength * burstDurationInMs / 1000;
+
+        // An IPC publication's window is a term, unless configured otherwise, and its longest message is an eighth
+        // of a term.
+        final long requiredLength = Math.max(Math.max(burstLength, maxFrameLength() * 8L), TERM_MIN_LENGTH);
+        if (requiredLength > TERM_MAX_LENGTH)
+        {
+            return TERM_MAX_LENGTH;
+        }
+
+        return BitUtil.findNextPositivePowerOfTwo((int)requiredLength);
+    }
+
+    /**
+     * Get the number of bytes that a publisher can be ahead of its slowest subscriber before being back pressured.
+     *
+     * @return the length in bytes of the publication window.
+     */
+    public int publicationWindowLength()
+    {
+        return Configuration.ipcPublicationTermWindowLength(termBufferLength());
+    }
+
+    /**
+     * Get the length of the log buffer that each IPC publication maps.
+     *
+     * @return the length in bytes of each log buffer.
+     */
+    public long logBufferLength()
+    {
+        return 3L * termBufferLength() + LOG_META_DATA_LENGTH;
+    }
+
+    /**
+     * Get the IPC MTU, which is long enough that the longest message isn't fragmented.
+     *
+     * @return the IPC MTU in bytes.
+     */
+    public int mtuLength()
+    {
+        return Math.min(maxFrameLength(), Configuration.MAX_UDP_PAYLOAD_LENGTH);
+    }
+
+    public MediaDriver mediaDriver()
+    {
+        return mediaDriver;
+    }
+
+    public String aeronDirectoryName()
+    {
+        return aeronDirectoryName;
+    }
+
+    private int maxFrameLength()
+    {
+        return BitUtil.align(maxMessageLength + FRAMING_LENGTH, FRAME_ALIGNMENT);
+    }
+
+    private static int requirePositive(final int value, final String name)
+    {
+        if (value <= 0)
+        {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+
+        return value;
+    }
+
+    public void close()
+    {
+        CloseHelper.close(mediaDriver);
+        mediaDriver = null;
+    }
+
+    public String toString()
+    {
+        return "IpcDeploymentProfile{" +
+            "expectedMessagesPerSecond=" + expectedMessagesPerSecond +
+            ", expectedSessions=" + expectedSessions +
+            ", averageMessageLength=" + averageMessageLength +
+            ", maxMessageLength=" + maxMessageLength +
+            ", burstDurationInMs=" + burstDurationInMs +
+            ", runDriverOnEngineThread=" + runDriverOnEngineThread +
+            ", termBufferLength=" + termBufferLength() +
+            ", publicationWindowLength=" + publicationWindowLength() +
+            ", logBufferLength=" + logBufferLength() +
+            ", mtuLength=" + mtuLength() +
+            '}';
+    }
+}
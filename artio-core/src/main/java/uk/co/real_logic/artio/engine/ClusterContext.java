@@ -19,6 +19,7 @@ import io.aeron.Aeron;
 import io.aeron.ExclusivePublication;
 import io.aeron.Subscription;
 import org.agrona.ErrorHandler;
+import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.CompositeAgent;
 import uk.co.real_logic.artio.FixCounters;
 import uk.co.real_logic.artio.StreamInformation;
@@ -30,6 +31,10 @@ import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.protocol.Streams;
 import uk.co.real_logic.artio.replication.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static uk.co.real_logic.artio.GatewayProcess.INBOUND_LIBRARY_STREAM;
 import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.closeAll;
@@ -66,7 +71,7 @@ class ClusterContext extends EngineContext
             StreamInformation.print("inboundPublication", inboundPublication, configuration);
             clusterAgent = node(configuration, fixCounters, aeron, channel, engineDescriptorStore);
             newStreams(clusterAgent.clusterStreams());
-            newIndexers(inboundArchiveReader(), outboundArchiveReader(), null);
+            newIndexers(dataStream, INBOUND_LIBRARY_STREAM, dataStream, OUTBOUND_LIBRARY_STREAM, null);
 
             replayer = newReplayer(replayPublication, outboundArchiveReader());
 
@@ -93,14 +98,11 @@ class ClusterContext extends EngineContext
 
             localOutboundArchiver.positionHandler(positionSender);
 
-            archivingAgent = new CompositeAgent(
-                inboundIndexer,
-                outboundIndexer,
-                clusterAgent,
-                replayer,
-                localInboundArchiver,
-                localOutboundArchiver,
-                positionSender);
+            final List<Agent> agents = new ArrayList<>();
+            addIndexingAgents(agents);
+            Collections.addAll(
+                agents, clusterAgent, replayer, localInboundArchiver, localOutboundArchiver, positionSender);
+            archivingAgent = new CompositeAgent(agents);
         }
         catch (final Exception e)
         {
@@ -16,10 +16,12 @@
 package uk.co.real_logic.artio.engine;
 
 import org.agrona.CloseHelper;
+import org.agrona.IoUtil;
 import org.agrona.collections.IntHashSet;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.AdaptiveIdleStrategy;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.decoder.*;
 import uk.co.real_logic.artio.engine.framer.TcpChannelSupplier;
@@ -66,6 +68,10 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      * Property name for size of logging index files
      */
     public static final String REPLAY_INDEX_FILE_SIZE_PROP = "logging.index.size";
+    /**
+     * Property name for size of secondary index files
+     */
+    public static final String SECONDARY_INDEX_FILE_SIZE_PROP = "logging.secondary.index.size";
 
     // Care needs to be taken when setting the fragment limits, and buffer sizes
     // The inbound bytes received and buffer sizes should always be set low enough
@@ -88,6 +94,19 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      * Property name for the size in bytes of the receiver end point's framing buffer.
      */
     public static final String RECEIVER_BUFFER_SIZE_PROP = "fix.core.receiver_buffer_size";
+    /**
+     * Property name for the size in bytes of the buffer that each receiver end point keeps whilst idle when receive
+     * buffers are pooled, 0 to disable pooling
+     */
+    public static final String RECEIVER_RESIDUAL_BUFFER_SIZE_PROP = "fix.core.receiver_residual_buffer_size";
+    /**
+     * Property name for the size in bytes of the largest pooled receive buffer, 0 for the receiver buffer size
+     */
+    public static final String RECEIVER_MAX_BUFFER_SIZE_PROP = "fix.core.receiver_max_buffer_size";
+    /**
+     * Property name for the maximum number of bytes of free receive buffers that the pool keeps for reuse
+     */
+    public static final String RECEIVE_BUFFER_POOL_MAX_FREE_BYTES_PROP = "fix.core.receive_buffer_pool_max_free_bytes";
     /**
      * Property name for the size in bytes of the TCP socket's receive buffer.
      */
@@ -108,10 +127,57 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      * Property name for the maximum number of bytes to allow in the quarantine buffer before disconnection
      */
     public static final String SENDER_MAX_BYTES_IN_BUFFER_PROP = "fix.core.sender_max_bytes_in_buffer";
+    /**
+     * Property name for the size in bytes of the in memory part of each connection's spill buffer, 0 to disable
+     */
+    public static final String SENDER_SPILL_BUFFER_SIZE_PROP = "fix.core.sender_spill_buffer_size";
+    /**
+     * Property name for the number of bytes per unit of session weight that outbound scheduling lets a session send
+     * per duty cycle
+     */
+    public static final String OUTBOUND_SCHEDULER_QUANTUM_PROP = "fix.core.outbound_scheduler_quantum";
+    /**
+     * Property name for the number of bytes per unit of library weight that outbound scheduling lets a library send
+     * per duty cycle
+     */
+    public static final String OUTBOUND_LIBRARY_BYTE_BUDGET_PROP = "fix.core.outbound_library_byte_budget";
+    /**
+     * Property name for the maximum number of bytes that outbound scheduling queues before back pressuring libraries
+     */
+    public static final String OUTBOUND_MAX_QUEUED_BYTES_PROP = "fix.core.outbound_max_queued_bytes";
+    /**
+     * Property name for the maximum number of messages per second that each session can receive, 0 for unlimited
+     */
+    public static final String INBOUND_MESSAGE_RATE_LIMIT_PROP = "fix.core.inbound_message_rate_limit";
+    /**
+     * Property name for the maximum number of bytes per second that each session can receive, 0 for unlimited
+     */
+    public static final String INBOUND_BYTE_RATE_LIMIT_PROP = "fix.core.inbound_byte_rate_limit";
     /**
      * Property name for the timeout before a connection that hasn't sent a logon is disconnected
      */
     public static final String NO_LOGON_DISCONNECT_TIMEOUT_PROP = "fix.core.no_logon_disconnect";
+    /**
+     * Property name for the interval in milliseconds between checks for changes to the session ids that are sent
+     * to a warm standby
+     */
+    public static final String STANDBY_SNAPSHOT_INTERVAL_IN_MS_PROP = "fix.core.standby_snapshot_interval";
+    /**
+     * Property name for the number of archived bytes that a warm standby can fall behind by before an error is
+     * reported, 0 for unlimited
+     */
+    public static final String STANDBY_MAX_LAG_IN_BYTES_PROP = "fix.core.standby_max_lag";
+    /**
+     * Property name for the maximum number of connections whose state is published in the session state table,
+     * 0 to not publish a session state table
+     */
+    public static final String SESSION_STATE_TABLE_CAPACITY_PROP = "fix.core.session_state_table_capacity";
+    /**
+     * Property name for the interval in milliseconds between refreshes of the sequence numbers and states in the
+     * session state table
+     */
+    public static final String SESSION_STATE_TABLE_REFRESH_INTERVAL_IN_MS_PROP =
+        "fix.core.session_state_table_refresh_interval";
 
     // ------------------------------------------------
     //          Configuration Defaults
@@ -119,6 +185,7 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
 
     public static final String DEFAULT_LOG_FILE_DIR = "logs";
     public static final int DEFAULT_REPLAY_INDEX_FILE_SIZE = 2 * 1024 * 1024 + INITIAL_RECORD_OFFSET;
+    public static final int DEFAULT_SECONDARY_INDEX_FILE_SIZE = 64 * 1024 * 1024;
     public static final int DEFAULT_LOGGER_CACHE_NUM_SETS = 8;
     public static final int DEFAULT_LOGGER_CACHE_SET_SIZE = 4;
 
@@ -126,14 +193,29 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     public static final int DEFAULT_REPLAY_FRAGMENT_LIMIT = 5;
     public static final int DEFAULT_INBOUND_BYTES_RECEIVED_LIMIT = 8 * 1024;
     public static final int DEFAULT_RECEIVER_BUFFER_SIZE = 16 * 1024;
+    public static final int DEFAULT_RECEIVER_RESIDUAL_BUFFER_SIZE = 0;
+    public static final int DEFAULT_RECEIVER_MAX_BUFFER_SIZE = 0;
+    public static final int DEFAULT_RECEIVE_BUFFER_POOL_MAX_FREE_BYTES = 64 * 1024 * 1024;
     public static final int DEFAULT_RECEIVER_SOCKET_BUFFER_SIZE = 1024 * 1024;
     public static final int DEFAULT_SENDER_SOCKET_BUFFER_SIZE = 1024 * 1024;
     public static final int DEFAULT_SEQUENCE_NUMBER_INDEX_SIZE = 8 * 1024 * 1024;
     public static final int DEFAULT_SESSION_ID_BUFFER_SIZE = 4 * 1024 * 1024;
     public static final int DEFAULT_SENDER_MAX_BYTES_IN_BUFFER = 4 * 1024 * 1024;
+    public static final int DEFAULT_SENDER_SPILL_BUFFER_SIZE = 0;
+    public static final int DEFAULT_SCHEDULED_SENDER_SPILL_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_OUTBOUND_SCHEDULER_QUANTUM = 4 * 1024;
+    public static final int DEFAULT_OUTBOUND_LIBRARY_BYTE_BUDGET = 64 * 1024;
+    public static final int DEFAULT_OUTBOUND_SCHEDULER_MAX_QUEUED_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_INBOUND_MESSAGE_RATE_LIMIT = 0;
+    public static final int DEFAULT_INBOUND_BYTE_RATE_LIMIT = 0;
     public static final int DEFAULT_NO_LOGON_DISCONNECT_TIMEOUT = (int)SECONDS.toMillis(5);
     public static final int DEFAULT_CLUSTER_TIMEOUT_IN_MS = 1000;
+    public static final int DEFAULT_STANDBY_SNAPSHOT_INTERVAL_IN_MS = 1000;
+    public static final int DEFAULT_STANDBY_MAX_LAG_IN_BYTES = 64 * 1024 * 1024;
+    public static final int DEFAULT_SESSION_STATE_TABLE_CAPACITY = 1024;
+    public static final int DEFAULT_SESSION_STATE_TABLE_REFRESH_INTERVAL_IN_MS = 1000;
     public static final String DEFAULT_SESSION_ID_FILE = "session_id_buffer";
+    public static final String DEFAULT_SESSION_STATE_TABLE_FILE = "session_state_table";
     public static final String DEFAULT_SEQUENCE_NUMBERS_SENT_FILE = "sequence_numbers_sent";
     public static final String DEFAULT_SEQUENCE_NUMBERS_RECEIVED_FILE = "sequence_numbers_received";
     public static final short NO_NODE_ID = -1;
@@ -160,6 +242,10 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private String host = null;
     private int port;
     private int replayIndexFileSize = getInteger(REPLAY_INDEX_FILE_SIZE_PROP, DEFAULT_REPLAY_INDEX_FILE_SIZE);
+    private int secondaryIndexFileSize = getInteger(SECONDARY_INDEX_FILE_SIZE_PROP, DEFAULT_SECONDARY_INDEX_FILE_SIZE);
+    private int[] archiveIndexedTags = new int[0];
+    private boolean archiveTimeIndex = false;
+    private boolean parallelIndexing = false;
     private String logFileDir = getProperty(LOG_FILE_DIR_PROP, DEFAULT_LOG_FILE_DIR);
     private int loggerCacheNumSets = DEFAULT_LOGGER_CACHE_NUM_SETS;
     private int loggerCacheSetSize = DEFAULT_LOGGER_CACHE_SET_SIZE;
@@ -172,11 +258,20 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private MappedFile sentSequenceNumberIndex;
     private MappedFile receivedSequenceNumberIndex;
     private MappedFile sessionIdBuffer;
+    private MappedFile sessionStateTable;
     private Set<String> gapfillOnReplayMessageTypes = new HashSet<>(DEFAULT_GAPFILL_ON_REPLAY_MESSAGE_TYPES);
     private String clusterAeronChannel = null;
     private short nodeId = NO_NODE_ID;
     private IntHashSet otherNodes = new IntHashSet();
     private long clusterTimeoutIntervalInMs = DEFAULT_CLUSTER_TIMEOUT_IN_MS;
+    private String standbyAeronChannel = null;
+    private long standbySnapshotIntervalInMs =
+        getInteger(STANDBY_SNAPSHOT_INTERVAL_IN_MS_PROP, DEFAULT_STANDBY_SNAPSHOT_INTERVAL_IN_MS);
+    private long standbyMaxLagInBytes = getInteger(STANDBY_MAX_LAG_IN_BYTES_PROP, DEFAULT_STANDBY_MAX_LAG_IN_BYTES);
+    private int sessionStateTableCapacity =
+        getInteger(SESSION_STATE_TABLE_CAPACITY_PROP, DEFAULT_SESSION_STATE_TABLE_CAPACITY);
+    private long sessionStateTableRefreshIntervalInMs = getInteger(
+        SESSION_STATE_TABLE_REFRESH_INTERVAL_IN_MS_PROP, DEFAULT_SESSION_STATE_TABLE_REFRESH_INTERVAL_IN_MS);
 
     private int outboundLibraryFragmentLimit =
         getInteger(OUTBOUND_LIBRARY_FRAGMENT_LIMIT_PROP, DEFAULT_OUTBOUND_LIBRARY_FRAGMENT_LIMIT);
@@ -186,6 +281,12 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         getInteger(INBOUND_BYTES_RECEIVED_LIMIT_PROP, DEFAULT_INBOUND_BYTES_RECEIVED_LIMIT);
     private int receiverBufferSize =
         getInteger(RECEIVER_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_BUFFER_SIZE);
+    private int receiverResidualBufferSize =
+        getInteger(RECEIVER_RESIDUAL_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_RESIDUAL_BUFFER_SIZE);
+    private int receiverMaxBufferSize =
+        getInteger(RECEIVER_MAX_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_MAX_BUFFER_SIZE);
+    private int receiveBufferPoolMaxFreeBytes =
+        getInteger(RECEIVE_BUFFER_POOL_MAX_FREE_BYTES_PROP, DEFAULT_RECEIVE_BUFFER_POOL_MAX_FREE_BYTES);
     private int receiverSocketBufferSize =
         getInteger(RECEIVER_SOCKET_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_SOCKET_BUFFER_SIZE);
     private int senderSocketBufferSize =
@@ -196,6 +297,18 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         getInteger(SESSION_ID_BUFFER_SIZE_PROP, DEFAULT_SESSION_ID_BUFFER_SIZE);
     private int senderMaxBytesInBuffer =
         getInteger(SENDER_MAX_BYTES_IN_BUFFER_PROP, DEFAULT_SENDER_MAX_BYTES_IN_BUFFER);
+    private int senderSpillBufferSize =
+        getInteger(SENDER_SPILL_BUFFER_SIZE_PROP, DEFAULT_SENDER_SPILL_BUFFER_SIZE);
+    private int outboundSchedulerQuantum =
+        getInteger(OUTBOUND_SCHEDULER_QUANTUM_PROP, DEFAULT_OUTBOUND_SCHEDULER_QUANTUM);
+    private int outboundLibraryByteBudget =
+        getInteger(OUTBOUND_LIBRARY_BYTE_BUDGET_PROP, DEFAULT_OUTBOUND_LIBRARY_BYTE_BUDGET);
+    private int outboundSchedulerMaxQueuedBytes =
+        getInteger(OUTBOUND_MAX_QUEUED_BYTES_PROP, DEFAULT_OUTBOUND_SCHEDULER_MAX_QUEUED_BYTES);
+    private int inboundMessageRateLimit =
+        getInteger(INBOUND_MESSAGE_RATE_LIMIT_PROP, DEFAULT_INBOUND_MESSAGE_RATE_LIMIT);
+    private int inboundByteRateLimit =
+        getInteger(INBOUND_BYTE_RATE_LIMIT_PROP, DEFAULT_INBOUND_BYTE_RATE_LIMIT);
     private int noLogonDisconnectTimeoutInMs =
         getInteger(NO_LOGON_DISCONNECT_TIMEOUT_PROP, DEFAULT_NO_LOGON_DISCONNECT_TIMEOUT);
 
@@ -203,6 +316,8 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private Function<EngineConfiguration, TcpChannelSupplier> channelSupplierFactory = TcpChannelSupplier::new;
     private RoleHandler roleHandler = ClusterConfiguration.DEFAULT_NODE_HANDLER;
     private SessionPersistenceStrategy sessionPersistenceStrategy;
+    private OutboundWeightStrategy outboundWeightStrategy = null;
+    private InboundRateLimitAction inboundRateLimitAction = InboundRateLimitAction.DELAY;
     private long slowConsumerTimeoutInMs = DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS;
     private EngineScheduler scheduler = new DefaultEngineScheduler();
     private ReplayHandler replayHandler = DEFAULT_REPLAY_HANDLER;
@@ -239,6 +354,58 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Enables pooling of receive buffers by setting the size of the buffer that each connection keeps whilst it's
+     * idle, 0 disables pooling.
+     *
+     * Without pooling every connection allocates its own receive buffer of {@link #receiverBufferSize()}. With
+     * pooling a connection only keeps this much smaller residual buffer, which is enough for small messages and
+     * partial messages. Once it fills up the connection borrows a buffer of {@link #receiverBufferSize()} from a
+     * pool shared by all connections and gives it back once there's no more data waiting on its socket. A
+     * connection receiving a message that doesn't fit into its buffer borrows one twice as large, up to
+     * {@link #receiverMaxBufferSize()}.
+     *
+     * @param receiverResidualBufferSize the size in bytes of each connection's residual buffer.
+     * @return this
+     * @see EngineConfiguration#RECEIVER_RESIDUAL_BUFFER_SIZE_PROP
+     */
+    public EngineConfiguration receiverResidualBufferSize(final int receiverResidualBufferSize)
+    {
+        this.receiverResidualBufferSize = receiverResidualBufferSize;
+        return this;
+    }
+
+    /**
+     * Sets the size of the largest receive buffer that a connection can borrow when receive buffers are pooled.
+     * This determines the maximum size of message that can be received over the wire when pooling is enabled.
+     *
+     * @param receiverMaxBufferSize the size in bytes of the largest pooled receive buffer, 0 for
+     *                              {@link #receiverBufferSize()}.
+     * @return this
+     * @see EngineConfiguration#receiverResidualBufferSize(int)
+     * @see EngineConfiguration#RECEIVER_MAX_BUFFER_SIZE_PROP
+     */
+    public EngineConfiguration receiverMaxBufferSize(final int receiverMaxBufferSize)
+    {
+        this.receiverMaxBufferSize = receiverMaxBufferSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of free receive buffers that the pool keeps for reuse, buffers that are given
+     * back beyond this are freed.
+     *
+     * @param receiveBufferPoolMaxFreeBytes the maximum number of bytes of free receive buffers.
+     * @return this
+     * @see EngineConfiguration#receiverResidualBufferSize(int)
+     * @see EngineConfiguration#RECEIVE_BUFFER_POOL_MAX_FREE_BYTES_PROP
+     */
+    public EngineConfiguration receiveBufferPoolMaxFreeBytes(final int receiveBufferPoolMaxFreeBytes)
+    {
+        this.receiveBufferPoolMaxFreeBytes = receiveBufferPoolMaxFreeBytes;
+        return this;
+    }
+
     /**
      * Sets the receiver socket buffer size.
      *
@@ -291,6 +458,61 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the size of secondary index files, each index holds as many messages as fit into its file.
+     *
+     * @param secondaryIndexFileSize the size of secondary index files.
+     * @return this
+     * @see EngineConfiguration#SECONDARY_INDEX_FILE_SIZE_PROP
+     */
+    public EngineConfiguration secondaryIndexFileSize(final int secondaryIndexFileSize)
+    {
+        this.secondaryIndexFileSize = secondaryIndexFileSize;
+        return this;
+    }
+
+    /**
+     * Sets the tags, for example ClOrdID (11) or OrderID (37), that archived messages are indexed by so that they
+     * can be found with a {@link uk.co.real_logic.artio.engine.logger.SecondaryIndexQuery}.
+     *
+     * @param archiveIndexedTags the tags to index archived messages by.
+     * @return this
+     */
+    public EngineConfiguration archiveIndexedTags(final int... archiveIndexedTags)
+    {
+        this.archiveIndexedTags = archiveIndexedTags.clone();
+        return this;
+    }
+
+    /**
+     * Sets whether archived messages are indexed by their timestamp so that they can be found with a
+     * {@link uk.co.real_logic.artio.engine.logger.SecondaryIndexQuery}.
+     *
+     * @param archiveTimeIndex true to index archived messages by their timestamp.
+     * @return this
+     */
+    public EngineConfiguration archiveTimeIndex(final boolean archiveTimeIndex)
+    {
+        this.archiveTimeIndex = archiveTimeIndex;
+        return this;
+    }
+
+    /**
+     * Sets whether each of the archive's indexes is run by its own
+     * {@link uk.co.real_logic.artio.engine.logger.Indexer} on its own thread, rather than all of them being run in
+     * series on the archiving agent's thread. This lets indexes progress independently and catches them up with
+     * the archive concurrently at startup, at the cost of a thread and a subscription per index.
+     *
+     * @param parallelIndexing true to run each index on its own thread.
+     * @return this
+     * @see uk.co.real_logic.artio.engine.logger.ParallelIndexer
+     */
+    public EngineConfiguration parallelIndexing(final boolean parallelIndexing)
+    {
+        this.parallelIndexing = parallelIndexing;
+        return this;
+    }
+
     /**
      * Sets the set size of the logger's caches.
      * <p>
@@ -360,7 +582,9 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     }
 
     /**
-     * Sets the idle strategy for the Framer thread.
+     * Sets the idle strategy for the Framer thread. If this is an {@link AdaptiveIdleStrategy} then the time
+     * the thread spends idle and working is also exported through the counters file, so it mustn't be the
+     * same instance as the idle strategy of another agent.
      *
      * @param framerIdleStrategy the idle strategy for the Framer thread.
      * @return this
@@ -372,7 +596,9 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     }
 
     /**
-     * Sets the idle strategy for the Logger thread.
+     * Sets the idle strategy for the Logger thread. If this is an {@link AdaptiveIdleStrategy} then the time
+     * the thread spends idle and working is also exported through the counters file, so it mustn't be the
+     * same instance as the idle strategy of another agent.
      *
      * @param archiverIdleStrategy the idle strategy for the Logger thread.
      * @return this
@@ -428,6 +654,138 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the size of the in memory part of each connection's spill buffer, 0 disables spill buffers.
+     *
+     * By default when a connection becomes a slow consumer the messages that it hasn't written are re-read from
+     * the library's stream, which holds the stream back for every other session of that library. With a spill
+     * buffer the unwritten bytes are copied out of the stream instead, first into an off-heap buffer of this size
+     * and then into a memory mapped file in the log file directory, so the stream keeps being consumed and the slow
+     * connection drains independently. The connection is still disconnected once it has more than
+     * {@link #senderMaxBytesInBuffer()} bytes waiting.
+     *
+     * @param senderSpillBufferSize the size in bytes of the in memory part of each connection's spill buffer.
+     * @return this
+     * @see EngineConfiguration#SENDER_SPILL_BUFFER_SIZE_PROP
+     */
+    public EngineConfiguration senderSpillBufferSize(final int senderSpillBufferSize)
+    {
+        this.senderSpillBufferSize = senderSpillBufferSize;
+        return this;
+    }
+
+    /**
+     * Enables outbound scheduling, where messages from libraries are queued per connection and then sent in a fair
+     * order each duty cycle rather than in the order that they were published. This stops a library that publishes
+     * a burst of messages for one session from delaying the messages of other sessions in the same duty cycle.
+     *
+     * Connections are served by deficit round robin, each session can send {@link #outboundSchedulerQuantum()}
+     * bytes per unit of its weight per duty cycle and each library {@link #outboundLibraryByteBudget()} bytes per
+     * unit of its weight. Admin messages, such as heartbeats and logouts, are sent ahead of the round robin. Messages
+     * are never reordered within a session.
+     *
+     * Scheduled messages are sent after their position in the stream has been consumed, so scheduling uses spill
+     * buffers for slow consumers: if {@link #senderSpillBufferSize()} isn't set then it defaults to
+     * {@link #DEFAULT_SCHEDULED_SENDER_SPILL_BUFFER_SIZE}. Only applies to engines that aren't clustered.
+     *
+     * @param outboundWeightStrategy the weights of sessions and libraries, null to disable outbound scheduling.
+     * @return this
+     * @see OutboundWeightStrategy#equalWeights()
+     */
+    public EngineConfiguration outboundWeightStrategy(final OutboundWeightStrategy outboundWeightStrategy)
+    {
+        this.outboundWeightStrategy = outboundWeightStrategy;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes per unit of session weight that outbound scheduling lets a session send per duty
+     * cycle.
+     *
+     * @param outboundSchedulerQuantum the number of bytes per unit of session weight.
+     * @return this
+     * @see EngineConfiguration#OUTBOUND_SCHEDULER_QUANTUM_PROP
+     */
+    public EngineConfiguration outboundSchedulerQuantum(final int outboundSchedulerQuantum)
+    {
+        this.outboundSchedulerQuantum = outboundSchedulerQuantum;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes per unit of library weight that outbound scheduling lets all of a library's sessions
+     * send in total per duty cycle.
+     *
+     * @param outboundLibraryByteBudget the number of bytes per unit of library weight.
+     * @return this
+     * @see EngineConfiguration#OUTBOUND_LIBRARY_BYTE_BUDGET_PROP
+     */
+    public EngineConfiguration outboundLibraryByteBudget(final int outboundLibraryByteBudget)
+    {
+        this.outboundLibraryByteBudget = outboundLibraryByteBudget;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes that outbound scheduling queues, once this is reached libraries are back
+     * pressured until the queues have drained.
+     *
+     * @param outboundSchedulerMaxQueuedBytes the maximum number of bytes to queue.
+     * @return this
+     * @see EngineConfiguration#OUTBOUND_MAX_QUEUED_BYTES_PROP
+     */
+    public EngineConfiguration outboundSchedulerMaxQueuedBytes(final int outboundSchedulerMaxQueuedBytes)
+    {
+        this.outboundSchedulerMaxQueuedBytes = outboundSchedulerMaxQueuedBytes;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of messages per second that each session can receive from its counter party once it
+     * has logged on, messages over the limit are handled according to {@link #inboundRateLimitAction()}. Each
+     * session can burst up to a second's worth of messages.
+     *
+     * @param inboundMessageRateLimit the maximum number of messages per second, 0 for unlimited.
+     * @return this
+     * @see EngineConfiguration#INBOUND_MESSAGE_RATE_LIMIT_PROP
+     */
+    public EngineConfiguration inboundMessageRateLimit(final int inboundMessageRateLimit)
+    {
+        this.inboundMessageRateLimit = inboundMessageRateLimit;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes per second that each session can receive from its counter party once it has
+     * logged on, messages over the limit are handled according to {@link #inboundRateLimitAction()}. Each session
+     * can burst up to a second's worth of bytes.
+     *
+     * @param inboundByteRateLimit the maximum number of bytes per second, 0 for unlimited.
+     * @return this
+     * @see EngineConfiguration#INBOUND_BYTE_RATE_LIMIT_PROP
+     */
+    public EngineConfiguration inboundByteRateLimit(final int inboundByteRateLimit)
+    {
+        this.inboundByteRateLimit = inboundByteRateLimit;
+        return this;
+    }
+
+    /**
+     * Sets what happens to messages that exceed the inbound rate limits, defaults to
+     * {@link InboundRateLimitAction#DELAY}.
+     *
+     * @param inboundRateLimitAction what happens to messages that exceed the inbound rate limits.
+     * @return this
+     * @see #inboundMessageRateLimit(int)
+     * @see #inboundByteRateLimit(int)
+     */
+    public EngineConfiguration inboundRateLimitAction(final InboundRateLimitAction inboundRateLimitAction)
+    {
+        Objects.requireNonNull(inboundRateLimitAction, "inboundRateLimitAction");
+        this.inboundRateLimitAction = inboundRateLimitAction;
+        return this;
+    }
+
     /**
      * Set the timeout in milliseconds for TCP connections which don't send a logon message.
      *
@@ -496,6 +854,84 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the maximum number of connections whose state is published in the session state table.
+     *
+     * The engine publishes the id, comp ids, owning library, last sequence numbers, state and address of each
+     * connection into a table in its log file directory, which libraries and tools on the same machine can read
+     * with a {@link SessionStateTableReader} rather than asking the engine. Connections beyond the capacity
+     * aren't published.
+     *
+     * @param sessionStateTableCapacity the maximum number of connections, 0 to not publish a session state table.
+     * @return this
+     * @see EngineConfiguration#SESSION_STATE_TABLE_CAPACITY_PROP
+     */
+    public EngineConfiguration sessionStateTableCapacity(final int sessionStateTableCapacity)
+    {
+        this.sessionStateTableCapacity = sessionStateTableCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the interval between refreshes of the sequence numbers and states in the session state table.
+     *
+     * Changes of owner are published as they happen, this interval bounds how stale the sequence numbers and
+     * states are.
+     *
+     * @param sessionStateTableRefreshIntervalInMs the interval in milliseconds.
+     * @return this
+     * @see EngineConfiguration#SESSION_STATE_TABLE_REFRESH_INTERVAL_IN_MS_PROP
+     */
+    public EngineConfiguration sessionStateTableRefreshIntervalInMs(final long sessionStateTableRefreshIntervalInMs)
+    {
+        this.sessionStateTableRefreshIntervalInMs = sessionStateTableRefreshIntervalInMs;
+        return this;
+    }
+
+    /**
+     * Sets the aeron channel that the archive and session ids are streamed over to a warm standby, null to disable.
+     *
+     * Streaming is asynchronous: it reads from the archive after messages have been archived, so a slow or absent
+     * standby never back pressures the engine. The standby is a {@link StandbyEngine} that uses the same channel.
+     * This can't be the library aeron channel and requires both inbound and outbound logging without clustering.
+     *
+     * @param standbyAeronChannel the aeron channel to stream to a warm standby over.
+     * @return this
+     */
+    public EngineConfiguration standbyAeronChannel(final String standbyAeronChannel)
+    {
+        this.standbyAeronChannel = standbyAeronChannel;
+        return this;
+    }
+
+    /**
+     * Sets the interval between checks for changes to the session ids that are sent to a warm standby.
+     *
+     * @param standbySnapshotIntervalInMs the interval in milliseconds.
+     * @return this
+     * @see EngineConfiguration#STANDBY_SNAPSHOT_INTERVAL_IN_MS_PROP
+     */
+    public EngineConfiguration standbySnapshotIntervalInMs(final long standbySnapshotIntervalInMs)
+    {
+        this.standbySnapshotIntervalInMs = standbySnapshotIntervalInMs;
+        return this;
+    }
+
+    /**
+     * Sets the number of archived bytes that a warm standby can fall behind by before an error is reported to the
+     * error handler. The engine isn't back pressured, the error is reported once each time the standby crosses
+     * this lag.
+     *
+     * @param standbyMaxLagInBytes the maximum lag in bytes, 0 for unlimited.
+     * @return this
+     * @see EngineConfiguration#STANDBY_MAX_LAG_IN_BYTES_PROP
+     */
+    public EngineConfiguration standbyMaxLagInBytes(final long standbyMaxLagInBytes)
+    {
+        this.standbyMaxLagInBytes = standbyMaxLagInBytes;
+        return this;
+    }
+
     public EngineConfiguration channelSupplierFactory(final Function<EngineConfiguration, TcpChannelSupplier> value)
     {
         this.channelSupplierFactory = value;
@@ -564,6 +1000,21 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return receiverBufferSize;
     }
 
+    public int receiverResidualBufferSize()
+    {
+        return receiverResidualBufferSize;
+    }
+
+    public int receiverMaxBufferSize()
+    {
+        return receiverMaxBufferSize;
+    }
+
+    public int receiveBufferPoolMaxFreeBytes()
+    {
+        return receiveBufferPoolMaxFreeBytes;
+    }
+
     public int receiverSocketBufferSize()
     {
         return receiverSocketBufferSize;
@@ -594,6 +1045,26 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return replayIndexFileSize;
     }
 
+    public int secondaryIndexFileSize()
+    {
+        return secondaryIndexFileSize;
+    }
+
+    public int[] archiveIndexedTags()
+    {
+        return archiveIndexedTags;
+    }
+
+    public boolean archiveTimeIndex()
+    {
+        return archiveTimeIndex;
+    }
+
+    public boolean parallelIndexing()
+    {
+        return parallelIndexing;
+    }
+
     public int loggerCacheSetSize()
     {
         return loggerCacheSetSize;
@@ -664,6 +1135,11 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return sessionIdBuffer;
     }
 
+    public MappedFile sessionStateTable()
+    {
+        return sessionStateTable;
+    }
+
     public Set<String> gapfillOnReplayMessageTypes()
     {
         return gapfillOnReplayMessageTypes;
@@ -674,6 +1150,46 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return senderMaxBytesInBuffer;
     }
 
+    public int senderSpillBufferSize()
+    {
+        return senderSpillBufferSize;
+    }
+
+    public OutboundWeightStrategy outboundWeightStrategy()
+    {
+        return outboundWeightStrategy;
+    }
+
+    public int outboundSchedulerQuantum()
+    {
+        return outboundSchedulerQuantum;
+    }
+
+    public int outboundLibraryByteBudget()
+    {
+        return outboundLibraryByteBudget;
+    }
+
+    public int outboundSchedulerMaxQueuedBytes()
+    {
+        return outboundSchedulerMaxQueuedBytes;
+    }
+
+    public int inboundMessageRateLimit()
+    {
+        return inboundMessageRateLimit;
+    }
+
+    public int inboundByteRateLimit()
+    {
+        return inboundByteRateLimit;
+    }
+
+    public InboundRateLimitAction inboundRateLimitAction()
+    {
+        return inboundRateLimitAction;
+    }
+
     public int noLogonDisconnectTimeoutInMs()
     {
         return noLogonDisconnectTimeoutInMs;
@@ -704,6 +1220,31 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return clusterTimeoutIntervalInMs;
     }
 
+    public int sessionStateTableCapacity()
+    {
+        return sessionStateTableCapacity;
+    }
+
+    public long sessionStateTableRefreshIntervalInMs()
+    {
+        return sessionStateTableRefreshIntervalInMs;
+    }
+
+    public String standbyAeronChannel()
+    {
+        return standbyAeronChannel;
+    }
+
+    public long standbySnapshotIntervalInMs()
+    {
+        return standbySnapshotIntervalInMs;
+    }
+
+    public long standbyMaxLagInBytes()
+    {
+        return standbyMaxLagInBytes;
+    }
+
     public RoleHandler roleHandler()
     {
         return roleHandler;
@@ -783,6 +1324,32 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
                 sessionBufferSize()));
         }
 
+        if (receiverMaxBufferSize() <= 0)
+        {
+            receiverMaxBufferSize(receiverBufferSize());
+        }
+
+        if (receiverResidualBufferSize() > 0 &&
+            (receiverResidualBufferSize() >= receiverBufferSize() || receiverMaxBufferSize() < receiverBufferSize()))
+        {
+            throw new IllegalArgumentException(String.format(
+                "You cannot set the receiverResidualBufferSize(%d) >= receiverBufferSize(%d) or the " +
+                    "receiverMaxBufferSize(%d) < receiverBufferSize(%d).",
+                receiverResidualBufferSize(),
+                receiverBufferSize(),
+                receiverMaxBufferSize(),
+                receiverBufferSize()));
+        }
+
+        if (standbyAeronChannel() != null &&
+            (isClustered() || !logInboundMessages() || !logOutboundMessages() ||
+            standbyAeronChannel().equals(libraryAeronChannel())))
+        {
+            throw new IllegalArgumentException(
+                "If you are streaming to a standby, then you must enable both inbound and outbound logging, " +
+                "not enable clustering and use a standby aeron channel that isn't the library aeron channel");
+        }
+
         if (sentSequenceNumberIndex() == null)
         {
             sentSequenceNumberIndex = mapFile(DEFAULT_SEQUENCE_NUMBERS_SENT_FILE, sequenceNumberIndexSize);
@@ -808,11 +1375,25 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
             sessionIdBuffer = mapFile(DEFAULT_SESSION_ID_FILE, sessionIdBufferSize);
         }
 
+        if (sessionStateTable() == null && sessionStateTableCapacity() > 0)
+        {
+            // The table only describes the connections of this run of the engine, so it starts afresh.
+            final File file = new File(logFileDir(), DEFAULT_SESSION_STATE_TABLE_FILE);
+            IoUtil.deleteIfExists(file);
+            sessionStateTable = MappedFile.map(
+                file, SessionStateTableDescriptor.tableLength(sessionStateTableCapacity));
+        }
+
         if (sessionPersistenceStrategy() == null)
         {
             sessionPersistenceStrategy(isClustered() ? alwaysReplicated() : alwaysLocallyArchive());
         }
 
+        if (outboundWeightStrategy() != null && !isClustered() && senderSpillBufferSize() <= 0)
+        {
+            senderSpillBufferSize(DEFAULT_SCHEDULED_SENDER_SPILL_BUFFER_SIZE);
+        }
+
         return this;
     }
 
@@ -836,5 +1417,6 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         CloseHelper.close(sentSequenceNumberIndex);
         CloseHelper.close(receivedSequenceNumberIndex);
         CloseHelper.close(sessionIdBuffer);
+        CloseHelper.close(sessionStateTable);
     }
 }
@@ -25,19 +25,22 @@ import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.SystemEpochClock;
 import uk.co.real_logic.artio.Clock;
+import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.FixCounters;
 import uk.co.real_logic.artio.StreamInformation;
 import uk.co.real_logic.artio.engine.logger.*;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.protocol.Streams;
 import uk.co.real_logic.artio.replication.ClusterSubscription;
+import uk.co.real_logic.artio.replication.ClusterableSubscription;
 import uk.co.real_logic.artio.replication.ClusterableStreams;
 import uk.co.real_logic.artio.replication.StreamIdentifier;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
-import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static uk.co.real_logic.artio.GatewayProcess.INBOUND_LIBRARY_STREAM;
 import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.suppressingClose;
@@ -63,6 +66,7 @@ public abstract class EngineContext implements AutoCloseable
     // Indexers are owned by the archivingAgent
     protected Indexer inboundIndexer;
     protected Indexer outboundIndexer;
+    protected ParallelIndexer parallelIndexer;
     protected Agent archivingAgent;
 
     public static EngineContext of(
@@ -112,7 +116,7 @@ public abstract class EngineContext implements AutoCloseable
         this.aeron = aeron;
         this.clock = configuration.clock();
 
-        senderSequenceNumbers = new SenderSequenceNumbers(configuration.framerIdleStrategy());
+        senderSequenceNumbers = new SenderSequenceNumbers();
 
         try
         {
@@ -225,12 +229,14 @@ public abstract class EngineContext implements AutoCloseable
             new SystemEpochClock(),
             configuration.gapfillOnReplayMessageTypes(),
             configuration.replayHandler(),
-            senderSequenceNumbers);
+            senderSequenceNumbers.newReader());
     }
 
     protected void newIndexers(
-        final ArchiveReader inboundArchiveReader,
-        final ArchiveReader outboundArchiveReader,
+        final StreamIdentifier inboundStreamId,
+        final int inboundReservedValueFilter,
+        final StreamIdentifier outboundStreamId,
+        final int outboundReservedValueFilter,
         final Index extraOutboundIndex)
     {
         final int cacheSetSize = configuration.loggerCacheSetSize();
@@ -239,12 +245,10 @@ public abstract class EngineContext implements AutoCloseable
 
         final ReplayIndex replayIndex = newReplayIndex(cacheSetSize, cacheNumSets, logFileDir, INBOUND_LIBRARY_STREAM);
 
-        inboundIndexer = new Indexer(
-            asList(replayIndex, receivedSequenceNumberIndex),
-            inboundArchiveReader,
-            inboundLibraryStreams.subscription("inboundIndexer"),
-            configuration.agentNamePrefix(),
-            inboundCompletionPosition);
+        final List<Index> inboundIndices = new ArrayList<>();
+        inboundIndices.add(replayIndex);
+        inboundIndices.add(receivedSequenceNumberIndex);
+        addSecondaryIndices(inboundIndices, logFileDir, INBOUND_LIBRARY_STREAM);
 
         final List<Index> outboundIndices = new ArrayList<>();
         outboundIndices.add(newReplayIndex(cacheSetSize, cacheNumSets, logFileDir, OUTBOUND_LIBRARY_STREAM));
@@ -253,13 +257,99 @@ public abstract class EngineContext implements AutoCloseable
         {
             outboundIndices.add(extraOutboundIndex);
         }
+        addSecondaryIndices(outboundIndices, logFileDir, OUTBOUND_LIBRARY_STREAM);
 
-        outboundIndexer = new Indexer(
-            outboundIndices,
-            outboundArchiveReader,
-            outboundLibraryStreams.subscription("outboundIndexer"),
-            configuration.agentNamePrefix(),
-            outboundLibraryCompletionPosition);
+        if (configuration.parallelIndexing())
+        {
+            final List<Supplier<Indexer>> indexerFactories = new ArrayList<>();
+            addIndexerFactories(
+                indexerFactories,
+                inboundIndices,
+                inboundStreamId,
+                inboundReservedValueFilter,
+                inboundLibraryStreams,
+                "inboundIndexer",
+                inboundCompletionPosition);
+            addIndexerFactories(
+                indexerFactories,
+                outboundIndices,
+                outboundStreamId,
+                outboundReservedValueFilter,
+                outboundLibraryStreams,
+                "outboundIndexer",
+                outboundLibraryCompletionPosition);
+
+            parallelIndexer = new ParallelIndexer(
+                indexerFactories,
+                CommonConfiguration::backoffIdleStrategy,
+                errorHandler,
+                configuration.agentNamePrefix());
+        }
+        else
+        {
+            inboundIndexer = new Indexer(
+                inboundIndices,
+                archiveReader(inboundStreamId, inboundReservedValueFilter),
+                inboundLibraryStreams.subscription("inboundIndexer"),
+                configuration.agentNamePrefix(),
+                inboundCompletionPosition);
+
+            outboundIndexer = new Indexer(
+                outboundIndices,
+                archiveReader(outboundStreamId, outboundReservedValueFilter),
+                outboundLibraryStreams.subscription("outboundIndexer"),
+                configuration.agentNamePrefix(),
+                outboundLibraryCompletionPosition);
+        }
+    }
+
+    // Each index gets its own indexer, subscription and archive reader so that they don't share any state.
+    private void addIndexerFactories(
+        final List<Supplier<Indexer>> indexerFactories,
+        final List<Index> indices,
+        final StreamIdentifier streamId,
+        final int reservedValueFilter,
+        final Streams streams,
+        final String name,
+        final CompletionPosition completionPosition)
+    {
+        final String agentNamePrefix = configuration.agentNamePrefix();
+        for (int i = 0; i < indices.size(); i++)
+        {
+            final List<Index> index = singletonList(indices.get(i));
+            final ArchiveReader indexArchiveReader = archiveReader(streamId, reservedValueFilter);
+            final ClusterableSubscription subscription = streams.subscription(name + i);
+
+            indexerFactories.add(
+                () -> new Indexer(index, indexArchiveReader, subscription, agentNamePrefix, completionPosition));
+        }
+    }
+
+    protected void addIndexingAgents(final List<Agent> agents)
+    {
+        if (parallelIndexer != null)
+        {
+            agents.add(parallelIndexer);
+        }
+        else
+        {
+            agents.add(inboundIndexer);
+            agents.add(outboundIndexer);
+        }
+    }
+
+    private void addSecondaryIndices(final List<Index> indices, final String logFileDir, final int streamId)
+    {
+        final int indexFileSize = configuration.secondaryIndexFileSize();
+        for (final int tag : configuration.archiveIndexedTags())
+        {
+            indices.add(new TagValueIndex(logFileDir, tag, streamId, indexFileSize, LoggerUtil::map, errorHandler));
+        }
+
+        if (configuration.archiveTimeIndex())
+        {
+            indices.add(new TimeIndex(logFileDir, streamId, indexFileSize, LoggerUtil::map, errorHandler));
+        }
     }
 
     public abstract Streams outboundLibraryStreams();
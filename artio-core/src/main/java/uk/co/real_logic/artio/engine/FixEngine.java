@@ -155,6 +155,8 @@ public final class FixEngine extends GatewayProcess
             scheduler = configuration.scheduler();
             scheduler.configure(configuration.aeronContext());
             init(configuration);
+            initIdleCounters(configuration.framerIdleStrategy(), "Framer");
+            initIdleCounters(configuration.archiverIdleStrategy(), "Archiver");
             this.configuration = configuration;
             engineDescriptorStore = new EngineDescriptorStore(errorHandler);
 
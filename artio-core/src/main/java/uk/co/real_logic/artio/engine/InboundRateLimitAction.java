@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+/**
+ * What the engine does with a message that exceeds its session's inbound rate limit, see
+ * {@link EngineConfiguration#inboundRateLimitAction(InboundRateLimitAction)}.
+ */
+public enum InboundRateLimitAction
+{
+    /**
+     * Stop reading from the session's TCP connection until the rate allows the message, this applies TCP back
+     * pressure to the counter party.
+     */
+    DELAY,
+
+    /**
+     * Pass the message to the session's library marked as rate limited, so that the session rejects it rather than
+     * handing it to the application. Session level messages, such as heartbeats and logouts, are never rejected.
+     */
+    REJECT,
+
+    /**
+     * Disconnect the session.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+/**
+ * Determines the share of the engine's outbound bandwidth that sessions and libraries get when outbound scheduling
+ * is enabled, see {@link EngineConfiguration#outboundWeightStrategy(OutboundWeightStrategy)}.
+ *
+ * Weights are relative, a session with a weight of 4 is allowed to send 4 times as many bytes per duty cycle as a
+ * session with a weight of 1 when both have messages waiting. Weights must be at least 1.
+ */
+public interface OutboundWeightStrategy
+{
+    static OutboundWeightStrategy equalWeights()
+    {
+        return new OutboundWeightStrategy()
+        {
+            public int sessionWeight(final long sessionId)
+            {
+                return 1;
+            }
+
+            public int libraryWeight(final int libraryId)
+            {
+                return 1;
+            }
+        };
+    }
+
+    /**
+     * Get the weight of a session.
+     *
+     * @param sessionId the id of the session, this may be {@link uk.co.real_logic.artio.session.Session#UNKNOWN}
+     *                  for messages sent on a connection before its session has logged on.
+     * @return the weight of the session.
+     */
+    int sessionWeight(long sessionId);
+
+    /**
+     * Get the weight of a library, this scales the number of bytes that all of a library's sessions can send in
+     * total per duty cycle.
+     *
+     * @param libraryId the id of the library.
+     * @return the weight of the library.
+     */
+    int libraryWeight(int libraryId);
+}
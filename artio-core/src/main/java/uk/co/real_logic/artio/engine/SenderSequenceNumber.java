@@ -15,7 +15,9 @@
  */
 package uk.co.real_logic.artio.engine;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import org.agrona.concurrent.AtomicBuffer;
+
+import static uk.co.real_logic.artio.engine.SenderSequenceNumbers.SEQUENCE_NUMBER_OFFSET;
 
 /**
  * Class to notify replays and gap fills of the latest sent sequence
@@ -26,23 +28,33 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class SenderSequenceNumber
 {
     private final long connectionId;
+    private final int slot;
+    private final AtomicBuffer chunk;
+    private final int offset;
     private final SenderSequenceNumbers senderSequenceNumbers;
-    private final AtomicInteger lastSentSequenceNumber = new AtomicInteger();
 
-    SenderSequenceNumber(final long connectionId, final SenderSequenceNumbers senderSequenceNumbers)
+    SenderSequenceNumber(
+        final long connectionId,
+        final int slot,
+        final AtomicBuffer chunk,
+        final int offset,
+        final SenderSequenceNumbers senderSequenceNumbers)
     {
         this.connectionId = connectionId;
+        this.slot = slot;
+        this.chunk = chunk;
+        this.offset = offset;
         this.senderSequenceNumbers = senderSequenceNumbers;
     }
 
     public void onNewMessage(final int sequenceNumber)
     {
-        lastSentSequenceNumber.set(sequenceNumber);
+        chunk.putIntOrdered(offset + SEQUENCE_NUMBER_OFFSET, sequenceNumber);
     }
 
     public int lastSentSequenceNumber()
     {
-        return lastSentSequenceNumber.get();
+        return chunk.getIntVolatile(offset + SEQUENCE_NUMBER_OFFSET);
     }
 
     public long connectionId()
@@ -54,4 +66,19 @@ public class SenderSequenceNumber
     {
         senderSequenceNumbers.onSenderClosed(this);
     }
+
+    int slot()
+    {
+        return slot;
+    }
+
+    AtomicBuffer chunk()
+    {
+        return chunk;
+    }
+
+    int offset()
+    {
+        return offset;
+    }
 }
@@ -15,88 +15,173 @@
  */
 package uk.co.real_logic.artio.engine;
 
-import org.agrona.collections.Long2ObjectHashMap;
-import org.agrona.concurrent.IdleStrategy;
-import org.agrona.concurrent.OneToOneConcurrentArrayQueue;
+import org.agrona.BufferUtil;
+import org.agrona.collections.IntArrayList;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
-import java.util.function.Consumer;
+import java.util.Arrays;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
 
 /**
- * For publishing the last sent sequence number to the replay system.
+ * The last sent sequence number of each connection, written by the Framer and read when replaying or gap filling.
+ *
+ * Each sender has a slot in a preallocated off-heap array of slots, holding its connection id and last sent
+ * sequence number, which the Framer writes with ordered stores, so the Framer never waits on a reader. Each reader
+ * thread has its own {@link Reader}, which finds a connection's slot by scanning the slots that have been used and
+ * then remembers it. Slots are reused once their sender closes and the array grows by adding chunks, existing chunks
+ * are never moved.
  */
 public class SenderSequenceNumbers
 {
     public static final int UNKNOWN_SESSION = -1;
 
-    private static final int CAPACITY = 10;
+    static final long FREE_SLOT = Long.MIN_VALUE;
 
-    // Framer state
-    private final IdleStrategy framerIdleStrategy;
+    static final int CONNECTION_ID_OFFSET = 0;
+    static final int SEQUENCE_NUMBER_OFFSET = CONNECTION_ID_OFFSET + 8;
+    static final int SLOT_LENGTH = 16;
 
-    // Written on Framer, Read on Indexer
-    private final OneToOneConcurrentArrayQueue<SenderSequenceNumber> queue
-        = new OneToOneConcurrentArrayQueue<>(CAPACITY);
+    private static final int SLOTS_PER_CHUNK = 1024;
+    private static final int CHUNK_LENGTH = SLOTS_PER_CHUNK * SLOT_LENGTH;
+    private static final int MISSING_SLOT = -1;
 
-    // Indexer State
-    private final Long2ObjectHashMap<SenderSequenceNumber> connectionIdToSequencePosition
-        = new Long2ObjectHashMap<>();
-    private final Consumer<SenderSequenceNumber> onSenderSequenceNumberFunc
-        = this::onSenderSequenceNumber;
+    // Framer state
+    private final IntArrayList freeSlots = new IntArrayList();
 
-    public SenderSequenceNumbers(final IdleStrategy framerIdleStrategy)
-    {
-        this.framerIdleStrategy = framerIdleStrategy;
-    }
+    // Written on Framer, Read on Replayer or GapFiller
+    private volatile AtomicBuffer[] chunks = { newChunk() };
+    private volatile int usedSlots;
 
     // Called on Framer Thread
     public SenderSequenceNumber onNewSender(final long connectionId)
     {
-        final SenderSequenceNumber position = new SenderSequenceNumber(connectionId, this);
-        enqueue(position);
-        return position;
+        final int slot = freeSlots.isEmpty() ? newSlot() : freeSlots.popInt();
+        final AtomicBuffer chunk = chunks[slot / SLOTS_PER_CHUNK];
+        final int offset = (slot % SLOTS_PER_CHUNK) * SLOT_LENGTH;
+
+        // The sequence number is reset before the connection id is published so that a reader never sees the
+        // previous sender's sequence number against the new connection id.
+        chunk.putIntOrdered(offset + SEQUENCE_NUMBER_OFFSET, 0);
+        chunk.putLongOrdered(offset + CONNECTION_ID_OFFSET, connectionId);
+
+        return new SenderSequenceNumber(connectionId, slot, chunk, offset, this);
     }
 
     // Called on Framer Thread
     void onSenderClosed(final SenderSequenceNumber senderSequenceNumber)
     {
-        enqueue(senderSequenceNumber);
+        final AtomicBuffer chunk = senderSequenceNumber.chunk();
+        final int connectionIdOffset = senderSequenceNumber.offset() + CONNECTION_ID_OFFSET;
+        if (chunk.getLong(connectionIdOffset) == senderSequenceNumber.connectionId())
+        {
+            chunk.putLongOrdered(connectionIdOffset, FREE_SLOT);
+            freeSlots.pushInt(senderSequenceNumber.slot());
+        }
     }
 
-    // We receive the object to either add or remove it.
-    private void enqueue(final SenderSequenceNumber senderSequenceNumber)
+    private int newSlot()
     {
-        while (!queue.offer(senderSequenceNumber))
+        final int slot = usedSlots;
+        final AtomicBuffer[] chunks = this.chunks;
+        if (slot == chunks.length * SLOTS_PER_CHUNK)
         {
-            framerIdleStrategy.idle();
+            final AtomicBuffer[] newChunks = Arrays.copyOf(chunks, chunks.length + 1);
+            newChunks[chunks.length] = newChunk();
+            this.chunks = newChunks;
         }
-        framerIdleStrategy.reset();
-    }
 
-    // Called on Indexer Thread
-    public int poll()
-    {
-        return queue.drain(onSenderSequenceNumberFunc, CAPACITY);
+        usedSlots = slot + 1;
+
+        return slot;
     }
 
-    // Called on Indexer Thread
-    public int lastSentSequenceNumber(final long connectionId)
+    private static AtomicBuffer newChunk()
     {
-        final SenderSequenceNumber senderSequenceNumber = connectionIdToSequencePosition.get(connectionId);
-        if (senderSequenceNumber == null)
+        final UnsafeBuffer chunk = new UnsafeBuffer(BufferUtil.allocateDirectAligned(CHUNK_LENGTH, CACHE_LINE_LENGTH));
+        for (int offset = 0; offset < CHUNK_LENGTH; offset += SLOT_LENGTH)
         {
-            return UNKNOWN_SESSION;
+            chunk.putLong(offset + CONNECTION_ID_OFFSET, FREE_SLOT);
         }
 
-        return senderSequenceNumber.lastSentSequenceNumber();
+        return chunk;
+    }
+
+    public Reader newReader()
+    {
+        return new Reader();
     }
 
-    // Called on Indexer Thread
-    private void onSenderSequenceNumber(final SenderSequenceNumber senderSequenceNumber)
+    /**
+     * Reads the last sent sequence numbers on a single Replayer or GapFiller thread.
+     */
+    public final class Reader
     {
-        final long connectionId = senderSequenceNumber.connectionId();
-        if (connectionIdToSequencePosition.remove(connectionId) == null)
+        // A connection only ever has one slot, so its slot is remembered and checked on use in case the
+        // connection has closed since.
+        private final Long2LongHashMap connectionIdToSlot = new Long2LongHashMap(MISSING_SLOT);
+
+        private Reader()
         {
-            connectionIdToSequencePosition.put(connectionId, senderSequenceNumber);
+        }
+
+        public int lastSentSequenceNumber(final long connectionId)
+        {
+            // Read before the chunks, as the Framer adds a chunk before using its slots.
+            final int usedSlots = SenderSequenceNumbers.this.usedSlots;
+            final AtomicBuffer[] chunks = SenderSequenceNumbers.this.chunks;
+            final int knownSlot = (int)connectionIdToSlot.get(connectionId);
+            if (knownSlot != MISSING_SLOT)
+            {
+                final int sequenceNumber = read(chunks, knownSlot, connectionId);
+                if (sequenceNumber == UNKNOWN_SESSION)
+                {
+                    connectionIdToSlot.remove(connectionId);
+                }
+
+                return sequenceNumber;
+            }
+
+            for (int slot = 0; slot < usedSlots; slot++)
+            {
+                final int sequenceNumber = read(chunks, slot, connectionId);
+                if (sequenceNumber != UNKNOWN_SESSION)
+                {
+                    // Every live connection has its own slot, so any more entries than slots are for closed ones.
+                    if (connectionIdToSlot.size() >= usedSlots)
+                    {
+                        connectionIdToSlot.clear();
+                    }
+
+                    connectionIdToSlot.put(connectionId, slot);
+
+                    return sequenceNumber;
+                }
+            }
+
+            return UNKNOWN_SESSION;
+        }
+
+        private int read(final AtomicBuffer[] chunks, final int slot, final long connectionId)
+        {
+            final AtomicBuffer chunk = chunks[slot / SLOTS_PER_CHUNK];
+            final int offset = (slot % SLOTS_PER_CHUNK) * SLOT_LENGTH;
+            if (chunk.getLongVolatile(offset + CONNECTION_ID_OFFSET) != connectionId)
+            {
+                return UNKNOWN_SESSION;
+            }
+
+            final int sequenceNumber = chunk.getIntVolatile(offset + SEQUENCE_NUMBER_OFFSET);
+
+            // If the slot has been reused since it was found then the connection has closed.
+            if (chunk.getLongVolatile(offset + CONNECTION_ID_OFFSET) == connectionId)
+            {
+                return sequenceNumber;
+            }
+
+            return UNKNOWN_SESSION;
         }
     }
 }
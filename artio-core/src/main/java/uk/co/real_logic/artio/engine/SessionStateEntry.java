@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.messages.ConnectionType;
+import uk.co.real_logic.artio.messages.SessionState;
+import uk.co.real_logic.artio.session.Session;
+
+import static uk.co.real_logic.artio.engine.SessionStateTableDescriptor.*;
+
+/**
+ * A consistent copy of a single session's record from the session state table. Entries are reused by
+ * {@link SessionStateTableReader}, so a copy should be taken of anything that needs to be kept.
+ *
+ * The sequence numbers of a session that is owned by a library are refreshed periodically from the engine's
+ * sequence number indices, so may lag behind the library's view of the session. Its state isn't known by the
+ * engine.
+ */
+public final class SessionStateEntry
+{
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[RECORD_LENGTH]);
+
+    UnsafeBuffer buffer()
+    {
+        return buffer;
+    }
+
+    public long connectionId()
+    {
+        return buffer.getLong(CONNECTION_ID_OFFSET);
+    }
+
+    /**
+     * Get the session id, which is unknown until the session has logged on.
+     *
+     * @return the session id or {@link Session#UNKNOWN} if the session hasn't logged on.
+     */
+    public long sessionId()
+    {
+        return buffer.getLong(SESSION_ID_OFFSET);
+    }
+
+    public int libraryId()
+    {
+        return buffer.getInt(LIBRARY_ID_OFFSET);
+    }
+
+    public int lastSentSequenceNumber()
+    {
+        return buffer.getInt(LAST_SENT_SEQUENCE_NUMBER_OFFSET);
+    }
+
+    public int lastReceivedSequenceNumber()
+    {
+        return buffer.getInt(LAST_RECEIVED_SEQUENCE_NUMBER_OFFSET);
+    }
+
+    /**
+     * Get the state of the session if it is owned by the engine.
+     *
+     * @return the state of the session, or {@link SessionState#NULL_VAL} if the session is owned by a library.
+     */
+    public SessionState state()
+    {
+        return SessionState.get((short)(buffer.getByte(SESSION_STATE_OFFSET) & 0xFF));
+    }
+
+    public ConnectionType connectionType()
+    {
+        return ConnectionType.get((short)(buffer.getByte(CONNECTION_TYPE_OFFSET) & 0xFF));
+    }
+
+    public String localCompId()
+    {
+        return getAscii(LOCAL_COMP_ID_OFFSET);
+    }
+
+    public String localSubId()
+    {
+        return getAscii(LOCAL_SUB_ID_OFFSET);
+    }
+
+    public String localLocationId()
+    {
+        return getAscii(LOCAL_LOCATION_ID_OFFSET);
+    }
+
+    public String remoteCompId()
+    {
+        return getAscii(REMOTE_COMP_ID_OFFSET);
+    }
+
+    public String remoteSubId()
+    {
+        return getAscii(REMOTE_SUB_ID_OFFSET);
+    }
+
+    public String remoteLocationId()
+    {
+        return getAscii(REMOTE_LOCATION_ID_OFFSET);
+    }
+
+    public String address()
+    {
+        return getAscii(ADDRESS_OFFSET);
+    }
+
+    private String getAscii(final int offset)
+    {
+        return buffer.getStringWithoutLengthAscii(offset + 4, buffer.getInt(offset));
+    }
+
+    public String toString()
+    {
+        return "SessionStateEntry{" +
+            "connectionId=" + connectionId() +
+            ", sessionId=" + sessionId() +
+            ", libraryId=" + libraryId() +
+            ", state=" + state() +
+            ", lastSentSequenceNumber=" + lastSentSequenceNumber() +
+            ", lastReceivedSequenceNumber=" + lastReceivedSequenceNumber() +
+            ", localCompId='" + localCompId() + '\'' +
+            ", remoteCompId='" + remoteCompId() + '\'' +
+            ", address='" + address() + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.ErrorHandler;
+import org.agrona.UnsafeAccess;
+import org.agrona.collections.IntArrayList;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.AtomicBuffer;
+import uk.co.real_logic.artio.messages.ConnectionType;
+import uk.co.real_logic.artio.messages.SessionState;
+import uk.co.real_logic.artio.session.CompositeKey;
+
+import static uk.co.real_logic.artio.engine.SessionStateTableDescriptor.*;
+
+/**
+ * The state of each connection's session, written by the Framer into a shared memory table so that libraries and
+ * external tools can read it without sending a request to the engine.
+ *
+ * Each connection has a record in the table. A record is protected by a seqlock: its version is made odd before
+ * the record is changed and even afterwards, so a reader copies the record and retries if the version was odd or
+ * has changed. The Framer never waits on a reader. Records are reused once their connection disconnects.
+ *
+ * @see SessionStateTableReader
+ */
+public class SessionStateTable
+{
+    private static final int MISSING_RECORD = -1;
+
+    private final Long2LongHashMap connectionIdToRecord = new Long2LongHashMap(MISSING_RECORD);
+    private final IntArrayList freeRecords = new IntArrayList();
+    private final AtomicBuffer buffer;
+    private final ErrorHandler errorHandler;
+    private final int capacity;
+    private final CompositeKey[] sessionKeys;
+
+    private int usedRecords;
+    private boolean reportedFull;
+
+    public SessionStateTable(final AtomicBuffer buffer, final ErrorHandler errorHandler)
+    {
+        this.buffer = buffer;
+        this.errorHandler = errorHandler;
+        capacity = SessionStateTableDescriptor.capacity(buffer.capacity());
+        sessionKeys = new CompositeKey[capacity];
+
+        buffer.setMemory(0, buffer.capacity(), (byte)0);
+        for (int record = 0; record < capacity; record++)
+        {
+            buffer.putLong(recordOffset(record) + CONNECTION_ID_OFFSET, FREE_RECORD);
+        }
+
+        buffer.putInt(LAYOUT_VERSION_OFFSET, LAYOUT_VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(RECORD_LENGTH_OFFSET, RECORD_LENGTH);
+        buffer.putIntOrdered(MAGIC_OFFSET, MAGIC);
+    }
+
+    // Called on Framer Thread
+    public void update(
+        final SessionInfo sessionInfo,
+        final ConnectionType connectionType,
+        final int libraryId,
+        final SessionState state,
+        final int lastSentSequenceNumber,
+        final int lastReceivedSequenceNumber)
+    {
+        final long connectionId = sessionInfo.connectionId();
+        int record = (int)connectionIdToRecord.get(connectionId);
+        final boolean isNew = record == MISSING_RECORD;
+        if (isNew)
+        {
+            record = claimRecord();
+            if (record == MISSING_RECORD)
+            {
+                return;
+            }
+
+            connectionIdToRecord.put(connectionId, record);
+        }
+
+        final AtomicBuffer buffer = this.buffer;
+        final int offset = recordOffset(record);
+        final long sessionId = sessionInfo.sessionId();
+        final CompositeKey sessionKey = sessionInfo.sessionKey();
+        final boolean keyChanged = isNew || sessionKey != sessionKeys[record];
+
+        if (!keyChanged &&
+            buffer.getLong(offset + SESSION_ID_OFFSET) == sessionId &&
+            buffer.getInt(offset + LIBRARY_ID_OFFSET) == libraryId &&
+            buffer.getInt(offset + LAST_SENT_SEQUENCE_NUMBER_OFFSET) == lastSentSequenceNumber &&
+            buffer.getInt(offset + LAST_RECEIVED_SEQUENCE_NUMBER_OFFSET) == lastReceivedSequenceNumber &&
+            buffer.getByte(offset + SESSION_STATE_OFFSET) == (byte)state.value())
+        {
+            return;
+        }
+
+        final long version = beginWrite(offset);
+
+        if (isNew)
+        {
+            buffer.putLong(offset + CONNECTION_ID_OFFSET, connectionId);
+            buffer.putByte(offset + CONNECTION_TYPE_OFFSET, (byte)connectionType.value());
+            putAscii(offset + ADDRESS_OFFSET, ADDRESS_FIELD_LENGTH, sessionInfo.address());
+        }
+
+        buffer.putLong(offset + SESSION_ID_OFFSET, sessionId);
+        buffer.putInt(offset + LIBRARY_ID_OFFSET, libraryId);
+        buffer.putInt(offset + LAST_SENT_SEQUENCE_NUMBER_OFFSET, lastSentSequenceNumber);
+        buffer.putInt(offset + LAST_RECEIVED_SEQUENCE_NUMBER_OFFSET, lastReceivedSequenceNumber);
+        buffer.putByte(offset + SESSION_STATE_OFFSET, (byte)state.value());
+
+        if (keyChanged)
+        {
+            sessionKeys[record] = sessionKey;
+            final boolean hasKey = sessionKey != null;
+            putAscii(offset + LOCAL_COMP_ID_OFFSET, ID_FIELD_LENGTH, hasKey ? sessionKey.localCompId() : null);
+            putAscii(offset + LOCAL_SUB_ID_OFFSET, ID_FIELD_LENGTH, hasKey ? sessionKey.localSubId() : null);
+            putAscii(offset + LOCAL_LOCATION_ID_OFFSET, ID_FIELD_LENGTH, hasKey ? sessionKey.localLocationId() : null);
+            putAscii(offset + REMOTE_COMP_ID_OFFSET, ID_FIELD_LENGTH, hasKey ? sessionKey.remoteCompId() : null);
+            putAscii(offset + REMOTE_SUB_ID_OFFSET, ID_FIELD_LENGTH, hasKey ? sessionKey.remoteSubId() : null);
+            putAscii(
+                offset + REMOTE_LOCATION_ID_OFFSET, ID_FIELD_LENGTH, hasKey ? sessionKey.remoteLocationId() : null);
+        }
+
+        endWrite(offset, version);
+    }
+
+    // Called on Framer Thread
+    public void remove(final long connectionId)
+    {
+        final int record = (int)connectionIdToRecord.remove(connectionId);
+        if (record == MISSING_RECORD)
+        {
+            return;
+        }
+
+        final int offset = recordOffset(record);
+        final long version = beginWrite(offset);
+        buffer.putLong(offset + CONNECTION_ID_OFFSET, FREE_RECORD);
+        endWrite(offset, version);
+
+        sessionKeys[record] = null;
+        freeRecords.pushInt(record);
+        reportedFull = false;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    private int claimRecord()
+    {
+        if (!freeRecords.isEmpty())
+        {
+            return freeRecords.popInt();
+        }
+
+        final int record = usedRecords;
+        if (record == capacity)
+        {
+            if (!reportedFull)
+            {
+                reportedFull = true;
+                errorHandler.onError(new IllegalStateException(String.format(
+                    "Session state table is full (capacity %d), further sessions won't be published until " +
+                    "others disconnect",
+                    capacity)));
+            }
+
+            return MISSING_RECORD;
+        }
+
+        usedRecords = record + 1;
+        buffer.putIntOrdered(USED_RECORDS_OFFSET, usedRecords);
+
+        return record;
+    }
+
+    private long beginWrite(final int offset)
+    {
+        final long version = buffer.getLong(offset + VERSION_OFFSET);
+        buffer.putLongOrdered(offset + VERSION_OFFSET, version + 1);
+        // Stops the record's fields being written before a reader can see that the version is odd.
+        UnsafeAccess.UNSAFE.storeFence();
+
+        return version;
+    }
+
+    private void endWrite(final int offset, final long version)
+    {
+        buffer.putLongOrdered(offset + VERSION_OFFSET, version + 2);
+    }
+
+    private void putAscii(final int offset, final int fieldLength, final String value)
+    {
+        final int length = value == null ? 0 : Math.min(value.length(), fieldLength - 4);
+        buffer.putInt(offset, length);
+        if (length > 0)
+        {
+            buffer.putStringWithoutLengthAscii(offset + 4, value, 0, length);
+        }
+    }
+}
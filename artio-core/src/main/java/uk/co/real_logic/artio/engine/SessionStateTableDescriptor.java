@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+
+/**
+ * Layout of the session state table.
+ *
+ * The table starts with a header, followed by a fixed number of fixed length records:
+ *
+ * <pre>
+ * Header:
+ *   0: magic number (int)
+ *   4: layout version (int)
+ *   8: record capacity (int)
+ *  12: record length (int)
+ *  16: records used, a high water mark of records that have ever been written (int)
+ *
+ * Record:
+ *   0: version, odd whilst the record is being written (long)
+ *   8: connection id, or FREE_RECORD (long)
+ *  16: session id (long)
+ *  24: library id (int)
+ *  28: last sent sequence number (int)
+ *  32: last received sequence number (int)
+ *  36: session state (byte)
+ *  37: connection type (byte)
+ *  40: local comp id, local sub id, local location id, remote comp id, remote sub id, remote location id
+ *      (each an int length followed by up to 36 ASCII characters)
+ * 280: remote address (an int length followed by up to 60 ASCII characters)
+ * </pre>
+ */
+final class SessionStateTableDescriptor
+{
+    static final int MAGIC = 0x46495853;
+    static final int LAYOUT_VERSION = 1;
+
+    static final long FREE_RECORD = Long.MIN_VALUE;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int LAYOUT_VERSION_OFFSET = MAGIC_OFFSET + 4;
+    static final int CAPACITY_OFFSET = LAYOUT_VERSION_OFFSET + 4;
+    static final int RECORD_LENGTH_OFFSET = CAPACITY_OFFSET + 4;
+    static final int USED_RECORDS_OFFSET = RECORD_LENGTH_OFFSET + 4;
+    static final int HEADER_LENGTH = CACHE_LINE_LENGTH;
+
+    static final int ID_FIELD_LENGTH = 40;
+    static final int ADDRESS_FIELD_LENGTH = 64;
+
+    static final int VERSION_OFFSET = 0;
+    static final int CONNECTION_ID_OFFSET = VERSION_OFFSET + 8;
+    static final int SESSION_ID_OFFSET = CONNECTION_ID_OFFSET + 8;
+    static final int LIBRARY_ID_OFFSET = SESSION_ID_OFFSET + 8;
+    static final int LAST_SENT_SEQUENCE_NUMBER_OFFSET = LIBRARY_ID_OFFSET + 4;
+    static final int LAST_RECEIVED_SEQUENCE_NUMBER_OFFSET = LAST_SENT_SEQUENCE_NUMBER_OFFSET + 4;
+    static final int SESSION_STATE_OFFSET = LAST_RECEIVED_SEQUENCE_NUMBER_OFFSET + 4;
+    static final int CONNECTION_TYPE_OFFSET = SESSION_STATE_OFFSET + 1;
+    static final int LOCAL_COMP_ID_OFFSET = CONNECTION_TYPE_OFFSET + 3;
+    static final int LOCAL_SUB_ID_OFFSET = LOCAL_COMP_ID_OFFSET + ID_FIELD_LENGTH;
+    static final int LOCAL_LOCATION_ID_OFFSET = LOCAL_SUB_ID_OFFSET + ID_FIELD_LENGTH;
+    static final int REMOTE_COMP_ID_OFFSET = LOCAL_LOCATION_ID_OFFSET + ID_FIELD_LENGTH;
+    static final int REMOTE_SUB_ID_OFFSET = REMOTE_COMP_ID_OFFSET + ID_FIELD_LENGTH;
+    static final int REMOTE_LOCATION_ID_OFFSET = REMOTE_SUB_ID_OFFSET + ID_FIELD_LENGTH;
+    static final int ADDRESS_OFFSET = REMOTE_LOCATION_ID_OFFSET + ID_FIELD_LENGTH;
+    static final int RECORD_LENGTH = 6 * CACHE_LINE_LENGTH;
+
+    private SessionStateTableDescriptor()
+    {
+    }
+
+    static int tableLength(final int capacity)
+    {
+        return HEADER_LENGTH + capacity * RECORD_LENGTH;
+    }
+
+    static int capacity(final int tableLength)
+    {
+        return (tableLength - HEADER_LENGTH) / RECORD_LENGTH;
+    }
+
+    static int recordOffset(final int record)
+    {
+        return HEADER_LENGTH + record * RECORD_LENGTH;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.IoUtil;
+import org.agrona.UnsafeAccess;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.function.Consumer;
+
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_SESSION_STATE_TABLE_FILE;
+import static uk.co.real_logic.artio.engine.SessionStateTableDescriptor.*;
+
+/**
+ * Reads the session state table that an engine publishes into its log file directory, without locking and
+ * without sending any requests to the engine. Can be used from any process on the same machine as the engine.
+ *
+ * Not thread safe, each reading thread should have its own reader.
+ *
+ * @see EngineConfiguration#sessionStateTableCapacity(int)
+ */
+public class SessionStateTableReader implements AutoCloseable
+{
+    private static final int MAX_READ_ATTEMPTS = 1_000;
+
+    private final AtomicBuffer buffer;
+    private final MappedByteBuffer mappedBuffer;
+    private final int capacity;
+    private final SessionStateEntry entry = new SessionStateEntry();
+
+    /**
+     * Open the session state table published by an engine.
+     *
+     * @param logFileDir the log file directory of the engine.
+     * @return a reader of the engine's session state table.
+     * @throws IllegalStateException if the engine hasn't published a session state table.
+     */
+    public static SessionStateTableReader open(final String logFileDir)
+    {
+        final File file = new File(logFileDir, DEFAULT_SESSION_STATE_TABLE_FILE);
+        final MappedByteBuffer mappedBuffer = IoUtil.mapExistingFile(file, "session state table");
+
+        try
+        {
+            return new SessionStateTableReader(new UnsafeBuffer(mappedBuffer), mappedBuffer);
+        }
+        catch (final RuntimeException e)
+        {
+            IoUtil.unmap(mappedBuffer);
+            throw e;
+        }
+    }
+
+    public SessionStateTableReader(final AtomicBuffer buffer)
+    {
+        this(buffer, null);
+    }
+
+    private SessionStateTableReader(final AtomicBuffer buffer, final MappedByteBuffer mappedBuffer)
+    {
+        if (buffer.getIntVolatile(MAGIC_OFFSET) != MAGIC)
+        {
+            throw new IllegalStateException("Session state table hasn't been initialised by an engine");
+        }
+
+        final int layoutVersion = buffer.getInt(LAYOUT_VERSION_OFFSET);
+        if (layoutVersion != LAYOUT_VERSION || buffer.getInt(RECORD_LENGTH_OFFSET) != RECORD_LENGTH)
+        {
+            throw new IllegalStateException(String.format(
+                "Unsupported session state table layout version %d, expected %d", layoutVersion, LAYOUT_VERSION));
+        }
+
+        this.buffer = buffer;
+        this.mappedBuffer = mappedBuffer;
+        capacity = buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    /**
+     * Find the state of a session that is currently connected to the engine.
+     *
+     * @param sessionId the id of the session.
+     * @return the state of the session, or null if the session isn't connected. The entry is reused by
+     * subsequent calls to this reader.
+     */
+    public SessionStateEntry lookup(final long sessionId)
+    {
+        final int usedRecords = usedRecords();
+        final SessionStateEntry entry = this.entry;
+        for (int record = 0; record < usedRecords; record++)
+        {
+            if (read(record, entry) && entry.sessionId() == sessionId)
+            {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Visit the state of every connection to the engine.
+     *
+     * @param consumer called with the state of each connection, the entry is reused between calls.
+     * @return the number of connections visited.
+     */
+    public int forEach(final Consumer<SessionStateEntry> consumer)
+    {
+        final int usedRecords = usedRecords();
+        final SessionStateEntry entry = this.entry;
+        int count = 0;
+        for (int record = 0; record < usedRecords; record++)
+        {
+            if (read(record, entry))
+            {
+                consumer.accept(entry);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public void close()
+    {
+        if (mappedBuffer != null)
+        {
+            IoUtil.unmap(mappedBuffer);
+        }
+    }
+
+    private int usedRecords()
+    {
+        return Math.min(buffer.getIntVolatile(USED_RECORDS_OFFSET), capacity);
+    }
+
+    private boolean read(final int record, final SessionStateEntry entry)
+    {
+        final AtomicBuffer buffer = this.buffer;
+        final UnsafeBuffer entryBuffer = entry.buffer();
+        final int offset = recordOffset(record);
+        final int versionOffset = offset + VERSION_OFFSET;
+
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++)
+        {
+            final long version = buffer.getLongVolatile(versionOffset);
+            if ((version & 1) == 0)
+            {
+                buffer.getBytes(offset, entryBuffer, 0, RECORD_LENGTH);
+                // Stops the copy of the record being read after the version is checked again.
+                UnsafeAccess.UNSAFE.loadFence();
+
+                if (buffer.getLongVolatile(versionOffset) == version)
+                {
+                    return entry.connectionId() != FREE_RECORD;
+                }
+            }
+
+            Thread.yield();
+        }
+
+        // The engine stopped part way through writing the record.
+        return false;
+    }
+}
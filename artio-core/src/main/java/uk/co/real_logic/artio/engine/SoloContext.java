@@ -21,6 +21,7 @@ import io.aeron.Subscription;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.CompositeAgent;
+import org.agrona.concurrent.SystemEpochClock;
 import uk.co.real_logic.artio.FixCounters;
 import uk.co.real_logic.artio.StreamInformation;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
@@ -37,7 +38,9 @@ import java.util.List;
 
 import static uk.co.real_logic.artio.GatewayProcess.INBOUND_LIBRARY_STREAM;
 import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.GatewayProcess.STANDBY_SNAPSHOT_STREAM;
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.suppressingClose;
+import static uk.co.real_logic.artio.replication.ReservedValue.NO_FILTER;
 
 class SoloContext extends EngineContext
 {
@@ -48,7 +51,6 @@ class SoloContext extends EngineContext
     private final ClusterableStreams node;
 
     private ArchiveReader outboundArchiveReader;
-    private ArchiveReader inboundArchiveReader;
     private Archiver inboundArchiver;
     private Archiver outboundArchiver;
 
@@ -94,8 +96,10 @@ class SoloContext extends EngineContext
         if (configuration.logOutboundMessages())
         {
             newIndexers(
-                inboundArchiveReader,
-                outboundArchiveReader,
+                inboundStreamId,
+                NO_FILTER,
+                outboundStreamId,
+                NO_FILTER,
                 new SoloPositionSender(inboundLibraryPublication()));
 
             final Replayer replayer = newReplayer(replayPublication, outboundArchiveReader);
@@ -112,8 +116,8 @@ class SoloContext extends EngineContext
             }
 
             final List<Agent> agents = new ArrayList<>(archivers);
-            agents.add(inboundIndexer);
-            agents.add(outboundIndexer);
+            addStandbyStreamer(agents);
+            addIndexingAgents(agents);
             agents.add(replayer);
 
             archivingAgent = new CompositeAgent(agents);
@@ -131,10 +135,40 @@ class SoloContext extends EngineContext
                 inboundLibraryStreams.subscription("replayer"),
                 replayGatewayPublication,
                 configuration.agentNamePrefix(),
-                senderSequenceNumbers);
+                senderSequenceNumbers.newReader());
         }
     }
 
+    private void addStandbyStreamer(final List<Agent> agents)
+    {
+        final String standbyChannel = configuration.standbyAeronChannel();
+        if (standbyChannel != null)
+        {
+            agents.add(new StandbyStreamer(
+                inboundArchiver,
+                archiveReader(inboundStreamId),
+                standbyPublication(standbyChannel, INBOUND_LIBRARY_STREAM),
+                outboundArchiver,
+                archiveReader(outboundStreamId),
+                standbyPublication(standbyChannel, OUTBOUND_LIBRARY_STREAM),
+                standbyPublication(standbyChannel, STANDBY_SNAPSHOT_STREAM),
+                configuration.sessionIdBuffer().buffer(),
+                fixCounters.standbyLagBytes(),
+                configuration.standbyMaxLagInBytes(),
+                errorHandler,
+                new SystemEpochClock(),
+                configuration.standbySnapshotIntervalInMs(),
+                configuration.agentNamePrefix()));
+        }
+    }
+
+    private ExclusivePublication standbyPublication(final String channel, final int streamId)
+    {
+        final ExclusivePublication publication = aeron.addExclusivePublication(channel, streamId);
+        StreamInformation.print("StandbyStreamer", publication, configuration);
+        return publication;
+    }
+
     private void archiverSubscription(final Archiver archiver, final StreamIdentifier streamId)
     {
 
@@ -148,7 +182,6 @@ class SoloContext extends EngineContext
         if (configuration.logInboundMessages())
         {
             inboundArchiver = addArchiver(inboundStreamId, inboundCompletionPosition());
-            inboundArchiveReader = archiveReader(inboundStreamId);
         }
 
         if (configuration.logOutboundMessages())
@@ -204,6 +237,6 @@ class SoloContext extends EngineContext
 
     public void close()
     {
-        Exceptions.closeAll(super::close, inboundArchiveReader, outboundArchiveReader);
+        Exceptions.closeAll(super::close, outboundArchiveReader);
     }
 }
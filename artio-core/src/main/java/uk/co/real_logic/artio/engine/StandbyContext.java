@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import io.aeron.Aeron;
+import io.aeron.FragmentAssembler;
+import io.aeron.Subscription;
+import io.aeron.logbuffer.FragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.CompositeAgent;
+import uk.co.real_logic.artio.FixCounters;
+import uk.co.real_logic.artio.StreamInformation;
+import uk.co.real_logic.artio.engine.logger.Archiver;
+import uk.co.real_logic.artio.engine.logger.ReplayQuery;
+import uk.co.real_logic.artio.protocol.GatewayPublication;
+import uk.co.real_logic.artio.protocol.Streams;
+import uk.co.real_logic.artio.replication.ClusterSubscription;
+import uk.co.real_logic.artio.replication.ClusterableStreams;
+import uk.co.real_logic.artio.replication.StreamIdentifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static uk.co.real_logic.artio.GatewayProcess.INBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.GatewayProcess.STANDBY_SNAPSHOT_STREAM;
+import static uk.co.real_logic.artio.dictionary.generation.Exceptions.suppressingClose;
+import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_SIZE;
+import static uk.co.real_logic.artio.replication.ReservedValue.NO_FILTER;
+
+/**
+ * Archives and indexes the streams that a primary engine sends over its standby aeron channel.
+ */
+class StandbyContext extends EngineContext
+{
+    private static final int SNAPSHOT_FRAGMENT_LIMIT = 10;
+
+    private final List<Archiver> archivers = new ArrayList<>();
+    private final ClusterableStreams node;
+    private final StreamIdentifier inboundStreamId;
+    private final StreamIdentifier outboundStreamId;
+
+    StandbyContext(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final FixCounters fixCounters,
+        final Aeron aeron)
+    {
+        super(configuration, errorHandler, fixCounters, aeron);
+        try
+        {
+            // There's no framer to wait for when closing the archivers and indexers
+            completeDuringStartup();
+
+            // Archived under the library channel, like the primary, so that an engine on this log directory can read it
+            final String channel = configuration.libraryAeronChannel();
+            inboundStreamId = new StreamIdentifier(channel, INBOUND_LIBRARY_STREAM);
+            outboundStreamId = new StreamIdentifier(channel, OUTBOUND_LIBRARY_STREAM);
+
+            node = ClusterableStreams.solo(
+                aeron, configuration.standbyAeronChannel(), configuration.printAeronStreamIdentifiers());
+            newStreams(node);
+            newArchival();
+            newIndexers(inboundStreamId, NO_FILTER, outboundStreamId, NO_FILTER, null);
+            newArchivingAgent();
+        }
+        catch (final Exception e)
+        {
+            suppressingClose(this, e);
+
+            throw e;
+        }
+    }
+
+    private void newArchival()
+    {
+        archivers.add(archiver(inboundStreamId, inboundCompletionPosition())
+            .subscription(standbySubscription("Archiver", INBOUND_LIBRARY_STREAM)));
+        archivers.add(archiver(outboundStreamId, outboundLibraryCompletionPosition())
+            .subscription(standbySubscription("Archiver", OUTBOUND_LIBRARY_STREAM)));
+    }
+
+    private void newArchivingAgent()
+    {
+        final List<Agent> agents = new ArrayList<>(archivers);
+        addIndexingAgents(agents);
+        agents.add(new SessionIdsSnapshotApplier(
+            standbySubscription("SessionIdsSnapshotApplier", STANDBY_SNAPSHOT_STREAM),
+            configuration.sessionIdBuffer(),
+            errorHandler,
+            configuration.agentNamePrefix()));
+
+        archivingAgent = new CompositeAgent(agents);
+    }
+
+    private Subscription standbySubscription(final String name, final int streamId)
+    {
+        final Subscription subscription = aeron.addSubscription(configuration.standbyAeronChannel(), streamId);
+        StreamInformation.print(name, subscription, configuration);
+        return subscription;
+    }
+
+    public Streams outboundLibraryStreams()
+    {
+        return outboundLibraryStreams;
+    }
+
+    public Streams inboundLibraryStreams()
+    {
+        return inboundLibraryStreams;
+    }
+
+    public ClusterSubscription outboundClusterSubscription()
+    {
+        return null;
+    }
+
+    public ReplayQuery inboundReplayQuery()
+    {
+        return null;
+    }
+
+    public ClusterableStreams streams()
+    {
+        return node;
+    }
+
+    public GatewayPublication inboundLibraryPublication()
+    {
+        return null;
+    }
+
+    /**
+     * Writes each sector of the primary's session ids file that it sends into this engine's session ids file.
+     */
+    private static final class SessionIdsSnapshotApplier implements Agent, FragmentHandler
+    {
+        private final FragmentAssembler assembler = new FragmentAssembler(this);
+        private final Subscription subscription;
+        private final MappedFile sessionIdFile;
+        private final AtomicBuffer sessionIdBuffer;
+        private final ErrorHandler errorHandler;
+        private final String agentNamePrefix;
+
+        private SessionIdsSnapshotApplier(
+            final Subscription subscription,
+            final MappedFile sessionIdFile,
+            final ErrorHandler errorHandler,
+            final String agentNamePrefix)
+        {
+            this.subscription = subscription;
+            this.sessionIdFile = sessionIdFile;
+            this.sessionIdBuffer = sessionIdFile.buffer();
+            this.errorHandler = errorHandler;
+            this.agentNamePrefix = agentNamePrefix;
+        }
+
+        public int doWork()
+        {
+            return subscription.poll(assembler, SNAPSHOT_FRAGMENT_LIMIT);
+        }
+
+        public void onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header)
+        {
+            final int sectorStart = buffer.getInt(offset);
+            if (sectorStart < 0 || sectorStart + SECTOR_SIZE > sessionIdBuffer.capacity())
+            {
+                errorHandler.onError(new IllegalStateException(String.format(
+                    "Unable to apply the session ids sector at %d, the session id file is smaller than the primary's",
+                    sectorStart)));
+                return;
+            }
+
+            sessionIdBuffer.putBytes(sectorStart, buffer, offset + SIZE_OF_INT, SECTOR_SIZE);
+        }
+
+        public void onClose()
+        {
+            sessionIdFile.force();
+            CloseHelper.close(subscription);
+        }
+
+        public String roleName()
+        {
+            return agentNamePrefix + "SessionIdsSnapshotApplier";
+        }
+    }
+}
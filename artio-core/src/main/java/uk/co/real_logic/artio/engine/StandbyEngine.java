@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.concurrent.AgentRunner;
+import uk.co.real_logic.artio.GatewayProcess;
+import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexReader;
+
+import static org.agrona.concurrent.AgentRunner.startOnThread;
+import static uk.co.real_logic.artio.dictionary.generation.Exceptions.closeAll;
+import static uk.co.real_logic.artio.dictionary.generation.Exceptions.suppressingClose;
+
+/**
+ * A warm standby for a {@link FixEngine} that streams to it over its
+ * {@link EngineConfiguration#standbyAeronChannel(String)}, without the synchronous replication of clustering.
+ *
+ * The standby archives the primary's inbound and outbound messages into its own log directory, keeps the replay
+ * and sequence number indexes up to date with them and applies the primary's session ids. To take over from the
+ * primary close the standby and launch a {@link FixEngine} with a configuration that uses the standby's log
+ * directory and the same library aeron channel as the primary.
+ *
+ * Streaming is asynchronous so messages that the primary had archived but not yet sent are lost on takeover. The
+ * primary reports that window with its "Archived bytes not yet streamed to standby" counter, up to a publication
+ * window of messages may also be in flight, and the last sequence numbers that the standby has indexed for a session
+ * can be queried. For a planned switchover wait for the counter to reach zero before closing the primary.
+ *
+ * The standby's log directory should be empty, or a copy of the primary's taken while it isn't running, when the
+ * primary starts as only the messages that it archives after starting are streamed.
+ */
+public final class StandbyEngine extends GatewayProcess
+{
+    private final EngineConfiguration configuration;
+
+    private StandbyContext standbyContext;
+    private AgentRunner runner;
+    private SequenceNumberIndexReader sentSequenceNumberIndex;
+    private SequenceNumberIndexReader receivedSequenceNumberIndex;
+
+    /**
+     * Launch the standby. This method starts up the standby's thread and then returns.
+     *
+     * @param configuration the configuration to use for this standby, it must have the same standby aeron channel
+     *                      as the primary's configuration.
+     * @return the new standby instance.
+     */
+    public static StandbyEngine launch(final EngineConfiguration configuration)
+    {
+        configuration.conclude();
+
+        if (configuration.standbyAeronChannel() == null)
+        {
+            throw new IllegalArgumentException("Missing required configuration: standby aeron channel");
+        }
+
+        return new StandbyEngine(configuration).launch();
+    }
+
+    private StandbyEngine(final EngineConfiguration configuration)
+    {
+        this.configuration = configuration;
+        try
+        {
+            init(configuration);
+            initIdleCounters(configuration.archiverIdleStrategy(), "Standby");
+            standbyContext = new StandbyContext(configuration, errorHandler, fixCounters, aeron);
+            sentSequenceNumberIndex = new SequenceNumberIndexReader(
+                configuration.sentSequenceNumberBuffer(), errorHandler);
+            receivedSequenceNumberIndex = new SequenceNumberIndexReader(
+                configuration.receivedSequenceNumberBuffer(), errorHandler);
+        }
+        catch (final Exception e)
+        {
+            suppressingClose(this, e);
+
+            throw e;
+        }
+    }
+
+    private StandbyEngine launch()
+    {
+        runner = new AgentRunner(
+            configuration.archiverIdleStrategy(), errorHandler, null, standbyContext.archivingAgent());
+        startOnThread(runner);
+
+        return this;
+    }
+
+    /**
+     * Get the last sequence number of a message sent by the primary on a session that this standby has indexed.
+     *
+     * @param sessionId the id of the session.
+     * @return the last sequence number indexed, or {@link SessionInfo#UNK_SESSION} if none have been.
+     */
+    public int lastSentSequenceNumber(final long sessionId)
+    {
+        return sentSequenceNumberIndex.lastKnownSequenceNumber(sessionId);
+    }
+
+    /**
+     * Get the last sequence number of a message received by the primary on a session that this standby has indexed.
+     *
+     * @param sessionId the id of the session.
+     * @return the last sequence number indexed, or {@link SessionInfo#UNK_SESSION} if none have been.
+     */
+    public int lastReceivedSequenceNumber(final long sessionId)
+    {
+        return receivedSequenceNumberIndex.lastKnownSequenceNumber(sessionId);
+    }
+
+    /**
+     * Close the standby down, including stopping its thread.
+     *
+     * This does not remove the standby's files, a {@link FixEngine} can be launched on them to take over.
+     */
+    public void close()
+    {
+        closeAll(runner, standbyContext, configuration, super::close);
+    }
+
+    public EngineConfiguration configuration()
+    {
+        return configuration;
+    }
+}
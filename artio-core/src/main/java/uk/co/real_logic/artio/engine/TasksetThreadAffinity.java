@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Linux thread affinity that doesn't need any native libraries. It looks up the native id of the calling thread
+ * through <code>/proc/thread-self</code> and sets its affinity using the <code>taskset</code> command.
+ */
+public class TasksetThreadAffinity implements ThreadAffinity
+{
+    public static final String DEFAULT_TASKSET_COMMAND = "taskset";
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+
+    private final String tasksetCommand;
+
+    public TasksetThreadAffinity()
+    {
+        this(DEFAULT_TASKSET_COMMAND);
+    }
+
+    /**
+     * Create the affinity hook.
+     *
+     * @param tasksetCommand the path of the taskset command, or a wrapper script with the same arguments.
+     */
+    public TasksetThreadAffinity(final String tasksetCommand)
+    {
+        this.tasksetCommand = tasksetCommand;
+    }
+
+    public void pinCurrentThread(final int[] cpus) throws IOException, InterruptedException
+    {
+        final String threadId = nativeThreadId();
+        final Process process = new ProcessBuilder(tasksetCommand, "-p", "-c", cpuList(cpus), threadId)
+            .redirectErrorStream(true)
+            .start();
+
+        final String output = readFully(process.getInputStream());
+        final int exitCode = process.waitFor();
+        if (exitCode != 0)
+        {
+            throw new IOException(String.format(
+                "Failed to pin thread %s to cpus %s, exit code %d: %s",
+                threadId,
+                cpuList(cpus),
+                exitCode,
+                output));
+        }
+    }
+
+    static String nativeThreadId() throws IOException
+    {
+        // Links to <pid>/task/<tid> for the thread that resolves it.
+        return Files.readSymbolicLink(THREAD_SELF).getFileName().toString();
+    }
+
+    static String cpuList(final int[] cpus)
+    {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < cpus.length; i++)
+        {
+            if (i > 0)
+            {
+                builder.append(',');
+            }
+            builder.append(cpus[i]);
+        }
+
+        return builder.toString();
+    }
+
+    private static String readFully(final InputStream inputStream) throws IOException
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1)
+        {
+            output.write(buffer, 0, read);
+        }
+
+        return new String(output.toByteArray(), StandardCharsets.US_ASCII).trim();
+    }
+}
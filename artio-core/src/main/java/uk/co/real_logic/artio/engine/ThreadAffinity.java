@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+/**
+ * Hook used by the {@link TopologyEngineScheduler} in order to pin an agent's thread to a set of cpus.
+ *
+ * It is invoked on the agent's thread before the agent is started.
+ *
+ * @see TasksetThreadAffinity
+ */
+@FunctionalInterface
+public interface ThreadAffinity
+{
+    /**
+     * Affinity that leaves the threads wherever the operating system chooses to schedule them.
+     */
+    ThreadAffinity NONE = (cpus) -> {};
+
+    /**
+     * Pin the calling thread to the given cpus.
+     *
+     * @param cpus the ids of the cpus that the thread can be run on.
+     * @throws Exception if the thread can't be pinned, the thread carries on running unpinned.
+     */
+    void pinCurrentThread(int[] cpus) throws Exception;
+}
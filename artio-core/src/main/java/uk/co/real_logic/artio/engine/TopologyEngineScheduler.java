@@ -0,0 +1,330 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import io.aeron.Aeron;
+import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentInvoker;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.CompositeAgent;
+import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+import static org.agrona.concurrent.AgentRunner.startOnThread;
+import static uk.co.real_logic.artio.CommonConfiguration.backoffIdleStrategy;
+
+/**
+ * A scheduler that runs groups of engine agents on threads that are pinned to declared sets of cpus.
+ *
+ * Each group runs on its own thread. Any agent that isn't part of a group runs on its own thread without
+ * being pinned, like the {@link DefaultEngineScheduler}. Adding the {@link AgentType#CONDUCTOR} to a group
+ * switches the Aeron client into invoking mode and the {@link AgentType#MEDIA_DRIVER} can be grouped if
+ * an embedded media driver's {@link AgentInvoker} is provided.
+ *
+ * The media driver is only ever invoked by one thread at a time: the Aeron client invokes it whilst the engine
+ * starts up and closes, and the scheduler's thread invokes it whilst the engine is running, other threads waiting
+ * on the driver yield to the scheduler's thread.
+ *
+ * For example:
+ * <pre>
+ * new TopologyEngineScheduler(new TasksetThreadAffinity())
+ *     .group(new int[]{ 2 }, FRAMER)
+ *     .group(new int[]{ 3 }, ARCHIVING)
+ *     .group(new int[]{ 4, 5 }, MONITORING, CONDUCTOR);
+ * </pre>
+ *
+ * NB: Ensure that a new instance is created for each engine.
+ */
+public class TopologyEngineScheduler implements EngineScheduler
+{
+    public enum AgentType
+    {
+        FRAMER,
+        ARCHIVING,
+        MONITORING,
+        CONDUCTOR,
+        MEDIA_DRIVER
+    }
+
+    private static final int[] UNPINNED = null;
+
+    private final List<Group> groups = new ArrayList<>();
+    private final EnumSet<AgentType> groupedAgentTypes = EnumSet.noneOf(AgentType.class);
+    private final List<AgentRunner> runners = new ArrayList<>();
+    private final ThreadAffinity threadAffinity;
+    private final AgentInvoker driverAgentInvoker;
+
+    private volatile boolean schedulerOwnsDriver;
+    private volatile Thread driverThread;
+
+    public TopologyEngineScheduler(final ThreadAffinity threadAffinity)
+    {
+        this(threadAffinity, null);
+    }
+
+    public TopologyEngineScheduler(final ThreadAffinity threadAffinity, final AgentInvoker driverAgentInvoker)
+    {
+        this.threadAffinity = threadAffinity;
+        this.driverAgentInvoker = driverAgentInvoker;
+    }
+
+    /**
+     * Declare a group of agents that share a thread pinned to a set of cpus.
+     *
+     * @param cpus the ids of the cpus that the group's thread can run on.
+     * @param agentTypes the agents to run on the group's thread.
+     * @return this
+     * @throws IllegalArgumentException if an agent is already part of another group or no agents are given.
+     */
+    public TopologyEngineScheduler group(final int[] cpus, final AgentType... agentTypes)
+    {
+        if (cpus == null || cpus.length == 0)
+        {
+            throw new IllegalArgumentException("A group must be pinned to at least one cpu");
+        }
+
+        if (agentTypes.length == 0)
+        {
+            throw new IllegalArgumentException("A group must contain at least one agent");
+        }
+
+        for (final AgentType agentType : agentTypes)
+        {
+            if (!groupedAgentTypes.add(agentType))
+            {
+                throw new IllegalArgumentException(agentType + " is already part of another group");
+            }
+        }
+
+        groups.add(new Group(cpus.clone(), agentTypes));
+        return this;
+    }
+
+    public void launch(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Agent framer,
+        final Agent archivingAgent,
+        final Agent monitoringAgent,
+        final Agent conductorAgent)
+    {
+        if (!runners.isEmpty())
+        {
+            EngineScheduler.fail();
+        }
+
+        final Map<AgentType, Agent> agents = new EnumMap<>(AgentType.class);
+        agents.put(AgentType.FRAMER, framer);
+        agents.put(AgentType.ARCHIVING, archivingAgent);
+        putIfNotNull(agents, AgentType.MONITORING, monitoringAgent);
+        putIfNotNull(agents, AgentType.CONDUCTOR, conductorAgent);
+        if (driverAgentInvoker != null)
+        {
+            schedulerOwnsDriver = true;
+            agents.put(AgentType.MEDIA_DRIVER, new SchedulerDriverAgent());
+        }
+
+        for (final Group group : groups)
+        {
+            start(configuration, errorHandler, agents, group.cpus, group.agentTypes);
+        }
+
+        for (final AgentType agentType : AgentType.values())
+        {
+            if (!groupedAgentTypes.contains(agentType))
+            {
+                start(configuration, errorHandler, agents, UNPINNED, agentType);
+            }
+        }
+    }
+
+    private void start(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Map<AgentType, Agent> agents,
+        final int[] cpus,
+        final AgentType... agentTypes)
+    {
+        final List<Agent> groupAgents = new ArrayList<>();
+        for (final AgentType agentType : agentTypes)
+        {
+            final Agent agent = agents.get(agentType);
+            if (agent != null)
+            {
+                groupAgents.add(agent);
+            }
+        }
+
+        if (groupAgents.isEmpty())
+        {
+            return;
+        }
+
+        final Agent agent = groupAgents.size() == 1 ? groupAgents.get(0) : new CompositeAgent(groupAgents);
+        final AgentRunner runner = new AgentRunner(
+            idleStrategy(configuration, agentTypes), errorHandler, null, agent);
+        runners.add(runner);
+
+        if (cpus == UNPINNED)
+        {
+            startOnThread(runner);
+        }
+        else
+        {
+            startOnThread(runner, pinningThreadFactory(errorHandler, cpus));
+        }
+    }
+
+    private ThreadFactory pinningThreadFactory(final ErrorHandler errorHandler, final int[] cpus)
+    {
+        return (runnable) -> new Thread(() ->
+        {
+            try
+            {
+                threadAffinity.pinCurrentThread(cpus);
+            }
+            catch (final Exception e)
+            {
+                errorHandler.onError(e);
+            }
+
+            runnable.run();
+        });
+    }
+
+    private static IdleStrategy idleStrategy(final EngineConfiguration configuration, final AgentType... agentTypes)
+    {
+        final EnumSet<AgentType> types = EnumSet.noneOf(AgentType.class);
+        for (final AgentType agentType : agentTypes)
+        {
+            types.add(agentType);
+        }
+
+        if (types.contains(AgentType.FRAMER))
+        {
+            return configuration.framerIdleStrategy();
+        }
+
+        if (types.contains(AgentType.ARCHIVING))
+        {
+            return configuration.archiverIdleStrategy();
+        }
+
+        return backoffIdleStrategy();
+    }
+
+    private static void putIfNotNull(final Map<AgentType, Agent> agents, final AgentType agentType, final Agent agent)
+    {
+        if (agent != null)
+        {
+            agents.put(agentType, agent);
+        }
+    }
+
+    public void close()
+    {
+        for (final AgentRunner runner : runners)
+        {
+            EngineScheduler.awaitRunnerStart(runner);
+        }
+
+        Exceptions.closeAll(runners);
+
+        // The runners have stopped so the Aeron client can invoke the driver again whilst the engine closes.
+        driverThread = null;
+        schedulerOwnsDriver = false;
+    }
+
+    public void configure(final Aeron.Context aeronContext)
+    {
+        if (groupedAgentTypes.contains(AgentType.CONDUCTOR))
+        {
+            aeronContext.useConductorAgentInvoker(true);
+        }
+
+        if (driverAgentInvoker != null)
+        {
+            final AgentInvoker clientDriverInvoker = new AgentInvoker(
+                LangUtil::rethrowUnchecked, null, new ClientDriverAgent());
+            clientDriverInvoker.start();
+            aeronContext.driverAgentInvoker(clientDriverInvoker);
+        }
+    }
+
+    /**
+     * Invokes the media driver on the scheduler's thread whilst the engine is running.
+     */
+    private final class SchedulerDriverAgent implements Agent
+    {
+        public void onStart()
+        {
+            driverThread = Thread.currentThread();
+        }
+
+        public int doWork()
+        {
+            return driverAgentInvoker.invoke();
+        }
+
+        public String roleName()
+        {
+            return "media-driver";
+        }
+    }
+
+    /**
+     * Invokes the media driver when the Aeron client is waiting on it, unless the scheduler's thread owns it.
+     */
+    private final class ClientDriverAgent implements Agent
+    {
+        public int doWork()
+        {
+            if (!schedulerOwnsDriver || driverThread == Thread.currentThread())
+            {
+                return driverAgentInvoker.invoke();
+            }
+
+            Thread.yield();
+            return 0;
+        }
+
+        public String roleName()
+        {
+            return "client-media-driver";
+        }
+    }
+
+    private static final class Group
+    {
+        private final int[] cpus;
+        private final AgentType[] agentTypes;
+
+        private Group(final int[] cpus, final AgentType[] agentTypes)
+        {
+            this.cpus = cpus;
+            this.agentTypes = agentTypes;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import uk.co.real_logic.artio.decoder.*;
+
+final class AdminMessageTypes
+{
+    private AdminMessageTypes()
+    {
+    }
+
+    static boolean isAdmin(final int messageType)
+    {
+        switch (messageType)
+        {
+            case HeartbeatDecoder.MESSAGE_TYPE:
+            case TestRequestDecoder.MESSAGE_TYPE:
+            case ResendRequestDecoder.MESSAGE_TYPE:
+            case RejectDecoder.MESSAGE_TYPE:
+            case SequenceResetDecoder.MESSAGE_TYPE:
+            case LogoutDecoder.MESSAGE_TYPE:
+            case LogonDecoder.MESSAGE_TYPE:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import uk.co.real_logic.artio.messages.FixMessageDecoder;
 import uk.co.real_logic.artio.messages.FixMessageEncoder;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+import uk.co.real_logic.artio.messages.SessionReplyStatus;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
@@ -65,6 +66,16 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
 
     private static final int OUT_OF_RANGE = -1;
 
+    /**
+     * Sends the reply that completes a catchup, this is either the reply to a session request or to a
+     * request for messages to be replayed to a library that already owns the session.
+     */
+    @FunctionalInterface
+    interface ReplySender
+    {
+        long send(int libraryId, SessionReplyStatus status, long correlationId);
+    }
+
     private final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
     private final FixMessageDecoder messageDecoder = new FixMessageDecoder();
     private final FixMessageEncoder messageEncoder = new FixMessageEncoder();
@@ -77,6 +88,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
     private final PossDupEnabler possDupEnabler;
     private final ReplayQuery inboundMessages;
     private final GatewayPublication inboundPublication;
+    private final ReplySender replySender;
     private final ErrorHandler errorHandler;
     private final long correlationId;
     private final long connectionId;
@@ -100,6 +112,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
     CatchupReplayer(
         final ReplayQuery inboundMessages,
         final GatewayPublication inboundPublication,
+        final ReplySender replySender,
         final ErrorHandler errorHandler,
         final long correlationId,
         final long connectionId,
@@ -114,6 +127,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
     {
         this.inboundMessages = inboundMessages;
         this.inboundPublication = inboundPublication;
+        this.replySender = replySender;
         this.errorHandler = errorHandler;
         this.correlationId = correlationId;
         this.connectionId = connectionId;
@@ -329,7 +343,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
                 else
                 {
                     state = State.SEND_OK;
-                    return sendOk(inboundPublication, correlationId, session);
+                    return sendOk(replySender, correlationId, session);
                 }
             }
 
@@ -340,7 +354,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
 
             case SEND_OK:
             {
-                return sendOk(inboundPublication, correlationId, session);
+                return sendOk(replySender, correlationId, session);
             }
 
             // Javac required fall-through case that should never be reached
@@ -362,21 +376,21 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
     }
 
     private long sendOk(
-        final GatewayPublication publication,
+        final ReplySender replySender,
         final long correlationId,
         final GatewaySession session)
     {
-        return sendOk(publication, correlationId, session, libraryId);
+        return sendOk(replySender, correlationId, session, libraryId);
     }
 
     static long sendOk(
-        final GatewayPublication publication,
+        final ReplySender replySender,
         final long correlationId,
         final GatewaySession session,
         final int libraryId)
     {
         DebugLogger.log(CATCHUP, "OK for %d%n", session.sessionId());
-        final long position = publication.saveRequestSessionReply(libraryId, OK, correlationId);
+        final long position = replySender.send(libraryId, OK, correlationId);
         if (position >= 0)
         {
             session.play();
@@ -388,7 +402,7 @@ public class CatchupReplayer implements ControlledFragmentHandler, Continuation
     private long sendMissingMessages()
     {
         DebugLogger.log(CATCHUP, "Missing Messages for %d%n", session.sessionId());
-        final long position = inboundPublication.saveRequestSessionReply(libraryId, MISSING_MESSAGES, correlationId);
+        final long position = replySender.send(libraryId, MISSING_MESSAGES, correlationId);
         if (position > 0)
         {
             errorHandler.onError(new IllegalStateException(String.format(
@@ -17,6 +17,7 @@ package uk.co.real_logic.artio.engine.framer;
 
 import org.agrona.ErrorHandler;
 import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.EpochClock;
 import uk.co.real_logic.artio.FixCounters;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
 import uk.co.real_logic.artio.engine.SenderSequenceNumbers;
@@ -25,6 +26,8 @@ import uk.co.real_logic.artio.messages.ConnectionType;
 import uk.co.real_logic.artio.messages.SequenceNumberType;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 
+import java.io.File;
+
 class EndPointFactory
 {
     private final EngineConfiguration configuration;
@@ -36,6 +39,8 @@ class EndPointFactory
     private final LongHashSet replicatedConnectionIds;
     private final GatewaySessions gatewaySessions;
     private final SenderSequenceNumbers senderSequenceNumbers;
+    private final EpochClock clock;
+    private final ReceiveBufferPool receiveBufferPool;
 
     private SlowPeeker replaySlowPeeker;
 
@@ -48,7 +53,8 @@ class EndPointFactory
         final ErrorHandler errorHandler,
         final LongHashSet replicatedConnectionIds,
         final GatewaySessions gatewaySessions,
-        final SenderSequenceNumbers senderSequenceNumbers)
+        final SenderSequenceNumbers senderSequenceNumbers,
+        final EpochClock clock)
     {
         this.configuration = configuration;
         this.sessionContexts = sessionContexts;
@@ -59,6 +65,16 @@ class EndPointFactory
         this.replicatedConnectionIds = replicatedConnectionIds;
         this.gatewaySessions = gatewaySessions;
         this.senderSequenceNumbers = senderSequenceNumbers;
+        this.clock = clock;
+
+        final int residualBufferSize = configuration.receiverResidualBufferSize();
+        receiveBufferPool = residualBufferSize <= 0 ? null : new ReceiveBufferPool(
+            residualBufferSize,
+            configuration.receiverBufferSize(),
+            configuration.receiverMaxBufferSize(),
+            configuration.receiveBufferPoolMaxFreeBytes(),
+            fixCounters.receiveBufferPoolBorrowedBytes(),
+            fixCounters.receiveBufferPoolFreeBytes());
     }
 
     ReceiverEndPoint receiverEndPoint(
@@ -73,9 +89,12 @@ class EndPointFactory
         final SequenceNumberType sequenceNumberType,
         final ConnectionType connectionType)
     {
+        final String remoteAddress = channel.remoteAddress();
+        final InboundRateLimiter rateLimiter = rateLimiter();
         return new ReceiverEndPoint(
             channel,
             configuration.receiverBufferSize(),
+            receiveBufferPool,
             inboundLibraryPublication,
             inboundClusterablePublication,
             connectionId,
@@ -84,17 +103,32 @@ class EndPointFactory
             sessionContexts,
             sentSequenceNumberIndex,
             receivedSequenceNumberIndex,
-            fixCounters.messagesRead(connectionId, channel.remoteAddress()),
+            fixCounters.messagesRead(connectionId, remoteAddress),
             framer,
             errorHandler,
             libraryId,
             sequenceNumberType,
             connectionType,
             replicatedConnectionIds,
-            gatewaySessions
+            gatewaySessions,
+            rateLimiter,
+            configuration.inboundRateLimitAction(),
+            rateLimiter == null ? null : fixCounters.rateLimitedMessages(connectionId, remoteAddress)
         );
     }
 
+    private InboundRateLimiter rateLimiter()
+    {
+        final int messageRateLimit = configuration.inboundMessageRateLimit();
+        final int byteRateLimit = configuration.inboundByteRateLimit();
+        if (messageRateLimit <= 0 && byteRateLimit <= 0)
+        {
+            return null;
+        }
+
+        return new InboundRateLimiter(clock, Math.max(0, messageRateLimit), Math.max(0, byteRateLimit));
+    }
+
     SenderEndPoint senderEndPoint(
         final TcpChannel channel,
         final long connectionId,
@@ -116,7 +150,22 @@ class EndPointFactory
             configuration.senderMaxBytesInBuffer(),
             configuration.slowConsumerTimeoutInMs(),
             System.currentTimeMillis(),
-            senderSequenceNumbers.onNewSender(connectionId));
+            senderSequenceNumbers.onNewSender(connectionId),
+            spillBuffer(connectionId));
+    }
+
+    private SpillBuffer spillBuffer(final long connectionId)
+    {
+        final int spillBufferSize = configuration.senderSpillBufferSize();
+        if (spillBufferSize <= 0)
+        {
+            return null;
+        }
+
+        return new SpillBuffer(
+            spillBufferSize,
+            configuration.senderMaxBytesInBuffer(),
+            new File(configuration.logFileDir(), "sender-spill-" + connectionId));
     }
 
     void replaySlowPeeker(final SlowPeeker replaySlowPeeker)
@@ -39,6 +39,9 @@ import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.CompletionPosition;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
 import uk.co.real_logic.artio.engine.EngineDescriptorStore;
+import uk.co.real_logic.artio.engine.MappedFile;
+import uk.co.real_logic.artio.engine.OutboundWeightStrategy;
+import uk.co.real_logic.artio.engine.SessionStateTable;
 import uk.co.real_logic.artio.engine.SoloPositionSender;
 import uk.co.real_logic.artio.engine.framer.SubscriptionSlowPeeker.LibrarySlowPeeker;
 import uk.co.real_logic.artio.engine.framer.TcpChannelSupplier.NewChannelHandler;
@@ -81,6 +84,7 @@ import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
 import static uk.co.real_logic.artio.engine.framer.Continuation.COMPLETE;
 import static uk.co.real_logic.artio.engine.framer.SessionContexts.UNKNOWN_SESSION;
 import static uk.co.real_logic.artio.library.FixLibrary.NO_MESSAGE_REPLAY;
+import static uk.co.real_logic.artio.library.FixLibrary.UNLIMITED_CATCHUP_REPLAY;
 import static uk.co.real_logic.artio.messages.ConnectionType.ACCEPTOR;
 import static uk.co.real_logic.artio.messages.ConnectionType.INITIATOR;
 import static uk.co.real_logic.artio.messages.GatewayError.*;
@@ -164,7 +168,11 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
     private final Long2LongHashMap resendNotSlowStatus = new Long2LongHashMap(-1);
     private final AgentInvoker conductorAgentInvoker;
     private final SoloPositionSender nonLoggingPositionSender;
+    private final OutboundScheduler outboundScheduler;
+    private final SessionStateTable sessionStateTable;
+    private final long sessionStateTableRefreshIntervalInMs;
 
+    private long nextSessionStateTableRefreshInMs;
     private long nextConnectionId = (long)(Math.random() * Long.MAX_VALUE);
 
     Framer(
@@ -266,6 +274,26 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 null : new SoloPositionSender(inboundPublication);
         }
 
+        final OutboundWeightStrategy outboundWeightStrategy = configuration.outboundWeightStrategy();
+        if (outboundWeightStrategy != null && !isClustered())
+        {
+            outboundScheduler = new OutboundScheduler(
+                senderEndPoints,
+                outboundWeightStrategy,
+                configuration.outboundSchedulerQuantum(),
+                configuration.outboundLibraryByteBudget(),
+                configuration.outboundSchedulerMaxQueuedBytes());
+        }
+        else
+        {
+            outboundScheduler = null;
+        }
+
+        final MappedFile sessionStateTableFile = configuration.sessionStateTable();
+        sessionStateTable = sessionStateTableFile == null ?
+            null : new SessionStateTable(sessionStateTableFile.buffer(), errorHandler);
+        sessionStateTableRefreshIntervalInMs = configuration.sessionStateTableRefreshIntervalInMs();
+
         // We lookup replayed message by session id, since the connection id may have changed
         // if it's a persistent session.
         replaySubscriber = new ImageControlledFragmentAssembler(ProtocolSubscription.of(new ProtocolHandler()
@@ -358,11 +386,85 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             pollNewConnections(timeInMs) +
             pollLibraries(timeInMs) +
             gatewaySessions.pollSessions(timeInMs) +
+            senderEndPoints.drainSpillBuffers() +
             senderEndPoints.checkTimeouts(timeInMs) +
             adminCommands.drain(onAdminCommand) +
+            refreshSessionStateTable(timeInMs) +
             checkDutyCycle();
     }
 
+    private int refreshSessionStateTable(final long timeInMs)
+    {
+        if (sessionStateTable == null || timeInMs < nextSessionStateTableRefreshInMs)
+        {
+            return 0;
+        }
+
+        nextSessionStateTableRefreshInMs = timeInMs + sessionStateTableRefreshIntervalInMs;
+
+        final List<GatewaySession> engineSessions = gatewaySessions.sessions();
+        int refreshed = 0;
+        for (int i = 0, size = engineSessions.size(); i < size; i++)
+        {
+            final GatewaySession gatewaySession = engineSessions.get(i);
+            final Session session = gatewaySession.session();
+            if (session != null)
+            {
+                updateSessionState(
+                    gatewaySession,
+                    ENGINE_LIBRARY_ID,
+                    session.state(),
+                    session.lastSentMsgSeqNum(),
+                    session.lastReceivedMsgSeqNum());
+                refreshed++;
+            }
+        }
+
+        // Libraries don't report the state of their sessions to the engine, so only their indexed sequence
+        // numbers are refreshed.
+        for (final LiveLibraryInfo library : idToLibrary.values())
+        {
+            final List<GatewaySession> librarySessions = library.gatewaySessions();
+            for (int i = 0, size = librarySessions.size(); i < size; i++)
+            {
+                final GatewaySession gatewaySession = librarySessions.get(i);
+                final long sessionId = gatewaySession.sessionId();
+                if (sessionId != Session.UNKNOWN)
+                {
+                    updateSessionState(
+                        gatewaySession,
+                        library.libraryId(),
+                        SessionState.NULL_VAL,
+                        sentSequenceNumberIndex.lastKnownSequenceNumber(sessionId),
+                        receivedSequenceNumberIndex.lastKnownSequenceNumber(sessionId));
+                    refreshed++;
+                }
+            }
+        }
+
+        return refreshed;
+    }
+
+    private void updateSessionState(
+        final GatewaySession gatewaySession,
+        final int libraryId,
+        final SessionState state,
+        final int lastSentSequenceNumber,
+        final int lastReceivedSequenceNumber)
+    {
+        if (sessionStateTable != null)
+        {
+            // The engine's view of a library's session is out of date as soon as the library owns it.
+            sessionStateTable.update(
+                gatewaySession,
+                gatewaySession.connectionType(),
+                libraryId,
+                libraryId == ENGINE_LIBRARY_ID ? state : SessionState.NULL_VAL,
+                lastSentSequenceNumber,
+                lastReceivedSequenceNumber);
+        }
+    }
+
     private int checkDutyCycle()
     {
         return removeIf(replies, ResetSequenceNumberCommand::poll) +
@@ -404,6 +506,11 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         int messagesRead = librarySubscription.controlledPoll(librarySubscriber, outboundLibraryFragmentLimit);
         messagesRead += librarySlowPeeker.peek(senderEndPointAssembler);
 
+        if (outboundScheduler != null)
+        {
+            messagesRead += outboundScheduler.dispatch();
+        }
+
         if (isClustered())
         {
             messagesRead += clusterSubscription.poll(clusterSubscriber, outboundLibraryFragmentLimit);
@@ -511,6 +618,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 session.username(),
                 session.password(),
                 engineBlockablePosition);
+            updateSessionState(session, ENGINE_LIBRARY_ID, state, sentSequenceNumber, receivedSequenceNumber);
 
             schedule(() -> saveManageSession(
                 ENGINE_LIBRARY_ID,
@@ -782,6 +890,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                         lastReceivedSequenceNumber = receivedSequenceNumberIndex.lastKnownSequenceNumber(sessionId);
                         session.onLogon(
                             sessionId, sessionContext, sessionKey, username, password, heartbeatIntervalInS);
+                        updateSessionState(
+                            session, libraryId, CONNECTED, lastSentSequenceNumber, lastReceivedSequenceNumber);
                         return 0;
                     }
 
@@ -822,6 +932,12 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final int sequenceNumber,
         final long position)
     {
+        if (outboundScheduler != null && !outboundScheduler.enqueue(
+            libraryId, connectionId, sessionId, messageType, buffer, offset, length, sequenceNumber, position))
+        {
+            return ABORT;
+        }
+
         final long now = outboundTimer.recordSince(timestamp);
 
         if (!clusterableStreams.isLeader())
@@ -829,7 +945,10 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             sessionContexts.onSentFollowerMessage(sessionId, sequenceIndex, messageType, buffer, offset, length);
         }
 
-        senderEndPoints.onMessage(libraryId, connectionId, buffer, offset, length, sequenceNumber, position);
+        if (outboundScheduler == null)
+        {
+            senderEndPoints.onMessage(libraryId, connectionId, buffer, offset, length, sequenceNumber, position);
+        }
 
         if (nonLoggingPositionSender != null)
         {
@@ -879,6 +998,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             this.onSessionlogon);
 
         receiverEndPoint.gatewaySession(gatewaySession);
+        updateSessionState(gatewaySession, libraryId, CONNECTED, UNK_SESSION, UNK_SESSION);
 
         return gatewaySession;
     }
@@ -897,12 +1017,22 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     public Action onRequestDisconnect(final int libraryId, final long connectionId, final DisconnectReason reason)
     {
+        // Messages that the library sent before requesting the disconnect, eg: a logout, are still sent.
+        if (outboundScheduler != null)
+        {
+            outboundScheduler.flush(connectionId);
+        }
+
         return onDisconnect(libraryId, connectionId, reason);
     }
 
     public Action onDisconnect(final int libraryId, final long connectionId, final DisconnectReason reason)
     {
         receiverEndPoints.removeConnection(connectionId, reason);
+        if (outboundScheduler != null)
+        {
+            outboundScheduler.removeConnection(connectionId);
+        }
         senderEndPoints.removeConnection(connectionId);
         final LiveLibraryInfo library = idToLibrary.get(libraryId);
         if (library != null)
@@ -914,6 +1044,11 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             gatewaySessions.releaseByConnectionId(connectionId);
         }
 
+        if (sessionStateTable != null)
+        {
+            sessionStateTable.remove(connectionId);
+        }
+
         return CONTINUE;
     }
 
@@ -1052,6 +1187,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 username,
                 password,
                 engineBlockablePosition);
+            updateSessionState(
+                session, ENGINE_LIBRARY_ID, state, lastSentSequenceNumber, lastReceivedSequenceNumber);
 
             schedule(() -> saveManageSession(
                 ENGINE_LIBRARY_ID,
@@ -1069,14 +1206,9 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final long sessionId,
         final long correlationId,
         final int replayFromSequenceNumber,
-        final int replayFromSequenceIndex)
+        final int replayFromSequenceIndex,
+        final int maxCatchupReplayMessages)
     {
-        final Action action = retryManager.retry(correlationId);
-        if (action != null)
-        {
-            return action;
-        }
-
         final LiveLibraryInfo libraryInfo = idToLibrary.get(libraryId);
         if (libraryInfo == null)
         {
@@ -1105,6 +1237,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final long logonTime = session.logonTime();
         gatewaySession.handoverManagementTo(libraryId, libraryInfo.librarySlowPeeker());
         libraryInfo.addSession(gatewaySession);
+        updateSessionState(gatewaySession, libraryId, sessionState, lastSentSeqNum, lastRecvSeqNum);
 
         DebugLogger.log(CLUSTER_MANAGEMENT, "Handing control for session %s to library %s%n", sessionId, libraryId);
 
@@ -1139,10 +1272,15 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             correlationId,
             replayFromSequenceNumber,
             replayFromSequenceIndex,
+            maxCatchupReplayMessages,
             gatewaySession,
             lastRecvSeqNum);
 
-        return retryManager.firstAttempt(correlationId, new UnitOfWork(continuations));
+        // Pipeline the handover rather than aborting the library stream until it completes: the session's
+        // receiver is paused until the reply is sent, so other commands can safely be processed in the meantime.
+        schedule(new UnitOfWork(continuations));
+
+        return CONTINUE;
     }
 
     private long saveManageSession(
@@ -1190,10 +1328,11 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final long correlationId,
         final int replayFromSequenceNumber,
         final int replayFromSequenceIndex,
+        final int maxCatchupReplayMessages,
         final GatewaySession session,
         final int lastReceivedSeqNum)
     {
-        if (replayFromSequenceNumber != NO_MESSAGE_REPLAY)
+        if (replayFromSequenceNumber != NO_MESSAGE_REPLAY && maxCatchupReplayMessages != 0)
         {
             final int sequenceIndex = session.sequenceIndex();
             if (replayFromSequenceIndex > sequenceIndex ||
@@ -1203,25 +1342,121 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 return;
             }
 
+            int fromSequenceNumber = replayFromSequenceNumber;
+            int fromSequenceIndex = replayFromSequenceIndex;
+            if (maxCatchupReplayMessages != UNLIMITED_CATCHUP_REPLAY)
+            {
+                // Only replay the tail of the history, the library can ask for anything earlier on demand.
+                final int tailStartSequenceNumber = Math.max(1, lastReceivedSeqNum - maxCatchupReplayMessages + 1);
+                if (fromSequenceIndex < sequenceIndex || fromSequenceNumber < tailStartSequenceNumber)
+                {
+                    fromSequenceNumber = tailStartSequenceNumber;
+                    fromSequenceIndex = sequenceIndex;
+                }
+            }
+
             continuations.add(new CatchupReplayer(
                 inboundMessages,
                 inboundPublication,
+                inboundPublication::saveRequestSessionReply,
                 errorHandler,
                 correlationId,
                 connectionId,
                 libraryId,
                 lastReceivedSeqNum,
                 sequenceIndex,
-                replayFromSequenceNumber,
-                replayFromSequenceIndex,
+                fromSequenceNumber,
+                fromSequenceIndex,
                 session,
                 catchupTimeout(),
                 clock));
         }
         else
         {
-            continuations.add(() -> CatchupReplayer.sendOk(inboundPublication, correlationId, session, libraryId));
+            continuations.add(() -> CatchupReplayer.sendOk(
+                inboundPublication::saveRequestSessionReply, correlationId, session, libraryId));
+        }
+    }
+
+    public Action onReplayMessages(
+        final int libraryId,
+        final long sessionId,
+        final long correlationId,
+        final int replayFromSequenceNumber,
+        final int replayFromSequenceIndex,
+        final int replayToSequenceNumber,
+        final int replayToSequenceIndex)
+    {
+        final LiveLibraryInfo libraryInfo = idToLibrary.get(libraryId);
+        if (libraryInfo == null)
+        {
+            return Pressure.apply(inboundPublication.saveReplayMessagesReply(
+                libraryId, SessionReplyStatus.UNKNOWN_LIBRARY, correlationId));
+        }
+
+        final GatewaySession gatewaySession = libraryInfo.lookupSession(sessionId);
+        if (gatewaySession == null)
+        {
+            return Pressure.apply(inboundPublication.saveReplayMessagesReply(
+                libraryId, SessionReplyStatus.UNKNOWN_SESSION, correlationId));
+        }
+
+        if (!isValidReplayRange(
+            gatewaySession,
+            replayFromSequenceNumber,
+            replayFromSequenceIndex,
+            replayToSequenceNumber,
+            replayToSequenceIndex))
+        {
+            return Pressure.apply(inboundPublication.saveReplayMessagesReply(
+                libraryId, SEQUENCE_NUMBER_TOO_HIGH, correlationId));
+        }
+
+        schedule(new CatchupReplayer(
+            inboundMessages,
+            inboundPublication,
+            inboundPublication::saveReplayMessagesReply,
+            errorHandler,
+            correlationId,
+            gatewaySession.connectionId(),
+            libraryId,
+            replayToSequenceNumber,
+            replayToSequenceIndex,
+            replayFromSequenceNumber,
+            replayFromSequenceIndex,
+            gatewaySession,
+            catchupTimeout(),
+            clock));
+
+        return CONTINUE;
+    }
+
+    // A replay only completes once it reaches the end of its range, so the range must be in order and can't
+    // end after the last received message that has been indexed.
+    private boolean isValidReplayRange(
+        final GatewaySession gatewaySession,
+        final int replayFromSequenceNumber,
+        final int replayFromSequenceIndex,
+        final int replayToSequenceNumber,
+        final int replayToSequenceIndex)
+    {
+        final int sequenceIndex = gatewaySession.sequenceIndex();
+        if (replayFromSequenceNumber < 1 ||
+            replayToSequenceIndex > sequenceIndex ||
+            replayToSequenceIndex < replayFromSequenceIndex ||
+            (replayToSequenceIndex == replayFromSequenceIndex && replayToSequenceNumber < replayFromSequenceNumber))
+        {
+            return false;
         }
+
+        if (replayToSequenceIndex == sequenceIndex)
+        {
+            final int lastReceivedSequenceNumber =
+                receivedSequenceNumberIndex.lastKnownSequenceNumber(gatewaySession.sessionId());
+            return lastReceivedSequenceNumber != UNK_SESSION && replayToSequenceNumber <= lastReceivedSequenceNumber;
+        }
+
+        return true;
     }
 
     private long catchupTimeout()
@@ -1242,6 +1477,17 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     private void onSessionLogon(final GatewaySession gatewaySession)
     {
+        final Session session = gatewaySession.session();
+        if (session != null)
+        {
+            updateSessionState(
+                gatewaySession,
+                ENGINE_LIBRARY_ID,
+                session.state(),
+                session.lastSentMsgSeqNum(),
+                session.lastReceivedMsgSeqNum());
+        }
+
         schedule(() ->
         {
             if (null == gatewaySession.session())
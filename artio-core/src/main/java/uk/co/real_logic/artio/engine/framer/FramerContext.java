@@ -97,7 +97,8 @@ public class FramerContext
             configuration.reasonableTransmissionTimeInMs(),
             errorHandler,
             sessionContexts,
-            configuration.sessionPersistenceStrategy());
+            configuration.sessionPersistenceStrategy(),
+            configuration.acceptedBeginStrings());
 
         final EndPointFactory endPointFactory = new EndPointFactory(
             configuration,
@@ -108,7 +109,8 @@ public class FramerContext
             errorHandler,
             replicatedConnectionIds,
             gatewaySessions,
-            engineContext.senderSequenceNumbers());
+            engineContext.senderSequenceNumbers(),
+            clock);
 
         sentSequenceNumberIndex = new SequenceNumberIndexReader(
             configuration.sentSequenceNumberBuffer(), errorHandler);
@@ -184,6 +184,16 @@ class GatewaySession implements SessionInfo
         }
     }
 
+    void onRateLimitedMessage(final MutableAsciiBuffer buffer, final int offset, final int length)
+    {
+        if (sessionParser != null)
+        {
+            DebugLogger.log(FIX_MESSAGE, "Gateway Rate Limited %s %n", buffer, offset, length);
+
+            sessionParser.onRateLimitedMessage(buffer, offset, length);
+        }
+    }
+
     void onLogon(
         final String username,
         final String password,
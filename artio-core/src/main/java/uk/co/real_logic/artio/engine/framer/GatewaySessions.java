@@ -60,6 +60,7 @@ class GatewaySessions
     private final long reasonableTransmissionTimeInMs;
     private final SessionContexts sessionContexts;
     private final SessionPersistenceStrategy sessionPersistenceStrategy;
+    private final String[] acceptedBeginStrings;
 
     private ErrorHandler errorHandler;
 
@@ -76,7 +77,8 @@ class GatewaySessions
         final long reasonableTransmissionTimeInMs,
         final ErrorHandler errorHandler,
         final SessionContexts sessionContexts,
-        final SessionPersistenceStrategy sessionPersistenceStrategy)
+        final SessionPersistenceStrategy sessionPersistenceStrategy,
+        final String[] acceptedBeginStrings)
     {
         this.clock = clock;
         this.outboundPublication = outboundPublication;
@@ -91,6 +93,7 @@ class GatewaySessions
         this.errorHandler = errorHandler;
         this.sessionContexts = sessionContexts;
         this.sessionPersistenceStrategy = sessionPersistenceStrategy;
+        this.acceptedBeginStrings = acceptedBeginStrings;
     }
 
     void acquire(
@@ -134,6 +137,7 @@ class GatewaySessions
             0,
             reasonableTransmissionTimeInMs,
             asciiBuffer);
+        session.beginStrings(acceptedBeginStrings);
 
         final SessionParser sessionParser = new SessionParser(
             session,
@@ -240,8 +244,7 @@ class GatewaySessions
         final SequenceNumberIndexReader receivedSequenceNumberIndex,
         final GatewaySession gatewaySession)
     {
-        final CompositeKey compositeKey = sessionIdStrategy.onAcceptLogon(logon.header());
-        final SessionContext sessionContext = sessionContexts.onLogon(compositeKey);
+        final SessionContext sessionContext = sessionContexts.onAcceptLogon(logon.header());
         final long sessionId = sessionContext.sessionId();
         if (sessionContext == DUPLICATE_SESSION)
         {
@@ -288,7 +291,8 @@ class GatewaySessions
 
         sessionContext.onLogon(resetSeqNum);
 
-        gatewaySession.onLogon(sessionId, sessionContext, compositeKey, username, password, logon.heartBtInt());
+        gatewaySession.onLogon(
+            sessionId, sessionContext, sessionContext.compositeKey(), username, password, logon.heartBtInt());
         gatewaySession.acceptorSequenceNumbers(sentSequenceNumber, receivedSequenceNumber);
         gatewaySession.persistenceLevel(persistenceLevel);
 
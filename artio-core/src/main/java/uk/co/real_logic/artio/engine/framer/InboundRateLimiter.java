@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.concurrent.EpochClock;
+
+/**
+ * Token buckets that limit the number of messages and bytes per second that a session's counter party can send.
+ *
+ * Each bucket holds up to a second's worth of tokens, so short bursts are allowed, and is refilled based upon the
+ * time elapsed. The clock is only read when a bucket doesn't have enough tokens, so sessions that are within their
+ * limits don't pay for it. A message that is larger than the byte limit is allowed once the bucket is full, leaving
+ * it in debt, so that it doesn't block the session forever.
+ *
+ * A limit of 0 means unlimited. Not thread safe.
+ */
+class InboundRateLimiter
+{
+    // Tokens are stored in thousandths so a rate per second is also the number of scaled tokens per millisecond.
+    private static final long SCALE = 1000;
+
+    private final EpochClock clock;
+    private final long messageCapacity;
+    private final long byteCapacity;
+    private final long messagesPerSecond;
+    private final long bytesPerSecond;
+
+    private long messageTokens;
+    private long byteTokens;
+    private long lastRefillTimeInMs;
+
+    InboundRateLimiter(final EpochClock clock, final int messagesPerSecond, final int bytesPerSecond)
+    {
+        this.clock = clock;
+        this.messagesPerSecond = messagesPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        messageCapacity = messagesPerSecond * SCALE;
+        byteCapacity = bytesPerSecond * SCALE;
+        messageTokens = messageCapacity;
+        byteTokens = byteCapacity;
+        lastRefillTimeInMs = clock.time();
+    }
+
+    /**
+     * Take the tokens for a message if they're available.
+     *
+     * @param length the length of the message in bytes.
+     * @return true if the message is within the limits, false otherwise in which case no tokens are taken.
+     */
+    boolean tryAcquire(final int length)
+    {
+        if (!hasTokens(length))
+        {
+            refill();
+            if (!hasTokens(length))
+            {
+                return false;
+            }
+        }
+
+        if (messagesPerSecond > 0)
+        {
+            messageTokens -= SCALE;
+        }
+
+        if (bytesPerSecond > 0)
+        {
+            byteTokens -= length * SCALE;
+        }
+
+        return true;
+    }
+
+    private boolean hasTokens(final int length)
+    {
+        final boolean hasMessageTokens = messagesPerSecond == 0 || messageTokens >= SCALE;
+        final boolean hasByteTokens = bytesPerSecond == 0 || byteTokens >= length * SCALE || byteTokens == byteCapacity;
+
+        return hasMessageTokens && hasByteTokens;
+    }
+
+    private void refill()
+    {
+        final long timeInMs = clock.time();
+        final long elapsedInMs = timeInMs - lastRefillTimeInMs;
+        if (elapsedInMs <= 0)
+        {
+            return;
+        }
+
+        lastRefillTimeInMs = timeInMs;
+        messageTokens = Math.min(messageCapacity, messageTokens + elapsedInMs * messagesPerSecond);
+        byteTokens = Math.min(byteCapacity, byteTokens + elapsedInMs * bytesPerSecond);
+    }
+}
@@ -107,6 +107,21 @@ final class LiveLibraryInfo implements LibraryInfo
         return GatewaySessions.removeSessionByConnectionId(connectionId, allSessions);
     }
 
+    GatewaySession lookupSession(final long sessionId)
+    {
+        final List<GatewaySession> allSessions = this.allSessions;
+        for (int i = 0, size = allSessions.size(); i < size; i++)
+        {
+            final GatewaySession session = allSessions.get(i);
+            if (session.sessionId() == sessionId)
+            {
+                return session;
+            }
+        }
+
+        return null;
+    }
+
     void acquireAtPosition(final long libraryPosition)
     {
         acquireAtPosition = libraryPosition;
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.collections.Int2IntHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+import uk.co.real_logic.artio.engine.ByteBufferUtil;
+import uk.co.real_logic.artio.engine.OutboundWeightStrategy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static uk.co.real_logic.artio.engine.framer.AdminMessageTypes.isAdmin;
+
+/**
+ * Sits between the outbound library subscription and the {@link SenderEndPoints}, copying messages into a queue
+ * per connection as they're polled and then sending them once per duty cycle in a fair order.
+ *
+ * Connections are served by deficit round robin: each duty cycle a connection with queued messages earns a
+ * quantum of bytes scaled by its session's weight and sends messages while it has enough credit, unused credit
+ * carries over to the next duty cycle so large messages eventually get sent. Each library also has a budget of
+ * bytes per duty cycle, scaled by its weight, across all of its connections.
+ *
+ * Admin messages, such as heartbeats and logouts, are a priority class: connections with one queued are served
+ * before the round robin and outside of the budgets, up to and including their last admin message. Messages
+ * are never reordered within a connection, since the counter party would see a sequence number gap.
+ *
+ * Not thread safe, owned by the {@link Framer}.
+ */
+class OutboundScheduler
+{
+    private static final int LIBRARY_ID_OFFSET = 0;
+    private static final int SEQUENCE_NUMBER_OFFSET = LIBRARY_ID_OFFSET + 4;
+    private static final int LENGTH_OFFSET = SEQUENCE_NUMBER_OFFSET + 4;
+    private static final int POSITION_OFFSET = LENGTH_OFFSET + 4;
+    private static final int HEADER_LENGTH = POSITION_OFFSET + 8;
+
+    private static final int INITIAL_QUEUE_CAPACITY = 4096;
+    private static final int MISSING_VALUE = -1;
+
+    private final Long2ObjectHashMap<ConnectionQueue> connectionIdToQueue = new Long2ObjectHashMap<>();
+    private final ArrayList<ConnectionQueue> activeQueues = new ArrayList<>();
+    private final ArrayList<ConnectionQueue> priorityQueues = new ArrayList<>();
+    private final Int2IntHashMap libraryIdToWeight = new Int2IntHashMap(MISSING_VALUE);
+    private final Int2IntHashMap libraryIdToBytesSent = new Int2IntHashMap(MISSING_VALUE);
+
+    private final SenderEndPoints senderEndPoints;
+    private final OutboundWeightStrategy weightStrategy;
+    private final int quantum;
+    private final int libraryByteBudget;
+    private final long maxQueuedBytes;
+
+    private long queuedBytes;
+    private int nextQueueIndex;
+
+    OutboundScheduler(
+        final SenderEndPoints senderEndPoints,
+        final OutboundWeightStrategy weightStrategy,
+        final int quantum,
+        final int libraryByteBudget,
+        final long maxQueuedBytes)
+    {
+        this.senderEndPoints = senderEndPoints;
+        this.weightStrategy = weightStrategy;
+        this.quantum = quantum;
+        this.libraryByteBudget = libraryByteBudget;
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    /**
+     * Copy a message into its connection's queue.
+     *
+     * @return false if too many bytes are already queued, in which case the message should be offered again later.
+     */
+    boolean enqueue(
+        final int libraryId,
+        final long connectionId,
+        final long sessionId,
+        final int messageType,
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final int sequenceNumber,
+        final long position)
+    {
+        if (queuedBytes >= maxQueuedBytes)
+        {
+            return false;
+        }
+
+        ConnectionQueue queue = connectionIdToQueue.get(connectionId);
+        if (queue == null)
+        {
+            queue = new ConnectionQueue(connectionId);
+            connectionIdToQueue.put(connectionId, queue);
+        }
+
+        if (queue.sessionId != sessionId || queue.weight == MISSING_VALUE)
+        {
+            queue.sessionId = sessionId;
+            queue.weight = Math.max(1, weightStrategy.sessionWeight(sessionId));
+        }
+
+        queue.append(libraryId, buffer, offset, length, sequenceNumber, position);
+        queuedBytes += length;
+
+        if (!queue.active)
+        {
+            queue.active = true;
+            activeQueues.add(queue);
+        }
+
+        if (isAdmin(messageType))
+        {
+            queue.priorityLimit = queue.writeOffset;
+            if (!queue.prioritised)
+            {
+                queue.prioritised = true;
+                priorityQueues.add(queue);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Send the messages that the queues are allowed to send this duty cycle.
+     *
+     * @return the number of messages sent.
+     */
+    int dispatch()
+    {
+        if (activeQueues.isEmpty())
+        {
+            return 0;
+        }
+
+        libraryIdToBytesSent.clear();
+
+        int sent = 0;
+        final ArrayList<ConnectionQueue> priorityQueues = this.priorityQueues;
+        for (int i = 0, size = priorityQueues.size(); i < size; i++)
+        {
+            final ConnectionQueue queue = priorityQueues.get(i);
+            sent += queue.sendUpTo(queue.priorityLimit);
+            queue.prioritised = false;
+        }
+        priorityQueues.clear();
+
+        final ArrayList<ConnectionQueue> activeQueues = this.activeQueues;
+        final int size = activeQueues.size();
+        final int start = nextQueueIndex % size;
+        for (int i = 0; i < size; i++)
+        {
+            sent += activeQueues.get((start + i) % size).sendDeficit();
+        }
+        nextQueueIndex = start + 1;
+
+        removeEmptyQueues();
+
+        return sent;
+    }
+
+    /**
+     * Send everything queued for a connection regardless of budgets, eg: before a disconnect requested by its
+     * library so that a queued logout isn't lost.
+     */
+    void flush(final long connectionId)
+    {
+        final ConnectionQueue queue = connectionIdToQueue.get(connectionId);
+        if (queue != null)
+        {
+            queue.sendUpTo(queue.writeOffset);
+        }
+    }
+
+    void removeConnection(final long connectionId)
+    {
+        final ConnectionQueue queue = connectionIdToQueue.remove(connectionId);
+        if (queue != null)
+        {
+            // Left in the active and priority queues while empty, since this can be called during a dispatch.
+            queuedBytes -= queue.queuedBytes;
+            queue.clear();
+        }
+    }
+
+    long queuedBytes()
+    {
+        return queuedBytes;
+    }
+
+    private void removeEmptyQueues()
+    {
+        final ArrayList<ConnectionQueue> activeQueues = this.activeQueues;
+        for (int i = activeQueues.size() - 1; i >= 0; i--)
+        {
+            final ConnectionQueue queue = activeQueues.get(i);
+            if (queue.isEmpty())
+            {
+                queue.active = false;
+                queue.deficit = 0;
+                activeQueues.remove(i);
+            }
+        }
+    }
+
+    private int libraryBudget(final int libraryId)
+    {
+        int weight = libraryIdToWeight.get(libraryId);
+        if (weight == MISSING_VALUE)
+        {
+            weight = Math.max(1, weightStrategy.libraryWeight(libraryId));
+            libraryIdToWeight.put(libraryId, weight);
+        }
+
+        return (int)Math.min(Integer.MAX_VALUE, (long)weight * libraryByteBudget);
+    }
+
+    private int libraryBytesSent(final int libraryId)
+    {
+        final int bytesSent = libraryIdToBytesSent.get(libraryId);
+        return bytesSent == MISSING_VALUE ? 0 : bytesSent;
+    }
+
+    private final class ConnectionQueue
+    {
+        private final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(INITIAL_QUEUE_CAPACITY);
+        private final long connectionId;
+
+        private long sessionId;
+        private int weight = MISSING_VALUE;
+        private int readOffset;
+        private int writeOffset;
+        private int priorityLimit;
+        private long deficit;
+        private long queuedBytes;
+        private boolean active;
+        private boolean prioritised;
+
+        private ConnectionQueue(final long connectionId)
+        {
+            this.connectionId = connectionId;
+        }
+
+        private void append(
+            final int libraryId,
+            final DirectBuffer srcBuffer,
+            final int srcOffset,
+            final int length,
+            final int sequenceNumber,
+            final long position)
+        {
+            final ExpandableDirectByteBuffer buffer = this.buffer;
+            if (readOffset > 0 && writeOffset + HEADER_LENGTH + length > buffer.capacity())
+            {
+                compact();
+            }
+
+            final int offset = writeOffset;
+            buffer.putInt(offset + LIBRARY_ID_OFFSET, libraryId);
+            buffer.putInt(offset + SEQUENCE_NUMBER_OFFSET, sequenceNumber);
+            buffer.putInt(offset + LENGTH_OFFSET, length);
+            buffer.putLong(offset + POSITION_OFFSET, position);
+            buffer.putBytes(offset + HEADER_LENGTH, srcBuffer, srcOffset, length);
+            writeOffset = offset + HEADER_LENGTH + length;
+            queuedBytes += length;
+        }
+
+        // Moves the unsent messages to the start of the buffer, so that a connection that is never fully drained
+        // doesn't grow its buffer indefinitely.
+        private void compact()
+        {
+            final ByteBuffer byteBuffer = buffer.byteBuffer().duplicate();
+            ByteBufferUtil.limit(byteBuffer, writeOffset);
+            ByteBufferUtil.position(byteBuffer, readOffset);
+            byteBuffer.compact();
+
+            writeOffset -= readOffset;
+            priorityLimit = Math.max(0, priorityLimit - readOffset);
+            readOffset = 0;
+        }
+
+        private boolean isEmpty()
+        {
+            return readOffset == writeOffset;
+        }
+
+        private int headLength()
+        {
+            return buffer.getInt(readOffset + LENGTH_OFFSET);
+        }
+
+        private int sendUpTo(final int limit)
+        {
+            int sent = 0;
+            while (!isEmpty() && readOffset < limit)
+            {
+                final int length = headLength();
+                final int libraryId = libraryIdOfHead();
+                libraryIdToBytesSent.put(libraryId, libraryBytesSent(libraryId) + length);
+                sendHead(length);
+                sent++;
+            }
+
+            return sent;
+        }
+
+        private int sendDeficit()
+        {
+            if (isEmpty())
+            {
+                return 0;
+            }
+
+            final int libraryId = libraryIdOfHead();
+            final int libraryBudget = libraryBudget(libraryId);
+            int libraryBytesSent = libraryBytesSent(libraryId);
+            if (libraryBytesSent >= libraryBudget)
+            {
+                return 0;
+            }
+
+            deficit += (long)quantum * weight;
+
+            int sent = 0;
+            while (!isEmpty())
+            {
+                final int length = headLength();
+                if (length > deficit)
+                {
+                    break;
+                }
+
+                // A library can always send one message per duty cycle, so messages bigger than its budget get sent.
+                if (libraryBytesSent > 0 && libraryBytesSent + length > libraryBudget)
+                {
+                    deficit = Math.min(deficit, length);
+                    break;
+                }
+
+                sendHead(length);
+                deficit -= length;
+                libraryBytesSent += length;
+                sent++;
+            }
+
+            libraryIdToBytesSent.put(libraryId, libraryBytesSent);
+
+            if (isEmpty())
+            {
+                deficit = 0;
+            }
+
+            return sent;
+        }
+
+        private int libraryIdOfHead()
+        {
+            return buffer.getInt(readOffset + LIBRARY_ID_OFFSET);
+        }
+
+        private void sendHead(final int length)
+        {
+            final ExpandableDirectByteBuffer buffer = this.buffer;
+            final int offset = readOffset;
+
+            // Dequeued before sending, as sending can disconnect the end point which flushes and removes this queue.
+            readOffset = offset + HEADER_LENGTH + length;
+            queuedBytes -= length;
+            OutboundScheduler.this.queuedBytes -= length;
+
+            senderEndPoints.onMessage(
+                buffer.getInt(offset + LIBRARY_ID_OFFSET),
+                connectionId,
+                buffer,
+                offset + HEADER_LENGTH,
+                length,
+                buffer.getInt(offset + SEQUENCE_NUMBER_OFFSET),
+                buffer.getLong(offset + POSITION_OFFSET));
+
+            if (isEmpty())
+            {
+                clear();
+            }
+        }
+
+        private void clear()
+        {
+            readOffset = 0;
+            writeOffset = 0;
+            priorityLimit = 0;
+            queuedBytes = 0;
+        }
+    }
+}
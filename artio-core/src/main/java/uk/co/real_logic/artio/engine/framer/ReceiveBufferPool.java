@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.status.AtomicCounter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A pool of direct buffers, called slabs, that receiver end points borrow to frame messages in while they're busy
+ * and give back once they're idle, so that idle connections don't each hold onto a full size receive buffer.
+ *
+ * Slabs come in power of two multiples of the minimum slab size, up to the maximum slab size, so a connection that
+ * receives a message larger than its slab can borrow a larger one. Released slabs are kept for reuse, most recently
+ * released first, until the pool holds the maximum number of free bytes after which they're freed.
+ *
+ * Only accessed on the Framer thread.
+ */
+class ReceiveBufferPool
+{
+    private static final int INITIAL_SLABS_PER_SIZE = 16;
+
+    private final int residualBufferSize;
+    private final int minSlabSize;
+    private final int maxSlabSize;
+    private final long maxFreeBytes;
+    private final AtomicCounter borrowedBytesCounter;
+    private final AtomicCounter freeBytesCounter;
+    private final ByteBuffer[][] freeSlabs;
+    private final int[] freeSlabCounts;
+
+    private long borrowedBytes;
+    private long freeBytes;
+
+    ReceiveBufferPool(
+        final int residualBufferSize,
+        final int minSlabSize,
+        final int maxSlabSize,
+        final long maxFreeBytes,
+        final AtomicCounter borrowedBytesCounter,
+        final AtomicCounter freeBytesCounter)
+    {
+        if (residualBufferSize <= 0 || residualBufferSize >= minSlabSize)
+        {
+            throw new IllegalArgumentException(String.format(
+                "residualBufferSize (%d) must be positive and less than minSlabSize (%d)",
+                residualBufferSize,
+                minSlabSize));
+        }
+
+        if (maxSlabSize < minSlabSize)
+        {
+            throw new IllegalArgumentException(String.format(
+                "maxSlabSize (%d) must not be less than minSlabSize (%d)", maxSlabSize, minSlabSize));
+        }
+
+        this.residualBufferSize = residualBufferSize;
+        this.minSlabSize = minSlabSize;
+        this.maxSlabSize = maxSlabSize;
+        this.maxFreeBytes = maxFreeBytes;
+        this.borrowedBytesCounter = borrowedBytesCounter;
+        this.freeBytesCounter = freeBytesCounter;
+
+        final int sizeClasses = sizeClass(maxSlabSize) + 1;
+        freeSlabs = new ByteBuffer[sizeClasses][INITIAL_SLABS_PER_SIZE];
+        freeSlabCounts = new int[sizeClasses];
+    }
+
+    /**
+     * Allocate the small buffer that an end point keeps for partial messages whilst it doesn't hold a slab.
+     *
+     * @return a new residual buffer.
+     */
+    ByteBuffer newResidualBuffer()
+    {
+        return ByteBuffer.allocateDirect(residualBufferSize);
+    }
+
+    int residualBufferSize()
+    {
+        return residualBufferSize;
+    }
+
+    int maxSlabSize()
+    {
+        return maxSlabSize;
+    }
+
+    /**
+     * Borrow a slab.
+     *
+     * @param minCapacity the minimum capacity of the slab, capped at the maximum slab size.
+     * @return a cleared slab with at least the requested capacity.
+     */
+    ByteBuffer acquire(final int minCapacity)
+    {
+        final int sizeClass = sizeClass(Math.min(minCapacity, maxSlabSize));
+        final int count = freeSlabCounts[sizeClass];
+        final ByteBuffer slab;
+        if (count > 0)
+        {
+            final ByteBuffer[] slabs = freeSlabs[sizeClass];
+            slab = slabs[count - 1];
+            slabs[count - 1] = null;
+            freeSlabCounts[sizeClass] = count - 1;
+            freeBytes -= slab.capacity();
+        }
+        else
+        {
+            slab = ByteBuffer.allocateDirect(slabSize(sizeClass));
+        }
+
+        borrowedBytes += slab.capacity();
+        updateCounters();
+
+        return slab;
+    }
+
+    /**
+     * Give back a slab that was borrowed from this pool.
+     *
+     * @param slab the slab to give back.
+     */
+    void release(final ByteBuffer slab)
+    {
+        final int capacity = slab.capacity();
+        borrowedBytes -= capacity;
+
+        if (freeBytes + capacity > maxFreeBytes)
+        {
+            IoUtil.unmap(slab);
+        }
+        else
+        {
+            final int sizeClass = sizeClass(capacity);
+            final int count = freeSlabCounts[sizeClass];
+            ByteBuffer[] slabs = freeSlabs[sizeClass];
+            if (count == slabs.length)
+            {
+                slabs = Arrays.copyOf(slabs, count << 1);
+                freeSlabs[sizeClass] = slabs;
+            }
+
+            slab.clear();
+            slabs[count] = slab;
+            freeSlabCounts[sizeClass] = count + 1;
+            freeBytes += capacity;
+        }
+
+        updateCounters();
+    }
+
+    long borrowedBytes()
+    {
+        return borrowedBytes;
+    }
+
+    long freeBytes()
+    {
+        return freeBytes;
+    }
+
+    private void updateCounters()
+    {
+        borrowedBytesCounter.setOrdered(borrowedBytes);
+        freeBytesCounter.setOrdered(freeBytes);
+    }
+
+    private int sizeClass(final int capacity)
+    {
+        int sizeClass = 0;
+        while (slabSize(sizeClass) < capacity)
+        {
+            sizeClass++;
+        }
+
+        return sizeClass;
+    }
+
+    private int slabSize(final int sizeClass)
+    {
+        return (int)Math.min((long)minSlabSize << sizeClass, maxSlabSize);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package uk.co.real_logic.artio.engine.framer;
 
+import org.agrona.CloseHelper;
 import org.agrona.ErrorHandler;
 import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.status.AtomicCounter;
@@ -24,9 +25,11 @@ import uk.co.real_logic.artio.decoder.LogonDecoder;
 import uk.co.real_logic.artio.dictionary.StandardFixConstants;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.ByteBufferUtil;
+import uk.co.real_logic.artio.engine.InboundRateLimitAction;
 import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexReader;
 import uk.co.real_logic.artio.messages.ConnectionType;
 import uk.co.real_logic.artio.messages.DisconnectReason;
+import uk.co.real_logic.artio.messages.MessageStatus;
 import uk.co.real_logic.artio.messages.SequenceNumberType;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
@@ -43,6 +46,7 @@ import static java.nio.channels.SelectionKey.OP_READ;
 import static uk.co.real_logic.artio.LogTag.FIX_MESSAGE;
 import static uk.co.real_logic.artio.dictionary.StandardFixConstants.MIN_MESSAGE_SIZE;
 import static uk.co.real_logic.artio.dictionary.StandardFixConstants.START_OF_HEADER;
+import static uk.co.real_logic.artio.engine.framer.AdminMessageTypes.isAdmin;
 import static uk.co.real_logic.artio.messages.ConnectionType.INITIATOR;
 import static uk.co.real_logic.artio.messages.DisconnectReason.*;
 import static uk.co.real_logic.artio.messages.MessageStatus.*;
@@ -88,9 +92,13 @@ class ReceiverEndPoint
     private final Framer framer;
     private final ErrorHandler errorHandler;
     private final MutableAsciiBuffer buffer;
-    private final ByteBuffer byteBuffer;
+    private final ReceiveBufferPool bufferPool;
+    private final ByteBuffer residualByteBuffer;
     private final LongHashSet replicatedConnectionIds;
     private final GatewaySessions gatewaySessions;
+    private final InboundRateLimiter rateLimiter;
+    private final InboundRateLimitAction rateLimitAction;
+    private final AtomicCounter rateLimitedMessages;
 
     private GatewayPublication publication;
     private int libraryId;
@@ -101,10 +109,16 @@ class ReceiverEndPoint
     private boolean hasDisconnected = false;
     private SelectionKey selectionKey;
     private boolean isPaused = false;
+    private boolean isThrottled = false;
+    private boolean needsMoreData = false;
+    private boolean isPolling = false;
+    private int lastDataRead = 0;
+    private ByteBuffer byteBuffer;
 
     ReceiverEndPoint(
         final TcpChannel channel,
         final int bufferSize,
+        final ReceiveBufferPool bufferPool,
         final GatewayPublication libraryPublication,
         final GatewayPublication clusterablePublication,
         final long connectionId,
@@ -120,7 +134,10 @@ class ReceiverEndPoint
         final SequenceNumberType sequenceNumberType,
         final ConnectionType connectionType,
         final LongHashSet replicatedConnectionIds,
-        final GatewaySessions gatewaySessions)
+        final GatewaySessions gatewaySessions,
+        final InboundRateLimiter rateLimiter,
+        final InboundRateLimitAction rateLimitAction,
+        final AtomicCounter rateLimitedMessages)
     {
         Objects.requireNonNull(clusterablePublication, "clusterablePublication");
         Objects.requireNonNull(libraryPublication, "libraryPublication");
@@ -142,8 +159,22 @@ class ReceiverEndPoint
         this.libraryId = libraryId;
         this.replicatedConnectionIds = replicatedConnectionIds;
         this.gatewaySessions = gatewaySessions;
+        this.rateLimiter = rateLimiter;
+        this.rateLimitAction = rateLimitAction;
+        this.rateLimitedMessages = rateLimitedMessages;
+        this.bufferPool = bufferPool;
 
-        byteBuffer = ByteBuffer.allocateDirect(bufferSize);
+        // Pooled end points only hold a slab whilst they're busy, see adjustBuffer().
+        if (bufferPool == null)
+        {
+            residualByteBuffer = null;
+            byteBuffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        else
+        {
+            residualByteBuffer = bufferPool.newResidualBuffer();
+            byteBuffer = residualByteBuffer;
+        }
         buffer = new MutableAsciiBuffer(byteBuffer);
         // Initiator sessions are persistent if the sequence numbers are expected to be persistent.
         if (connectionType == INITIATOR)
@@ -158,15 +189,27 @@ class ReceiverEndPoint
     }
 
     int pollForData()
+    {
+        return poll(true);
+    }
+
+    // Frames the messages that were delayed by the rate limit, without reading any more data from the channel.
+    int frameDelayedMessages()
+    {
+        return poll(false);
+    }
+
+    private int poll(final boolean readData)
     {
         if (isPaused || hasDisconnected())
         {
             return 0;
         }
 
+        isPolling = true;
         try
         {
-            return readData() + frameMessages();
+            return (readData ? readData() : 0) + frameMessages();
         }
         catch (final ClosedChannelException ex)
         {
@@ -184,11 +227,20 @@ class ReceiverEndPoint
             onDisconnectDetected();
             return 1;
         }
+        finally
+        {
+            isPolling = false;
+            if (bufferPool != null)
+            {
+                adjustBuffer();
+            }
+        }
     }
 
     private int readData() throws IOException
     {
         final int dataRead = channel.read(byteBuffer);
+        lastDataRead = dataRead;
         if (dataRead != SOCKET_DISCONNECTED)
         {
             if (dataRead > 0)
@@ -208,6 +260,7 @@ class ReceiverEndPoint
 
     private int frameMessages()
     {
+        needsMoreData = false;
         int offset = 0;
         while (true)
         {
@@ -274,8 +327,7 @@ class ReceiverEndPoint
                         return offset;
                     }
 
-                    messagesRead.incrementOrdered();
-                    if (saveMessage(offset, messageType, length))
+                    if (saveValidMessage(offset, messageType, length))
                     {
                         return offset;
                     }
@@ -295,10 +347,70 @@ class ReceiverEndPoint
             }
         }
 
+        needsMoreData = true;
         moveRemainingDataToBufferStart(offset);
         return offset;
     }
 
+    /**
+     * Borrows a slab once the residual buffer fills up, borrows a larger slab when a message doesn't fit into the
+     * current one and gives the slab back once the connection has no more data waiting and the partial message
+     * that's left fits into the residual buffer.
+     */
+    private void adjustBuffer()
+    {
+        final ByteBuffer byteBuffer = this.byteBuffer;
+        if (hasDisconnected())
+        {
+            releaseSlab();
+        }
+        else if (byteBuffer == residualByteBuffer)
+        {
+            if (usedBufferData == byteBuffer.capacity())
+            {
+                swapBuffer(bufferPool.acquire(byteBuffer.capacity() + 1));
+            }
+        }
+        else if (lastDataRead == 0 && usedBufferData <= residualByteBuffer.capacity())
+        {
+            swapBuffer(residualByteBuffer);
+        }
+        else if (needsMoreData && usedBufferData == byteBuffer.capacity() &&
+            byteBuffer.capacity() < bufferPool.maxSlabSize())
+        {
+            swapBuffer(bufferPool.acquire(byteBuffer.capacity() << 1));
+        }
+    }
+
+    private void swapBuffer(final ByteBuffer newByteBuffer)
+    {
+        final ByteBuffer oldByteBuffer = byteBuffer;
+        final int usedBufferData = this.usedBufferData;
+        final MutableAsciiBuffer buffer = this.buffer;
+        buffer.getBytes(0, newByteBuffer, 0, usedBufferData);
+        ByteBufferUtil.position(newByteBuffer, usedBufferData);
+        buffer.wrap(newByteBuffer);
+        byteBuffer = newByteBuffer;
+
+        if (oldByteBuffer != residualByteBuffer)
+        {
+            bufferPool.release(oldByteBuffer);
+        }
+    }
+
+    private void releaseSlab()
+    {
+        final ByteBuffer byteBuffer = this.byteBuffer;
+        if (bufferPool != null && byteBuffer != residualByteBuffer)
+        {
+            usedBufferData = 0;
+            residualByteBuffer.clear();
+            buffer.wrap(residualByteBuffer);
+            this.byteBuffer = residualByteBuffer;
+            bufferPool.release(byteBuffer);
+        }
+    }
+
     private boolean validateChecksum(
         final int endOfMessage,
         final int startOfChecksumValue,
@@ -398,7 +510,56 @@ class ReceiverEndPoint
         return backPressured;
     }
 
-    private boolean saveMessage(final int offset, final int messageType, final int length)
+    // returns true if framing should stop at this message
+    private boolean saveValidMessage(final int offset, final int messageType, final int length)
+    {
+        if (rateLimiter != null && !rateLimiter.tryAcquire(length))
+        {
+            return onRateLimited(offset, messageType, length);
+        }
+
+        isThrottled = false;
+        messagesRead.incrementOrdered();
+        return saveMessage(offset, messageType, length, OK);
+    }
+
+    private boolean onRateLimited(final int offset, final int messageType, final int length)
+    {
+        switch (rateLimitAction)
+        {
+            case REJECT:
+                if (isAdmin(messageType))
+                {
+                    messagesRead.incrementOrdered();
+                    return saveMessage(offset, messageType, length, OK);
+                }
+
+                rateLimitedMessages.incrementOrdered();
+                messagesRead.incrementOrdered();
+                return saveMessage(offset, messageType, length, RATE_LIMITED);
+
+            case DISCONNECT:
+                rateLimitedMessages.incrementOrdered();
+                close(RATE_LIMIT_EXCEEDED);
+                removeEndpointFromFramer();
+                return true;
+
+            case DELAY:
+            default:
+                // Count each delayed message once, rather than every time that it's retried.
+                if (!isThrottled)
+                {
+                    isThrottled = true;
+                    rateLimitedMessages.incrementOrdered();
+                }
+
+                moveRemainingDataToBufferStart(offset);
+                return true;
+        }
+    }
+
+    private boolean saveMessage(
+        final int offset, final int messageType, final int length, final MessageStatus status)
     {
         final long position = publication.saveMessage(buffer,
             offset,
@@ -408,7 +569,7 @@ class ReceiverEndPoint
             sessionId,
             sequenceIndex,
             connectionId,
-            OK,
+            status,
             0);
 
         if (Pressure.isBackPressured(position))
@@ -418,7 +579,14 @@ class ReceiverEndPoint
         }
         else
         {
-            gatewaySession.onMessage(buffer, offset, length, messageType, sessionId);
+            if (status == OK)
+            {
+                gatewaySession.onMessage(buffer, offset, length, messageType, sessionId);
+            }
+            else
+            {
+                gatewaySession.onRateLimitedMessage(buffer, offset, length);
+            }
             return false;
         }
     }
@@ -550,11 +718,18 @@ class ReceiverEndPoint
         {
             channel.close();
             messagesRead.close();
+            CloseHelper.close(rateLimitedMessages);
         }
         catch (final Exception ex)
         {
             errorHandler.onError(ex);
         }
+
+        // When closed whilst polling the slab is released once framing has finished with it.
+        if (!isPolling)
+        {
+            releaseSlab();
+        }
     }
 
     private void removeEndpointFromFramer()
@@ -598,6 +773,11 @@ class ReceiverEndPoint
         return hasDisconnected;
     }
 
+    boolean isThrottled()
+    {
+        return isThrottled;
+    }
+
     public void register(final Selector selector) throws IOException
     {
         selectionKey = channel.register(selector, OP_READ, this);
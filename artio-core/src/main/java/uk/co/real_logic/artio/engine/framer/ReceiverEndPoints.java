@@ -31,6 +31,10 @@ class ReceiverEndPoints extends TransportPoller
 {
     private ReceiverEndPoint[] endPoints = new ReceiverEndPoint[0];
 
+    // Endpoints whose messages have been delayed by their rate limit. Their data has already been read so the
+    // selector won't select them again, their messages are framed every poll until the rate limit allows them.
+    private ReceiverEndPoint[] throttledEndPoints = new ReceiverEndPoint[0];
+
     void add(final ReceiverEndPoint endPoint)
     {
         try
@@ -61,6 +65,7 @@ class ReceiverEndPoints extends TransportPoller
         }
 
         this.endPoints = ArrayUtil.remove(endPoints, index);
+        removeThrottled(connectionId);
 
         selectNowToForceProcessing();
     }
@@ -88,17 +93,19 @@ class ReceiverEndPoints extends TransportPoller
             {
                 for (int i = numEndPoints - 1; i >= 0; i--)
                 {
-                    bytesReceived += endPoints[i].pollForData();
+                    bytesReceived += poll(endPoints[i]);
                 }
             }
             else
             {
+                bytesReceived += pollThrottledEndPoints();
+
                 selector.selectNow();
 
                 final SelectionKey[] keys = selectedKeySet.keys();
                 for (int i = selectedKeySet.size() - 1; i >= 0; i--)
                 {
-                    bytesReceived += ((ReceiverEndPoint)keys[i].attachment()).pollForData();
+                    bytesReceived += poll((ReceiverEndPoint)keys[i].attachment());
                 }
 
                 selectedKeySet.reset();
@@ -112,6 +119,61 @@ class ReceiverEndPoints extends TransportPoller
         return bytesReceived;
     }
 
+    private int poll(final ReceiverEndPoint endPoint)
+    {
+        final int bytesReceived = endPoint.pollForData();
+        if (endPoint.isThrottled() && !isThrottled(endPoint))
+        {
+            throttledEndPoints = ArrayUtil.add(throttledEndPoints, endPoint);
+        }
+
+        return bytesReceived;
+    }
+
+    private boolean isThrottled(final ReceiverEndPoint endPoint)
+    {
+        for (final ReceiverEndPoint throttledEndPoint : throttledEndPoints)
+        {
+            if (throttledEndPoint == endPoint)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int pollThrottledEndPoints()
+    {
+        int bytesReceived = 0;
+        ReceiverEndPoint[] throttledEndPoints = this.throttledEndPoints;
+        for (int i = throttledEndPoints.length - 1; i >= 0; i--)
+        {
+            final ReceiverEndPoint endPoint = throttledEndPoints[i];
+            bytesReceived += endPoint.frameDelayedMessages();
+            if (!endPoint.isThrottled() || endPoint.hasDisconnected())
+            {
+                throttledEndPoints = ArrayUtil.remove(throttledEndPoints, i);
+            }
+        }
+
+        this.throttledEndPoints = throttledEndPoints;
+        return bytesReceived;
+    }
+
+    private void removeThrottled(final long connectionId)
+    {
+        final ReceiverEndPoint[] throttledEndPoints = this.throttledEndPoints;
+        for (int i = 0; i < throttledEndPoints.length; i++)
+        {
+            if (throttledEndPoints[i].connectionId() == connectionId)
+            {
+                this.throttledEndPoints = ArrayUtil.remove(throttledEndPoints, i);
+                return;
+            }
+        }
+    }
+
     public void close()
     {
         Stream.of(endPoints).forEach(receiverEndPoint -> receiverEndPoint.close(ENGINE_SHUTDOWN));
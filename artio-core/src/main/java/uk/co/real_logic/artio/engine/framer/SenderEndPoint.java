@@ -49,6 +49,7 @@ class SenderEndPoint
     private final StreamTracker outboundTracker;
     private final StreamTracker replayTracker;
     private final SenderSequenceNumber senderSequenceNumber;
+    private final SpillBuffer spillBuffer;
 
     private int libraryId;
     private long sessionId;
@@ -67,7 +68,8 @@ class SenderEndPoint
         final int maxBytesInBuffer,
         final long slowConsumerTimeoutInMs,
         final long timeInMs,
-        final SenderSequenceNumber senderSequenceNumber)
+        final SenderSequenceNumber senderSequenceNumber,
+        final SpillBuffer spillBuffer)
     {
         this.connectionId = connectionId;
         this.libraryId = libraryId;
@@ -79,6 +81,7 @@ class SenderEndPoint
         this.maxBytesInBuffer = maxBytesInBuffer;
         this.slowConsumerTimeoutInMs = slowConsumerTimeoutInMs;
         this.senderSequenceNumber = senderSequenceNumber;
+        this.spillBuffer = spillBuffer;
 
         outboundTracker = new StreamTracker(outboundBlockablePosition);
         replayTracker = new StreamTracker(replayBlockablePosition);
@@ -139,6 +142,12 @@ class SenderEndPoint
         final long position,
         final StreamTracker tracker)
     {
+        if (spillBuffer != null)
+        {
+            spillFramedMessage(directBuffer, offset, bodyLength, timeInMs, position, tracker);
+            return;
+        }
+
         if (isSlowConsumer())
         {
             final long bytesInBuffer = bytesInBufferWeak() + bodyLength;
@@ -171,6 +180,91 @@ class SenderEndPoint
         }
     }
 
+    // Bytes that can't be written are copied into the spill buffer rather than re-read from the stream later, so
+    // the stream is never blocked and is always treated as sent up to this message.
+    private void spillFramedMessage(
+        final DirectBuffer directBuffer,
+        final int offset,
+        final int bodyLength,
+        final long timeInMs,
+        final long position,
+        final StreamTracker tracker)
+    {
+        tracker.sentPosition = position;
+
+        if (isSlowConsumer())
+        {
+            final long bytesInBuffer = bytesInBufferWeak() + bodyLength;
+            if (bytesInBuffer > maxBytesInBuffer)
+            {
+                removeEndpoint(SLOW_CONSUMER);
+                return;
+            }
+
+            spillBuffer.append(directBuffer, offset, bodyLength);
+            this.bytesInBuffer.setOrdered(bytesInBuffer);
+
+            return;
+        }
+
+        try
+        {
+            final int written = writeFramedMessage(directBuffer, offset, bodyLength, timeInMs);
+            final int remainingBytes = bodyLength - written;
+            if (remainingBytes > maxBytesInBuffer)
+            {
+                removeEndpoint(SLOW_CONSUMER);
+            }
+            else if (remainingBytes > 0)
+            {
+                spillBuffer.append(directBuffer, offset + written, remainingBytes);
+                bytesInBuffer.setOrdered(remainingBytes);
+                sendSlowStatus(true);
+            }
+        }
+        catch (final IOException ex)
+        {
+            onError(ex);
+        }
+    }
+
+    int drainSpillBuffer(final long timeInMs)
+    {
+        if (!isSlowConsumer())
+        {
+            return 0;
+        }
+
+        try
+        {
+            final int written = spillBuffer.drainTo(channel);
+            if (written > 0)
+            {
+                updateSendingTimeoutTimeInMs(timeInMs, written);
+                bytesInBuffer.getAndAddOrdered(-written);
+
+                if (spillBuffer.isEmpty())
+                {
+                    becomeNormalConsumer();
+                }
+
+                return 1;
+            }
+        }
+        catch (final IOException ex)
+        {
+            onError(ex);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    boolean hasSpillBuffer()
+    {
+        return spillBuffer != null;
+    }
+
     private int writeFramedMessage(
         final DirectBuffer directBuffer,
         final int offset,
@@ -249,6 +343,11 @@ class SenderEndPoint
     {
         bytesInBuffer.close();
         invalidLibraryAttempts.close();
+        senderSequenceNumber.close();
+        if (spillBuffer != null)
+        {
+            spillBuffer.close();
+        }
     }
 
     Action onSlowOutboundMessage(
@@ -279,7 +378,9 @@ class SenderEndPoint
         final long timeInMs,
         final StreamTracker tracker)
     {
-        if (!isSlowConsumer())
+        // Spilled bytes are drained from the spill buffer, never re-read from the stream. With outbound scheduling
+        // the stream can also be ahead of the messages that have been sent.
+        if (!isSlowConsumer() || spillBuffer != null)
         {
             return CONTINUE;
         }
@@ -26,6 +26,7 @@ import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.replication.ClusterFragmentHandler;
 import uk.co.real_logic.artio.replication.ClusterHeader;
 
+import java.util.ArrayList;
 import java.util.function.LongToIntFunction;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
@@ -37,6 +38,7 @@ class SenderEndPoints implements AutoCloseable, ControlledFragmentHandler, Clust
     private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
     private final FixMessageDecoder fixMessage = new FixMessageDecoder();
     private final Long2ObjectHashMap<SenderEndPoint> connectionIdToSenderEndpoint = new Long2ObjectHashMap<>();
+    private final ArrayList<SenderEndPoint> spillingSenderEndPoints = new ArrayList<>();
     private final ErrorHandler errorHandler;
     private final LongToIntFunction libraryLookup = this::libraryLookup;
 
@@ -63,6 +65,10 @@ class SenderEndPoints implements AutoCloseable, ControlledFragmentHandler, Clust
     public void add(final SenderEndPoint senderEndPoint)
     {
         connectionIdToSenderEndpoint.put(senderEndPoint.connectionId(), senderEndPoint);
+        if (senderEndPoint.hasSpillBuffer())
+        {
+            spillingSenderEndPoints.add(senderEndPoint);
+        }
     }
 
     void removeConnection(final long connectionId)
@@ -70,6 +76,7 @@ class SenderEndPoints implements AutoCloseable, ControlledFragmentHandler, Clust
         final SenderEndPoint senderEndPoint = connectionIdToSenderEndpoint.remove(connectionId);
         if (senderEndPoint != null)
         {
+            spillingSenderEndPoints.remove(senderEndPoint);
             senderEndPoint.close();
         }
     }
@@ -195,6 +202,19 @@ class SenderEndPoints implements AutoCloseable, ControlledFragmentHandler, Clust
         return count;
     }
 
+    int drainSpillBuffers()
+    {
+        // Iterates backwards as draining can disconnect and remove an end point.
+        final ArrayList<SenderEndPoint> spillingSenderEndPoints = this.spillingSenderEndPoints;
+        int count = 0;
+        for (int i = spillingSenderEndPoints.size() - 1; i >= 0; i--)
+        {
+            count += spillingSenderEndPoints.get(i).drainSpillBuffer(timeInMs);
+        }
+
+        return count;
+    }
+
     public LongToIntFunction libraryLookup()
     {
         return libraryLookup;
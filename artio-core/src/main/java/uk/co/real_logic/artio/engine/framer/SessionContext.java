@@ -15,6 +15,7 @@
  */
 package uk.co.real_logic.artio.engine.framer;
 
+import uk.co.real_logic.artio.session.CompositeKey;
 import uk.co.real_logic.artio.session.Session;
 
 /**
@@ -24,6 +25,7 @@ class SessionContext
 {
     static final int UNKNOWN_SEQUENCE_INDEX = -1;
 
+    private final CompositeKey compositeKey;
     private final long sessionId;
     private final SessionContexts sessionContexts;
     private final int filePosition;
@@ -35,12 +37,14 @@ class SessionContext
     private long logonTime;
 
     SessionContext(
+        final CompositeKey compositeKey,
         final long sessionId,
         final int sequenceIndex,
         final long logonTime,
         final SessionContexts sessionContexts,
         final int filePosition)
     {
+        this.compositeKey = compositeKey;
         this.sessionId = sessionId;
         this.sequenceIndex = sequenceIndex;
         this.logonTime = logonTime;
@@ -86,6 +90,11 @@ class SessionContext
         return sessionId;
     }
 
+    CompositeKey compositeKey()
+    {
+        return compositeKey;
+    }
+
     public boolean equals(final Object o)
     {
         if (this == o)
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.collections.Hashing;
+import uk.co.real_logic.artio.decoder.HeaderDecoder;
+import uk.co.real_logic.artio.session.CompositeKey;
+import uk.co.real_logic.artio.session.HeaderLookupSessionIdStrategy;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open addressed table of session contexts, keyed by the hash codes of their composite keys.
+ *
+ * Keeping the hashes in a primitive array means that an accepted logon can be looked up by hashing its header,
+ * with any collisions resolved by comparing the header's ids against the stored keys, rather than having to
+ * create a composite key. Contexts are never removed other than by clearing the whole table.
+ */
+final class SessionContextTable
+{
+    private static final int MIN_CAPACITY = 64;
+
+    private int[] hashes;
+    private SessionContext[] contexts;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    SessionContextTable()
+    {
+        allocate(MIN_CAPACITY);
+    }
+
+    SessionContext get(final CompositeKey compositeKey)
+    {
+        final int hash = compositeKey.hashCode();
+        final int[] hashes = this.hashes;
+        final SessionContext[] contexts = this.contexts;
+        final int mask = this.mask;
+
+        int index = Hashing.hash(hash, mask);
+        SessionContext context;
+        while ((context = contexts[index]) != null)
+        {
+            if (hashes[index] == hash && compositeKey.equals(context.compositeKey()))
+            {
+                return context;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    SessionContext get(final HeaderLookupSessionIdStrategy idStrategy, final HeaderDecoder header)
+    {
+        final int hash = idStrategy.acceptLogonHash(header);
+        final int[] hashes = this.hashes;
+        final SessionContext[] contexts = this.contexts;
+        final int mask = this.mask;
+
+        int index = Hashing.hash(hash, mask);
+        SessionContext context;
+        while ((context = contexts[index]) != null)
+        {
+            if (hashes[index] == hash && idStrategy.isAcceptLogonKey(context.compositeKey(), header))
+            {
+                return context;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds a context, replacing any existing context with the same composite key.
+     *
+     * @param context the context to add, must have a composite key.
+     */
+    void put(final SessionContext context)
+    {
+        final CompositeKey compositeKey = context.compositeKey();
+        final int hash = compositeKey.hashCode();
+        final int[] hashes = this.hashes;
+        final SessionContext[] contexts = this.contexts;
+        final int mask = this.mask;
+
+        int index = Hashing.hash(hash, mask);
+        SessionContext existing;
+        while ((existing = contexts[index]) != null)
+        {
+            if (hashes[index] == hash && compositeKey.equals(existing.compositeKey()))
+            {
+                contexts[index] = context;
+                return;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        hashes[index] = hash;
+        contexts[index] = context;
+
+        if (++size > resizeThreshold)
+        {
+            rehash(contexts.length << 1);
+        }
+    }
+
+    void forEach(final Consumer<SessionContext> consumer)
+    {
+        for (final SessionContext context : contexts)
+        {
+            if (context != null)
+            {
+                consumer.accept(context);
+            }
+        }
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    void clear()
+    {
+        if (size > 0)
+        {
+            Arrays.fill(contexts, null);
+            size = 0;
+        }
+    }
+
+    private void rehash(final int newCapacity)
+    {
+        final int[] oldHashes = hashes;
+        final SessionContext[] oldContexts = contexts;
+        allocate(newCapacity);
+
+        final int[] hashes = this.hashes;
+        final SessionContext[] contexts = this.contexts;
+        final int mask = this.mask;
+        for (int i = 0; i < oldContexts.length; i++)
+        {
+            final SessionContext context = oldContexts[i];
+            if (context != null)
+            {
+                final int hash = oldHashes[i];
+                int index = Hashing.hash(hash, mask);
+                while (contexts[index] != null)
+                {
+                    index = (index + 1) & mask;
+                }
+
+                hashes[index] = hash;
+                contexts[index] = context;
+            }
+        }
+    }
+
+    private void allocate(final int capacity)
+    {
+        hashes = new int[capacity];
+        contexts = new SessionContext[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity >> 1;
+    }
+}
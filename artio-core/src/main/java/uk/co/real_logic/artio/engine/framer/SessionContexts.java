@@ -29,6 +29,7 @@ import uk.co.real_logic.artio.engine.logger.LoggerUtil;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
 import uk.co.real_logic.artio.session.CompositeKey;
+import uk.co.real_logic.artio.session.HeaderLookupSessionIdStrategy;
 import uk.co.real_logic.artio.session.Session;
 import uk.co.real_logic.artio.session.SessionIdStrategy;
 import uk.co.real_logic.artio.storage.messages.SessionIdDecoder;
@@ -38,9 +39,6 @@ import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import java.io.File;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
 import java.util.zip.CRC32;
 
 import static uk.co.real_logic.artio.engine.SectorFramer.*;
@@ -57,13 +55,15 @@ import static uk.co.real_logic.artio.storage.messages.SessionIdEncoder.BLOCK_LEN
 public class SessionContexts
 {
 
-    static final SessionContext DUPLICATE_SESSION = new SessionContext(-3,
+    static final SessionContext DUPLICATE_SESSION = new SessionContext(
+        null,
+        -3,
         -3,
         Session.NO_LOGON_TIME,
         null,
         OUT_OF_SPACE);
     static final SessionContext UNKNOWN_SESSION = new SessionContext(
-        Session.UNKNOWN, (int)Session.UNKNOWN, Session.NO_LOGON_TIME, null, OUT_OF_SPACE);
+        null, Session.UNKNOWN, (int)Session.UNKNOWN, Session.NO_LOGON_TIME, null, OUT_OF_SPACE);
     static final long LOWEST_VALID_SESSION_ID = 1L;
 
     private static final int HEADER_SIZE = MessageHeaderDecoder.ENCODED_LENGTH;
@@ -79,10 +79,9 @@ public class SessionContexts
     private final int actingBlockLength = sessionIdEncoder.sbeBlockLength();
     private final int actingVersion = sessionIdEncoder.sbeSchemaVersion();
 
-    private final Function<CompositeKey, SessionContext> onNewLogonFunc = this::onNewLogon;
     private final LongHashSet currentlyAuthenticatedSessionIds = new LongHashSet();
     private final LongHashSet recordedSessions = new LongHashSet();
-    private final Map<CompositeKey, SessionContext> compositeToContext = new HashMap<>();
+    private final SessionContextTable compositeToContext = new SessionContextTable();
 
     private final CRC32 crc32 = new CRC32();
     private final SectorFramer sectorFramer;
@@ -90,6 +89,7 @@ public class SessionContexts
 
     private final AtomicBuffer buffer;
     private final SessionIdStrategy idStrategy;
+    private final HeaderLookupSessionIdStrategy headerLookupIdStrategy;
     private final ErrorHandler errorHandler;
     private final MappedFile mappedFile;
 
@@ -104,6 +104,8 @@ public class SessionContexts
         this.byteBuffer = this.buffer.byteBuffer();
         sectorFramer = new SectorFramer(buffer.capacity());
         this.idStrategy = idStrategy;
+        this.headerLookupIdStrategy = idStrategy instanceof HeaderLookupSessionIdStrategy ?
+            (HeaderLookupSessionIdStrategy)idStrategy : null;
         this.errorHandler = errorHandler;
         loadBuffer();
     }
@@ -150,8 +152,8 @@ public class SessionContexts
                 return;
             }
 
-            compositeToContext.put(compositeKey,
-                new SessionContext(sessionId, sequenceIndex, logonTime, this, filePosition));
+            compositeToContext.put(
+                new SessionContext(compositeKey, sessionId, sequenceIndex, logonTime, this, filePosition));
             recordedSessions.add(sessionId);
             counter = Math.max(counter, sessionId + 1);
 
@@ -211,10 +213,46 @@ public class SessionContexts
         return sectorEnd;
     }
 
+    /**
+     * Find or allocate the session context for an accepted logon. If the session id strategy is a
+     * {@link HeaderLookupSessionIdStrategy} then sessions that have been seen before are found without creating
+     * a composite key.
+     *
+     * @param header the header of the logon message.
+     * @return the session context, which holds the session's composite key, or {@link #DUPLICATE_SESSION}
+     * if the session is already authenticated.
+     */
+    public SessionContext onAcceptLogon(final HeaderDecoder header)
+    {
+        if (headerLookupIdStrategy == null)
+        {
+            return onLogon(idStrategy.onAcceptLogon(header));
+        }
+
+        SessionContext sessionContext = compositeToContext.get(headerLookupIdStrategy, header);
+        if (sessionContext == null)
+        {
+            sessionContext = onNewLogon(idStrategy.onAcceptLogon(header));
+            compositeToContext.put(sessionContext);
+        }
+
+        return onAuthenticated(sessionContext);
+    }
+
     public SessionContext onLogon(final CompositeKey compositeKey)
     {
-        final SessionContext sessionContext = compositeToContext.computeIfAbsent(compositeKey, onNewLogonFunc);
+        SessionContext sessionContext = compositeToContext.get(compositeKey);
+        if (sessionContext == null)
+        {
+            sessionContext = onNewLogon(compositeKey);
+            compositeToContext.put(sessionContext);
+        }
+
+        return onAuthenticated(sessionContext);
+    }
 
+    private SessionContext onAuthenticated(final SessionContext sessionContext)
+    {
         if (!currentlyAuthenticatedSessionIds.add(sessionContext.sessionId()))
         {
             return DUPLICATE_SESSION;
@@ -242,7 +280,8 @@ public class SessionContexts
                 "Unable to save record session id %d for %s, because the buffer is too small",
                 sessionId,
                 compositeKey)));
-            return new SessionContext(sessionId, sequenceIndex, Session.NO_LOGON_TIME, this, OUT_OF_SPACE);
+            return new SessionContext(
+                compositeKey, sessionId, sequenceIndex, Session.NO_LOGON_TIME, this, OUT_OF_SPACE);
         }
         else
         {
@@ -273,17 +312,20 @@ public class SessionContexts
                 }
             }
 
-            return new SessionContext(sessionId, sequenceIndex, Session.NO_LOGON_TIME, this, keyPosition);
+            return new SessionContext(
+                compositeKey, sessionId, sequenceIndex, Session.NO_LOGON_TIME, this, keyPosition);
         }
     }
 
     void sequenceReset(final long sessionId)
     {
-        compositeToContext
-            .values()
-            .stream()
-            .filter(context -> context.sessionId() == sessionId)
-            .forEach(SessionContext::onSequenceReset);
+        compositeToContext.forEach((context) ->
+        {
+            if (context.sessionId() == sessionId)
+            {
+                context.onSequenceReset();
+            }
+        });
     }
 
     // TODO: optimisation, more efficient checksumming, only checksum new data
@@ -358,7 +400,7 @@ public class SessionContexts
             header.targetLocationIDAsString());
 
         final SessionContext sessionContext = assignSessionId(compositeKey, sessionId, sequenceIndex);
-        compositeToContext.put(compositeKey, sessionContext);
+        compositeToContext.put(sessionContext);
     }
 
     void updateSavedData(final int filePosition, final int sequenceIndex, final long logonTime)
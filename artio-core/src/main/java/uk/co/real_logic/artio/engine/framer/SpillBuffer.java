@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.ByteBufferUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Queues the bytes that a slow consumer hasn't been able to write to its TCP connection yet, so that they're
+ * copied out of the library's stream rather than the stream being held back until they're written.
+ *
+ * Bytes are queued in an off-heap ring and once that's full in a ring in a memory mapped file that can hold the
+ * connection's maximum bytes in buffer. Neither is allocated until the connection first needs them. Once bytes have
+ * been queued in the file the later bytes are too, until the file has been drained, so bytes are written in order.
+ *
+ * Only accessed on the Framer thread.
+ */
+class SpillBuffer implements AutoCloseable
+{
+    private final int memoryCapacity;
+    private final int overflowCapacity;
+    private final File overflowFile;
+
+    private ByteRing memory;
+    private ByteRing overflow;
+
+    SpillBuffer(final int memoryCapacity, final int overflowCapacity, final File overflowFile)
+    {
+        this.memoryCapacity = memoryCapacity;
+        this.overflowCapacity = overflowCapacity;
+        this.overflowFile = overflowFile;
+    }
+
+    /**
+     * Queue bytes to be written.
+     *
+     * @param buffer the buffer containing the bytes.
+     * @param offset the offset of the bytes within the buffer.
+     * @param length the number of bytes.
+     * @throws IllegalStateException if the bytes don't fit in the spill buffer.
+     */
+    void append(final DirectBuffer buffer, final int offset, final int length)
+    {
+        final ByteRing memory = memory();
+        if (isEmpty(overflow) && memory.remaining() >= length)
+        {
+            memory.append(buffer, offset, length);
+        }
+        else
+        {
+            final ByteRing overflow = overflow();
+            if (overflow.remaining() < length)
+            {
+                throw new IllegalStateException(String.format(
+                    "Spill buffer %s can't hold another %d bytes", overflowFile, length));
+            }
+
+            overflow.append(buffer, offset, length);
+        }
+    }
+
+    /**
+     * Write as many of the queued bytes as the channel accepts.
+     *
+     * @param channel the channel to write to.
+     * @return the number of bytes written.
+     * @throws IOException if the channel fails to write.
+     */
+    int drainTo(final TcpChannel channel) throws IOException
+    {
+        int written = 0;
+        if (memory != null)
+        {
+            written += memory.drainTo(channel);
+        }
+
+        if (isEmpty(memory) && overflow != null)
+        {
+            written += overflow.drainTo(channel);
+        }
+
+        return written;
+    }
+
+    boolean isEmpty()
+    {
+        return isEmpty(memory) && isEmpty(overflow);
+    }
+
+    long size()
+    {
+        return size(memory) + size(overflow);
+    }
+
+    public void close()
+    {
+        if (memory != null)
+        {
+            IoUtil.unmap(memory.byteBuffer);
+            memory = null;
+        }
+
+        if (overflow != null)
+        {
+            IoUtil.unmap(overflow.byteBuffer);
+            overflow = null;
+            IoUtil.deleteIfExists(overflowFile);
+        }
+    }
+
+    private ByteRing memory()
+    {
+        if (memory == null)
+        {
+            memory = new ByteRing(ByteBuffer.allocateDirect(memoryCapacity));
+        }
+
+        return memory;
+    }
+
+    private ByteRing overflow()
+    {
+        if (overflow == null)
+        {
+            overflow = new ByteRing(IoUtil.mapNewFile(overflowFile, overflowCapacity));
+        }
+
+        return overflow;
+    }
+
+    private static boolean isEmpty(final ByteRing ring)
+    {
+        return ring == null || ring.size() == 0;
+    }
+
+    private static long size(final ByteRing ring)
+    {
+        return ring == null ? 0 : ring.size();
+    }
+
+    private static final class ByteRing
+    {
+        private final ByteBuffer byteBuffer;
+        private final UnsafeBuffer buffer;
+        private final int capacity;
+
+        private long head;
+        private long tail;
+
+        private ByteRing(final ByteBuffer byteBuffer)
+        {
+            this.byteBuffer = byteBuffer;
+            buffer = new UnsafeBuffer(byteBuffer);
+            capacity = byteBuffer.capacity();
+        }
+
+        private int size()
+        {
+            return (int)(tail - head);
+        }
+
+        private int remaining()
+        {
+            return capacity - size();
+        }
+
+        private void append(final DirectBuffer src, final int offset, final int length)
+        {
+            final int index = (int)(tail % capacity);
+            final int firstLength = Math.min(length, capacity - index);
+            buffer.putBytes(index, src, offset, firstLength);
+            if (firstLength < length)
+            {
+                buffer.putBytes(0, src, offset + firstLength, length - firstLength);
+            }
+            tail += length;
+        }
+
+        private int drainTo(final TcpChannel channel) throws IOException
+        {
+            final ByteBuffer byteBuffer = this.byteBuffer;
+            int totalWritten = 0;
+            while (head < tail)
+            {
+                final int index = (int)(head % capacity);
+                final int length = (int)Math.min(tail - head, capacity - index);
+                ByteBufferUtil.limit(byteBuffer, index + length);
+                ByteBufferUtil.position(byteBuffer, index);
+
+                final int written = channel.write(byteBuffer);
+                head += written;
+                totalWritten += written;
+                if (written < length)
+                {
+                    break;
+                }
+            }
+
+            if (head == tail)
+            {
+                // Start from the beginning again so that the next bytes are written in one go.
+                head = 0;
+                tail = 0;
+            }
+
+            return totalWritten;
+        }
+    }
+}
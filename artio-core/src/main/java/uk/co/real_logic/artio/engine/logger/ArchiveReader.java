@@ -190,6 +190,11 @@ public class ArchiveReader implements AutoCloseable
         return streamId;
     }
 
+    public int reservedValueFilter()
+    {
+        return reservedValueFilter;
+    }
+
     public class SessionReader implements AutoCloseable
     {
         private final IntFunction<ByteBuffer> newBuffer = this::newBuffer;
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.LangUtil;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static uk.co.real_logic.artio.engine.logger.CompactArchiveWriter.FILE_HEADER;
+import static uk.co.real_logic.artio.engine.logger.CompactFixCodec.getVarint;
+
+/**
+ * Reads the fix messages back out of a file written by a {@link CompactArchiveWriter}.
+ *
+ * The messages are handed to the consumer framed exactly as they were when they were archived, so
+ * {@link FixMessagePredicates} can be used to filter them. There's no Aeron header for compacted messages
+ * so the consumer is given a null header.
+ */
+public class CompactArchiveReader implements AutoCloseable
+{
+    private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+    private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+    private final CompactFixCodec codec = new CompactFixCodec();
+    private final ExpandableArrayBuffer record = new ExpandableArrayBuffer();
+    private final ExpandableArrayBuffer frame = new ExpandableArrayBuffer();
+    private final long[] varint = new long[1];
+    private final InputStream input;
+
+    public CompactArchiveReader(final InputStream input)
+    {
+        this.input = input;
+        try
+        {
+            for (final byte expected : FILE_HEADER)
+            {
+                if (input.read() != expected)
+                {
+                    throw new IllegalArgumentException("Not a compact archive file");
+                }
+            }
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
+    /**
+     * Read all the messages that remain in the file.
+     *
+     * @param handler the consumer to give each message to.
+     * @return the number of messages read.
+     */
+    public long read(final FixMessageConsumer handler)
+    {
+        long messageCount = 0;
+        try
+        {
+            int recordLength;
+            while ((recordLength = readRecordLength()) != -1)
+            {
+                readRecord(recordLength);
+                onRecord(recordLength, handler);
+                messageCount++;
+            }
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+
+        return messageCount;
+    }
+
+    public void close()
+    {
+        try
+        {
+            input.close();
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
+    private void onRecord(final int recordLength, final FixMessageConsumer handler)
+    {
+        final ExpandableArrayBuffer record = this.record;
+        final ExpandableArrayBuffer frame = this.frame;
+
+        final int position = getVarint(record, 0, varint);
+        final int prefixLength = (int)varint[0];
+        frame.putBytes(0, record, position, prefixLength);
+
+        final int bodyOffset = prefixLength + FixMessageDecoder.bodyHeaderLength();
+        final int compactBodyOffset = position + prefixLength;
+        final int bodyLength = codec.decode(
+            record, compactBodyOffset, recordLength - compactBodyOffset, frame, bodyOffset);
+        frame.putShort(prefixLength, (short)bodyLength, LITTLE_ENDIAN);
+
+        messageHeader.wrap(frame, 0);
+        final int offset = MessageHeaderDecoder.ENCODED_LENGTH;
+        fixMessage.wrap(frame, offset, messageHeader.blockLength(), messageHeader.version());
+        handler.onMessage(fixMessage, frame, offset, bodyOffset + bodyLength, null);
+    }
+
+    private int readRecordLength() throws IOException
+    {
+        int result = 0;
+        int shift = 0;
+        int next;
+        do
+        {
+            next = input.read();
+            if (next == -1)
+            {
+                if (shift == 0)
+                {
+                    return -1;
+                }
+
+                throw new EOFException("Compact archive ends part way through a record");
+            }
+
+            result |= (next & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((next & 0x80) != 0);
+
+        return result;
+    }
+
+    private void readRecord(final int recordLength) throws IOException
+    {
+        final ExpandableArrayBuffer record = this.record;
+        record.checkLimit(recordLength);
+        final byte[] bytes = record.byteArray();
+        int read = 0;
+        while (read < recordLength)
+        {
+            final int bytesRead = input.read(bytes, read, recordLength - read);
+            if (bytesRead == -1)
+            {
+                throw new EOFException("Compact archive ends part way through a record");
+            }
+            read += bytesRead;
+        }
+    }
+}
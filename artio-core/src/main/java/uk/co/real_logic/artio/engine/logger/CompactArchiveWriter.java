@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.LangUtil;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static uk.co.real_logic.artio.engine.logger.CompactFixCodec.putVarint;
+
+/**
+ * Writes the fix messages that it consumes into a compact archive file, can be given to a
+ * {@link FixArchiveScanner} in order to compact an archive for cold storage.
+ *
+ * Each record is the varint length of the record followed by the message's SBE header and fixed length fields
+ * as they were framed and then its body encoded by a {@link CompactFixCodec}. A {@link CompactArchiveReader}
+ * gives back exactly the same framed messages.
+ *
+ * @see CompactArchiveReader
+ */
+public class CompactArchiveWriter implements FixMessageConsumer, AutoCloseable
+{
+    static final byte[] FILE_HEADER = { 'A', 'R', 'T', 'C', 1 };
+
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    private final CompactFixCodec codec = new CompactFixCodec();
+    private final ExpandableArrayBuffer record = new ExpandableArrayBuffer();
+    private final ExpandableArrayBuffer recordLength = new ExpandableArrayBuffer(MAX_VARINT_LENGTH);
+    private final OutputStream output;
+
+    private long messageCount;
+
+    public CompactArchiveWriter(final OutputStream output)
+    {
+        this.output = output;
+        try
+        {
+            output.write(FILE_HEADER);
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
+    public void onMessage(
+        final FixMessageDecoder message,
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header)
+    {
+        final int prefixOffset = offset - MessageHeaderDecoder.ENCODED_LENGTH;
+        final int prefixLength = MessageHeaderDecoder.ENCODED_LENGTH + message.sbeBlockLength();
+        final int bodyLengthOffset = prefixOffset + prefixLength;
+        final int bodyLength = buffer.getShort(bodyLengthOffset, LITTLE_ENDIAN) & 0xFFFF;
+        final int bodyOffset = bodyLengthOffset + FixMessageDecoder.bodyHeaderLength();
+
+        final ExpandableArrayBuffer record = this.record;
+        int position = putVarint(record, 0, prefixLength);
+        record.putBytes(position, buffer, prefixOffset, prefixLength);
+        position += prefixLength;
+        position += codec.encode(buffer, bodyOffset, bodyLength, record, position);
+
+        final int recordLengthLength = putVarint(recordLength, 0, position);
+        try
+        {
+            output.write(recordLength.byteArray(), 0, recordLengthLength);
+            output.write(record.byteArray(), 0, position);
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+
+        messageCount++;
+    }
+
+    public long messageCount()
+    {
+        return messageCount;
+    }
+
+    public void close()
+    {
+        try
+        {
+            output.close();
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.util.Arrays;
+
+import static uk.co.real_logic.artio.dictionary.StandardFixConstants.START_OF_HEADER;
+
+/**
+ * Transcodes ascii FIX messages to and from a compact binary form that's used for cold storage of the archive.
+ *
+ * Each field is written as a varint of its tag and the kind of value that follows. Integer values that would
+ * print back to the same digits are written as varints, other values are written as literals and short literals
+ * are remembered in a dictionary so that repeats, like CompIDs, symbols or message types, are written as an index
+ * into it. Bodies that aren't a well formed sequence of fields are stored as they are, so decoding always gives
+ * back exactly the bytes that were encoded.
+ *
+ * The dictionary is built up as messages are encoded, so a decoder must see the same messages in the same order
+ * as the encoder did. Not thread safe.
+ */
+public final class CompactFixCodec
+{
+    static final int MAX_DICTIONARY_SIZE = 4096;
+    static final int MAX_DICTIONARY_VALUE_LENGTH = 32;
+
+    private static final byte RAW_BODY = 0;
+    private static final byte FIELDS_BODY = 1;
+
+    private static final int INTEGER_VALUE = 0;
+    private static final int LITERAL_VALUE = 1;
+    private static final int DICTIONARY_VALUE = 2;
+    private static final int VALUE_KIND_BITS = 2;
+    private static final int VALUE_KIND_MASK = (1 << VALUE_KIND_BITS) - 1;
+
+    private static final int MAX_TAG_DIGITS = 9;
+    private static final int MAX_INTEGER_DIGITS = 18;
+    private static final int NO_ENTRY = -1;
+
+    private final byte[] dictionaryValues = new byte[MAX_DICTIONARY_SIZE * MAX_DICTIONARY_VALUE_LENGTH];
+    private final int[] dictionaryLengths = new int[MAX_DICTIONARY_SIZE];
+    private final int[] dictionarySlots = new int[MAX_DICTIONARY_SIZE * 2];
+    private final long[] varint = new long[1];
+    private int dictionarySize;
+
+    public CompactFixCodec()
+    {
+        Arrays.fill(dictionarySlots, NO_ENTRY);
+    }
+
+    /**
+     * Encode an ascii FIX message.
+     *
+     * @param src the buffer containing the message.
+     * @param offset the offset of the message within src.
+     * @param length the length of the message in bytes.
+     * @param dst the buffer to encode into, should be able to expand.
+     * @param dstOffset the offset within dst to encode at.
+     * @return the length of the encoded message in bytes.
+     */
+    public int encode(
+        final DirectBuffer src,
+        final int offset,
+        final int length,
+        final MutableDirectBuffer dst,
+        final int dstOffset)
+    {
+        if (!isWellFormed(src, offset, length))
+        {
+            dst.putByte(dstOffset, RAW_BODY);
+            dst.putBytes(dstOffset + 1, src, offset, length);
+            return length + 1;
+        }
+
+        dst.putByte(dstOffset, FIELDS_BODY);
+        int position = dstOffset + 1;
+        int index = offset;
+        final int end = offset + length;
+        while (index < end)
+        {
+            final int equalsIndex = src.getByte(index + 1) == '=' ? index + 1 : indexOf(src, index, end, '=');
+            final int tag = src.parseNaturalIntAscii(index, equalsIndex - index);
+            final int valueOffset = equalsIndex + 1;
+            final int valueEnd = indexOf(src, valueOffset, end, START_OF_HEADER);
+            final int valueLength = valueEnd - valueOffset;
+
+            if (isCanonicalInteger(src, valueOffset, valueLength))
+            {
+                position = putVarint(dst, position, valueHeader(tag, INTEGER_VALUE));
+                position = putVarint(dst, position, src.parseNaturalLongAscii(valueOffset, valueLength));
+            }
+            else
+            {
+                final int entry = findEntry(src, valueOffset, valueLength);
+                if (entry != NO_ENTRY)
+                {
+                    position = putVarint(dst, position, valueHeader(tag, DICTIONARY_VALUE));
+                    position = putVarint(dst, position, entry);
+                }
+                else
+                {
+                    position = putVarint(dst, position, valueHeader(tag, LITERAL_VALUE));
+                    position = putVarint(dst, position, valueLength);
+                    dst.putBytes(position, src, valueOffset, valueLength);
+                    position += valueLength;
+                    addEntry(src, valueOffset, valueLength);
+                }
+            }
+
+            index = valueEnd + 1;
+        }
+
+        return position - dstOffset;
+    }
+
+    /**
+     * Decode a message back into ascii FIX.
+     *
+     * @param src the buffer containing the encoded message.
+     * @param offset the offset of the encoded message within src.
+     * @param length the length of the encoded message in bytes.
+     * @param dst the buffer to decode into, should be able to expand.
+     * @param dstOffset the offset within dst to decode at.
+     * @return the length of the decoded message in bytes.
+     */
+    public int decode(
+        final DirectBuffer src,
+        final int offset,
+        final int length,
+        final MutableDirectBuffer dst,
+        final int dstOffset)
+    {
+        final byte bodyType = src.getByte(offset);
+        if (bodyType == RAW_BODY)
+        {
+            dst.putBytes(dstOffset, src, offset + 1, length - 1);
+            return length - 1;
+        }
+
+        if (bodyType != FIELDS_BODY)
+        {
+            throw new IllegalArgumentException("Unknown compact body type: " + bodyType);
+        }
+
+        final long[] varint = this.varint;
+        int position = dstOffset;
+        int index = offset + 1;
+        final int end = offset + length;
+        while (index < end)
+        {
+            index = getVarint(src, index, varint);
+            final long valueHeader = varint[0];
+            final int tag = (int)(valueHeader >>> VALUE_KIND_BITS);
+            final int kind = (int)(valueHeader & VALUE_KIND_MASK);
+
+            position += dst.putNaturalIntAscii(position, tag);
+            dst.putByte(position++, (byte)'=');
+
+            index = getVarint(src, index, varint);
+            switch (kind)
+            {
+                case INTEGER_VALUE:
+                    position += dst.putNaturalLongAscii(position, varint[0]);
+                    break;
+
+                case LITERAL_VALUE:
+                {
+                    final int valueLength = (int)varint[0];
+                    dst.putBytes(position, src, index, valueLength);
+                    addEntry(src, index, valueLength);
+                    index += valueLength;
+                    position += valueLength;
+                    break;
+                }
+
+                case DICTIONARY_VALUE:
+                {
+                    final int entry = (int)varint[0];
+                    final int valueLength = dictionaryLengths[entry];
+                    dst.putBytes(position, dictionaryValues, entry * MAX_DICTIONARY_VALUE_LENGTH, valueLength);
+                    position += valueLength;
+                    break;
+                }
+
+                default:
+                    throw new IllegalArgumentException("Unknown compact value kind: " + kind);
+            }
+
+            dst.putByte(position++, START_OF_HEADER);
+        }
+
+        return position - dstOffset;
+    }
+
+    /**
+     * Forget the dictionary, eg: when starting to encode or decode a new file.
+     */
+    public void reset()
+    {
+        Arrays.fill(dictionarySlots, NO_ENTRY);
+        dictionarySize = 0;
+    }
+
+    int dictionarySize()
+    {
+        return dictionarySize;
+    }
+
+    private static boolean isWellFormed(final DirectBuffer src, final int offset, final int length)
+    {
+        final int end = offset + length;
+        if (length == 0 || src.getByte(end - 1) != START_OF_HEADER)
+        {
+            return false;
+        }
+
+        int index = offset;
+        while (index < end)
+        {
+            final int tagStart = index;
+            byte character = src.getByte(index);
+            if (character < '1' || character > '9')
+            {
+                return false;
+            }
+
+            do
+            {
+                index++;
+                character = src.getByte(index);
+            }
+            while (character >= '0' && character <= '9' && index - tagStart <= MAX_TAG_DIGITS);
+
+            if (character != '=' || index - tagStart > MAX_TAG_DIGITS)
+            {
+                return false;
+            }
+
+            index = indexOf(src, index + 1, end, START_OF_HEADER) + 1;
+        }
+
+        return true;
+    }
+
+    private static boolean isCanonicalInteger(final DirectBuffer src, final int offset, final int length)
+    {
+        if (length == 0 || length > MAX_INTEGER_DIGITS || (length > 1 && src.getByte(offset) == '0'))
+        {
+            return false;
+        }
+
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            final byte character = src.getByte(i);
+            if (character < '0' || character > '9')
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int indexOf(final DirectBuffer src, final int offset, final int end, final int value)
+    {
+        for (int i = offset; i < end; i++)
+        {
+            if (src.getByte(i) == value)
+            {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    private static long valueHeader(final int tag, final int kind)
+    {
+        return ((long)tag << VALUE_KIND_BITS) | kind;
+    }
+
+    static int putVarint(final MutableDirectBuffer dst, final int offset, final long value)
+    {
+        int position = offset;
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0)
+        {
+            dst.putByte(position++, (byte)((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        dst.putByte(position++, (byte)remaining);
+
+        return position;
+    }
+
+    static int getVarint(final DirectBuffer src, final int offset, final long[] value)
+    {
+        int position = offset;
+        long result = 0;
+        int shift = 0;
+        byte next;
+        do
+        {
+            next = src.getByte(position++);
+            result |= (long)(next & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((next & 0x80) != 0);
+        value[0] = result;
+
+        return position;
+    }
+
+    private int findEntry(final DirectBuffer src, final int offset, final int length)
+    {
+        if (length == 0 || length > MAX_DICTIONARY_VALUE_LENGTH)
+        {
+            return NO_ENTRY;
+        }
+
+        final int[] dictionarySlots = this.dictionarySlots;
+        final int mask = dictionarySlots.length - 1;
+        int slot = hash(src, offset, length) & mask;
+        int entry;
+        while ((entry = dictionarySlots[slot]) != NO_ENTRY)
+        {
+            if (entryEquals(entry, src, offset, length))
+            {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return NO_ENTRY;
+    }
+
+    private void addEntry(final DirectBuffer src, final int offset, final int length)
+    {
+        // Both sides add exactly the same literals in the same order, so their indexes agree.
+        if (length == 0 || length > MAX_DICTIONARY_VALUE_LENGTH || dictionarySize == MAX_DICTIONARY_SIZE)
+        {
+            return;
+        }
+
+        final int entry = dictionarySize++;
+        src.getBytes(offset, dictionaryValues, entry * MAX_DICTIONARY_VALUE_LENGTH, length);
+        dictionaryLengths[entry] = length;
+
+        final int[] dictionarySlots = this.dictionarySlots;
+        final int mask = dictionarySlots.length - 1;
+        int slot = hash(src, offset, length) & mask;
+        while (dictionarySlots[slot] != NO_ENTRY)
+        {
+            slot = (slot + 1) & mask;
+        }
+        dictionarySlots[slot] = entry;
+    }
+
+    private boolean entryEquals(final int entry, final DirectBuffer src, final int offset, final int length)
+    {
+        if (dictionaryLengths[entry] != length)
+        {
+            return false;
+        }
+
+        final byte[] dictionaryValues = this.dictionaryValues;
+        final int entryOffset = entry * MAX_DICTIONARY_VALUE_LENGTH;
+        for (int i = 0; i < length; i++)
+        {
+            if (dictionaryValues[entryOffset + i] != src.getByte(offset + i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int hash(final DirectBuffer src, final int offset, final int length)
+    {
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            hash = 31 * hash + src.getByte(i);
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+}
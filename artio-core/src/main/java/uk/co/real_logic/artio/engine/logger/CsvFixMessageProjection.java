@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.LangUtil;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the selected tags of each matching message as a row of comma separated values, with a header row of the
+ * selected tags. Values that contain commas, quotes or new lines are quoted, missing tags are left empty.
+ */
+public class CsvFixMessageProjection implements FixMessageProjection
+{
+    private final ExpandableArrayBuffer row = new ExpandableArrayBuffer();
+    private final OutputStream output;
+
+    public CsvFixMessageProjection(final OutputStream output, final FixMessageQuery query)
+    {
+        this.output = output;
+
+        int position = 0;
+        for (int column = 0, columnCount = query.columnCount(); column < columnCount; column++)
+        {
+            if (column > 0)
+            {
+                row.putByte(position++, (byte)',');
+            }
+            position += row.putNaturalIntAscii(position, query.selectedTag(column));
+        }
+        writeRow(position);
+    }
+
+    public void onMessage(final FixMessageQuery query)
+    {
+        final ExpandableArrayBuffer row = this.row;
+        final AsciiBuffer buffer = query.buffer();
+
+        int position = 0;
+        for (int column = 0, columnCount = query.columnCount(); column < columnCount; column++)
+        {
+            if (column > 0)
+            {
+                row.putByte(position++, (byte)',');
+            }
+
+            final int length = query.valueLength(column);
+            if (length > 0)
+            {
+                final int offset = query.valueOffset(column);
+                if (needsQuoting(buffer, offset, length))
+                {
+                    row.putByte(position++, (byte)'"');
+                    for (int i = offset, end = offset + length; i < end; i++)
+                    {
+                        final byte character = buffer.getByte(i);
+                        if (character == '"')
+                        {
+                            row.putByte(position++, (byte)'"');
+                        }
+                        row.putByte(position++, character);
+                    }
+                    row.putByte(position++, (byte)'"');
+                }
+                else
+                {
+                    row.putBytes(position, buffer, offset, length);
+                    position += length;
+                }
+            }
+        }
+        writeRow(position);
+    }
+
+    private static boolean needsQuoting(final AsciiBuffer buffer, final int offset, final int length)
+    {
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            final byte character = buffer.getByte(i);
+            if (character == ',' || character == '"' || character == '\n' || character == '\r')
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void writeRow(final int length)
+    {
+        row.putByte(length, (byte)'\n');
+        try
+        {
+            output.write(row.byteArray(), 0, length + 1);
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType.SENT;
+
+/**
+ * Compacts the fix messages of one direction of an archive into a file for cold storage, the file can be
+ * printed with the FixArchivePrinter's --compact-archive-file option.
+ *
+ * The engine still needs its archive for replaying messages, so only compact archives that are no longer needed
+ * for resend requests.
+ *
+ * Eg:
+ * java uk.co.real_logic.artio.engine.logger.FixArchiveCompactor \
+ *   --log-file-dir=artio-system-tests/acceptor-logs/ \
+ *   --aeron-channel=aeron:ipc \
+ *   --output-file=acceptor-sent.compact
+ */
+public final class FixArchiveCompactor
+{
+    public static void main(final String[] args) throws IOException
+    {
+        String logFileDir = null;
+        String aeronChannel = null;
+        String outputFile = null;
+        MessageType direction = SENT;
+
+        for (final String arg : args)
+        {
+            final int eqIndex = arg.indexOf('=');
+            if (eqIndex == -1)
+            {
+                printHelp();
+                System.exit(-1);
+            }
+
+            final String optionName = arg.substring(2, eqIndex);
+            final String optionValue = arg.substring(eqIndex + 1);
+
+            switch (optionName)
+            {
+                case "log-file-dir":
+                    logFileDir = optionValue;
+                    break;
+
+                case "aeron-channel":
+                    aeronChannel = optionValue;
+                    break;
+
+                case "output-file":
+                    outputFile = optionValue;
+                    break;
+
+                case "direction":
+                    direction = MessageType.valueOf(optionValue.toUpperCase());
+                    break;
+            }
+        }
+
+        if (logFileDir == null || aeronChannel == null || outputFile == null)
+        {
+            printHelp();
+            System.exit(-1);
+        }
+
+        try (CompactArchiveWriter writer = new CompactArchiveWriter(
+            new BufferedOutputStream(new FileOutputStream(outputFile))))
+        {
+            new FixArchiveScanner(logFileDir).scan(aeronChannel, direction, writer, Throwable::printStackTrace);
+            System.out.printf("Compacted %d messages into %s%n", writer.messageCount(), outputFile);
+        }
+    }
+
+    private static void printHelp()
+    {
+        System.out.println("FixArchiveCompactor Options");
+        System.out.println("All options are specified in the form: --optionName=optionValue");
+        System.out.println("  --log-file-dir         [required] - the directory of the archive, eg: logFileDir()");
+        System.out.println("  --aeron-channel        [required] - the aeron channel that was used by the engine");
+        System.out.println("  --output-file          [required] - the compact archive file to write");
+        System.out.println("  --direction            [optional] - either 'sent' or 'received', defaults to sent");
+    }
+}
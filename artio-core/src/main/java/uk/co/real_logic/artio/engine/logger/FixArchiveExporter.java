@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType.SENT;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.filterBy;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.from;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.to;
+
+/**
+ * Exports the selected tags of the messages in an archive that match a {@link FixMessageQuery}, as csv or binary.
+ *
+ * Eg:
+ * java uk.co.real_logic.artio.engine.logger.FixArchiveExporter \
+ *   --log-file-dir=artio-system-tests/acceptor-logs/ \
+ *   --aeron-channel=aeron:ipc \
+ *   --where-in=35=D,G \
+ *   --where-between=44=10,20.5 \
+ *   --select=11,55,38,44
+ */
+public final class FixArchiveExporter
+{
+    public static void main(final String[] args) throws IOException
+    {
+        String logFileDir = null;
+        String aeronChannel = null;
+        String compactArchiveFile = null;
+        String outputFile = null;
+        boolean binary = false;
+        MessageType direction = SENT;
+        FixMessagePredicate predicate = FixMessagePredicates.alwaysTrue();
+        final FixMessageQuery query = new FixMessageQuery();
+
+        for (final String arg : args)
+        {
+            final int eqIndex = arg.indexOf('=');
+            if (eqIndex == -1)
+            {
+                printHelp();
+                System.exit(-1);
+            }
+
+            final String optionName = arg.substring(2, eqIndex);
+            final String optionValue = arg.substring(eqIndex + 1);
+            final int valueEqIndex = optionValue.indexOf('=');
+
+            switch (optionName)
+            {
+                case "where-equals":
+                    query.whereEquals(tagOf(optionValue, valueEqIndex), optionValue.substring(valueEqIndex + 1));
+                    break;
+
+                case "where-in":
+                    query.whereIn(tagOf(optionValue, valueEqIndex), optionValue.substring(valueEqIndex + 1).split(","));
+                    break;
+
+                case "where-between":
+                    final String[] range = optionValue.substring(valueEqIndex + 1).split(",");
+                    query.whereBetween(tagOf(optionValue, valueEqIndex), range[0], range[1]);
+                    break;
+
+                case "select":
+                    for (final String tag : optionValue.split(","))
+                    {
+                        query.select(parseInt(tag));
+                    }
+                    break;
+
+                case "from":
+                    predicate = from(parseLong(optionValue)).and(predicate);
+                    break;
+
+                case "to":
+                    predicate = to(parseLong(optionValue)).and(predicate);
+                    break;
+
+                case "format":
+                    binary = "binary".equalsIgnoreCase(optionValue);
+                    break;
+
+                case "output-file":
+                    outputFile = optionValue;
+                    break;
+
+                case "direction":
+                    direction = MessageType.valueOf(optionValue.toUpperCase());
+                    break;
+
+                case "log-file-dir":
+                    logFileDir = optionValue;
+                    break;
+
+                case "aeron-channel":
+                    aeronChannel = optionValue;
+                    break;
+
+                case "compact-archive-file":
+                    compactArchiveFile = optionValue;
+                    break;
+            }
+        }
+
+        if (query.columnCount() == 0 ||
+            (compactArchiveFile == null && (logFileDir == null || aeronChannel == null)))
+        {
+            printHelp();
+            System.exit(-1);
+        }
+
+        try (OutputStream output = new BufferedOutputStream(
+            outputFile == null ? System.out : new FileOutputStream(outputFile)))
+        {
+            final FixMessageProjection projection = binary ?
+                new BinaryFixMessageProjection(output, query) : new CsvFixMessageProjection(output, query);
+            final FixMessageConsumer consumer = filterBy(query.project(projection), predicate);
+            scan(logFileDir, aeronChannel, compactArchiveFile, direction, consumer);
+        }
+    }
+
+    private static void scan(
+        final String logFileDir,
+        final String aeronChannel,
+        final String compactArchiveFile,
+        final MessageType direction,
+        final FixMessageConsumer consumer) throws IOException
+    {
+        if (compactArchiveFile != null)
+        {
+            try (CompactArchiveReader reader = new CompactArchiveReader(
+                new BufferedInputStream(new FileInputStream(compactArchiveFile))))
+            {
+                reader.read(consumer);
+            }
+        }
+        else
+        {
+            new FixArchiveScanner(logFileDir).scan(aeronChannel, direction, consumer, Throwable::printStackTrace);
+        }
+    }
+
+    private static int tagOf(final String optionValue, final int valueEqIndex)
+    {
+        if (valueEqIndex == -1)
+        {
+            throw new IllegalArgumentException("Conditions must be in the form tag=value: " + optionValue);
+        }
+
+        return parseInt(optionValue.substring(0, valueEqIndex));
+    }
+
+    private static void printHelp()
+    {
+        System.out.println("FixArchiveExporter Options");
+        System.out.println("All options are specified in the form: --optionName=optionValue");
+        System.out.println("  --log-file-dir         - the directory of the archive, eg: logFileDir()");
+        System.out.println("  --aeron-channel        - the aeron channel that was used by the engine");
+        System.out.println("  --compact-archive-file - a file written by the FixArchiveCompactor, instead of the " +
+            "log-file-dir and aeron-channel");
+        System.out.println("  --select               [required] - comma separated list of the tags to export");
+        System.out.println("  --where-equals         [optional, repeatable] - tag=value that messages must have");
+        System.out.println("  --where-in             [optional, repeatable] - tag=value1,value2 that messages must " +
+            "have one of");
+        System.out.println("  --where-between        [optional, repeatable] - tag=low,high that numeric values " +
+            "must be within, inclusive");
+        System.out.println("  --from                 [optional] - time that messages are not earlier than");
+        System.out.println("  --to                   [optional] - time that messages are not later than");
+        System.out.println("  --direction            [optional] - either 'sent' or 'received', defaults to sent");
+        System.out.println("  --format               [optional] - either 'csv' or 'binary', defaults to csv");
+        System.out.println("  --output-file          [optional] - file to write to, defaults to standard out");
+    }
+}
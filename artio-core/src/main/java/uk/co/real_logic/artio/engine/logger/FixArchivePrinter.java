@@ -21,6 +21,9 @@ import uk.co.real_logic.artio.decoder.HeaderDecoder;
 import uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType;
 import uk.co.real_logic.artio.messages.FixMessageDecoder;
 
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.function.Predicate;
 
 import static java.lang.Long.parseLong;
@@ -32,13 +35,18 @@ import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.*;
  * java uk.co.real_logic.artio.engine.logger.FixArchivePrinter \
  *   --log-file-dir=artio-system-tests/acceptor-logs/ \
  *   --aeron-channel=aeron:ipc
+ *
+ * Or for a file written by the {@link FixArchiveCompactor}:
+ * java uk.co.real_logic.artio.engine.logger.FixArchivePrinter \
+ *   --compact-archive-file=acceptor-sent.compact
  */
 public final class FixArchivePrinter
 {
-    public static void main(final String[] args)
+    public static void main(final String[] args) throws IOException
     {
         String logFileDir = null;
         String aeronChannel = null;
+        String compactArchiveFile = null;
         MessageType direction = SENT;
         FixMessagePredicate predicate = FixMessagePredicates.alwaysTrue();
 
@@ -117,17 +125,33 @@ public final class FixArchivePrinter
                 case "aeron-channel":
                     aeronChannel = optionValue;
                     break;
+
+                case "compact-archive-file":
+                    compactArchiveFile = optionValue;
+                    break;
             }
         }
 
-        requiredArgument(logFileDir, "log-file-dir");
-        requiredArgument(aeronChannel, "aeron-channel");
+        predicate = headerPredicate == null ? predicate : whereHeader(headerPredicate).and(predicate);
 
-        if (headerPredicate != null)
+        if (compactArchiveFile != null)
         {
-            predicate = whereHeader(headerPredicate).and(predicate);
+            printCompactArchive(compactArchiveFile, predicate);
+            return;
         }
 
+        printArchive(logFileDir, aeronChannel, direction, predicate);
+    }
+
+    private static void printArchive(
+        final String logFileDir,
+        final String aeronChannel,
+        final MessageType direction,
+        final FixMessagePredicate predicate)
+    {
+        requiredArgument(logFileDir, "log-file-dir");
+        requiredArgument(aeronChannel, "aeron-channel");
+
         final FixArchiveScanner scanner = new FixArchiveScanner(logFileDir);
         scanner.scan(
             aeronChannel,
@@ -136,6 +160,16 @@ public final class FixArchivePrinter
             Throwable::printStackTrace);
     }
 
+    private static void printCompactArchive(final String compactArchiveFile, final FixMessagePredicate predicate)
+        throws IOException
+    {
+        try (CompactArchiveReader reader = new CompactArchiveReader(
+            new BufferedInputStream(new FileInputStream(compactArchiveFile))))
+        {
+            reader.read(filterBy(FixArchivePrinter::print, predicate));
+        }
+    }
+
     private static void requiredArgument(final String argument, final String description)
     {
         if (argument == null)
@@ -159,6 +193,10 @@ public final class FixArchivePrinter
             "aeron-channel",
             "Specifies the aeron channel that was used to by the engine",
             true);
+        printOption(
+            "compact-archive-file",
+            "Prints a file written by the FixArchiveCompactor instead of the archive in the log-file-dir",
+            false);
 
         printOption(
             "from",
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.FrameDescriptor;
+import io.aeron.logbuffer.Header;
+import io.aeron.logbuffer.LogBufferDescriptor;
+import org.agrona.IoUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.ByteBufferUtil;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+import uk.co.real_logic.artio.replication.ReservedValue;
+import uk.co.real_logic.artio.replication.StreamIdentifier;
+import uk.co.real_logic.artio.storage.messages.ArchiveMetaDataDecoder;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.zip.CRC32;
+
+import static io.aeron.logbuffer.FrameDescriptor.UNFRAGMENTED;
+import static io.aeron.protocol.DataHeaderFlyweight.HDR_TYPE_DATA;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static java.lang.Integer.numberOfTrailingZeros;
+import static uk.co.real_logic.artio.GatewayProcess.INBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.engine.logger.ArchiveDescriptor.nextTerm;
+import static uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType.SENT;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.replayPositionPath;
+
+/**
+ * Follows the fix messages of one direction of an engine's archive as they're written, can be used from another
+ * process to the engine.
+ *
+ * Messages are only read up to the position that the engine's replay index has recorded as indexed for each
+ * stream, and each frame's checksum is validated before it's handed on, so a message is never read before it has
+ * been completely archived. The tailer only ever reads the engine's files, it never writes to them or coordinates
+ * with the engine, so it can't slow the archiver down. Streams that are in the archive when the tailer first polls
+ * are followed from their current position, streams that appear afterwards are followed from their beginning.
+ *
+ * The predicate is tested against each message in place within the mapped archive file, before the handler sees
+ * it. Messages that were fragmented into several Aeron frames are skipped, like the {@link FixArchiveScanner}.
+ *
+ * Not thread safe, a poll should be called from one thread.
+ */
+public class FixArchiveTailer implements AutoCloseable
+{
+    private final IndexedPositionConsumer onIndexedPosition = this::onIndexedPosition;
+    private final Int2ObjectHashMap<SessionTailer> sessions = new Int2ObjectHashMap<>();
+    private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+    private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+    private final CRC32 checksum = new CRC32();
+
+    private final LogDirectoryDescriptor directoryDescriptor;
+    private final ArchiveMetaData metaData;
+    private final StreamIdentifier streamId;
+    private final File positionFile;
+    private final FixMessagePredicate predicate;
+
+    private MappedByteBuffer positionByteBuffer;
+    private IndexedPositionReader positionReader;
+    private boolean hasPolled;
+
+    private FixMessageConsumer handler;
+    private int remainingFragments;
+
+    public FixArchiveTailer(
+        final String logFileDir,
+        final String aeronChannel,
+        final MessageType direction,
+        final FixMessagePredicate predicate)
+    {
+        this.predicate = predicate;
+        directoryDescriptor = new LogDirectoryDescriptor(logFileDir);
+        metaData = new ArchiveMetaData(directoryDescriptor);
+        streamId = new StreamIdentifier(
+            aeronChannel, direction == SENT ? OUTBOUND_LIBRARY_STREAM : INBOUND_LIBRARY_STREAM);
+        positionFile = new File(replayPositionPath(logFileDir, streamId.streamId()));
+    }
+
+    /**
+     * Read messages that have been archived since the last poll.
+     *
+     * @param handler the consumer that receives messages that match the predicate.
+     * @param fragmentLimit the most Aeron frames to read in this poll.
+     * @return the number of Aeron frames that were read, including ones that didn't match the predicate.
+     */
+    public int poll(final FixMessageConsumer handler, final int fragmentLimit)
+    {
+        if (positionReader == null && !mapPositionFile())
+        {
+            return 0;
+        }
+
+        this.handler = handler;
+        remainingFragments = fragmentLimit;
+        positionReader.readLastPosition(onIndexedPosition);
+        hasPolled = true;
+        this.handler = null;
+
+        return fragmentLimit - remainingFragments;
+    }
+
+    public void close()
+    {
+        sessions.values().forEach(SessionTailer::close);
+        sessions.clear();
+        metaData.close();
+        if (positionByteBuffer != null)
+        {
+            IoUtil.unmap(positionByteBuffer);
+        }
+    }
+
+    private boolean mapPositionFile()
+    {
+        if (!positionFile.exists())
+        {
+            return false;
+        }
+
+        final MappedByteBuffer positionByteBuffer = LoggerUtil.mapExistingFile(positionFile);
+        final UnsafeBuffer positionBuffer = new UnsafeBuffer(positionByteBuffer);
+        messageHeader.wrap(positionBuffer, 0);
+        if (messageHeader.blockLength() == 0)
+        {
+            // The engine hasn't initialised the file yet
+            IoUtil.unmap(positionByteBuffer);
+            return false;
+        }
+
+        this.positionByteBuffer = positionByteBuffer;
+        positionReader = new IndexedPositionReader(positionBuffer);
+        return true;
+    }
+
+    private void onIndexedPosition(final int aeronSessionId, final long indexedPosition)
+    {
+        SessionTailer session = sessions.get(aeronSessionId);
+        if (session == null)
+        {
+            final ArchiveMetaDataDecoder sessionMetaData = metaData.read(streamId, aeronSessionId);
+            if (sessionMetaData == null)
+            {
+                return;
+            }
+
+            session = new SessionTailer(
+                aeronSessionId,
+                sessionMetaData.initialTermId(),
+                sessionMetaData.termBufferLength(),
+                hasPolled ? 0 : indexedPosition);
+            sessions.put(aeronSessionId, session);
+        }
+
+        if (remainingFragments > 0)
+        {
+            session.readUpTo(indexedPosition);
+        }
+    }
+
+    private void onFragment(final UnsafeBuffer buffer, final int offset, final int length, final Header header)
+    {
+        final MessageHeaderDecoder messageHeader = this.messageHeader;
+        messageHeader.wrap(buffer, offset);
+        if (messageHeader.templateId() == FixMessageDecoder.TEMPLATE_ID)
+        {
+            final FixMessageDecoder fixMessage = this.fixMessage;
+            final int messageOffset = offset + MessageHeaderDecoder.ENCODED_LENGTH;
+            final int actingBlockLength = messageHeader.blockLength();
+            final int actingVersion = messageHeader.version();
+
+            fixMessage.wrap(buffer, messageOffset, actingBlockLength, actingVersion);
+            if (predicate.test(fixMessage))
+            {
+                // Rewrap incase the predicate.test() method has altered the limit()
+                fixMessage.wrap(buffer, messageOffset, actingBlockLength, actingVersion);
+                handler.onMessage(fixMessage, buffer, messageOffset, length, header);
+            }
+        }
+    }
+
+    private final class SessionTailer
+    {
+        private static final int NO_TERM = -1;
+
+        private final UnsafeBuffer buffer = new UnsafeBuffer(0, 0);
+        private final int sessionId;
+        private final int initialTermId;
+        private final int termBufferLength;
+        private final int positionBitsToShift;
+        private final Header header;
+
+        private MappedByteBuffer termBuffer;
+        private int termId = NO_TERM;
+        private long position;
+
+        private SessionTailer(
+            final int sessionId, final int initialTermId, final int termBufferLength, final long position)
+        {
+            this.sessionId = sessionId;
+            this.initialTermId = initialTermId;
+            this.termBufferLength = termBufferLength;
+            this.position = position;
+            positionBitsToShift = numberOfTrailingZeros(termBufferLength);
+            header = new Header(initialTermId, termBufferLength);
+        }
+
+        private void readUpTo(final long indexedPosition)
+        {
+            final UnsafeBuffer buffer = this.buffer;
+            final Header header = this.header;
+
+            while (position < indexedPosition && remainingFragments > 0)
+            {
+                final int termId = LogBufferDescriptor.computeTermIdFromPosition(
+                    position, positionBitsToShift, initialTermId);
+                if (termId != this.termId && !mapTerm(termId))
+                {
+                    return;
+                }
+
+                final int termOffset = LogBufferDescriptor.computeTermOffsetFromPosition(
+                    position, positionBitsToShift);
+                final int frameLength = FrameDescriptor.frameLengthVolatile(buffer, termOffset);
+                if (frameLength <= 0)
+                {
+                    // Indexed ahead of the archiver, this frame hasn't been written to the file yet
+                    return;
+                }
+
+                header.offset(termOffset);
+                if (header.type() == HDR_TYPE_DATA && (header.flags() & UNFRAGMENTED) == UNFRAGMENTED)
+                {
+                    final int messageOffset = termOffset + HEADER_LENGTH;
+                    final int messageLength = frameLength - HEADER_LENGTH;
+                    if (!validateChecksum(messageOffset, messageLength))
+                    {
+                        return;
+                    }
+
+                    onFragment(buffer, messageOffset, messageLength, header);
+                }
+
+                position = nextTerm(position, frameLength);
+                remainingFragments--;
+            }
+        }
+
+        private boolean validateChecksum(final int messageOffset, final int messageLength)
+        {
+            final MappedByteBuffer termBuffer = this.termBuffer;
+            final int limit = messageOffset + messageLength;
+            if (limit > termBuffer.capacity())
+            {
+                return false;
+            }
+
+            ByteBufferUtil.limit(termBuffer, limit);
+            ByteBufferUtil.position(termBuffer, messageOffset);
+
+            final CRC32 checksum = FixArchiveTailer.this.checksum;
+            checksum.reset();
+            checksum.update(termBuffer);
+            return ReservedValue.checksum(header.reservedValue()) == (int)checksum.getValue();
+        }
+
+        private boolean mapTerm(final int termId)
+        {
+            final File logFile = directoryDescriptor.logFile(streamId, sessionId, termId);
+            // The archiver creates the file before setting its length, so it's retried on the next poll until then.
+            if (logFile.length() != termBufferLength)
+            {
+                return false;
+            }
+
+            close();
+            termBuffer = LoggerUtil.mapExistingFile(logFile);
+            buffer.wrap(termBuffer);
+            header.buffer(buffer);
+            this.termId = termId;
+            return true;
+        }
+
+        private void close()
+        {
+            if (termBuffer != null)
+            {
+                IoUtil.unmap(termBuffer);
+                termBuffer = null;
+                termId = NO_TERM;
+            }
+        }
+    }
+}
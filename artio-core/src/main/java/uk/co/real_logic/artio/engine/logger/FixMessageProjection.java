@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+/**
+ * Receives the selected tags of messages that match a {@link FixMessageQuery}.
+ *
+ * @see CsvFixMessageProjection
+ * @see BinaryFixMessageProjection
+ */
+@FunctionalInterface
+public interface FixMessageProjection
+{
+    /**
+     * Callback invoked for each message that matches the query.
+     *
+     * @param query the query, its selected values refer to the message that has just matched.
+     */
+    void onMessage(FixMessageQuery query);
+}
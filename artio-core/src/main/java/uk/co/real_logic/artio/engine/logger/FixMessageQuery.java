@@ -0,0 +1,477 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.collections.Int2IntHashMap;
+import uk.co.real_logic.artio.fields.DecimalFloat;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.Arrays;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static uk.co.real_logic.artio.dictionary.StandardFixConstants.START_OF_HEADER;
+
+/**
+ * A predicate over the tags of fix messages that's evaluated in a single pass over the bytes of the message body,
+ * without decoding the message or copying it out of the archive.
+ *
+ * Conditions on tags are checked as soon as the tag is scanned and the scan stops at the first one that fails,
+ * or as soon as every tag that's needed has been seen. Only the first occurrence of a tag in a message is looked
+ * at and a message that's missing a tag with a condition doesn't match.
+ *
+ * Selected tags are projected out of each matching message, see {@link #project(FixMessageProjection)}. For
+ * example:
+ * <pre>
+ * final FixMessageQuery query = new FixMessageQuery()
+ *     .whereIn(35, "D", "G")
+ *     .whereEquals(49, "BROKER")
+ *     .whereBetween(44, "10", "20.5")
+ *     .select(11, 55, 38, 44);
+ *
+ * scanner.scan(aeronChannel, SENT, query.project(new CsvFixMessageProjection(out, query)), errorHandler);
+ * </pre>
+ *
+ * Not thread safe.
+ */
+public final class FixMessageQuery implements FixMessagePredicate
+{
+    private static final int MISSING_SLOT = -1;
+    private static final int NOT_SELECTED = -1;
+    private static final int MISSING_VALUE = -1;
+
+    private static final byte NO_CONDITION = 0;
+    private static final byte VALUE_IN_SET = 1;
+    private static final byte VALUE_BETWEEN = 2;
+
+    private final Int2IntHashMap tagToSlot = new Int2IntHashMap(MISSING_SLOT);
+    private final MutableAsciiBuffer asciiBuffer = new MutableAsciiBuffer();
+    private final DecimalFloat decimal = new DecimalFloat();
+
+    private int slotCount;
+    private byte[] conditions = new byte[0];
+    private ValueSet[] valueSets = new ValueSet[0];
+    private double[] lows = new double[0];
+    private double[] highs = new double[0];
+    private int[] slotColumns = new int[0];
+    private boolean[] seenSlots = new boolean[0];
+    private int conditionCount;
+
+    private int[] selectedTags = new int[0];
+    private int[] valueOffsets = new int[0];
+    private int[] valueLengths = new int[0];
+
+    /**
+     * Only match messages where the tag has the given value.
+     *
+     * @param tag the tag to check.
+     * @param value the value that the tag must have.
+     * @return this
+     */
+    public FixMessageQuery whereEquals(final int tag, final String value)
+    {
+        return whereIn(tag, value);
+    }
+
+    /**
+     * Only match messages where the tag has one of the given values.
+     *
+     * @param tag the tag to check.
+     * @param values the values that the tag can have.
+     * @return this
+     */
+    public FixMessageQuery whereIn(final int tag, final String... values)
+    {
+        if (values.length == 0)
+        {
+            throw new IllegalArgumentException("At least one value must be given for tag " + tag);
+        }
+
+        final int slot = conditionSlot(tag);
+        conditions[slot] = VALUE_IN_SET;
+        valueSets[slot] = new ValueSet(values);
+        return this;
+    }
+
+    /**
+     * Only match messages where the tag has a numeric value within the given range. Values are compared as
+     * decimals so this can be used on prices and quantities as well as integers.
+     *
+     * @param tag the tag to check.
+     * @param lowInclusive the lowest value that the tag can have.
+     * @param highInclusive the highest value that the tag can have.
+     * @return this
+     */
+    public FixMessageQuery whereBetween(final int tag, final String lowInclusive, final String highInclusive)
+    {
+        final double low = parseDecimal(lowInclusive);
+        final double high = parseDecimal(highInclusive);
+        if (low > high)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Range for tag %d is empty: %s > %s", tag, lowInclusive, highInclusive));
+        }
+
+        final int slot = conditionSlot(tag);
+        conditions[slot] = VALUE_BETWEEN;
+        lows[slot] = low;
+        highs[slot] = high;
+        return this;
+    }
+
+    /**
+     * Project the values of these tags out of matching messages, in this order.
+     *
+     * @param tags the tags to project.
+     * @return this
+     */
+    public FixMessageQuery select(final int... tags)
+    {
+        final int columnCount = selectedTags.length;
+        selectedTags = Arrays.copyOf(selectedTags, columnCount + tags.length);
+        valueOffsets = Arrays.copyOf(valueOffsets, selectedTags.length);
+        valueLengths = Arrays.copyOf(valueLengths, selectedTags.length);
+
+        for (int i = 0; i < tags.length; i++)
+        {
+            final int tag = tags[i];
+            final int column = columnCount + i;
+            final int slot = slot(tag);
+            if (slotColumns[slot] != NOT_SELECTED)
+            {
+                throw new IllegalArgumentException("Tag " + tag + " is already selected");
+            }
+
+            slotColumns[slot] = column;
+            selectedTags[column] = tag;
+        }
+
+        return this;
+    }
+
+    /**
+     * Create a consumer that gives the selected tags of each matching message to a projection.
+     *
+     * @param projection the projection that receives the selected tags of each matching message.
+     * @return the consumer, eg: to give to a {@link FixArchiveScanner}.
+     */
+    public FixMessageConsumer project(final FixMessageProjection projection)
+    {
+        return (message, buffer, offset, length, header) ->
+        {
+            if (test(message))
+            {
+                projection.onMessage(this);
+            }
+        };
+    }
+
+    public boolean test(final FixMessageDecoder message)
+    {
+        final MutableAsciiBuffer buffer = this.asciiBuffer;
+        buffer.wrap(message.buffer());
+        final int bodyLengthOffset = message.offset() + message.sbeBlockLength();
+        final int bodyLength = buffer.getShort(bodyLengthOffset, LITTLE_ENDIAN) & 0xFFFF;
+        final int bodyOffset = bodyLengthOffset + FixMessageDecoder.bodyHeaderLength();
+        final int end = bodyOffset + bodyLength;
+
+        final boolean[] seenSlots = this.seenSlots;
+        Arrays.fill(seenSlots, false);
+        Arrays.fill(valueLengths, MISSING_VALUE);
+
+        int remainingSlots = slotCount;
+        int remainingConditions = conditionCount;
+        int index = bodyOffset;
+        while (index < end && remainingSlots > 0)
+        {
+            int tag = 0;
+            byte character;
+            while ((character = buffer.getByte(index)) != '=')
+            {
+                if (character < '0' || character > '9' || ++index >= end)
+                {
+                    return false;
+                }
+                tag = tag * 10 + (character - '0');
+            }
+
+            final int valueOffset = index + 1;
+            int valueEnd = valueOffset;
+            while (valueEnd < end && buffer.getByte(valueEnd) != START_OF_HEADER)
+            {
+                valueEnd++;
+            }
+            final int valueLength = valueEnd - valueOffset;
+
+            final int slot = tagToSlot.get(tag);
+            if (slot != MISSING_SLOT && !seenSlots[slot])
+            {
+                seenSlots[slot] = true;
+                remainingSlots--;
+
+                final byte condition = conditions[slot];
+                if (condition != NO_CONDITION)
+                {
+                    if (!matches(slot, condition, valueOffset, valueLength))
+                    {
+                        return false;
+                    }
+                    remainingConditions--;
+                }
+
+                final int column = slotColumns[slot];
+                if (column != NOT_SELECTED)
+                {
+                    valueOffsets[column] = valueOffset;
+                    valueLengths[column] = valueLength;
+                }
+            }
+
+            index = valueEnd + 1;
+        }
+
+        return remainingConditions == 0;
+    }
+
+    /**
+     * Get the number of tags that are selected.
+     *
+     * @return the number of tags that are selected.
+     */
+    public int columnCount()
+    {
+        return selectedTags.length;
+    }
+
+    /**
+     * Get the tag that's projected into a column.
+     *
+     * @param column the index of the column, in the order that the tags were selected.
+     * @return the tag that's projected into the column.
+     */
+    public int selectedTag(final int column)
+    {
+        return selectedTags[column];
+    }
+
+    /**
+     * Get the buffer that contains the message that was last matched, can be used with {@link #valueOffset(int)}
+     * and {@link #valueLength(int)} to read the selected values.
+     *
+     * @return the buffer that contains the message that was last matched.
+     */
+    public AsciiBuffer buffer()
+    {
+        return asciiBuffer;
+    }
+
+    /**
+     * Get the offset within {@link #buffer()} of the value of a selected tag in the message that was last matched.
+     *
+     * @param column the index of the column, in the order that the tags were selected.
+     * @return the offset of the value.
+     */
+    public int valueOffset(final int column)
+    {
+        return valueOffsets[column];
+    }
+
+    /**
+     * Get the length of the value of a selected tag in the message that was last matched.
+     *
+     * @param column the index of the column, in the order that the tags were selected.
+     * @return the length of the value, or -1 if the message didn't have the tag.
+     */
+    public int valueLength(final int column)
+    {
+        return valueLengths[column];
+    }
+
+    private boolean matches(final int slot, final byte condition, final int valueOffset, final int valueLength)
+    {
+        if (condition == VALUE_IN_SET)
+        {
+            return valueSets[slot].contains(asciiBuffer, valueOffset, valueLength);
+        }
+
+        if (!isDecimal(valueOffset, valueLength))
+        {
+            return false;
+        }
+
+        final DecimalFloat decimal = asciiBuffer.getFloat(this.decimal, valueOffset, valueLength);
+        final double value = toDouble(decimal);
+        return value >= lows[slot] && value <= highs[slot];
+    }
+
+    private boolean isDecimal(final int offset, final int length)
+    {
+        final MutableAsciiBuffer buffer = this.asciiBuffer;
+        final int end = offset + length;
+        int index = length > 1 && buffer.getByte(offset) == '-' ? offset + 1 : offset;
+        boolean hasDigit = false;
+        boolean hasDot = false;
+        for (; index < end; index++)
+        {
+            final byte character = buffer.getByte(index);
+            if (character >= '0' && character <= '9')
+            {
+                hasDigit = true;
+            }
+            else if (character == '.' && !hasDot)
+            {
+                hasDot = true;
+            }
+            else
+            {
+                return false;
+            }
+        }
+
+        return hasDigit;
+    }
+
+    private int conditionSlot(final int tag)
+    {
+        final int slot = slot(tag);
+        if (conditions[slot] != NO_CONDITION)
+        {
+            throw new IllegalArgumentException("Tag " + tag + " already has a condition");
+        }
+
+        conditionCount++;
+        return slot;
+    }
+
+    private int slot(final int tag)
+    {
+        if (tag <= 0)
+        {
+            throw new IllegalArgumentException("Invalid tag: " + tag);
+        }
+
+        final int existingSlot = tagToSlot.get(tag);
+        if (existingSlot != MISSING_SLOT)
+        {
+            return existingSlot;
+        }
+
+        final int slot = slotCount++;
+        conditions = Arrays.copyOf(conditions, slotCount);
+        valueSets = Arrays.copyOf(valueSets, slotCount);
+        lows = Arrays.copyOf(lows, slotCount);
+        highs = Arrays.copyOf(highs, slotCount);
+        slotColumns = Arrays.copyOf(slotColumns, slotCount);
+        slotColumns[slot] = NOT_SELECTED;
+        seenSlots = new boolean[slotCount];
+        tagToSlot.put(tag, slot);
+        return slot;
+    }
+
+    private double parseDecimal(final String value)
+    {
+        // getFloat() can look one byte past a value of zeros, in a message that's always the field separator
+        final MutableAsciiBuffer buffer = new MutableAsciiBuffer(new byte[value.length() + 1]);
+        final int length = buffer.putAscii(0, value);
+        return toDouble(buffer.getFloat(new DecimalFloat(), 0, length));
+    }
+
+    private static double toDouble(final DecimalFloat decimal)
+    {
+        final int scale = decimal.scale();
+        return scale == 0 ? decimal.value() : decimal.value() / Math.pow(10, scale);
+    }
+
+    private static final class ValueSet
+    {
+        private final byte[][] slots;
+        private final int mask;
+
+        private ValueSet(final String[] values)
+        {
+            int capacity = 2;
+            while (capacity < values.length * 2)
+            {
+                capacity <<= 1;
+            }
+            slots = new byte[capacity][];
+            mask = capacity - 1;
+
+            for (final String value : values)
+            {
+                final byte[] bytes = value.getBytes(US_ASCII);
+                final MutableAsciiBuffer buffer = new MutableAsciiBuffer(bytes);
+                if (!contains(buffer, 0, bytes.length))
+                {
+                    int slot = hash(buffer, 0, bytes.length) & mask;
+                    while (slots[slot] != null)
+                    {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = bytes;
+                }
+            }
+        }
+
+        private boolean contains(final AsciiBuffer buffer, final int offset, final int length)
+        {
+            final byte[][] slots = this.slots;
+            int slot = hash(buffer, offset, length) & mask;
+            byte[] value;
+            while ((value = slots[slot]) != null)
+            {
+                if (equals(value, buffer, offset, length))
+                {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            return false;
+        }
+
+        private static boolean equals(final byte[] value, final AsciiBuffer buffer, final int offset, final int length)
+        {
+            if (value.length != length)
+            {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++)
+            {
+                if (value[i] != buffer.getByte(offset + i))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static int hash(final AsciiBuffer buffer, final int offset, final int length)
+        {
+            int hash = 0;
+            for (int i = offset, end = offset + length; i < end; i++)
+            {
+                hash = 31 * hash + buffer.getByte(i);
+            }
+
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -46,13 +46,13 @@ public class GapFiller implements ProtocolHandler, Agent
     private final ClusterableSubscription inboundSubscription;
     private final GatewayPublication publication;
     private final String agentNamePrefix;
-    private final SenderSequenceNumbers senderSequenceNumbers;
+    private final SenderSequenceNumbers.Reader senderSequenceNumbers;
 
     public GapFiller(
         final ClusterableSubscription inboundSubscription,
         final GatewayPublication publication,
         final String agentNamePrefix,
-        final SenderSequenceNumbers senderSequenceNumbers)
+        final SenderSequenceNumbers.Reader senderSequenceNumbers)
     {
         this.inboundSubscription = inboundSubscription;
         this.publication = publication;
@@ -62,7 +62,7 @@ public class GapFiller implements ProtocolHandler, Agent
 
     public int doWork()
     {
-        return senderSequenceNumbers.poll() + inboundSubscription.poll(protocolSubscription, FRAGMENT_LIMIT);
+        return inboundSubscription.poll(protocolSubscription, FRAGMENT_LIMIT);
     }
 
     public String roleName()
@@ -100,11 +100,13 @@ class IndexedPositionReader
                 return;
             }
 
+            // The position is written last, so read it first in order to see its session id
+            final long position = buffer.getLongVolatile(offset + POSITION_OFFSET);
             decoder.wrap(buffer, offset, actingBlockLength, actingVersion);
             final int sessionId = decoder.sessionId();
             if (sessionId != 0)
             {
-                consumer.accept(sessionId, decoder.position());
+                consumer.accept(sessionId, position);
             }
 
             offset += RECORD_LENGTH;
@@ -109,7 +109,12 @@ public class Indexer implements Agent, ClusterFragmentHandler
     public void onClose()
     {
         quiesce();
+        close();
+    }
 
+    // Closes without quiescing, for an indexer that was never run.
+    void close()
+    {
         Exceptions.closeAll(() -> Exceptions.closeAll(indices), archiveReader, subscription);
     }
 
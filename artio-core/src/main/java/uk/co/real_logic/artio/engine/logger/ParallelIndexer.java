@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.engine.EngineScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.agrona.concurrent.AgentRunner.startOnThread;
+
+/**
+ * Runs several {@link Indexer}s, each on its own thread with its own subscription, so that indexes progress
+ * independently of each other rather than in series on the archiving agent.
+ *
+ * The {@link Indexer}s are created concurrently, so the archive is replayed into each of them to catch their
+ * indexes up at the same time. This only returns once all of them have caught up.
+ */
+public class ParallelIndexer implements Agent
+{
+    private final List<AgentRunner> runners = new ArrayList<>();
+    private final String agentNamePrefix;
+
+    private boolean started;
+
+    /**
+     * Create the indexers and catch them up.
+     *
+     * @param indexerFactories the factories of the indexers, each is invoked on its own thread.
+     * @param idleStrategyFactory creates the idle strategy of each indexer's thread.
+     * @param errorHandler the error handler of each indexer's thread.
+     * @param agentNamePrefix the prefix of this agent's role name.
+     */
+    public ParallelIndexer(
+        final List<Supplier<Indexer>> indexerFactories,
+        final Supplier<IdleStrategy> idleStrategyFactory,
+        final ErrorHandler errorHandler,
+        final String agentNamePrefix)
+    {
+        this.agentNamePrefix = agentNamePrefix;
+
+        for (final Indexer indexer : newIndexers(indexerFactories, agentNamePrefix))
+        {
+            runners.add(new AgentRunner(idleStrategyFactory.get(), errorHandler, null, indexer));
+        }
+    }
+
+    private static Indexer[] newIndexers(
+        final List<Supplier<Indexer>> indexerFactories, final String agentNamePrefix)
+    {
+        final int indexerCount = indexerFactories.size();
+        final Indexer[] indexers = new Indexer[indexerCount];
+        final Throwable[] failures = new Throwable[indexerCount];
+        final Thread[] threads = new Thread[indexerCount];
+
+        for (int i = 0; i < indexerCount; i++)
+        {
+            final int index = i;
+            final Thread thread = new Thread(() ->
+            {
+                try
+                {
+                    indexers[index] = indexerFactories.get(index).get();
+                }
+                catch (final Throwable t)
+                {
+                    failures[index] = t;
+                }
+            }, agentNamePrefix + "IndexerCatchUp-" + i);
+            threads[i] = thread;
+            thread.start();
+        }
+
+        try
+        {
+            for (final Thread thread : threads)
+            {
+                thread.join();
+            }
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            LangUtil.rethrowUnchecked(e);
+        }
+
+        Throwable failure = null;
+        for (final Throwable indexerFailure : failures)
+        {
+            if (indexerFailure != null)
+            {
+                if (failure == null)
+                {
+                    failure = indexerFailure;
+                }
+                else
+                {
+                    failure.addSuppressed(indexerFailure);
+                }
+            }
+        }
+
+        if (failure != null)
+        {
+            closeAll(indexers, failure);
+            LangUtil.rethrowUnchecked(failure);
+        }
+
+        return indexers;
+    }
+
+    // The indexers that were created before another one failed have never been run, so don't need quiescing.
+    private static void closeAll(final Indexer[] indexers, final Throwable failure)
+    {
+        for (final Indexer indexer : indexers)
+        {
+            if (indexer != null)
+            {
+                try
+                {
+                    indexer.close();
+                }
+                catch (final Throwable t)
+                {
+                    failure.addSuppressed(t);
+                }
+            }
+        }
+    }
+
+    public void onStart()
+    {
+        started = true;
+        for (final AgentRunner runner : runners)
+        {
+            startOnThread(runner);
+        }
+    }
+
+    public int doWork()
+    {
+        return 0;
+    }
+
+    public void onClose()
+    {
+        if (started)
+        {
+            for (final AgentRunner runner : runners)
+            {
+                EngineScheduler.awaitRunnerStart(runner);
+            }
+        }
+
+        Exceptions.closeAll(runners);
+    }
+
+    public String roleName()
+    {
+        return agentNamePrefix + "ParallelIndexer";
+    }
+}
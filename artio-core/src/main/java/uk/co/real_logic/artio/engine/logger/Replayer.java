@@ -93,7 +93,7 @@ public class Replayer implements ProtocolHandler, ControlledFragmentHandler, Age
     private final String agentNamePrefix;
     private final IntHashSet gapFillMessageTypes;
     private final ReplayHandler replayHandler;
-    private final SenderSequenceNumbers senderSequenceNumbers;
+    private final SenderSequenceNumbers.Reader senderSequenceNumbers;
 
     private int currentMessageOffset;
     private int currentMessageLength;
@@ -117,7 +117,7 @@ public class Replayer implements ProtocolHandler, ControlledFragmentHandler, Age
         final EpochClock clock,
         final Set<String> gapfillOnReplayMessageTypes,
         final ReplayHandler replayHandler,
-        final SenderSequenceNumbers senderSequenceNumbers)
+        final SenderSequenceNumbers.Reader senderSequenceNumbers)
     {
         this.replayQuery = replayQuery;
         this.publication = publication;
@@ -416,7 +416,7 @@ public class Replayer implements ProtocolHandler, ControlledFragmentHandler, Age
 
     public int doWork()
     {
-        return senderSequenceNumbers.poll() + subscription.poll(protocolSubscription, POLL_LIMIT);
+        return subscription.poll(protocolSubscription, POLL_LIMIT);
     }
 
     public void onClose()
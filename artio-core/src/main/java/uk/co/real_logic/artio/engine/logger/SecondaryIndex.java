@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.FrameDescriptor;
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import static uk.co.real_logic.artio.engine.logger.SecondaryIndexDescriptor.*;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+
+/**
+ * Base class of indexes that map something about a message to its position in the archive, so that messages can
+ * be found with a {@link SecondaryIndexQuery} without scanning the archive.
+ *
+ * Records are only ever appended, readers in other threads or processes can query the index whilst it's written.
+ * When the file is full further messages aren't indexed and the error handler is told once.
+ */
+public abstract class SecondaryIndex implements Index
+{
+    private final MessageHeaderDecoder frameHeaderDecoder = new MessageHeaderDecoder();
+    private final FixMessageDecoder messageFrame = new FixMessageDecoder();
+
+    private final int requiredStreamId;
+    private final ErrorHandler errorHandler;
+    private final File indexFile;
+    private final ByteBuffer wrappedBuffer;
+    private final AtomicBuffer positionBuffer;
+    private final IndexedPositionWriter positionWriter;
+    private final IndexedPositionReader positionReader;
+
+    final AtomicBuffer buffer;
+    final int bucketCount;
+    private final int recordCapacity;
+
+    private int recordCount;
+    private boolean reportedFull;
+
+    SecondaryIndex(
+        final File indexFile,
+        final boolean hasBuckets,
+        final int requiredStreamId,
+        final int indexFileSize,
+        final BufferFactory bufferFactory,
+        final ErrorHandler errorHandler)
+    {
+        this.indexFile = indexFile;
+        this.requiredStreamId = requiredStreamId;
+        this.errorHandler = errorHandler;
+
+        wrappedBuffer = bufferFactory.map(indexFile, indexFileSize);
+        buffer = new UnsafeBuffer(wrappedBuffer);
+        initialise(buffer, hasBuckets);
+        bucketCount = bucketCount(buffer);
+        recordCapacity = recordCapacity(buffer);
+        recordCount = recordCountVolatile(buffer);
+
+        final File positionsFile = positionsFile(indexFile);
+        positionBuffer = new UnsafeBuffer(bufferFactory.map(positionsFile, POSITIONS_BUFFER_SIZE));
+        positionWriter = new IndexedPositionWriter(positionBuffer, errorHandler, 0, positionsFile.getPath());
+        positionReader = new IndexedPositionReader(positionBuffer);
+    }
+
+    public void indexRecord(
+        final DirectBuffer srcBuffer,
+        final int srcOffset,
+        final int srcLength,
+        final int streamId,
+        final int aeronSessionId,
+        final long endPosition)
+    {
+        if (streamId != requiredStreamId)
+        {
+            return;
+        }
+
+        int offset = srcOffset;
+        frameHeaderDecoder.wrap(srcBuffer, offset);
+        if (frameHeaderDecoder.templateId() == FixMessageEncoder.TEMPLATE_ID)
+        {
+            final int actingBlockLength = frameHeaderDecoder.blockLength();
+            offset += frameHeaderDecoder.encodedLength();
+
+            final FixMessageDecoder messageFrame = this.messageFrame;
+            messageFrame.wrap(srcBuffer, offset, actingBlockLength, frameHeaderDecoder.version());
+            if (messageFrame.status() == OK)
+            {
+                final int bodyOffset = offset + actingBlockLength + FixMessageDecoder.bodyHeaderLength();
+                final int alignedLength = BitUtil.align(srcLength, FrameDescriptor.FRAME_ALIGNMENT);
+                final long beginPosition = endPosition - alignedLength;
+
+                onMessage(
+                    messageFrame, srcBuffer, bodyOffset, messageFrame.bodyLength(), aeronSessionId, beginPosition);
+            }
+
+            positionWriter.indexedUpTo(aeronSessionId, endPosition);
+        }
+    }
+
+    /**
+     * Index a message, should call {@link #append(long, long, int, long)} for each record to index it by.
+     *
+     * @param messageFrame the framing of the message.
+     * @param buffer the buffer that contains the message.
+     * @param bodyOffset the offset of the ascii message within the buffer.
+     * @param bodyLength the length of the ascii message.
+     * @param aeronSessionId the Aeron session id of the archive stream that the message is in.
+     * @param beginPosition the position of the message within the archive stream.
+     */
+    abstract void onMessage(
+        FixMessageDecoder messageFrame,
+        DirectBuffer buffer,
+        int bodyOffset,
+        int bodyLength,
+        int aeronSessionId,
+        long beginPosition);
+
+    void append(final long key, final long timestamp, final int aeronSessionId, final long beginPosition)
+    {
+        final AtomicBuffer buffer = this.buffer;
+        final int recordIndex = recordCount;
+        if (recordIndex == recordCapacity)
+        {
+            if (!reportedFull)
+            {
+                reportedFull = true;
+                errorHandler.onError(new IllegalStateException(String.format(
+                    "Secondary index %s is full, messages are no longer being indexed", indexFile)));
+            }
+            return;
+        }
+
+        final int offset = recordOffset(bucketCount, recordIndex);
+        buffer.putLong(offset + KEY_OFFSET, key);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putLong(offset + POSITION_OFFSET, beginPosition);
+        buffer.putInt(offset + AERON_SESSION_ID_OFFSET, aeronSessionId);
+
+        if (bucketCount > 0)
+        {
+            final int bucketOffset = bucketOffset(bucket(key, bucketCount));
+            buffer.putInt(offset + PREVIOUS_RECORD_OFFSET, buffer.getInt(bucketOffset));
+            buffer.putIntOrdered(bucketOffset, recordIndex + 1);
+        }
+
+        recordCount = recordIndex + 1;
+        recordCountOrdered(buffer, recordCount);
+    }
+
+    long lastKey()
+    {
+        return recordCount == 0 ? 0 : buffer.getLong(recordOffset(bucketCount, recordCount - 1) + KEY_OFFSET);
+    }
+
+    public void readLastPosition(final IndexedPositionConsumer consumer)
+    {
+        positionReader.readLastPosition(consumer);
+    }
+
+    public void close()
+    {
+        positionWriter.close();
+        if (wrappedBuffer instanceof MappedByteBuffer)
+        {
+            IoUtil.unmap((MappedByteBuffer)wrappedBuffer);
+        }
+        IoUtil.unmap(positionBuffer.byteBuffer());
+    }
+}
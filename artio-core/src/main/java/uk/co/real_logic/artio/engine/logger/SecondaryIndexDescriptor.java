@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+
+import java.io.File;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+/**
+ * Layout of the files of a {@link SecondaryIndex}.
+ *
+ * A file begins with a header of the number of hash buckets, the capacity for records and the number of records
+ * that have been written. Then comes a table of buckets that each refer to the latest record whose key hashes to
+ * them, if the index has buckets, and then the records. Each record has a key, the timestamp of the message, the
+ * position of the message in the archive and a reference to the previous record in the same bucket.
+ *
+ * References to records are their index plus one so that an empty file doesn't refer to any records.
+ */
+final class SecondaryIndexDescriptor
+{
+    static final int POSITIONS_BUFFER_SIZE = 128 * 1024;
+
+    static final int NO_RECORD = 0;
+
+    static final int BUCKET_COUNT_OFFSET = 0;
+    static final int RECORD_CAPACITY_OFFSET = BUCKET_COUNT_OFFSET + SIZE_OF_INT;
+    static final int RECORD_COUNT_OFFSET = RECORD_CAPACITY_OFFSET + SIZE_OF_INT;
+    static final int HEADER_LENGTH = BitUtil.CACHE_LINE_LENGTH;
+
+    static final int KEY_OFFSET = 0;
+    static final int TIMESTAMP_OFFSET = KEY_OFFSET + SIZE_OF_LONG;
+    static final int POSITION_OFFSET = TIMESTAMP_OFFSET + SIZE_OF_LONG;
+    static final int AERON_SESSION_ID_OFFSET = POSITION_OFFSET + SIZE_OF_LONG;
+    static final int PREVIOUS_RECORD_OFFSET = AERON_SESSION_ID_OFFSET + SIZE_OF_INT;
+    static final int RECORD_LENGTH = PREVIOUS_RECORD_OFFSET + SIZE_OF_INT;
+
+    private static final int RECORDS_PER_BUCKET = 2;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SecondaryIndexDescriptor()
+    {
+    }
+
+    static File tagIndexFile(final String logFileDir, final int tag, final int streamId)
+    {
+        return new File(logFileDir + File.separator + "tag-index-" + tag + "-" + streamId);
+    }
+
+    static File timeIndexFile(final String logFileDir, final int streamId)
+    {
+        return new File(logFileDir + File.separator + "time-index-" + streamId);
+    }
+
+    static File positionsFile(final File indexFile)
+    {
+        return new File(indexFile.getPath() + "-positions");
+    }
+
+    static void initialise(final AtomicBuffer buffer, final boolean hasBuckets)
+    {
+        if (buffer.getInt(RECORD_CAPACITY_OFFSET) != 0)
+        {
+            return;
+        }
+
+        final int availableLength = buffer.capacity() - HEADER_LENGTH;
+        int bucketCount = 0;
+        if (hasBuckets)
+        {
+            final int maxBucketCount = availableLength / (RECORDS_PER_BUCKET * RECORD_LENGTH + SIZE_OF_INT);
+            bucketCount = Integer.highestOneBit(maxBucketCount);
+        }
+        final int recordCapacity = (availableLength - bucketCount * SIZE_OF_INT) / RECORD_LENGTH;
+        if (recordCapacity <= 0)
+        {
+            throw new IllegalArgumentException("Secondary index file is too small: " + buffer.capacity());
+        }
+
+        buffer.putInt(BUCKET_COUNT_OFFSET, bucketCount);
+        buffer.putIntOrdered(RECORD_CAPACITY_OFFSET, recordCapacity);
+    }
+
+    static int bucketCount(final AtomicBuffer buffer)
+    {
+        return buffer.getInt(BUCKET_COUNT_OFFSET);
+    }
+
+    static int recordCapacity(final AtomicBuffer buffer)
+    {
+        return buffer.getIntVolatile(RECORD_CAPACITY_OFFSET);
+    }
+
+    static int recordCountVolatile(final AtomicBuffer buffer)
+    {
+        return (int)buffer.getLongVolatile(RECORD_COUNT_OFFSET);
+    }
+
+    static void recordCountOrdered(final AtomicBuffer buffer, final int recordCount)
+    {
+        buffer.putLongOrdered(RECORD_COUNT_OFFSET, recordCount);
+    }
+
+    static int bucketOffset(final int bucket)
+    {
+        return HEADER_LENGTH + bucket * SIZE_OF_INT;
+    }
+
+    static int bucket(final long key, final int bucketCount)
+    {
+        return (int)(key ^ (key >>> 32)) & (bucketCount - 1);
+    }
+
+    static int recordOffset(final int bucketCount, final int recordIndex)
+    {
+        return bucketOffset(bucketCount) + recordIndex * RECORD_LENGTH;
+    }
+
+    static long hash(final DirectBuffer buffer, final int offset, final int length)
+    {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            hash = (hash ^ buffer.getByte(i)) * FNV_PRIME;
+        }
+
+        return hash;
+    }
+}
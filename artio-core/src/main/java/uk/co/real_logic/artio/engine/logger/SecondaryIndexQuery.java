@@ -0,0 +1,277 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.ControlledFragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.IntArrayList;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+import uk.co.real_logic.artio.replication.StreamIdentifier;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static uk.co.real_logic.artio.GatewayProcess.INBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_LOGGER_CACHE_NUM_SETS;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_LOGGER_CACHE_SET_SIZE;
+import static uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType.SENT;
+import static uk.co.real_logic.artio.engine.logger.SecondaryIndexDescriptor.*;
+import static uk.co.real_logic.artio.replication.ReservedValue.NO_FILTER;
+
+/**
+ * Finds messages in the archive using the {@link TagValueIndex}es and {@link TimeIndex} that the engine has been
+ * configured to write, see {@link uk.co.real_logic.artio.engine.EngineConfiguration#archiveIndexedTags(int...)}
+ * and {@link uk.co.real_logic.artio.engine.EngineConfiguration#archiveTimeIndex(boolean)}.
+ *
+ * Can be used whilst the engine is running, in which case messages that haven't been indexed yet aren't found.
+ * Not thread safe.
+ */
+public class SecondaryIndexQuery implements AutoCloseable
+{
+    private final Int2ObjectHashMap<AtomicBuffer> tagIndexes = new Int2ObjectHashMap<>();
+    private final IntArrayList recordIndices = new IntArrayList();
+    private final MessageHandler messageHandler = new MessageHandler();
+
+    private final String logFileDir;
+    private final ArchiveReader archiveReader;
+    private final int streamId;
+
+    private AtomicBuffer timeIndex;
+
+    public SecondaryIndexQuery(final String logFileDir, final String aeronChannel, final MessageType direction)
+    {
+        this(logFileDir, new ArchiveReader(
+            LoggerUtil.newArchiveMetaData(logFileDir),
+            DEFAULT_LOGGER_CACHE_NUM_SETS,
+            DEFAULT_LOGGER_CACHE_SET_SIZE,
+            new StreamIdentifier(aeronChannel, direction == SENT ? OUTBOUND_LIBRARY_STREAM : INBOUND_LIBRARY_STREAM),
+            NO_FILTER));
+    }
+
+    public SecondaryIndexQuery(final String logFileDir, final ArchiveReader archiveReader)
+    {
+        this.logFileDir = logFileDir;
+        this.archiveReader = archiveReader;
+        streamId = archiveReader.fullStreamId().streamId();
+    }
+
+    /**
+     * Find the messages where a tag has a value, in the order that they were archived.
+     *
+     * @param tag the tag to search by, must be one of the engine's indexed tags.
+     * @param value the value of the tag.
+     * @param handler the consumer that receives the messages.
+     * @return the number of messages found.
+     */
+    public int messagesWithValue(final int tag, final String value, final FixMessageConsumer handler)
+    {
+        final AtomicBuffer buffer = tagIndex(tag);
+        if (buffer == null)
+        {
+            return 0;
+        }
+
+        final byte[] valueBytes = value.getBytes(StandardCharsets.US_ASCII);
+        final long key = hash(new UnsafeBuffer(valueBytes), 0, valueBytes.length);
+        final int bucketCount = bucketCount(buffer);
+
+        final IntArrayList recordIndices = this.recordIndices;
+        recordIndices.clear();
+        int reference = buffer.getIntVolatile(bucketOffset(bucket(key, bucketCount)));
+        while (reference != NO_RECORD)
+        {
+            final int recordIndex = reference - 1;
+            final int offset = recordOffset(bucketCount, recordIndex);
+            if (buffer.getLong(offset + KEY_OFFSET) == key)
+            {
+                recordIndices.addInt(recordIndex);
+            }
+            reference = buffer.getInt(offset + PREVIOUS_RECORD_OFFSET);
+        }
+
+        // Checking the value rejects messages whose values only share the hash.
+        final MessageHandler messageHandler = this.messageHandler;
+        messageHandler.reset(new FixMessageQuery().whereEquals(tag, value), handler);
+        for (int i = recordIndices.size() - 1; i >= 0; i--)
+        {
+            read(buffer, bucketCount, recordIndices.getInt(i));
+        }
+
+        return messageHandler.count;
+    }
+
+    /**
+     * Find the messages that were archived with a timestamp within a range, in the order that they were archived.
+     *
+     * Timestamps are in the units of {@link FixMessageDecoder#timestamp()}. Messages whose timestamp is lower than
+     * that of a message archived before them, for example because they were written by a different library, can
+     * be missed if they're near the end of the range.
+     *
+     * @param fromInclusive the earliest timestamp to find.
+     * @param toExclusive the timestamp after the latest timestamp to find.
+     * @param handler the consumer that receives the messages.
+     * @return the number of messages found.
+     */
+    public int messagesBetween(final long fromInclusive, final long toExclusive, final FixMessageConsumer handler)
+    {
+        final AtomicBuffer buffer = timeIndex();
+        if (buffer == null)
+        {
+            return 0;
+        }
+
+        final int recordCount = recordCountVolatile(buffer);
+        int low = 0;
+        int high = recordCount;
+        while (low < high)
+        {
+            final int middle = (low + high) >>> 1;
+            if (buffer.getLong(recordOffset(0, middle) + KEY_OFFSET) < fromInclusive)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        final MessageHandler messageHandler = this.messageHandler;
+        messageHandler.reset(null, handler);
+        for (int recordIndex = low; recordIndex < recordCount; recordIndex++)
+        {
+            final int offset = recordOffset(0, recordIndex);
+            if (buffer.getLong(offset + KEY_OFFSET) >= toExclusive)
+            {
+                break;
+            }
+
+            final long timestamp = buffer.getLong(offset + TIMESTAMP_OFFSET);
+            if (timestamp >= fromInclusive && timestamp < toExclusive)
+            {
+                read(buffer, 0, recordIndex);
+            }
+        }
+
+        return messageHandler.count;
+    }
+
+    private void read(final AtomicBuffer buffer, final int bucketCount, final int recordIndex)
+    {
+        final int offset = recordOffset(bucketCount, recordIndex);
+        final int aeronSessionId = buffer.getInt(offset + AERON_SESSION_ID_OFFSET);
+        final long position = buffer.getLong(offset + POSITION_OFFSET);
+        archiveReader.read(aeronSessionId, position, messageHandler);
+    }
+
+    private AtomicBuffer tagIndex(final int tag)
+    {
+        AtomicBuffer buffer = tagIndexes.get(tag);
+        if (buffer == null)
+        {
+            buffer = map(tagIndexFile(logFileDir, tag, streamId));
+            if (buffer != null)
+            {
+                tagIndexes.put(tag, buffer);
+            }
+        }
+
+        return buffer;
+    }
+
+    private AtomicBuffer timeIndex()
+    {
+        if (timeIndex == null)
+        {
+            timeIndex = map(timeIndexFile(logFileDir, streamId));
+        }
+
+        return timeIndex;
+    }
+
+    private static AtomicBuffer map(final File file)
+    {
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        final AtomicBuffer buffer = new UnsafeBuffer(LoggerUtil.mapExistingFile(file));
+        if (recordCapacity(buffer) == 0)
+        {
+            IoUtil.unmap(buffer.byteBuffer());
+            return null;
+        }
+
+        return buffer;
+    }
+
+    public void close()
+    {
+        tagIndexes.values().forEach((buffer) -> IoUtil.unmap(buffer.byteBuffer()));
+        tagIndexes.clear();
+        if (timeIndex != null)
+        {
+            IoUtil.unmap(timeIndex.byteBuffer());
+            timeIndex = null;
+        }
+        archiveReader.close();
+    }
+
+    private static final class MessageHandler implements ControlledFragmentHandler
+    {
+        private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+        private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+
+        private FixMessagePredicate predicate;
+        private FixMessageConsumer handler;
+        private int count;
+
+        void reset(final FixMessagePredicate predicate, final FixMessageConsumer handler)
+        {
+            this.predicate = predicate;
+            this.handler = handler;
+            count = 0;
+        }
+
+        @SuppressWarnings("FinalParameters")
+        public Action onFragment(final DirectBuffer buffer, int offset, final int length, final Header header)
+        {
+            messageHeader.wrap(buffer, offset);
+            if (messageHeader.templateId() == FixMessageDecoder.TEMPLATE_ID)
+            {
+                offset += MessageHeaderDecoder.ENCODED_LENGTH;
+                fixMessage.wrap(buffer, offset, messageHeader.blockLength(), messageHeader.version());
+                if (predicate == null || predicate.test(fixMessage))
+                {
+                    count++;
+                    handler.onMessage(fixMessage, buffer, offset, length, header);
+                }
+            }
+
+            return CONTINUE;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package uk.co.real_logic.artio.engine.logger;
 
 import org.agrona.ErrorHandler;
+import org.agrona.collections.Long2LongHashMap;
 import org.agrona.concurrent.AtomicBuffer;
 import uk.co.real_logic.artio.engine.SectorFramer;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
@@ -30,6 +31,11 @@ import static uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberEnc
 
 public class SequenceNumberIndexReader
 {
+    private static final int MISSING_RECORD = -1;
+
+    // Records never move once written, so their positions are remembered, and checked on use in case the
+    // index has been reset since.
+    private final Long2LongHashMap recordOffsets = new Long2LongHashMap(MISSING_RECORD);
     private final MessageHeaderDecoder fileHeaderDecoder = new MessageHeaderDecoder();
     private final LastKnownSequenceNumberDecoder lastKnownDecoder = new LastKnownSequenceNumberDecoder();
     private final AtomicBuffer inMemoryBuffer;
@@ -49,7 +55,21 @@ public class SequenceNumberIndexReader
 
     public int lastKnownSequenceNumber(final long sessionId)
     {
-        int position = SequenceNumberIndexDescriptor.HEADER_SIZE;
+        final LastKnownSequenceNumberDecoder lastKnownDecoder = this.lastKnownDecoder;
+        int position = (int)recordOffsets.get(sessionId);
+        if (position != MISSING_RECORD)
+        {
+            lastKnownDecoder.wrap(inMemoryBuffer, position, BLOCK_LENGTH, SCHEMA_VERSION);
+            final int sequenceNumber = lastKnownDecoder.sequenceNumber();
+            if (sequenceNumber != 0 && lastKnownDecoder.sessionId() == sessionId)
+            {
+                return sequenceNumber;
+            }
+
+            recordOffsets.remove(sessionId);
+        }
+
+        position = SequenceNumberIndexDescriptor.HEADER_SIZE;
         while (true)
         {
             position = sectorFramer.claim(position, RECORD_SIZE);
@@ -60,9 +80,17 @@ public class SequenceNumberIndexReader
 
             lastKnownDecoder.wrap(inMemoryBuffer, position, BLOCK_LENGTH, SCHEMA_VERSION);
 
+            final int sequenceNumber = lastKnownDecoder.sequenceNumber();
+            // Records are written contiguously, so the first free record is the end of the index.
+            if (sequenceNumber == 0)
+            {
+                return UNK_SESSION;
+            }
+
             if (lastKnownDecoder.sessionId() == sessionId)
             {
-                return lastKnownDecoder.sequenceNumber();
+                recordOffsets.put(sessionId, position);
+                return sequenceNumber;
             }
 
             position += RECORD_SIZE;
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.ExclusivePublication;
+import io.aeron.logbuffer.ControlledFragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.collections.ArrayListUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import uk.co.real_logic.artio.engine.logger.Archiver.ArchivedPositionHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static io.aeron.logbuffer.FrameDescriptor.BEGIN_FRAG_FLAG;
+import static io.aeron.logbuffer.FrameDescriptor.END_FRAG_FLAG;
+import static io.aeron.logbuffer.FrameDescriptor.UNFRAGMENTED;
+import static io.aeron.protocol.DataHeaderFlyweight.HDR_TYPE_DATA;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_DATA_LENGTH;
+import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_SIZE;
+
+/**
+ * Streams an engine's archive and session ids to a warm standby, see
+ * {@link uk.co.real_logic.artio.engine.StandbyEngine}.
+ *
+ * Messages are read back out of the archive after the archivers have written them, rather than being taken from
+ * the library streams, so a slow or disconnected standby never back pressures the engine. The streamer just falls
+ * behind and the number of archived bytes that haven't been sent to the standby yet is reported by a counter.
+ * When that lag grows beyond a configured maximum an error is reported, once each time the maximum is crossed.
+ * Nothing is back pressured or dropped, so a standby that falls that far behind should be treated as unable to take
+ * over until it has caught up.
+ * Messages that were fragmented into several Aeron frames are reassembled before they're sent on.
+ *
+ * The session ids file is checked on an interval and each sector whose checksum has changed since it was last sent
+ * is sent again. All the sectors are sent again whenever a standby connects.
+ *
+ * Should be run on the archiving agent's thread, after the archivers.
+ */
+public class StandbyStreamer implements Agent
+{
+    private static final int SNAPSHOT_MESSAGE_LENGTH = SIZE_OF_INT + SECTOR_SIZE;
+
+    private final UnsafeBuffer snapshotBuffer = new UnsafeBuffer(new byte[SNAPSHOT_MESSAGE_LENGTH]);
+    private final CRC32 checksum = new CRC32();
+    private final StreamForwarder inboundForwarder;
+    private final StreamForwarder outboundForwarder;
+    private final ExclusivePublication snapshotPublication;
+    private final AtomicBuffer sessionIdBuffer;
+    private final int[] sentSectorChecksums;
+    private final AtomicCounter lagBytes;
+    private final long maxLagInBytes;
+    private final ErrorHandler errorHandler;
+    private final EpochClock clock;
+    private final long snapshotIntervalInMs;
+    private final String agentNamePrefix;
+
+    private boolean snapshotConnected;
+    private boolean exceededMaxLag;
+    private long nextSnapshotTimeInMs;
+
+    public StandbyStreamer(
+        final Archiver inboundArchiver,
+        final ArchiveReader inboundArchiveReader,
+        final ExclusivePublication inboundPublication,
+        final Archiver outboundArchiver,
+        final ArchiveReader outboundArchiveReader,
+        final ExclusivePublication outboundPublication,
+        final ExclusivePublication snapshotPublication,
+        final AtomicBuffer sessionIdBuffer,
+        final AtomicCounter lagBytes,
+        final long maxLagInBytes,
+        final ErrorHandler errorHandler,
+        final EpochClock clock,
+        final long snapshotIntervalInMs,
+        final String agentNamePrefix)
+    {
+        this.snapshotPublication = snapshotPublication;
+        this.sessionIdBuffer = sessionIdBuffer;
+        this.lagBytes = lagBytes;
+        this.maxLagInBytes = maxLagInBytes;
+        this.errorHandler = errorHandler;
+        this.clock = clock;
+        this.snapshotIntervalInMs = snapshotIntervalInMs;
+        this.agentNamePrefix = agentNamePrefix;
+        sentSectorChecksums = new int[sessionIdBuffer.capacity() / SECTOR_SIZE];
+
+        inboundForwarder = new StreamForwarder(inboundArchiveReader, inboundPublication);
+        inboundArchiver.positionHandler(inboundForwarder);
+        outboundForwarder = new StreamForwarder(outboundArchiveReader, outboundPublication);
+        outboundArchiver.positionHandler(outboundForwarder);
+    }
+
+    public int doWork()
+    {
+        final int work = inboundForwarder.poll() + outboundForwarder.poll() + pollSnapshot();
+        final long lagInBytes = inboundForwarder.lagInBytes() + outboundForwarder.lagInBytes();
+        lagBytes.setOrdered(lagInBytes);
+        checkMaxLag(lagInBytes);
+        return work;
+    }
+
+    private void checkMaxLag(final long lagInBytes)
+    {
+        if (maxLagInBytes == 0)
+        {
+            return;
+        }
+
+        final boolean exceededMaxLag = lagInBytes > maxLagInBytes;
+        if (exceededMaxLag && !this.exceededMaxLag)
+        {
+            errorHandler.onError(new IllegalStateException(String.format(
+                "The standby is %d archived bytes behind, more than the maximum of %d",
+                lagInBytes,
+                maxLagInBytes)));
+        }
+
+        this.exceededMaxLag = exceededMaxLag;
+    }
+
+    private int pollSnapshot()
+    {
+        final long timeInMs = clock.time();
+        final boolean connected = snapshotPublication.isConnected();
+        if (connected != snapshotConnected)
+        {
+            snapshotConnected = connected;
+            Arrays.fill(sentSectorChecksums, 0);
+            nextSnapshotTimeInMs = timeInMs;
+        }
+
+        if (!connected || timeInMs < nextSnapshotTimeInMs)
+        {
+            return 0;
+        }
+
+        int sentSectors = 0;
+        final int[] sentSectorChecksums = this.sentSectorChecksums;
+        for (int i = 0; i < sentSectorChecksums.length; i++)
+        {
+            final int sectorStart = i * SECTOR_SIZE;
+            if (sessionIdBuffer.getIntVolatile(sectorStart + SECTOR_DATA_LENGTH) != sentSectorChecksums[i])
+            {
+                final UnsafeBuffer snapshotBuffer = this.snapshotBuffer;
+                snapshotBuffer.putInt(0, sectorStart);
+                snapshotBuffer.putBytes(SIZE_OF_INT, sessionIdBuffer, sectorStart, SECTOR_SIZE);
+
+                // A sector that's being written to while it's copied is picked up again by the next snapshot.
+                final int copiedChecksum = snapshotBuffer.getInt(SIZE_OF_INT + SECTOR_DATA_LENGTH);
+                if (copiedChecksum == 0 || copiedChecksum == sectorChecksum())
+                {
+                    if (snapshotPublication.offer(snapshotBuffer, 0, SNAPSHOT_MESSAGE_LENGTH) < 0)
+                    {
+                        return sentSectors;
+                    }
+
+                    sentSectorChecksums[i] = copiedChecksum;
+                    sentSectors++;
+                }
+            }
+        }
+
+        nextSnapshotTimeInMs = timeInMs + snapshotIntervalInMs;
+
+        return sentSectors;
+    }
+
+    private int sectorChecksum()
+    {
+        final CRC32 checksum = this.checksum;
+        checksum.reset();
+        checksum.update(snapshotBuffer.byteArray(), SIZE_OF_INT, SECTOR_DATA_LENGTH);
+        return (int)checksum.getValue();
+    }
+
+    public void onClose()
+    {
+        CloseHelper.close(inboundForwarder);
+        CloseHelper.close(outboundForwarder);
+        CloseHelper.close(snapshotPublication);
+    }
+
+    public String roleName()
+    {
+        return agentNamePrefix + "StandbyStreamer";
+    }
+
+    private static final class StreamForwarder
+        implements ArchivedPositionHandler, ControlledFragmentHandler, AutoCloseable
+    {
+        private final Int2ObjectHashMap<SessionForwarder> sessions = new Int2ObjectHashMap<>();
+        private final ArrayList<SessionForwarder> laggingSessions = new ArrayList<>();
+        private final ArchiveReader archiveReader;
+        private final ExclusivePublication publication;
+
+        private SessionForwarder session;
+
+        private StreamForwarder(final ArchiveReader archiveReader, final ExclusivePublication publication)
+        {
+            this.archiveReader = archiveReader;
+            this.publication = publication;
+        }
+
+        public void onArchivedPosition(final int aeronSessionId, final long endPosition, final int length)
+        {
+            SessionForwarder session = sessions.get(aeronSessionId);
+            if (session == null)
+            {
+                // Streams each session from where this engine started archiving it.
+                session = new SessionForwarder(aeronSessionId, endPosition - length + HEADER_LENGTH);
+                sessions.put(aeronSessionId, session);
+            }
+
+            if (!session.isLagging)
+            {
+                session.isLagging = true;
+                laggingSessions.add(session);
+            }
+
+            session.archivedPosition = endPosition;
+        }
+
+        private int poll()
+        {
+            int work = 0;
+            final ArrayList<SessionForwarder> laggingSessions = this.laggingSessions;
+            for (int i = laggingSessions.size() - 1; i >= 0; i--)
+            {
+                final SessionForwarder session = laggingSessions.get(i);
+                final long streamedPosition = session.streamedPosition;
+                this.session = session;
+                final long position = archiveReader.readUpTo(
+                    session.aeronSessionId, streamedPosition, session.archivedPosition, this);
+                if (position < 0)
+                {
+                    throw new IllegalStateException(String.format(
+                        "Unable to stream session %d's archive at %d to the standby, error = %d",
+                        session.aeronSessionId,
+                        streamedPosition,
+                        position));
+                }
+
+                work += (int)(position - streamedPosition);
+                session.streamedPosition = position;
+
+                if (session.lagInBytes() == 0)
+                {
+                    session.isLagging = false;
+                    ArrayListUtil.fastUnorderedRemove(laggingSessions, i);
+                }
+            }
+
+            return work;
+        }
+
+        private long lagInBytes()
+        {
+            long lagInBytes = 0;
+            final List<SessionForwarder> laggingSessions = this.laggingSessions;
+            for (int i = 0, size = laggingSessions.size(); i < size; i++)
+            {
+                lagInBytes += laggingSessions.get(i).lagInBytes();
+            }
+
+            return lagInBytes;
+        }
+
+        public Action onFragment(final DirectBuffer buffer, final int offset, final int length, final Header header)
+        {
+            if (header.type() != HDR_TYPE_DATA)
+            {
+                return CONTINUE;
+            }
+
+            final byte flags = header.flags();
+            if ((flags & UNFRAGMENTED) == UNFRAGMENTED)
+            {
+                return offer(buffer, offset, length);
+            }
+
+            final SessionForwarder session = this.session;
+            if ((flags & BEGIN_FRAG_FLAG) == BEGIN_FRAG_FLAG)
+            {
+                session.assembledLength = 0;
+            }
+
+            final ExpandableArrayBuffer assemblyBuffer = session.assemblyBuffer();
+            final int assembledLength = session.assembledLength;
+            assemblyBuffer.putBytes(assembledLength, buffer, offset, length);
+            if ((flags & END_FRAG_FLAG) == END_FRAG_FLAG)
+            {
+                // If aborted the final fragment is read and appended again on the next poll.
+                final Action action = offer(assemblyBuffer, 0, assembledLength + length);
+                if (action == CONTINUE)
+                {
+                    session.assembledLength = 0;
+                }
+
+                return action;
+            }
+
+            session.assembledLength = assembledLength + length;
+            return CONTINUE;
+        }
+
+        private Action offer(final DirectBuffer buffer, final int offset, final int length)
+        {
+            return publication.offer(buffer, offset, length) < 0 ? ABORT : CONTINUE;
+        }
+
+        public void close()
+        {
+            CloseHelper.close(archiveReader);
+            CloseHelper.close(publication);
+        }
+    }
+
+    private static final class SessionForwarder
+    {
+        private final int aeronSessionId;
+
+        // The next message to stream is read from the archive at the streamed position, like a replay.
+        private long streamedPosition;
+        private long archivedPosition;
+        private boolean isLagging;
+        private ExpandableArrayBuffer assemblyBuffer;
+        private int assembledLength;
+
+        private SessionForwarder(final int aeronSessionId, final long streamedPosition)
+        {
+            this.aeronSessionId = aeronSessionId;
+            this.streamedPosition = streamedPosition;
+        }
+
+        private long lagInBytes()
+        {
+            return archivedPosition - (streamedPosition - HEADER_LENGTH);
+        }
+
+        private ExpandableArrayBuffer assemblyBuffer()
+        {
+            if (assemblyBuffer == null)
+            {
+                assemblyBuffer = new ExpandableArrayBuffer();
+            }
+
+            return assemblyBuffer;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+
+import static uk.co.real_logic.artio.engine.logger.SecondaryIndexDescriptor.hash;
+import static uk.co.real_logic.artio.engine.logger.SecondaryIndexDescriptor.tagIndexFile;
+
+/**
+ * Indexes messages by the value of a tag, for example ClOrdID (11) or OrderID (37), so that all the messages
+ * with a given value can be found with {@link SecondaryIndexQuery#messagesWithValue(int, String, FixMessageConsumer)}.
+ *
+ * Only the first occurrence of the tag in a message is indexed and messages without the tag aren't indexed.
+ * Values are stored as hashes, so the query checks the value of each message that it finds.
+ */
+public class TagValueIndex extends SecondaryIndex
+{
+    private static final byte SEPARATOR = '\001';
+
+    private final int tag;
+
+    public TagValueIndex(
+        final String logFileDir,
+        final int tag,
+        final int requiredStreamId,
+        final int indexFileSize,
+        final BufferFactory bufferFactory,
+        final ErrorHandler errorHandler)
+    {
+        super(
+            tagIndexFile(logFileDir, tag, requiredStreamId),
+            true,
+            requiredStreamId,
+            indexFileSize,
+            bufferFactory,
+            errorHandler);
+        this.tag = tag;
+    }
+
+    void onMessage(
+        final FixMessageDecoder messageFrame,
+        final DirectBuffer buffer,
+        final int bodyOffset,
+        final int bodyLength,
+        final int aeronSessionId,
+        final long beginPosition)
+    {
+        final int end = bodyOffset + bodyLength;
+        int position = bodyOffset;
+        while (position < end)
+        {
+            int fieldTag = 0;
+            byte character;
+            while (position < end && (character = buffer.getByte(position)) != '=')
+            {
+                fieldTag = fieldTag * 10 + (character - '0');
+                position++;
+            }
+            position++;
+
+            final int valueOffset = position;
+            while (position < end && buffer.getByte(position) != SEPARATOR)
+            {
+                position++;
+            }
+
+            if (fieldTag == tag)
+            {
+                final long key = hash(buffer, valueOffset, position - valueOffset);
+                append(key, messageFrame.timestamp(), aeronSessionId, beginPosition);
+                return;
+            }
+            position++;
+        }
+    }
+}
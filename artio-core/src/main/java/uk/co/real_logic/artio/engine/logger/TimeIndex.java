@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+
+import static uk.co.real_logic.artio.engine.logger.SecondaryIndexDescriptor.timeIndexFile;
+
+/**
+ * Indexes messages by the timestamp that they were archived with, so that the messages within a time range can
+ * be found with {@link SecondaryIndexQuery#messagesBetween(long, long, FixMessageConsumer)}.
+ *
+ * Records are appended in archive order and keyed by the latest timestamp seen so far, which makes the keys
+ * sorted even when timestamps from different writers interleave slightly out of order.
+ */
+public class TimeIndex extends SecondaryIndex
+{
+    private long latestTimestamp;
+
+    public TimeIndex(
+        final String logFileDir,
+        final int requiredStreamId,
+        final int indexFileSize,
+        final BufferFactory bufferFactory,
+        final ErrorHandler errorHandler)
+    {
+        super(
+            timeIndexFile(logFileDir, requiredStreamId),
+            false,
+            requiredStreamId,
+            indexFileSize,
+            bufferFactory,
+            errorHandler);
+        latestTimestamp = lastKey();
+    }
+
+    void onMessage(
+        final FixMessageDecoder messageFrame,
+        final DirectBuffer buffer,
+        final int bodyOffset,
+        final int bodyLength,
+        final int aeronSessionId,
+        final long beginPosition)
+    {
+        final long timestamp = messageFrame.timestamp();
+        latestTimestamp = Math.max(latestTimestamp, timestamp);
+        append(latestTimestamp, timestamp, aeronSessionId, beginPosition);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.library;
+
+import uk.co.real_logic.artio.Reply;
+import uk.co.real_logic.artio.messages.GatewayError;
+
+import java.util.List;
+
+/**
+ * Groups together the replies of a batch of operations that have all been sent to the engine
+ * without waiting for each other. Completes once none of the individual replies are still executing,
+ * the individual replies record whether each operation succeeded, errored or timed out.
+ *
+ * @param <T> the return type of the individual operations.
+ */
+class BatchReply<T> extends LibraryReply<List<Reply<T>>>
+{
+    private final List<Reply<T>> replies;
+
+    BatchReply(
+        final LibraryPoller libraryPoller,
+        final long latestReplyArrivalTime,
+        final List<Reply<T>> replies)
+    {
+        super(libraryPoller, latestReplyArrivalTime);
+        this.replies = replies;
+    }
+
+    void onError(final GatewayError errorType, final String errorMessage)
+    {
+    }
+
+    boolean poll(final long timeInMs)
+    {
+        if (super.poll(timeInMs))
+        {
+            return true;
+        }
+
+        if (!isExecuting())
+        {
+            return true;
+        }
+
+        final List<Reply<T>> replies = this.replies;
+        for (int i = 0, size = replies.size(); i < size; i++)
+        {
+            if (replies.get(i).isExecuting())
+            {
+                return false;
+            }
+        }
+
+        onComplete(replies);
+
+        return true;
+    }
+}
@@ -26,10 +26,12 @@ import uk.co.real_logic.artio.FixGatewayException;
 import uk.co.real_logic.artio.GatewayProcess;
 import uk.co.real_logic.artio.Reply;
 import uk.co.real_logic.artio.messages.SessionReplyStatus;
+import uk.co.real_logic.artio.session.MessageBatch;
 import uk.co.real_logic.artio.session.Session;
 import uk.co.real_logic.artio.timing.LibraryTimers;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.closeAll;
@@ -49,6 +51,7 @@ import static uk.co.real_logic.artio.dictionary.generation.Exceptions.closeAll;
 public class FixLibrary extends GatewayProcess
 {
     public static final int NO_MESSAGE_REPLAY = -1;
+    public static final int UNLIMITED_CATCHUP_REPLAY = -1;
 
     private final LibraryConfiguration configuration;
     private final LibraryScheduler scheduler;
@@ -67,6 +70,7 @@ public class FixLibrary extends GatewayProcess
         {
             scheduler.configure(configuration.aeronContext());
             init(configuration);
+            initIdleCounters(configuration.libraryIdleStrategy(), "Library");
             final LibraryTimers timers = new LibraryTimers(configuration.clock());
             initMonitoringAgent(timers.all(), configuration);
 
@@ -220,6 +224,18 @@ public class FixLibrary extends GatewayProcess
         return poller.sessions();
     }
 
+    /**
+     * Create a batch that messages for any of this library's sessions can be encoded into and then sent
+     * together, see {@link MessageBatch}.
+     *
+     * @return a new batch sized for messages up to {@link CommonConfiguration#sessionBufferSize()} long.
+     */
+    public MessageBatch newMessageBatch()
+    {
+        final int sessionBufferSize = configuration.sessionBufferSize();
+        return new MessageBatch(sessionBufferSize, sessionBufferSize);
+    }
+
     /**
      * Close the Library. This will also remove all files associated with the library.
      */
@@ -326,9 +342,126 @@ public class FixLibrary extends GatewayProcess
         final int lastReceivedSequenceNumber,
         final int sequenceIndex,
         final long timeoutInMs)
+    {
+        return requestSession(
+            sessionId, lastReceivedSequenceNumber, sequenceIndex, UNLIMITED_CATCHUP_REPLAY, timeoutInMs);
+    }
+
+    /**
+     * Request a session be acquired from the Gateway, limiting how many messages are replayed as part of
+     * the handover. This behaves like {@link #requestSession(long, int, int, long)} except that at most the
+     * last <code>maxCatchupReplayMessages</code> messages of the current sequence index are replayed before
+     * the reply completes, so the time to take over a session doesn't grow with its history. Any earlier
+     * messages can be requested afterwards using
+     * {@link #replayMessages(long, int, int, int, int, long)}.
+     *
+     * @param sessionId the id of the session to acquire.
+     * @param lastReceivedSequenceNumber the last received message sequence number
+     *                                   that you know about, or {@link FixLibrary#NO_MESSAGE_REPLAY}.
+     * @param sequenceIndex the index of the sequence within which the lastReceivedSequenceNumber
+     *                      refers, or {@link FixLibrary#NO_MESSAGE_REPLAY}.
+     * @param maxCatchupReplayMessages the maximum number of messages to replay, 0 to only hand over the
+     *                                 session state or {@link FixLibrary#UNLIMITED_CATCHUP_REPLAY} to replay
+     *                                 everything after <code>lastReceivedSequenceNumber</code>.
+     * @param timeoutInMs the timeout for this operation
+     * @return the reply object representing the result of the request.
+     */
+    public Reply<SessionReplyStatus> requestSession(
+        final long sessionId,
+        final int lastReceivedSequenceNumber,
+        final int sequenceIndex,
+        final int maxCatchupReplayMessages,
+        final long timeoutInMs)
+    {
+        CommonConfiguration.validateTimeout(timeoutInMs);
+        return poller.requestSession(
+            sessionId, lastReceivedSequenceNumber, sequenceIndex, maxCatchupReplayMessages, timeoutInMs);
+    }
+
+    /**
+     * Request that the engine replays a range of received messages for a session that this library has
+     * already acquired. The messages are delivered to the session's {@link SessionHandler} with a
+     * status of {@link uk.co.real_logic.artio.messages.MessageStatus#CATCHUP_REPLAY}, interleaved with any
+     * live messages, and the reply completes with {@link SessionReplyStatus#OK} once the range has been replayed.
+     *
+     * The range is inclusive at both ends. If this library doesn't own the session the reply is
+     * {@link SessionReplyStatus#UNKNOWN_SESSION}, if the range is invalid it is
+     * {@link SessionReplyStatus#SEQUENCE_NUMBER_TOO_HIGH} and if the engine can't find all the messages
+     * it is {@link SessionReplyStatus#MISSING_MESSAGES}.
+     *
+     * @param sessionId the id of the session to replay messages for.
+     * @param replayFromSequenceNumber the sequence number of the first message to replay.
+     * @param replayFromSequenceIndex the sequence index of the first message to replay.
+     * @param replayToSequenceNumber the sequence number of the last message to replay.
+     * @param replayToSequenceIndex the sequence index of the last message to replay.
+     * @param timeoutInMs the timeout for this operation
+     * @return the reply object representing the result of the request.
+     */
+    public Reply<SessionReplyStatus> replayMessages(
+        final long sessionId,
+        final int replayFromSequenceNumber,
+        final int replayFromSequenceIndex,
+        final int replayToSequenceNumber,
+        final int replayToSequenceIndex,
+        final long timeoutInMs)
+    {
+        CommonConfiguration.validateTimeout(timeoutInMs);
+        return poller.replayMessages(
+            sessionId,
+            replayFromSequenceNumber,
+            replayFromSequenceIndex,
+            replayToSequenceNumber,
+            replayToSequenceIndex,
+            timeoutInMs);
+    }
+
+    /**
+     * Request a batch of sessions be acquired from the Gateway. This is equivalent to calling
+     * {@link #requestSession(long, int, int, long)} for every session id, but all the requests are sent
+     * to the engine without waiting for any of them to complete and the engine processes them concurrently.
+     * This makes it suitable for moving large numbers of sessions between libraries, for example at failover.
+     *
+     * The returned reply completes when none of the individual replies are still executing. Its result is the
+     * list of individual replies, in the same order as the <code>sessionIds</code>, each of which has the
+     * {@link SessionReplyStatus} of its session or has errored or timed out.
+     *
+     * @param sessionIds the ids of the sessions to acquire.
+     * @param lastReceivedSequenceNumbers the last received message sequence number for each session, or
+     *                                    {@link FixLibrary#NO_MESSAGE_REPLAY}.
+     * @param sequenceIndices the sequence index for each session, or {@link FixLibrary#NO_MESSAGE_REPLAY}.
+     * @param timeoutInMs the timeout for the whole batch.
+     * @return the reply object representing the result of the batch.
+     * @throws IllegalArgumentException if the arrays aren't all of the same length.
+     * @see #requestSession(long, int, int, long)
+     */
+    public Reply<List<Reply<SessionReplyStatus>>> requestSessions(
+        final long[] sessionIds,
+        final int[] lastReceivedSequenceNumbers,
+        final int[] sequenceIndices,
+        final long timeoutInMs)
+    {
+        CommonConfiguration.validateTimeout(timeoutInMs);
+        return poller.requestSessions(sessionIds, lastReceivedSequenceNumbers, sequenceIndices, timeoutInMs);
+    }
+
+    /**
+     * Release a batch of session objects to the gateway to manage. This is equivalent to calling
+     * {@link #releaseToGateway(Session, long)} for every session, but all the releases are sent
+     * to the engine without waiting for any of them to complete.
+     *
+     * The returned reply completes when none of the individual replies are still executing. Its result is the
+     * list of individual replies, in the iteration order of <code>sessions</code>.
+     *
+     * @param sessions the sessions to release.
+     * @param timeoutInMs the timeout for the whole batch.
+     * @return the reply object representing the result of the batch.
+     * @see #releaseToGateway(Session, long)
+     */
+    public Reply<List<Reply<SessionReplyStatus>>> releaseToGateway(
+        final Collection<Session> sessions, final long timeoutInMs)
     {
         CommonConfiguration.validateTimeout(timeoutInMs);
-        return poller.requestSession(sessionId, lastReceivedSequenceNumber, sequenceIndex, timeoutInMs);
+        return poller.releaseToGateway(sessions, timeoutInMs);
     }
 
     public String currentAeronChannel()
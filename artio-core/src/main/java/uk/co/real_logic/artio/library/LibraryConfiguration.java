@@ -16,6 +16,7 @@
 package uk.co.real_logic.artio.library;
 
 import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.AdaptiveIdleStrategy;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.session.SessionIdStrategy;
 
@@ -99,7 +100,9 @@ public final class LibraryConfiguration extends CommonConfiguration
     }
 
     /**
-     * Sets the idle strategy for the FIX library instance.
+     * Sets the idle strategy for the FIX library instance. If this is an {@link AdaptiveIdleStrategy} then
+     * the time spent idle and working is also exported through the counters file, so it can be shared with
+     * the loop that polls the library but not with another library or engine.
      *
      * @param libraryIdleStrategy the idle strategy for the FIX library instance.
      * @return this
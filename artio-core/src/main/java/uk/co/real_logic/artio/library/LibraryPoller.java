@@ -39,6 +39,8 @@ import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 import uk.co.real_logic.artio.validation.MessageValidationStrategy;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
@@ -49,6 +51,7 @@ import static java.util.Objects.requireNonNull;
 import static uk.co.real_logic.artio.GatewayProcess.NO_CORRELATION_ID;
 import static uk.co.real_logic.artio.LogTag.*;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
+import static uk.co.real_logic.artio.library.FixLibrary.UNLIMITED_CATCHUP_REPLAY;
 import static uk.co.real_logic.artio.library.SessionConfiguration.AUTOMATIC_INITIAL_SEQUENCE_NUMBER;
 import static uk.co.real_logic.artio.messages.ConnectionType.INITIATOR;
 import static uk.co.real_logic.artio.messages.SessionState.ACTIVE;
@@ -207,10 +210,87 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         final long sessionId,
         final int lastReceivedSequenceNumber,
         final int sequenceIndex,
+        final int maxCatchupReplayMessages,
         final long timeoutInMs)
     {
         return new RequestSessionReply(
-            this, timeInMs() + timeoutInMs, sessionId, lastReceivedSequenceNumber, sequenceIndex);
+            this,
+            timeInMs() + timeoutInMs,
+            sessionId,
+            lastReceivedSequenceNumber,
+            sequenceIndex,
+            maxCatchupReplayMessages);
+    }
+
+    Reply<SessionReplyStatus> replayMessages(
+        final long sessionId,
+        final int replayFromSequenceNumber,
+        final int replayFromSequenceIndex,
+        final int replayToSequenceNumber,
+        final int replayToSequenceIndex,
+        final long timeoutInMs)
+    {
+        return new ReplayMessagesReply(
+            this,
+            timeInMs() + timeoutInMs,
+            sessionId,
+            replayFromSequenceNumber,
+            replayFromSequenceIndex,
+            replayToSequenceNumber,
+            replayToSequenceIndex);
+    }
+
+    Reply<List<Reply<SessionReplyStatus>>> requestSessions(
+        final long[] sessionIds,
+        final int[] lastReceivedSequenceNumbers,
+        final int[] sequenceIndices,
+        final long timeoutInMs)
+    {
+        requireNonNull(sessionIds, "sessionIds");
+        requireNonNull(lastReceivedSequenceNumbers, "lastReceivedSequenceNumbers");
+        requireNonNull(sequenceIndices, "sequenceIndices");
+
+        final int size = sessionIds.length;
+        if (lastReceivedSequenceNumbers.length != size || sequenceIndices.length != size)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Mismatched batch sizes: %d sessionIds, %d lastReceivedSequenceNumbers, %d sequenceIndices",
+                size,
+                lastReceivedSequenceNumbers.length,
+                sequenceIndices.length));
+        }
+
+        final long latestReplyArrivalTime = timeInMs() + timeoutInMs;
+        final List<Reply<SessionReplyStatus>> replies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            replies.add(new RequestSessionReply(
+                this,
+                latestReplyArrivalTime,
+                sessionIds[i],
+                lastReceivedSequenceNumbers[i],
+                sequenceIndices[i],
+                UNLIMITED_CATCHUP_REPLAY));
+        }
+
+        return new BatchReply<>(this, latestReplyArrivalTime, replies);
+    }
+
+    Reply<List<Reply<SessionReplyStatus>>> releaseToGateway(
+        final Collection<Session> sessions, final long timeoutInMs)
+    {
+        requireNonNull(sessions, "sessions");
+
+        final long latestReplyArrivalTime = timeInMs() + timeoutInMs;
+        final List<Reply<SessionReplyStatus>> replies = new ArrayList<>(sessions.size());
+        for (final Session session : sessions)
+        {
+            requireNonNull(session, "session");
+
+            replies.add(new ReleaseToGatewayReply(this, latestReplyArrivalTime, session));
+        }
+
+        return new BatchReply<>(this, latestReplyArrivalTime, replies);
     }
 
     void disableSession(final Session session)
@@ -268,12 +348,33 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         final long sessionId,
         final long correlationId,
         final int lastReceivedSequenceNumber,
-        final int sequenceIndex)
+        final int sequenceIndex,
+        final int maxCatchupReplayMessages)
     {
         checkState();
 
         return outboundPublication.saveRequestSession(
-            libraryId, sessionId, correlationId, lastReceivedSequenceNumber, sequenceIndex);
+            libraryId, sessionId, correlationId, lastReceivedSequenceNumber, sequenceIndex, maxCatchupReplayMessages);
+    }
+
+    long saveReplayMessages(
+        final long sessionId,
+        final long correlationId,
+        final int replayFromSequenceNumber,
+        final int replayFromSequenceIndex,
+        final int replayToSequenceNumber,
+        final int replayToSequenceIndex)
+    {
+        checkState();
+
+        return outboundPublication.saveReplayMessages(
+            libraryId,
+            sessionId,
+            correlationId,
+            replayFromSequenceNumber,
+            replayFromSequenceIndex,
+            replayToSequenceNumber,
+            replayToSequenceIndex);
     }
 
     int poll(final int fragmentLimit)
@@ -839,6 +940,17 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         return CONTINUE;
     }
 
+    public Action onReplayMessagesReply(final int libraryId, final long replyToId, final SessionReplyStatus status)
+    {
+        final ReplayMessagesReply reply = (ReplayMessagesReply)correlationIdToReply.remove(replyToId);
+        if (reply != null)
+        {
+            reply.onComplete(status);
+        }
+
+        return CONTINUE;
+    }
+
     public Action onNewSentPosition(final int libraryId, final long position)
     {
         if (this.libraryId == libraryId)
@@ -1044,6 +1156,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
             sessionProxy.setupSession(-1, key);
 
             session
+                .beginStrings(sessionConfiguration.beginString())
                 .username(sessionConfiguration.username())
                 .password(sessionConfiguration.password());
         }
@@ -1109,7 +1222,10 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
             sequenceIndex,
             state,
             configuration.reasonableTransmissionTimeInMs(),
-            asciiBuffer).address(host, port).logonTime(logonTime);
+            asciiBuffer)
+            .beginStrings(configuration.acceptedBeginStrings())
+            .address(host, port)
+            .logonTime(logonTime);
     }
 
     private SessionProxy sessionProxy(final long connectionId, final MutableAsciiBuffer asciiBuffer)
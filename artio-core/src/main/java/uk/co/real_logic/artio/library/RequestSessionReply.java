@@ -26,6 +26,7 @@ class RequestSessionReply extends LibraryReply<SessionReplyStatus>
     private final long sessionId;
     private final int lastReceivedSequenceNumber;
     private final int sequenceIndex;
+    private final int maxCatchupReplayMessages;
 
     private boolean requiresResend;
 
@@ -34,12 +35,14 @@ class RequestSessionReply extends LibraryReply<SessionReplyStatus>
         final long latestReplyArrivalTime,
         final long sessionId,
         final int lastReceivedSequenceNumber,
-        final int sequenceIndex)
+        final int sequenceIndex,
+        final int maxCatchupReplayMessages)
     {
         super(libraryPoller, latestReplyArrivalTime);
         this.sessionId = sessionId;
         this.lastReceivedSequenceNumber = lastReceivedSequenceNumber;
         this.sequenceIndex = sequenceIndex;
+        this.maxCatchupReplayMessages = maxCatchupReplayMessages;
         if (libraryPoller.isConnected())
         {
             sendMessage();
@@ -49,7 +52,7 @@ class RequestSessionReply extends LibraryReply<SessionReplyStatus>
     private void sendMessage()
     {
         final long position = libraryPoller.saveRequestSession(
-            sessionId, correlationId, lastReceivedSequenceNumber, sequenceIndex);
+            sessionId, correlationId, lastReceivedSequenceNumber, sequenceIndex, maxCatchupReplayMessages);
 
         requiresResend = position < 0;
     }
@@ -17,7 +17,9 @@ package uk.co.real_logic.artio.library;
 
 import org.agrona.collections.IntArrayList;
 import uk.co.real_logic.artio.CommonConfiguration;
+import uk.co.real_logic.artio.Constants;
 import uk.co.real_logic.artio.messages.SequenceNumberType;
+import uk.co.real_logic.artio.session.Session;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -49,6 +51,7 @@ public final class SessionConfiguration
     private final int initialSentSequenceNumber;
     private final long timeoutInMs;
     private final boolean resetSeqNum;
+    private final String beginString;
 
     public static Builder builder()
     {
@@ -70,7 +73,8 @@ public final class SessionConfiguration
         final int initialReceivedSequenceNumber,
         final int initialSentSequenceNumber,
         final long timeoutInMs,
-        final boolean resetSeqNum)
+        final boolean resetSeqNum,
+        final String beginString)
     {
         Objects.requireNonNull(hosts);
         Objects.requireNonNull(ports);
@@ -99,6 +103,7 @@ public final class SessionConfiguration
         this.initialReceivedSequenceNumber = initialReceivedSequenceNumber;
         this.initialSentSequenceNumber = initialSentSequenceNumber;
         this.resetSeqNum = resetSeqNum;
+        this.beginString = beginString;
     }
 
     private void requireNonEmpty(final List<?> values, final String name)
@@ -189,6 +194,11 @@ public final class SessionConfiguration
         return resetSeqNum;
     }
 
+    public String beginString()
+    {
+        return beginString;
+    }
+
     @Override
     public String toString()
     {
@@ -208,6 +218,7 @@ public final class SessionConfiguration
             ", initialSentSequenceNumber=" + initialSentSequenceNumber +
             ", timeoutInMs=" + timeoutInMs +
             ", resetSeqNum=" + resetSeqNum +
+            ", beginString='" + beginString + '\'' +
             '}';
     }
 
@@ -228,6 +239,7 @@ public final class SessionConfiguration
         private int initialSentSequenceNumber = AUTOMATIC_INITIAL_SEQUENCE_NUMBER;
         private long timeoutInMs = DEFAULT_REPLY_TIMEOUT_IN_MS;
         private boolean resetSeqNum = DEFAULT_RESET_SEQ_NUM;
+        private String beginString = Constants.VERSION;
 
         private Builder()
         {
@@ -401,6 +413,19 @@ public final class SessionConfiguration
             return this;
         }
 
+        /**
+         * Sets the version of FIX that the session logs on with, defaults to the version of the session codecs.
+         *
+         * @param beginString the BeginString (8=) of the session's messages.
+         * @return this builder
+         */
+        public Builder beginString(final String beginString)
+        {
+            Session.validateBeginString(beginString);
+            this.beginString = beginString;
+            return this;
+        }
+
         public SessionConfiguration build()
         {
             return new SessionConfiguration(
@@ -418,7 +443,8 @@ public final class SessionConfiguration
                 initialReceivedSequenceNumber,
                 initialSentSequenceNumber,
                 timeoutInMs,
-                resetSeqNum);
+                resetSeqNum,
+                beginString);
         }
     }
 }
@@ -88,6 +88,9 @@ class SessionSubscriber implements AutoCloseable
                         timestamp,
                         position);
 
+                case RATE_LIMITED:
+                    return parser.onRateLimitedMessage(buffer, offset, length);
+
                 case CATCHUP_REPLAY:
                     return handler.onMessage(
                         buffer,
@@ -71,5 +71,15 @@ public interface EngineEndPointHandler
         long sessionId,
         long correlationId,
         int lastReceivedSequenceNumber,
-        int sequenceIndex);
+        int sequenceIndex,
+        int maxCatchupReplayMessages);
+
+    Action onReplayMessages(
+        int libraryId,
+        long sessionId,
+        long correlationId,
+        int replayFromSequenceNumber,
+        int replayFromSequenceIndex,
+        int replayToSequenceNumber,
+        int replayToSequenceIndex);
 }
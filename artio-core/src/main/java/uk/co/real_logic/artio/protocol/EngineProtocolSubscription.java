@@ -31,6 +31,7 @@ public final class EngineProtocolSubscription implements ControlledFragmentHandl
     private final LibraryConnectDecoder libraryConnect = new LibraryConnectDecoder();
     private final ReleaseSessionDecoder releaseSession = new ReleaseSessionDecoder();
     private final RequestSessionDecoder requestSession = new RequestSessionDecoder();
+    private final ReplayMessagesDecoder replayMessages = new ReplayMessagesDecoder();
 
     private final EngineEndPointHandler handler;
 
@@ -79,6 +80,11 @@ public final class EngineProtocolSubscription implements ControlledFragmentHandl
             {
                 return onRequestSession(buffer, offset, blockLength, version, header);
             }
+
+            case ReplayMessagesDecoder.TEMPLATE_ID:
+            {
+                return onReplayMessages(buffer, offset, blockLength, version, header);
+            }
         }
 
         return CONTINUE;
@@ -162,7 +168,33 @@ public final class EngineProtocolSubscription implements ControlledFragmentHandl
             requestSession.sessionId(),
             requestSession.correlationId(),
             requestSession.lastReceivedSequenceNumber(),
-            requestSession.sequenceIndex());
+            requestSession.sequenceIndex(),
+            requestSession.maxCatchupReplayMessages());
+    }
+
+    private Action onReplayMessages(
+        final DirectBuffer buffer,
+        final int offset,
+        final int blockLength,
+        final int version,
+        final Header header)
+    {
+        replayMessages.wrap(buffer, offset, blockLength, version);
+        final int libraryId = replayMessages.libraryId();
+        final Action action = handler.onApplicationHeartbeat(libraryId, header.sessionId());
+        if (action != null)
+        {
+            return action; // Continue processing messages but not this message.
+        }
+
+        return handler.onReplayMessages(
+            libraryId,
+            replayMessages.sessionId(),
+            replayMessages.correlationId(),
+            replayMessages.replayFromSequenceNumber(),
+            replayMessages.replayFromSequenceIndex(),
+            replayMessages.replayToSequenceNumber(),
+            replayMessages.replayToSequenceIndex());
     }
 
     private Action onInitiateConnection(
@@ -59,6 +59,8 @@ public class GatewayPublication extends ClaimablePublication
     private static final int RELEASE_SESSION_REPLY_LENGTH = HEADER_LENGTH + ReleaseSessionReplyDecoder.BLOCK_LENGTH;
     private static final int REQUEST_SESSION_LENGTH = HEADER_LENGTH + RequestSessionEncoder.BLOCK_LENGTH;
     private static final int REQUEST_SESSION_REPLY_LENGTH = HEADER_LENGTH + RequestSessionReplyEncoder.BLOCK_LENGTH;
+    private static final int REPLAY_MESSAGES_LENGTH = HEADER_LENGTH + ReplayMessagesEncoder.BLOCK_LENGTH;
+    private static final int REPLAY_MESSAGES_REPLY_LENGTH = HEADER_LENGTH + ReplayMessagesReplyEncoder.BLOCK_LENGTH;
     private static final int CONNECT_FIXED_LENGTH =
         HEADER_LENGTH + ConnectEncoder.BLOCK_LENGTH + ConnectEncoder.addressHeaderLength();
     private static final int NOT_LEADER_BLOCK_LENGTH =
@@ -83,6 +85,8 @@ public class GatewayPublication extends ClaimablePublication
     private final LibraryConnectEncoder libraryConnect = new LibraryConnectEncoder();
     private final RequestSessionEncoder requestSession = new RequestSessionEncoder();
     private final RequestSessionReplyEncoder requestSessionReply = new RequestSessionReplyEncoder();
+    private final ReplayMessagesEncoder replayMessages = new ReplayMessagesEncoder();
+    private final ReplayMessagesReplyEncoder replayMessagesReply = new ReplayMessagesReplyEncoder();
     private final ReleaseSessionEncoder releaseSession = new ReleaseSessionEncoder();
     private final ReleaseSessionReplyEncoder releaseSessionReply = new ReleaseSessionReplyEncoder();
     private final ConnectEncoder connect = new ConnectEncoder();
@@ -614,7 +618,8 @@ public class GatewayPublication extends ClaimablePublication
         final long sessionId,
         final long correlationId,
         final int lastReceivedSequenceNumber,
-        final int sequenceIndex)
+        final int sequenceIndex,
+        final int maxCatchupReplayMessages)
     {
         final long position = claim(REQUEST_SESSION_LENGTH);
         if (position < 0)
@@ -630,7 +635,8 @@ public class GatewayPublication extends ClaimablePublication
             .sessionId(sessionId)
             .correlationId(correlationId)
             .lastReceivedSequenceNumber(lastReceivedSequenceNumber)
-            .sequenceIndex(sequenceIndex);
+            .sequenceIndex(sequenceIndex)
+            .maxCatchupReplayMessages(maxCatchupReplayMessages);
 
         bufferClaim.commit();
 
@@ -659,6 +665,64 @@ public class GatewayPublication extends ClaimablePublication
         return position;
     }
 
+    public long saveReplayMessages(
+        final int libraryId,
+        final long sessionId,
+        final long correlationId,
+        final int replayFromSequenceNumber,
+        final int replayFromSequenceIndex,
+        final int replayToSequenceNumber,
+        final int replayToSequenceIndex)
+    {
+        final long position = claim(REPLAY_MESSAGES_LENGTH);
+        if (position < 0)
+        {
+            return position;
+        }
+
+        final MutableDirectBuffer buffer = bufferClaim.buffer();
+        final int offset = bufferClaim.offset();
+
+        replayMessages.wrapAndApplyHeader(buffer, offset, header)
+            .libraryId(libraryId)
+            .sessionId(sessionId)
+            .correlationId(correlationId)
+            .replayFromSequenceNumber(replayFromSequenceNumber)
+            .replayFromSequenceIndex(replayFromSequenceIndex)
+            .replayToSequenceNumber(replayToSequenceNumber)
+            .replayToSequenceIndex(replayToSequenceIndex);
+
+        bufferClaim.commit();
+
+        logSbeMessage(GATEWAY_MESSAGE, replayMessages);
+
+        return position;
+    }
+
+    public long saveReplayMessagesReply(final int libraryId, final SessionReplyStatus status, final long replyToId)
+    {
+        final long position = claim(REPLAY_MESSAGES_REPLY_LENGTH);
+        if (position < 0)
+        {
+            return position;
+        }
+
+        final MutableDirectBuffer buffer = bufferClaim.buffer();
+        final int offset = bufferClaim.offset();
+
+        replayMessagesReply
+            .wrapAndApplyHeader(buffer, offset, header)
+            .libraryId(libraryId)
+            .replyToId(replyToId)
+            .status(status);
+
+        bufferClaim.commit();
+
+        logSbeMessage(GATEWAY_MESSAGE, replayMessagesReply);
+
+        return position;
+    }
+
     public long saveNotLeader(final int libraryId, final long replyToId, final DirectBuffer channel)
     {
         final int channelLength = (channel == null ? 0 : channel.capacity());
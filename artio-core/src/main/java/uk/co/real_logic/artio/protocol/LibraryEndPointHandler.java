@@ -29,6 +29,8 @@ public interface LibraryEndPointHandler
 
     Action onRequestSessionReply(int toId, long replyToId, SessionReplyStatus status);
 
+    Action onReplayMessagesReply(int libraryId, long replyToId, SessionReplyStatus status);
+
     Action onNewSentPosition(int libraryId, long position);
 
     Action onNotLeader(int libraryId, long replyToId, String libraryChannel);
@@ -30,6 +30,7 @@ public final class LibraryProtocolSubscription implements ControlledFragmentHand
     private final ApplicationHeartbeatDecoder applicationHeartbeat = new ApplicationHeartbeatDecoder();
     private final ReleaseSessionReplyDecoder releaseSessionReply = new ReleaseSessionReplyDecoder();
     private final RequestSessionReplyDecoder requestSessionReply = new RequestSessionReplyDecoder();
+    private final ReplayMessagesReplyDecoder replayMessagesReply = new ReplayMessagesReplyDecoder();
     private final NewSentPositionDecoder newSentPosition = new NewSentPositionDecoder();
     private final NotLeaderDecoder libraryConnect = new NotLeaderDecoder();
     private final ControlNotificationDecoder controlNotification = new ControlNotificationDecoder();
@@ -86,6 +87,11 @@ public final class LibraryProtocolSubscription implements ControlledFragmentHand
                 return onRequestSessionReply(buffer, offset, blockLength, version);
             }
 
+            case ReplayMessagesReplyDecoder.TEMPLATE_ID:
+            {
+                return onReplayMessagesReply(buffer, offset, blockLength, version);
+            }
+
             case NotLeaderDecoder.TEMPLATE_ID:
             {
                 return onNotLeader(buffer, offset, blockLength, version);
@@ -228,6 +234,23 @@ public final class LibraryProtocolSubscription implements ControlledFragmentHand
             requestSessionReply.status());
     }
 
+    private Action onReplayMessagesReply(
+        final DirectBuffer buffer, final int offset, final int blockLength, final int version)
+    {
+        replayMessagesReply.wrap(buffer, offset, blockLength, version);
+        final int libraryId = replayMessagesReply.libraryId();
+        final Action action = handler.onApplicationHeartbeat(libraryId);
+        if (action == ABORT)
+        {
+            return action;
+        }
+
+        return handler.onReplayMessagesReply(
+            libraryId,
+            replayMessagesReply.replyToId(),
+            replayMessagesReply.status());
+    }
+
     private Action onError(
         final DirectBuffer buffer, final int offset, final int blockLength, final int version)
     {
@@ -133,6 +133,7 @@ public class ClusterSubscription extends ClusterableSubscription
         messageFilter.messagesConsumed = 0;
         lastAppliedTransportPosition =
             dataImage.controlledPeek(lastAppliedTransportPosition, messageFilter, transportConsensusPosition);
+        advanceImagePosition();
 
         return messageFilter.messagesConsumed;
     }
@@ -169,6 +170,18 @@ public class ClusterSubscription extends ClusterableSubscription
         validatePosition(newTransportPosition);
 
         lastAppliedTransportPosition = newTransportPosition;
+        advanceImagePosition();
+    }
+
+    // Peeking doesn't move the image's subscriber position, which flow control uses to decide how far ahead the
+    // leader can publish, so it must be kept up to date with the applied position.
+    private void advanceImagePosition()
+    {
+        final Image dataImage = this.dataImage;
+        if (dataImage != null && !dataImage.isClosed() && lastAppliedTransportPosition > dataImage.position())
+        {
+            dataImage.position(lastAppliedTransportPosition);
+        }
     }
 
     private void validatePosition(final long newTransportPosition)
@@ -51,6 +51,7 @@ class Follower implements Role, RaftHandler
     private RaftPublication controlPublication;
 
     private Subscription controlSubscription;
+    private Subscription dataSubscription;
     private long missingAckedPosition;
     private boolean requiresAcknowledgementResend = false;
 
@@ -140,6 +141,11 @@ class Follower implements Role, RaftHandler
 
     public void closeStreams()
     {
+        if (dataSubscription != null)
+        {
+            dataSubscription.close();
+            dataSubscription = null;
+        }
     }
 
     private void onReplyKeepAlive(final long timeInMs)
@@ -224,7 +230,19 @@ class Follower implements Role, RaftHandler
             if (leaderShipTerm == termState.leadershipTerm())
             {
                 consensusPosition.set(position);
-                termState.leaderSessionId(leaderSessionId);
+
+                // Acknowledgements can be lost, for example if sent before a new leader has subscribed to them
+                if (position < termState.receivedPosition())
+                {
+                    requiresAcknowledgementResend = true;
+                }
+
+                // We may have already moved to this term by voting in its election, before hearing from its leader
+                if (leaderSessionId != termState.leaderSessionId().get())
+                {
+                    termState.leaderSessionId(leaderSessionId);
+                    checkLeaderChange();
+                }
             }
             else if (leaderShipTerm > termState.leadershipTerm())
             {
@@ -330,6 +348,7 @@ class Follower implements Role, RaftHandler
 
     Follower dataSubscription(final Subscription dataSubscription)
     {
+        this.dataSubscription = dataSubscription;
         raftArchiver.dataSubscription(dataSubscription);
         return this;
     }
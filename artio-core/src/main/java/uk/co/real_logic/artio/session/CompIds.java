@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+/**
+ * Compares and hashes ascii encoded identifiers in the same way whether they're held as the bytes of a composite
+ * key or as the chars of a decoded header.
+ */
+final class CompIds
+{
+    private CompIds()
+    {
+    }
+
+    /**
+     * Equivalent to <code>Arrays.hashCode(CodecUtil.toBytes(value, length))</code>.
+     */
+    static int hashCode(final char[] value, final int length)
+    {
+        int result = 1;
+        for (int i = 0; i < length; i++)
+        {
+            result = 31 * result + (byte)value[i];
+        }
+
+        return result;
+    }
+
+    static boolean equals(final byte[] bytes, final char[] value, final int length)
+    {
+        if (bytes.length != length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (bytes[i] != (byte)value[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import uk.co.real_logic.artio.decoder.HeaderDecoder;
+
+/**
+ * A {@link SessionIdStrategy} that can find the composite key for an accepted logon without creating it.
+ *
+ * This lets the engine look up sessions that it already knows about straight from the decoded logon header,
+ * so that a composite key only needs to be created the first time that a session logs on.
+ */
+public interface HeaderLookupSessionIdStrategy extends SessionIdStrategy
+{
+    /**
+     * Hashes the composite key that {@link #onAcceptLogon(HeaderDecoder)} would create for this header, without
+     * creating it.
+     *
+     * @param header the header of the logon message.
+     * @return the same value as the <code>hashCode()</code> of the composite key for the header.
+     */
+    int acceptLogonHash(HeaderDecoder header);
+
+    /**
+     * Checks whether a composite key is the one that {@link #onAcceptLogon(HeaderDecoder)} would create for this
+     * header, without creating it.
+     *
+     * @param compositeKey a composite key that was created by this strategy.
+     * @param header the header of the logon message.
+     * @return true if the composite key is equal to the composite key for the header, false otherwise.
+     */
+    boolean isAcceptLogonKey(CompositeKey compositeKey, HeaderDecoder header);
+}
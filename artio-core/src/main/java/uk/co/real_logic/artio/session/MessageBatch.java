@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import uk.co.real_logic.artio.builder.Encoder;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.Arrays;
+
+import static uk.co.real_logic.artio.util.AsciiBuffer.SEPARATOR_LENGTH;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+import static uk.co.real_logic.artio.util.MutableAsciiBuffer.SEPARATOR;
+
+/**
+ * A batch of messages, possibly for different sessions, that are encoded back to back into a single buffer
+ * and then sent together.
+ *
+ * Messages are given their sequence numbers when they're added, so several messages for the same session
+ * are numbered consecutively. The session reserves these sequence numbers until the messages are sent or the
+ * batch is cleared: it doesn't send heartbeats or test requests in the meantime and messages can't be sent
+ * directly on it. Replies to messages received in the meantime are numbered after the batch's messages.
+ *
+ * If {@link #send()} is back pressured then the messages that were sent stay sent and calling it again resumes
+ * from the first message that wasn't, with their sending times updated.
+ *
+ * Once all of its messages have been sent the batch is cleared and can be reused. Not thread safe.
+ */
+public class MessageBatch
+{
+    private static final int INITIAL_MESSAGE_CAPACITY = 64;
+    private static final int CHECKSUM_VALUE_LENGTH = 3;
+    private static final int CHECKSUM_FIELD_LENGTH = "10=".length() + CHECKSUM_VALUE_LENGTH + SEPARATOR_LENGTH;
+
+    private final int maxMessageLength;
+
+    private final MutableAsciiBuffer buffer;
+    private final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
+    private Session[] sessions = new Session[INITIAL_MESSAGE_CAPACITY];
+    private int[] offsets = new int[INITIAL_MESSAGE_CAPACITY];
+    private int[] lengths = new int[INITIAL_MESSAGE_CAPACITY];
+    private int[] sequenceNumbers = new int[INITIAL_MESSAGE_CAPACITY];
+    private int[] messageTypes = new int[INITIAL_MESSAGE_CAPACITY];
+
+    private int messageCount;
+    private int sentCount;
+    private int limit;
+    private boolean backPressured;
+
+    /**
+     * Create a batch.
+     *
+     * @param initialBufferCapacity the initial size in bytes of the buffer that messages are encoded into.
+     * @param maxMessageLength the longest encoded message that can be added to the batch.
+     */
+    public MessageBatch(final int initialBufferCapacity, final int maxMessageLength)
+    {
+        this.maxMessageLength = maxMessageLength;
+        buffer = new MutableAsciiBuffer(new byte[Math.max(initialBufferCapacity, maxMessageLength)]);
+    }
+
+    /**
+     * Encode a message into the batch.
+     *
+     * @param session the session to send the message on.
+     * @param encoder the encoder of the message to send.
+     * @return this
+     * @throws IllegalStateException if the session isn't in a state where it can send a message.
+     */
+    public MessageBatch add(final Session session, final Encoder encoder)
+    {
+        session.validateCanSendMessage();
+        ensureCapacity();
+
+        final int sequenceNumber = session.newSentSeqNum();
+        final long result = session.encode(encoder, sequenceNumber, buffer, limit);
+        final int offset = Encoder.offset(result);
+        final int length = Encoder.length(result);
+        session.reserveSentSeqNum(sequenceNumber);
+
+        final int index = messageCount;
+        sessions[index] = session;
+        offsets[index] = offset;
+        lengths[index] = length;
+        sequenceNumbers[index] = sequenceNumber;
+        messageTypes[index] = encoder.messageType();
+        messageCount++;
+        limit = offset + length;
+
+        return this;
+    }
+
+    /**
+     * Send the messages in the batch that haven't been sent yet.
+     *
+     * @return the position in the stream that corresponds to the end of the last message in the batch, or a
+     * negative number indicating an error status if not all of the messages could be sent.
+     * @throws IllegalStateException if the session of the next message to send is no longer active, the messages
+     * before it stay sent.
+     */
+    public long send()
+    {
+        final Session[] sessions = this.sessions;
+        final int messageCount = this.messageCount;
+        final boolean resuming = backPressured;
+        long position = 0;
+        for (int i = sentCount; i < messageCount; i++)
+        {
+            final Session session = sessions[i];
+            if (resuming)
+            {
+                updateSendingTime(session, offsets[i], lengths[i]);
+            }
+
+            position = session.sendReserved(buffer, offsets[i], lengths[i], sequenceNumbers[i], messageTypes[i]);
+            if (position < 0)
+            {
+                backPressured = true;
+                return position;
+            }
+
+            sentCount = i + 1;
+        }
+
+        clear();
+
+        return position;
+    }
+
+    /**
+     * Discard all the messages in the batch, including any that haven't been sent. Their sessions' sequence
+     * numbers are no longer reserved.
+     */
+    public void clear()
+    {
+        final Session[] sessions = this.sessions;
+        for (int i = sentCount; i < messageCount; i++)
+        {
+            sessions[i].releaseSentSeqNum();
+        }
+
+        Arrays.fill(sessions, 0, messageCount, null);
+        messageCount = 0;
+        sentCount = 0;
+        limit = 0;
+        backPressured = false;
+    }
+
+    /**
+     * Get the number of messages in the batch that haven't been sent yet.
+     *
+     * @return the number of messages in the batch that haven't been sent yet.
+     */
+    public int unsentMessageCount()
+    {
+        return messageCount - sentCount;
+    }
+
+    private void updateSendingTime(final Session session, final int offset, final int length)
+    {
+        final MutableAsciiBuffer buffer = this.buffer;
+        final int checksumOffset = offset + length - CHECKSUM_FIELD_LENGTH;
+        final int sendingTimeOffset = sendingTimeOffset(offset, checksumOffset);
+        if (sendingTimeOffset == UNKNOWN_INDEX)
+        {
+            return;
+        }
+
+        final int sendingTimeLength = buffer.scan(sendingTimeOffset, checksumOffset, SEPARATOR) - sendingTimeOffset;
+        final UtcTimestampEncoder timestampEncoder = this.timestampEncoder;
+        if (timestampEncoder.encode(session.time()) != sendingTimeLength)
+        {
+            return;
+        }
+
+        buffer.putBytes(sendingTimeOffset, timestampEncoder.buffer(), 0, sendingTimeLength);
+
+        final int checksum = buffer.computeChecksum(offset, checksumOffset);
+        final int checksumValueOffset = offset + length - (CHECKSUM_VALUE_LENGTH + SEPARATOR_LENGTH);
+        buffer.putNatural(checksumValueOffset, CHECKSUM_VALUE_LENGTH, checksum);
+    }
+
+    private int sendingTimeOffset(final int offset, final int end)
+    {
+        final MutableAsciiBuffer buffer = this.buffer;
+        int fieldOffset = offset;
+        while (fieldOffset < end)
+        {
+            if (buffer.getByte(fieldOffset) == '5' &&
+                buffer.getByte(fieldOffset + 1) == '2' &&
+                buffer.getByte(fieldOffset + 2) == '=')
+            {
+                return fieldOffset + 3;
+            }
+
+            final int separatorOffset = buffer.scan(fieldOffset, end - 1, SEPARATOR);
+            if (separatorOffset == UNKNOWN_INDEX)
+            {
+                return UNKNOWN_INDEX;
+            }
+
+            fieldOffset = separatorOffset + 1;
+        }
+
+        return UNKNOWN_INDEX;
+    }
+
+    private void ensureCapacity()
+    {
+        final MutableAsciiBuffer buffer = this.buffer;
+        if (buffer.capacity() - limit < maxMessageLength)
+        {
+            final byte[] newBytes = new byte[Math.max(buffer.capacity() << 1, limit + maxMessageLength)];
+            buffer.getBytes(0, newBytes, 0, limit);
+            buffer.wrap(newBytes);
+        }
+
+        final int capacity = sessions.length;
+        if (messageCount == capacity)
+        {
+            final int newCapacity = capacity << 1;
+            sessions = Arrays.copyOf(sessions, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            sequenceNumbers = Arrays.copyOf(sequenceNumbers, newCapacity);
+            messageTypes = Arrays.copyOf(messageTypes, newCapacity);
+        }
+    }
+}
@@ -32,7 +32,7 @@ import static java.util.Objects.requireNonNull;
  * A simple, and dumb session id Strategy based upon hashing SenderCompID and TargetCompID. Makes no assumptions
  * about the nature of either identifiers.
  */
-class SenderAndTargetSessionIdStrategy implements SessionIdStrategy
+class SenderAndTargetSessionIdStrategy implements HeaderLookupSessionIdStrategy
 {
     private static final int BLOCK_AND_LENGTH_FIELDS_LENGTH = SenderAndTargetCompositeKeyEncoder.BLOCK_LENGTH + 4;
 
@@ -54,6 +54,20 @@ class SenderAndTargetSessionIdStrategy implements SessionIdStrategy
             header.senderCompID(), header.senderCompIDLength());
     }
 
+    public int acceptLogonHash(final HeaderDecoder header)
+    {
+        int result = CompIds.hashCode(header.targetCompID(), header.targetCompIDLength());
+        result = 31 * result + CompIds.hashCode(header.senderCompID(), header.senderCompIDLength());
+        return result;
+    }
+
+    public boolean isAcceptLogonKey(final CompositeKey compositeKey, final HeaderDecoder header)
+    {
+        final CompositeKeyImpl key = (CompositeKeyImpl)compositeKey;
+        return CompIds.equals(key.localCompID, header.targetCompID(), header.targetCompIDLength()) &&
+            CompIds.equals(key.remoteCompID, header.senderCompID(), header.senderCompIDLength());
+    }
+
     public CompositeKey onInitiateLogon(
         final String localCompId,
         final String localSubId,
@@ -31,7 +31,7 @@ import static java.nio.charset.StandardCharsets.US_ASCII;
  * A simple, and dumb session id Strategy based upon hashing SenderCompID and TargetCompID. Makes no assumptions
  * about the nature of either identifiers.
  */
-class SenderTargetAndSubSessionIdStrategy implements SessionIdStrategy
+class SenderTargetAndSubSessionIdStrategy implements HeaderLookupSessionIdStrategy
 {
     private static final int BLOCK_AND_LENGTH_FIELDS_LENGTH = SenderTargetAndSubCompositeKeyEncoder.BLOCK_LENGTH + 6;
 
@@ -52,6 +52,22 @@ class SenderTargetAndSubSessionIdStrategy implements SessionIdStrategy
             header.senderCompID(), header.senderCompIDLength());
     }
 
+    public int acceptLogonHash(final HeaderDecoder header)
+    {
+        int result = CompIds.hashCode(header.targetCompID(), header.targetCompIDLength());
+        result = 31 * result + CompIds.hashCode(header.targetSubID(), header.targetSubIDLength());
+        result = 31 * result + CompIds.hashCode(header.senderCompID(), header.senderCompIDLength());
+        return result;
+    }
+
+    public boolean isAcceptLogonKey(final CompositeKey compositeKey, final HeaderDecoder header)
+    {
+        final CompositeKeyImpl key = (CompositeKeyImpl)compositeKey;
+        return CompIds.equals(key.localCompId, header.targetCompID(), header.targetCompIDLength()) &&
+            CompIds.equals(key.localSubID, header.targetSubID(), header.targetSubIDLength()) &&
+            CompIds.equals(key.remoteCompID, header.senderCompID(), header.senderCompIDLength());
+    }
+
     public CompositeKey onInitiateLogon(
         final String localCompId,
         final String localSubId,
@@ -37,9 +37,11 @@ import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
 import static java.lang.Integer.MIN_VALUE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static uk.co.real_logic.artio.Constants.NEW_SEQ_NO;
+import static uk.co.real_logic.artio.Constants.VERSION;
 import static uk.co.real_logic.artio.Constants.VERSION_CHARS;
 import static uk.co.real_logic.artio.builder.Validation.CODEC_VALIDATION_DISABLED;
 import static uk.co.real_logic.artio.builder.Validation.CODEC_VALIDATION_ENABLED;
@@ -103,6 +105,11 @@ public class Session implements AutoCloseable
     private static final char[] TEST_REQ_ID_CHARS = TEST_REQ_ID.toCharArray();
     public static final int NO_LOGOUT_REJECT_REASON = -1;
 
+    /**
+     * The longest BeginString that a session can use, this is the space that the session codecs leave for it.
+     */
+    public static final int MAX_BEGIN_STRING_LENGTH = "FIXT.1.1".length();
+
     private final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
 
     protected final long connectionId;
@@ -125,6 +132,9 @@ public class Session implements AutoCloseable
     private long id = UNKNOWN;
     private int lastReceivedMsgSeqNum = 0;
     private int lastSentMsgSeqNum;
+    // Sequence numbers given to messages in a MessageBatch that haven't been sent yet.
+    private int lastReservedSentMsgSeqNum;
+    private int reservedSentMsgSeqNumCount;
     private int sequenceIndex;
 
     private long heartbeatIntervalInMs;
@@ -139,6 +149,12 @@ public class Session implements AutoCloseable
     private long logonTime = NO_LOGON_TIME;
 
     private boolean incorrectBeginString = false;
+    private char[][] acceptedBeginStrings = { VERSION_CHARS };
+    private char[] beginStringChars = VERSION_CHARS;
+    private byte[] beginStringBytes = VERSION.getBytes(US_ASCII);
+    private String beginString = VERSION;
+    private boolean beginStringAgreed = false;
+    private String defaultApplVerId;
 
     private SessionLogonListener logonListener;
 
@@ -220,6 +236,27 @@ public class Session implements AutoCloseable
         return username;
     }
 
+    /**
+     * Get the version of FIX that this session uses.
+     *
+     * @return the BeginString of the session's messages.
+     * @see #beginStrings(String...)
+     */
+    public String beginString()
+    {
+        return beginString;
+    }
+
+    /**
+     * Get the DefaultApplVerID that the counterparty sent on logon, this is only sent by FIXT.1.1 sessions.
+     *
+     * @return the DefaultApplVerID of the session's logon or null if it didn't have one.
+     */
+    public String defaultApplVerId()
+    {
+        return defaultApplVerId;
+    }
+
     /**
      * Get the password associated with this session.
      *
@@ -392,14 +429,31 @@ public class Session implements AutoCloseable
      * number indicating an error status.
      * @throws IndexOutOfBoundsException if the encoded message is too large, if this happens consider
      *                                   increasing {@link CommonConfiguration#sessionBufferSize(int)}
+     * @throws IllegalStateException if the session isn't active or has unsent messages in a {@link MessageBatch}.
      */
     public long send(final Encoder encoder)
     {
         validateCanSendMessage();
+        if (reservedSentMsgSeqNumCount > 0)
+        {
+            throw new IllegalStateException(String.format(
+                "Session has %d unsent messages in a batch, which must be sent or cleared first",
+                reservedSentMsgSeqNumCount));
+        }
 
         final int sentSeqNum = newSentSeqNum();
+        final long result = encode(encoder, sentSeqNum, asciiBuffer, 0);
+        final int length = Encoder.length(result);
+        final int offset = Encoder.offset(result);
+
+        return send(asciiBuffer, offset, length, sentSeqNum, encoder.messageType());
+    }
+
+    long encode(final Encoder encoder, final int sentSeqNum, final MutableAsciiBuffer buffer, final int offset)
+    {
         final HeaderEncoder header = (HeaderEncoder)encoder.header();
         header
+            .beginString(beginStringBytes)
             .msgSeqNum(sentSeqNum)
             .sendingTime(timestampEncoder.buffer(), timestampEncoder.encode(time()));
 
@@ -408,11 +462,7 @@ public class Session implements AutoCloseable
             sessionIdStrategy.setupSession(sessionKey, header);
         }
 
-        final long result = encoder.encode(asciiBuffer, 0);
-        final int length = Encoder.length(result);
-        final int offset = Encoder.offset(result);
-
-        return send(asciiBuffer, offset, length, sentSeqNum, encoder.messageType());
+        return encoder.encode(buffer, offset);
     }
 
     /**
@@ -442,6 +492,35 @@ public class Session implements AutoCloseable
         return position;
     }
 
+    long sendReserved(
+        final DirectBuffer messageBuffer, final int offset, final int length, final int seqNum, final int messageType)
+    {
+        validateCanSendMessage();
+
+        final long position = publication.saveMessage(
+            messageBuffer, offset, length, libraryId, messageType, id(), sequenceIndex(), connectionId, OK, seqNum);
+
+        if (position > 0)
+        {
+            reservedSentMsgSeqNumCount--;
+            // A reply to a received message may already have been sent with a later sequence number.
+            lastSentMsgSeqNum(Math.max(seqNum, lastSentMsgSeqNum));
+        }
+
+        return position;
+    }
+
+    void reserveSentSeqNum(final int sentSeqNum)
+    {
+        lastReservedSentMsgSeqNum = sentSeqNum;
+        reservedSentMsgSeqNumCount++;
+    }
+
+    void releaseSentSeqNum()
+    {
+        reservedSentMsgSeqNumCount--;
+    }
+
     /**
      * Check if the session is in a state where it can send a message.
      *
@@ -552,7 +631,10 @@ public class Session implements AutoCloseable
             {
                 int actions = 0;
                 final boolean isActive = state == ACTIVE_VALUE || state == AWAITING_RESEND_VALUE;
-                if (isActive && time >= nextRequiredHeartbeatTimeInMs)
+                // Messages sent whilst a batch is unsent would overtake the batch's lower sequence numbers,
+                // sending the batch counts as a heartbeat.
+                final boolean hasUnsentBatch = reservedSentMsgSeqNumCount > 0;
+                if (isActive && !hasUnsentBatch && time >= nextRequiredHeartbeatTimeInMs)
                 {
                     // Drop when back pressured: retried on duty cycle
                     final int sentSeqNum = newSentSeqNum();
@@ -568,7 +650,7 @@ public class Session implements AutoCloseable
                         // Drop when back pressured: retried on duty cycle
                         requestDisconnect();
                     }
-                    else if (isActive)
+                    else if (isActive && !hasUnsentBatch)
                     {
                         final int sentSeqNum = newSentSeqNum();
                         if (proxy.testRequest(sentSeqNum, TEST_REQ_ID, sequenceIndex()) >= 0)
@@ -642,7 +724,7 @@ public class Session implements AutoCloseable
         }
     }
 
-    private void validateCanSendMessage()
+    void validateCanSendMessage()
     {
         if (!canSendMessage())
         {
@@ -1123,7 +1205,9 @@ public class Session implements AutoCloseable
 
     boolean onBeginString(final char[] value, final int length, final boolean isLogon)
     {
-        final boolean isValid = CodecUtil.equals(value, VERSION_CHARS, length);
+        // Sessions that have been handed over after their logon agree on the version of their first message.
+        final boolean isValid = isLogon || !beginStringAgreed ?
+            agreeBeginString(value, length) : CodecUtil.equals(value, beginStringChars, length);
         if (!isValid)
         {
             if (!isLogon)
@@ -1148,6 +1232,38 @@ public class Session implements AutoCloseable
         return isValid;
     }
 
+    boolean agreeBeginString(final char[] value, final int length)
+    {
+        for (final char[] acceptedBeginString : acceptedBeginStrings)
+        {
+            if (acceptedBeginString.length == length && CodecUtil.equals(value, acceptedBeginString, length))
+            {
+                if (acceptedBeginString != beginStringChars)
+                {
+                    beginString(acceptedBeginString);
+                }
+                beginStringAgreed = true;
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void beginString(final char[] beginStringChars)
+    {
+        this.beginStringChars = beginStringChars;
+        beginString = new String(beginStringChars);
+        beginStringBytes = beginString.getBytes(US_ASCII);
+        proxy.beginString(beginStringBytes);
+    }
+
+    void defaultApplVerId(final String defaultApplVerId)
+    {
+        this.defaultApplVerId = defaultApplVerId;
+    }
+
     private void incNextHeartbeatTime()
     {
         nextRequiredHeartbeatTimeInMs = time() + sendingHeartbeatIntervalInMs;
@@ -1225,6 +1341,11 @@ public class Session implements AutoCloseable
 
     int newSentSeqNum()
     {
+        if (reservedSentMsgSeqNumCount > 0)
+        {
+            return Math.max(lastSentMsgSeqNum, lastReservedSentMsgSeqNum) + 1;
+        }
+
         return lastSentMsgSeqNum + 1;
     }
 
@@ -1251,6 +1372,41 @@ public class Session implements AutoCloseable
         return this;
     }
 
+    /**
+     * Sets the versions of FIX, identified by their BeginString, that this session can logon with. The session
+     * uses the first of them until it has received a message, after that it uses the one that its counterparty
+     * sent.
+     *
+     * @param beginStrings the versions of FIX that this session can logon with.
+     * @return this
+     */
+    public Session beginStrings(final String... beginStrings)
+    {
+        final char[][] acceptedBeginStrings = new char[beginStrings.length][];
+        for (int i = 0; i < beginStrings.length; i++)
+        {
+            final String beginString = beginStrings[i];
+            validateBeginString(beginString);
+            acceptedBeginStrings[i] = beginString.equals(VERSION) ? VERSION_CHARS : beginString.toCharArray();
+        }
+
+        this.acceptedBeginStrings = acceptedBeginStrings;
+        beginStringAgreed = false;
+        beginString(acceptedBeginStrings[0]);
+
+        return this;
+    }
+
+    public static void validateBeginString(final String beginString)
+    {
+        Verify.notNull(beginString, "beginString");
+        if (beginString.isEmpty() || beginString.length() > MAX_BEGIN_STRING_LENGTH)
+        {
+            throw new IllegalArgumentException(String.format(
+                "BeginString must be between 1 and %d characters long: %s", MAX_BEGIN_STRING_LENGTH, beginString));
+        }
+    }
+
     public Session username(final String username)
     {
         this.username = username;
@@ -1315,6 +1471,37 @@ public class Session implements AutoCloseable
             msgSeqNum, HeartbeatDecoder.MESSAGE_TYPE_BYTES, sendingTime, origSendingTime, isPossDupOrResend);
     }
 
+    Action onRateLimitedMessage(
+        final int msgSeqNum,
+        final byte[] msgType,
+        final int msgTypeLength,
+        final long sendingTime,
+        final long origSendingTime,
+        final boolean isPossDupOrResend)
+    {
+        // Only the next message in sequence is rejected, anything else is validated like any other message so that
+        // gaps get resent and low sequence numbers logout.
+        if (state() == SessionState.CONNECTED || msgSeqNum != expectedReceivedSeqNum())
+        {
+            return onMessage(msgSeqNum, msgType, msgTypeLength, sendingTime, origSendingTime, isPossDupOrResend);
+        }
+
+        final Action action = checkPosition(proxy.rateLimitedReject(
+            newSentSeqNum(),
+            msgSeqNum,
+            msgType,
+            msgTypeLength,
+            sequenceIndex()));
+
+        if (action != ABORT)
+        {
+            incNextReceivedInboundMessageTime(time());
+            lastReceivedMsgSeqNum(msgSeqNum);
+        }
+
+        return action;
+    }
+
     Action onInvalidMessageType(final int msgSeqNum, final char[] msgType, final int msgTypeLength)
     {
         return checkPosition(proxy.reject(
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import uk.co.real_logic.artio.CommonConfiguration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Looks up the codecs for the version of FIX that a session logged on with, so that one engine can serve
+ * counterparties on different versions. Each version's codecs are generated into their own package, see
+ * {@code CodecGenerationTool}, and the application registers whatever it keeps them in.
+ * <p>
+ * Versions are identified by their BeginString and FIXT.1.1 sessions can also be identified by the
+ * DefaultApplVerID of their logon. A registration without a DefaultApplVerID matches any session with its
+ * BeginString that doesn't match a more specific one.
+ * <p>
+ * Sessions can only logon with versions that have been configured, eg:
+ * <pre>
+ * configuration.acceptedBeginStrings(registry.beginStrings());
+ * </pre>
+ *
+ * @param <T> the type that holds a version's codecs.
+ * @see CommonConfiguration#acceptedBeginStrings(String...)
+ */
+public class SessionCodecRegistry<T>
+{
+    private final List<Registration<T>> registrations = new ArrayList<>();
+
+    public SessionCodecRegistry<T> register(final String beginString, final T codecs)
+    {
+        return register(beginString, null, codecs);
+    }
+
+    /**
+     * Register the codecs for a version of FIX.
+     *
+     * @param beginString the BeginString of the version.
+     * @param defaultApplVerId the DefaultApplVerID of FIXT.1.1 sessions that the codecs are for, or null for all
+     *                         sessions with the BeginString.
+     * @param codecs the codecs to use for the version.
+     * @return this
+     * @throws IllegalArgumentException if codecs are already registered for the version.
+     */
+    public SessionCodecRegistry<T> register(final String beginString, final String defaultApplVerId, final T codecs)
+    {
+        Session.validateBeginString(beginString);
+        Objects.requireNonNull(codecs, "codecs");
+
+        for (final Registration<T> registration : registrations)
+        {
+            if (registration.beginString.equals(beginString) &&
+                Objects.equals(registration.defaultApplVerId, defaultApplVerId))
+            {
+                throw new IllegalArgumentException(String.format(
+                    "Codecs are already registered for %s, DefaultApplVerID=%s", beginString, defaultApplVerId));
+            }
+        }
+
+        registrations.add(new Registration<>(beginString, defaultApplVerId, codecs));
+        return this;
+    }
+
+    /**
+     * Lookup the codecs for a session.
+     *
+     * @param session the session that uses the codecs.
+     * @return the codecs for the session's version of FIX or null if none are registered for it.
+     */
+    public T lookup(final Session session)
+    {
+        return lookup(session.beginString(), session.defaultApplVerId());
+    }
+
+    public T lookup(final String beginString, final String defaultApplVerId)
+    {
+        T beginStringCodecs = null;
+        for (final Registration<T> registration : registrations)
+        {
+            if (registration.beginString.equals(beginString))
+            {
+                if (registration.defaultApplVerId == null)
+                {
+                    beginStringCodecs = registration.codecs;
+                }
+                else if (registration.defaultApplVerId.equals(defaultApplVerId))
+                {
+                    return registration.codecs;
+                }
+            }
+        }
+
+        return beginStringCodecs;
+    }
+
+    /**
+     * Get the versions of FIX that codecs are registered for.
+     *
+     * @return the BeginStrings that codecs are registered for in the order that they were first registered.
+     */
+    public String[] beginStrings()
+    {
+        final Set<String> beginStrings = new LinkedHashSet<>();
+        for (final Registration<T> registration : registrations)
+        {
+            beginStrings.add(registration.beginString);
+        }
+
+        return beginStrings.toArray(new String[0]);
+    }
+
+    private static final class Registration<T>
+    {
+        private final String beginString;
+        private final String defaultApplVerId;
+        private final T codecs;
+
+        private Registration(final String beginString, final String defaultApplVerId, final T codecs)
+        {
+            this.beginString = beginString;
+            this.defaultApplVerId = defaultApplVerId;
+            this.codecs = codecs;
+        }
+    }
+}
@@ -32,17 +32,22 @@ import uk.co.real_logic.artio.validation.MessageValidationStrategy;
 import java.util.stream.Stream;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static uk.co.real_logic.artio.builder.Validation.CODEC_VALIDATION_ENABLED;
 import static uk.co.real_logic.artio.builder.Validation.isValidMsgType;
+import static uk.co.real_logic.artio.dictionary.StandardFixConstants.START_OF_HEADER;
 import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.MISSING_INT;
 import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.MISSING_LONG;
 import static uk.co.real_logic.artio.messages.DisconnectReason.INVALID_FIX_MESSAGE;
 import static uk.co.real_logic.artio.messages.SessionState.AWAITING_LOGOUT;
 import static uk.co.real_logic.artio.messages.SessionState.DISCONNECTED;
 import static uk.co.real_logic.artio.session.Session.UNKNOWN;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
 
 public class SessionParser
 {
+    private static final byte[] DEFAULT_APPL_VER_ID_TAG = "1137".getBytes(US_ASCII);
+
     private static final boolean HAS_USER_NAME_AND_PASSWORD = detectUsernameAndPassword();
 
     private final AsciiBuffer asciiBuffer = new MutableAsciiBuffer();
@@ -126,6 +131,35 @@ public class SessionParser
         }
     }
 
+    /**
+     * Reject a message that the engine has marked as exceeding its session's inbound rate limit.
+     *
+     * @param buffer the buffer containing the message.
+     * @param offset the offset of the message within the buffer.
+     * @param length the length of the message.
+     * @return the action to take on the stream that the message was received on.
+     */
+    public Action onRateLimitedMessage(final DirectBuffer buffer, final int offset, final int length)
+    {
+        if (isDisconnectedOrAwaitingLogout())
+        {
+            return CONTINUE;
+        }
+
+        asciiBuffer.wrap(buffer);
+
+        final HeaderDecoder header = this.header;
+        header.reset();
+        header.decode(asciiBuffer, offset, length);
+
+        final long origSendingTime = origSendingTime(header);
+        final long sendingTime = sendingTime(header);
+        final int msgTypeLength = header.msgTypeLength();
+        final byte[] msgType = extractMsgType(header, msgTypeLength);
+        return session.onRateLimitedMessage(
+            header.msgSeqNum(), msgType, msgTypeLength, sendingTime, origSendingTime, isPossDup(header));
+    }
+
     private Action onHeartbeat(final int offset, final int length)
     {
         final HeartbeatDecoder heartbeat = this.heartbeat;
@@ -314,6 +348,12 @@ public class SessionParser
         }
         else
         {
+            if (!CODEC_VALIDATION_ENABLED)
+            {
+                session.agreeBeginString(beginString, beginStringLength);
+            }
+            session.defaultApplVerId(defaultApplVerId(offset, length));
+
             final CompositeKey sessionKey = sessionIdStrategy.onAcceptLogon(header);
             final long origSendingTime = origSendingTime(header);
             final String username = username(logon);
@@ -333,6 +373,59 @@ public class SessionParser
         }
     }
 
+    // Scanned for rather than decoded as the session codecs only have the field if they're for FIXT.1.1
+    private String defaultApplVerId(final int offset, final int length)
+    {
+        final AsciiBuffer asciiBuffer = this.asciiBuffer;
+        final int end = offset + length - 1;
+        int position = offset;
+        while (position < end)
+        {
+            final int equalsPosition = asciiBuffer.scan(position, end, '=');
+            if (equalsPosition == UNKNOWN_INDEX)
+            {
+                return null;
+            }
+
+            final int valueEnd = asciiBuffer.scan(equalsPosition + 1, end, START_OF_HEADER);
+            if (valueEnd == UNKNOWN_INDEX)
+            {
+                return null;
+            }
+
+            if (isDefaultApplVerIdTag(asciiBuffer, position, equalsPosition))
+            {
+                return asciiBuffer.getAscii(equalsPosition + 1, valueEnd - equalsPosition - 1);
+            }
+
+            position = valueEnd + 1;
+        }
+
+        return null;
+    }
+
+    // Compared rather than parsed so that a tag which isn't a number is treated as not being the DefaultApplVerID.
+    private static boolean isDefaultApplVerIdTag(
+        final AsciiBuffer asciiBuffer, final int position, final int equalsPosition)
+    {
+        final byte[] tag = DEFAULT_APPL_VER_ID_TAG;
+        final int tagLength = tag.length;
+        if (equalsPosition - position != tagLength)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < tagLength; i++)
+        {
+            if (asciiBuffer.getByte(position + i) != tag[i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private void onStrategyError(final String strategyName, final Throwable throwable, final String fixMessage)
     {
         final String message = String.format(
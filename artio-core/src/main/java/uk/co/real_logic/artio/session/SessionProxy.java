@@ -30,6 +30,7 @@ import java.util.List;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
+import static uk.co.real_logic.artio.fields.RejectReason.OTHER;
 import static uk.co.real_logic.artio.fields.RejectReason.VALUE_IS_INCORRECT;
 import static uk.co.real_logic.artio.messages.MessageStatus.OK;
 import static uk.co.real_logic.artio.session.Session.LIBRARY_DISCONNECTED;
@@ -42,6 +43,7 @@ public class SessionProxy
     private static final byte[] INCORRECT_BEGIN_STRING = "Incorrect BeginString".getBytes(US_ASCII);
     private static final byte[] NEGATIVE_HEARTBEAT = "HeartBtInt must not be negative".getBytes(US_ASCII);
     private static final byte[] NO_MSG_SEQ_NO = "Received message without MsgSeqNum".getBytes(US_ASCII);
+    private static final byte[] RATE_LIMITED = "Inbound rate limit exceeded".getBytes(US_ASCII);
     private static final int REJECT_COUNT = RejectReason.values().length;
     private static final byte[][] NOT_LOGGED_ON_SESSION_REJECT_REASONS = new byte[REJECT_COUNT][];
     private static final byte[][] LOGGED_ON_SESSION_REJECT_REASONS = new byte[REJECT_COUNT][];
@@ -132,6 +134,14 @@ public class SessionProxy
         return this;
     }
 
+    void beginString(final byte[] beginString)
+    {
+        for (final HeaderEncoder header : headers)
+        {
+            header.beginString(beginString);
+        }
+    }
+
     long resendRequest(final int msgSeqNo, final int beginSeqNo, final int endSeqNo, final int sequenceIndex)
     {
         final HeaderEncoder header = resendRequest.header();
@@ -332,6 +342,20 @@ public class SessionProxy
         return sendReject(msgSeqNo, refSeqNum, rejectReason, sequenceIndex);
     }
 
+    public long rateLimitedReject(
+        final int msgSeqNo,
+        final int refSeqNum,
+        final byte[] refMsgType,
+        final int refMsgTypeLength,
+        final int sequenceIndex)
+    {
+        reject.resetRefTagID();
+        reject.refMsgType(refMsgType, refMsgTypeLength);
+        reject.text(RATE_LIMITED);
+
+        return sendReject(msgSeqNo, refSeqNum, OTHER.representation(), sequenceIndex);
+    }
+
     private long sendReject(final int msgSeqNo, final int refSeqNum, final int rejectReason, final int sequenceIndex)
     {
         final HeaderEncoder header = reject.header();
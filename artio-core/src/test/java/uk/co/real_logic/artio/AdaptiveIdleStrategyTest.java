@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static uk.co.real_logic.artio.AdaptiveIdleStrategy.*;
+
+public class AdaptiveIdleStrategyTest
+{
+    private long timeInNs = 0;
+
+    private final AdaptiveIdleStrategy idleStrategy = new AdaptiveIdleStrategy(
+        DEFAULT_MAX_SPIN_PERIOD_IN_NS,
+        DEFAULT_MIN_PARK_PERIOD_IN_NS,
+        DEFAULT_MAX_PARK_PERIOD_IN_NS,
+        DEFAULT_SPIN_PERCENTILE,
+        () -> timeInNs);
+
+    @Test
+    public void shouldSpinWhenWorkUsuallyArrivesSoonAfterIdling()
+    {
+        workArrivesWithGapOf(1_000);
+
+        assertThat(idleStrategy.spinWindowInNs(), greaterThan(1_000L));
+        assertThat(idleStrategy.spinWindowInNs(), lessThanOrEqualTo(DEFAULT_MAX_SPIN_PERIOD_IN_NS));
+    }
+
+    @Test
+    public void shouldNotSpinWhenWorkUsuallyArrivesAfterMaxSpinPeriod()
+    {
+        workArrivesWithGapOf(DEFAULT_MAX_SPIN_PERIOD_IN_NS * 4);
+
+        assertEquals(0, idleStrategy.spinWindowInNs());
+    }
+
+    @Test
+    public void shouldAdaptToChangesInArrivalRate()
+    {
+        workArrivesWithGapOf(1_000);
+        workArrivesWithGapOf(DEFAULT_MAX_SPIN_PERIOD_IN_NS * 4);
+
+        assertEquals(0, idleStrategy.spinWindowInNs());
+    }
+
+    @Test
+    public void shouldNotLearnFromBackToBackWork()
+    {
+        idleStrategy.idle(1);
+        for (int i = 0; i < 1_000; i++)
+        {
+            timeInNs += 10;
+            idleStrategy.idle(1);
+        }
+
+        assertEquals(0, idleStrategy.spinWindowInNs());
+    }
+
+    @Test
+    public void shouldExportTimeSpentIdleAndWorking()
+    {
+        final AtomicCounter idleTimeInNs = mock(AtomicCounter.class);
+        final AtomicCounter workTimeInNs = mock(AtomicCounter.class);
+        idleStrategy.counters(idleTimeInNs, workTimeInNs);
+
+        timeInNs += 10;
+        idleStrategy.idle(1);
+        timeInNs += 20;
+        idleStrategy.idle(0);
+
+        assertEquals(10, idleStrategy.workTimeInNs());
+        assertEquals(20, idleStrategy.idleTimeInNs());
+        verify(workTimeInNs).setOrdered(10);
+        verify(idleTimeInNs).setOrdered(20);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectCountersBeingSetTwice()
+    {
+        idleStrategy.counters(mock(AtomicCounter.class), mock(AtomicCounter.class));
+
+        idleStrategy.counters(mock(AtomicCounter.class), mock(AtomicCounter.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateSpinPercentile()
+    {
+        new AdaptiveIdleStrategy(
+            DEFAULT_MAX_SPIN_PERIOD_IN_NS, DEFAULT_MIN_PARK_PERIOD_IN_NS, DEFAULT_MAX_PARK_PERIOD_IN_NS, 0, () -> 0);
+    }
+
+    private void workArrivesWithGapOf(final long gapInNs)
+    {
+        for (int i = 0; i < 5_000; i++)
+        {
+            idleStrategy.idle(1);
+            timeInNs += gapInNs / 2;
+            idleStrategy.idle(0);
+            timeInNs += gapInNs - gapInNs / 2;
+        }
+    }
+}
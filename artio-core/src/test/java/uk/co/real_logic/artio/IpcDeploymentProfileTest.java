@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio;
+
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.library.LibraryConfiguration;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.logbuffer.LogBufferDescriptor.TERM_MAX_LENGTH;
+import static io.aeron.logbuffer.LogBufferDescriptor.TERM_MIN_LENGTH;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class IpcDeploymentProfileTest
+{
+    @Test
+    public void shouldUseTheMinimumTermLengthForLightLoads()
+    {
+        final IpcDeploymentProfile profile = new IpcDeploymentProfile()
+            .expectedMessagesPerSecond(10)
+            .expectedSessions(1)
+            .maxMessageLength(1024);
+
+        assertEquals(TERM_MIN_LENGTH, profile.termBufferLength());
+    }
+
+    @Test
+    public void shouldSizeTheWindowToHoldABurstOfMessages()
+    {
+        final IpcDeploymentProfile profile = new IpcDeploymentProfile()
+            .expectedMessagesPerSecond(100_000)
+            .expectedSessions(1_000)
+            .averageMessageLength(200)
+            .burstDurationInMs(100);
+
+        final int termLength = profile.termBufferLength();
+        assertEquals(1, Integer.bitCount(termLength));
+        assertThat(termLength, greaterThanOrEqualTo(101_000 * 200 / 10));
+        assertThat(profile.publicationWindowLength(), greaterThanOrEqualTo(101_000 * 200 / 10));
+    }
+
+    @Test
+    public void shouldLetTheLongestMessageBeSentUnfragmented()
+    {
+        final IpcDeploymentProfile profile = new IpcDeploymentProfile()
+            .expectedMessagesPerSecond(10)
+            .maxMessageLength(32 * 1024);
+
+        assertThat(profile.termBufferLength(), greaterThanOrEqualTo(8 * 32 * 1024));
+        assertThat(profile.mtuLength(), greaterThanOrEqualTo(32 * 1024 + IpcDeploymentProfile.FRAMING_LENGTH));
+    }
+
+    @Test
+    public void shouldCapTheTermLength()
+    {
+        final IpcDeploymentProfile profile = new IpcDeploymentProfile()
+            .expectedMessagesPerSecond(Integer.MAX_VALUE)
+            .burstDurationInMs(1_000);
+
+        assertEquals(TERM_MAX_LENGTH, profile.termBufferLength());
+    }
+
+    @Test
+    public void shouldConfigureEnginesAndLibrariesToUseIpc()
+    {
+        final IpcDeploymentProfile profile = new IpcDeploymentProfile().aeronDirectoryName("ipc-profile-dir");
+
+        final EngineConfiguration engineConfiguration = profile.applyTo(new EngineConfiguration());
+        assertEquals(IPC_CHANNEL, engineConfiguration.libraryAeronChannel());
+        assertEquals("ipc-profile-dir", engineConfiguration.aeronContext().aeronDirectoryName());
+
+        final LibraryConfiguration libraryConfiguration = profile.applyTo(new LibraryConfiguration());
+        assertEquals(singletonList(IPC_CHANNEL), libraryConfiguration.libraryAeronChannels());
+        assertEquals("ipc-profile-dir", libraryConfiguration.aeronContext().aeronDirectoryName());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRequireTheDriverToBeLaunchedToRunItOnTheEngineThread()
+    {
+        new IpcDeploymentProfile().runDriverOnEngineThread(true).applyTo(new EngineConfiguration());
+    }
+}
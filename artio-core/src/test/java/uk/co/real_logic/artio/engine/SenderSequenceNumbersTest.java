@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static uk.co.real_logic.artio.engine.SenderSequenceNumbers.UNKNOWN_SESSION;
+
+public class SenderSequenceNumbersTest
+{
+    private final SenderSequenceNumbers senderSequenceNumbers = new SenderSequenceNumbers();
+    private final SenderSequenceNumbers.Reader reader = senderSequenceNumbers.newReader();
+
+    @Test
+    public void shouldReadTheLastSentSequenceNumberOfEachSender()
+    {
+        final SenderSequenceNumber first = senderSequenceNumbers.onNewSender(1);
+        final SenderSequenceNumber second = senderSequenceNumbers.onNewSender(2);
+
+        first.onNewMessage(5);
+        second.onNewMessage(7);
+
+        assertEquals(5, reader.lastSentSequenceNumber(1));
+        assertEquals(7, reader.lastSentSequenceNumber(2));
+        assertEquals(UNKNOWN_SESSION, reader.lastSentSequenceNumber(3));
+    }
+
+    @Test
+    public void shouldForgetClosedSenders()
+    {
+        final SenderSequenceNumber sender = senderSequenceNumbers.onNewSender(1);
+        sender.onNewMessage(5);
+
+        sender.close();
+
+        assertEquals(UNKNOWN_SESSION, reader.lastSentSequenceNumber(1));
+    }
+
+    @Test
+    public void shouldReuseTheSlotsOfClosedSenders()
+    {
+        final SenderSequenceNumber closed = senderSequenceNumbers.onNewSender(1);
+        closed.onNewMessage(5);
+        closed.close();
+        closed.close();
+
+        final SenderSequenceNumber reused = senderSequenceNumbers.onNewSender(2);
+        final SenderSequenceNumber other = senderSequenceNumbers.onNewSender(3);
+
+        assertEquals(closed.slot(), reused.slot());
+        assertEquals(closed.slot() + 1, other.slot());
+        assertEquals(0, reader.lastSentSequenceNumber(2));
+        assertEquals(UNKNOWN_SESSION, reader.lastSentSequenceNumber(1));
+    }
+
+    @Test
+    public void shouldNotReadAClosedSendersSlotOnceItIsReused()
+    {
+        final SenderSequenceNumber closed = senderSequenceNumbers.onNewSender(1);
+        closed.onNewMessage(5);
+        assertEquals(5, reader.lastSentSequenceNumber(1));
+
+        closed.close();
+        senderSequenceNumbers.onNewSender(2).onNewMessage(7);
+
+        assertEquals(UNKNOWN_SESSION, reader.lastSentSequenceNumber(1));
+        assertEquals(7, reader.lastSentSequenceNumber(2));
+    }
+
+    @Test
+    public void shouldReadUpdatesToARememberedSlot()
+    {
+        final SenderSequenceNumber sender = senderSequenceNumbers.onNewSender(1);
+        sender.onNewMessage(5);
+        assertEquals(5, reader.lastSentSequenceNumber(1));
+
+        sender.onNewMessage(6);
+
+        assertEquals(6, reader.lastSentSequenceNumber(1));
+    }
+
+    @Test
+    public void shouldGrowBeyondTheFirstChunkOfSlots()
+    {
+        final int senders = 3000;
+        for (int i = 0; i < senders; i++)
+        {
+            senderSequenceNumbers.onNewSender(i).onNewMessage(i + 1);
+        }
+
+        for (int i = 0; i < senders; i++)
+        {
+            assertEquals(i + 1, reader.lastSentSequenceNumber(i));
+        }
+    }
+}
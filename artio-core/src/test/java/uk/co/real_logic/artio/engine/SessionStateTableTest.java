@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import uk.co.real_logic.artio.session.CompositeKey;
+import uk.co.real_logic.artio.session.SessionIdStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
+import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
+import static uk.co.real_logic.artio.engine.SessionStateTableDescriptor.*;
+import static uk.co.real_logic.artio.messages.ConnectionType.ACCEPTOR;
+import static uk.co.real_logic.artio.messages.ConnectionType.INITIATOR;
+import static uk.co.real_logic.artio.messages.SessionState.ACTIVE;
+import static uk.co.real_logic.artio.messages.SessionState.CONNECTED;
+
+public class SessionStateTableTest
+{
+    private static final int CAPACITY = 4;
+    private static final int LIBRARY_ID = 3;
+
+    private final SessionIdStrategy sessionIdStrategy = SessionIdStrategy.senderTargetAndSub();
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[tableLength(CAPACITY)]);
+    private final SessionStateTable table = new SessionStateTable(buffer, errorHandler);
+    private final SessionStateTableReader reader = new SessionStateTableReader(buffer);
+
+    @Test
+    public void shouldReadPublishedSessionState()
+    {
+        final SessionInfo session = sessionInfo(1, 10, "127.0.0.1:9999", key("initiator", "sub", "acceptor"));
+
+        table.update(session, INITIATOR, LIBRARY_ID, ACTIVE, 5, 6);
+
+        final SessionStateEntry entry = reader.lookup(10);
+        assertNotNull(entry);
+        assertEquals(1, entry.connectionId());
+        assertEquals(10, entry.sessionId());
+        assertEquals(LIBRARY_ID, entry.libraryId());
+        assertEquals(INITIATOR, entry.connectionType());
+        assertEquals(ACTIVE, entry.state());
+        assertEquals(5, entry.lastSentSequenceNumber());
+        assertEquals(6, entry.lastReceivedSequenceNumber());
+        assertEquals("initiator", entry.localCompId());
+        assertEquals("sub", entry.localSubId());
+        assertEquals("acceptor", entry.remoteCompId());
+        assertEquals("127.0.0.1:9999", entry.address());
+        assertEquals(CAPACITY, reader.capacity());
+    }
+
+    @Test
+    public void shouldPublishChangesToSessionState()
+    {
+        final SessionInfo session = sessionInfo(1, -1, "127.0.0.1:9999", null);
+        table.update(session, ACCEPTOR, ENGINE_LIBRARY_ID, CONNECTED, UNK_SESSION, UNK_SESSION);
+
+        final List<String> states = new ArrayList<>();
+        reader.forEach(entry -> states.add(entry.state() + ":" + entry.remoteCompId()));
+
+        final CompositeKey key = key("acceptor", "", "initiator");
+        when(session.sessionId()).thenReturn(10L);
+        when(session.sessionKey()).thenReturn(key);
+        table.update(session, ACCEPTOR, LIBRARY_ID, ACTIVE, 1, 2);
+        reader.forEach(entry -> states.add(entry.state() + ":" + entry.remoteCompId()));
+
+        assertEquals(2, states.size());
+        assertEquals("CONNECTED:", states.get(0));
+        assertEquals("ACTIVE:initiator", states.get(1));
+        assertEquals(LIBRARY_ID, reader.lookup(10).libraryId());
+    }
+
+    @Test
+    public void shouldOnlyWriteRecordsThatHaveChanged()
+    {
+        final SessionInfo session = sessionInfo(1, 10, "127.0.0.1:9999", key("a", "", "b"));
+        table.update(session, ACCEPTOR, LIBRARY_ID, ACTIVE, 5, 6);
+        final long version = buffer.getLong(recordOffset(0) + VERSION_OFFSET);
+
+        table.update(session, ACCEPTOR, LIBRARY_ID, ACTIVE, 5, 6);
+        assertEquals(version, buffer.getLong(recordOffset(0) + VERSION_OFFSET));
+
+        table.update(session, ACCEPTOR, LIBRARY_ID, ACTIVE, 7, 6);
+        assertEquals(version + 2, buffer.getLong(recordOffset(0) + VERSION_OFFSET));
+    }
+
+    @Test
+    public void shouldForgetDisconnectedSessionsAndReuseTheirRecords()
+    {
+        table.update(sessionInfo(1, 10, "first", key("a", "", "b")), ACCEPTOR, LIBRARY_ID, ACTIVE, 1, 1);
+        table.update(sessionInfo(2, 20, "second", key("c", "", "d")), ACCEPTOR, LIBRARY_ID, ACTIVE, 1, 1);
+
+        table.remove(1);
+        table.remove(1);
+
+        assertNull(reader.lookup(10));
+        assertEquals(1, reader.forEach(entry -> assertEquals(20, entry.sessionId())));
+
+        table.update(sessionInfo(3, 30, "third", key("e", "", "f")), ACCEPTOR, LIBRARY_ID, ACTIVE, 1, 1);
+
+        assertEquals(2, buffer.getInt(USED_RECORDS_OFFSET));
+        assertEquals("third", reader.lookup(30).address());
+        assertEquals("f", reader.lookup(30).remoteCompId());
+    }
+
+    @Test
+    public void shouldTruncateLongIds()
+    {
+        final String longCompId = "0123456789012345678901234567890123456789";
+        table.update(sessionInfo(1, 10, "address", key(longCompId, "", "b")), ACCEPTOR, LIBRARY_ID, ACTIVE, 1, 1);
+
+        assertEquals(longCompId.substring(0, ID_FIELD_LENGTH - 4), reader.lookup(10).localCompId());
+        assertEquals("b", reader.lookup(10).remoteCompId());
+    }
+
+    @Test
+    public void shouldReportWhenFullOnlyOnce()
+    {
+        for (int i = 0; i < CAPACITY + 2; i++)
+        {
+            table.update(sessionInfo(i, i, "address", null), ACCEPTOR, LIBRARY_ID, CONNECTED, 1, 1);
+        }
+
+        verify(errorHandler).onError(argThat(e -> e.getMessage().contains("full")));
+        assertEquals(CAPACITY, reader.forEach(entry -> {}));
+        assertNull(reader.lookup(CAPACITY));
+
+        table.remove(0);
+        table.update(sessionInfo(CAPACITY, CAPACITY, "address", null), ACCEPTOR, LIBRARY_ID, CONNECTED, 1, 1);
+
+        assertNotNull(reader.lookup(CAPACITY));
+    }
+
+    @Test
+    public void shouldNotReadRecordsPartWayThroughBeingWritten()
+    {
+        table.update(sessionInfo(1, 10, "address", null), ACCEPTOR, LIBRARY_ID, ACTIVE, 1, 1);
+
+        final int versionOffset = recordOffset(0) + VERSION_OFFSET;
+        buffer.putLong(versionOffset, buffer.getLong(versionOffset) + 1);
+
+        assertNull(reader.lookup(10));
+        assertEquals(0, reader.forEach(entry -> {}));
+    }
+
+    @Test
+    public void shouldValidateTheTableHeader()
+    {
+        try
+        {
+            new SessionStateTableReader(new UnsafeBuffer(new byte[tableLength(CAPACITY)]));
+            fail("Expected an exception");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertThat(e.getMessage(), containsString("initialised"));
+        }
+
+        verify(errorHandler, never()).onError(any());
+    }
+
+    private CompositeKey key(final String localCompId, final String localSubId, final String remoteCompId)
+    {
+        return sessionIdStrategy.onInitiateLogon(localCompId, localSubId, "", remoteCompId, "", "");
+    }
+
+    private SessionInfo sessionInfo(
+        final long connectionId, final long sessionId, final String address, final CompositeKey sessionKey)
+    {
+        final SessionInfo sessionInfo = mock(SessionInfo.class);
+        when(sessionInfo.connectionId()).thenReturn(connectionId);
+        when(sessionInfo.sessionId()).thenReturn(sessionId);
+        when(sessionInfo.address()).thenReturn(address);
+        when(sessionInfo.sessionKey()).thenReturn(sessionKey);
+        return sessionInfo;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import io.aeron.Aeron;
+import io.aeron.Publication;
+import io.aeron.driver.MediaDriver;
+import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentInvoker;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.driver.ThreadingMode.INVOKER;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.TestFixtures.*;
+import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
+import static uk.co.real_logic.artio.engine.TopologyEngineScheduler.AgentType.*;
+
+public class TopologyEngineSchedulerTest
+{
+    private static final int[] FRAMER_CPUS = { 2 };
+    private static final int[] MONITORING_CPUS = { 4, 5 };
+
+    private final Agent framer = mock(Agent.class);
+    private final Agent archivingAgent = mock(Agent.class);
+    private final Agent monitoringAgent = mock(Agent.class);
+    private final EngineConfiguration configuration = mock(EngineConfiguration.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final Map<String, int[]> pinnedThreads = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp()
+    {
+        when(configuration.framerIdleStrategy()).thenReturn(new BusySpinIdleStrategy());
+        when(configuration.archiverIdleStrategy()).thenReturn(new BusySpinIdleStrategy());
+        when(framer.roleName()).thenReturn("framer");
+        when(archivingAgent.roleName()).thenReturn("archiving");
+        when(monitoringAgent.roleName()).thenReturn("monitoring");
+    }
+
+    @Test
+    public void shouldPinGroupedAgentsToTheirCpus() throws Exception
+    {
+        final ThreadAffinity affinity = (cpus) -> pinnedThreads.put(Thread.currentThread().getName(), cpus);
+
+        try (EngineScheduler scheduler = new TopologyEngineScheduler(affinity)
+            .group(FRAMER_CPUS, FRAMER)
+            .group(MONITORING_CPUS, MONITORING))
+        {
+            scheduler.launch(configuration, errorHandler, framer, archivingAgent, monitoringAgent, null);
+
+            assertEventuallyTrue(
+                "Failed to invoke agents",
+                () ->
+                {
+                    verify(framer, atLeastOnce()).doWork();
+                    verify(archivingAgent, atLeastOnce()).doWork();
+                    verify(monitoringAgent, atLeastOnce()).doWork();
+                });
+
+            assertEquals(2, pinnedThreads.size());
+            assertArrayEquals(FRAMER_CPUS, pinnedThreads.get("framer"));
+            assertArrayEquals(MONITORING_CPUS, pinnedThreads.get("monitoring"));
+        }
+    }
+
+    @Test
+    public void shouldStillRunAgentsIfTheyCantBePinned() throws Exception
+    {
+        final Exception exception = new IllegalStateException("no affinity");
+        final ThreadAffinity affinity = (cpus) ->
+        {
+            throw exception;
+        };
+
+        try (EngineScheduler scheduler = new TopologyEngineScheduler(affinity).group(FRAMER_CPUS, FRAMER))
+        {
+            scheduler.launch(configuration, errorHandler, framer, archivingAgent, monitoringAgent, null);
+
+            assertEventuallyTrue(
+                "Failed to invoke framer",
+                () -> verify(framer, atLeastOnce()).doWork());
+
+            verify(errorHandler).onError(exception);
+        }
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldOnlyInvokeTheMediaDriverFromOneThreadAtATime()
+    {
+        final MediaDriver mediaDriver = launchMediaDriver(
+            mediaDriverContext(TERM_BUFFER_LENGTH, true).threadingMode(INVOKER));
+        final AtomicInteger invokingThreads = new AtomicInteger();
+        final AtomicBoolean invokedConcurrently = new AtomicBoolean();
+        final AgentInvoker driverAgentInvoker = new AgentInvoker(LangUtil::rethrowUnchecked, null, new Agent()
+        {
+            public int doWork()
+            {
+                if (invokingThreads.incrementAndGet() > 1)
+                {
+                    invokedConcurrently.set(true);
+                }
+
+                try
+                {
+                    return mediaDriver.sharedAgentInvoker().invoke();
+                }
+                finally
+                {
+                    invokingThreads.decrementAndGet();
+                }
+            }
+
+            public String roleName()
+            {
+                return "checking-media-driver";
+            }
+        });
+        driverAgentInvoker.start();
+
+        try
+        {
+            final EngineScheduler scheduler = new TopologyEngineScheduler(ThreadAffinity.NONE, driverAgentInvoker)
+                .group(FRAMER_CPUS, FRAMER, MEDIA_DRIVER);
+            final Aeron.Context aeronContext = new Aeron.Context()
+                .aeronDirectoryName(mediaDriver.aeronDirectoryName());
+            scheduler.configure(aeronContext);
+
+            final Aeron aeron = Aeron.connect(aeronContext);
+            try
+            {
+                aeron.addPublication(IPC_CHANNEL, 1).close();
+
+                scheduler.launch(configuration, errorHandler, framer, archivingAgent, monitoringAgent, null);
+                assertEventuallyTrue(
+                    "Failed to invoke framer",
+                    () -> verify(framer, atLeastOnce()).doWork());
+
+                for (int streamId = 2; streamId < 20; streamId++)
+                {
+                    final Publication publication = aeron.addPublication(IPC_CHANNEL, streamId);
+                    assertEquals(streamId, publication.streamId());
+                    publication.close();
+                }
+
+                scheduler.close();
+            }
+            finally
+            {
+                aeron.close();
+            }
+        }
+        finally
+        {
+            cleanupMediaDriver(mediaDriver);
+        }
+
+        assertFalse("Media driver invoked by multiple threads at once", invokedConcurrently.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowAnAgentInMultipleGroups()
+    {
+        new TopologyEngineScheduler(ThreadAffinity.NONE)
+            .group(FRAMER_CPUS, FRAMER, ARCHIVING)
+            .group(MONITORING_CPUS, ARCHIVING);
+    }
+}
@@ -67,6 +67,7 @@ import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_NAME_PREFIX;
 import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
 import static uk.co.real_logic.artio.library.FixLibrary.NO_MESSAGE_REPLAY;
+import static uk.co.real_logic.artio.library.FixLibrary.UNLIMITED_CATCHUP_REPLAY;
 import static uk.co.real_logic.artio.library.SessionConfiguration.AUTOMATIC_INITIAL_SEQUENCE_NUMBER;
 import static uk.co.real_logic.artio.messages.ConnectionType.INITIATOR;
 import static uk.co.real_logic.artio.messages.DisconnectReason.APPLICATION_DISCONNECT;
@@ -200,7 +201,9 @@ public class FramerTest
             finalImagePositions,
             mock(AgentInvoker.class));
 
-        when(sessionContexts.onLogon(any())).thenReturn(new SessionContext(SESSION_ID,
+        when(sessionContexts.onLogon(any())).thenReturn(new SessionContext(
+            null,
+            SESSION_ID,
             SessionContext.UNKNOWN_SEQUENCE_INDEX,
             Session.NO_LOGON_TIME,
             sessionContexts,
@@ -537,7 +540,7 @@ public class FramerTest
     }
 
     @Test
-    public void shouldHandoverSessionToLibraryUponRequestWhenBackPressured() throws IOException
+    public void shouldHandoverSessionToLibraryUponRequestWhenBackPressured() throws Exception
     {
         when(inboundPublication.saveManageSession(anyInt(),
             anyLong(),
@@ -564,10 +567,10 @@ public class FramerTest
 
         sessionIsActive();
 
-        assertEquals(ABORT, onRequestSession());
-
         assertEquals(CONTINUE, onRequestSession());
 
+        framer.doWork();
+
         verify(inboundPublication, times(2)).saveManageSession(eq(LIBRARY_ID),
             anyLong(),
             anyLong(),
@@ -593,6 +596,85 @@ public class FramerTest
         neverSavesUnknownSession();
     }
 
+    @Test
+    public void shouldOnlyReplayTailOfMessagesWhenCatchupIsLimited() throws Exception
+    {
+        aClientConnects();
+
+        sessionIsActive();
+        when(gatewaySession.sessionId()).thenReturn(SESSION_ID);
+        when(session.lastReceivedMsgSeqNum()).thenReturn(10);
+
+        assertEquals(CONTINUE, framer.onRequestSession(LIBRARY_ID, SESSION_ID, CORR_ID, 1, 0, 3));
+
+        framer.doWork();
+
+        verify(replayQuery).query(any(), eq(SESSION_ID), eq(8), eq(0), eq(10), eq(0));
+    }
+
+    @Test
+    public void shouldNotReplayMessagesForSessionNotOwnedByLibrary() throws Exception
+    {
+        aClientConnects();
+
+        assertEquals(CONTINUE, framer.onReplayMessages(LIBRARY_ID, SESSION_ID, CORR_ID, 1, 0, 5, 0));
+
+        verify(inboundPublication).saveReplayMessagesReply(LIBRARY_ID, SessionReplyStatus.UNKNOWN_SESSION, CORR_ID);
+        verifyNoMoreInteractions(replayQuery);
+    }
+
+    @Test
+    public void shouldReplayMessagesForSessionOwnedByLibrary() throws Exception
+    {
+        aClientConnects();
+
+        handoverSessionToLibrary();
+        when(gatewaySession.sessionId()).thenReturn(SESSION_ID);
+        when(receivedSequenceNumberIndex.lastKnownSequenceNumber(SESSION_ID)).thenReturn(5);
+
+        assertEquals(CONTINUE, framer.onReplayMessages(LIBRARY_ID, SESSION_ID, CORR_ID, 1, 0, 5, 0));
+
+        framer.doWork();
+
+        verify(replayQuery).query(any(), eq(SESSION_ID), eq(1), eq(0), eq(5), eq(0));
+    }
+
+    @Test
+    public void shouldNotReplayMessagesAfterTheLastReceivedMessage() throws Exception
+    {
+        aClientConnects();
+
+        handoverSessionToLibrary();
+        when(gatewaySession.sessionId()).thenReturn(SESSION_ID);
+        when(receivedSequenceNumberIndex.lastKnownSequenceNumber(SESSION_ID)).thenReturn(4);
+
+        assertEquals(CONTINUE, framer.onReplayMessages(LIBRARY_ID, SESSION_ID, CORR_ID, 1, 0, 5, 0));
+
+        framer.doWork();
+
+        verify(inboundPublication).saveReplayMessagesReply(
+            LIBRARY_ID, SessionReplyStatus.SEQUENCE_NUMBER_TOO_HIGH, CORR_ID);
+        verifyNoMoreInteractions(replayQuery);
+    }
+
+    @Test
+    public void shouldNotReplayAnInvertedRangeOfMessages() throws Exception
+    {
+        aClientConnects();
+
+        handoverSessionToLibrary();
+        when(gatewaySession.sessionId()).thenReturn(SESSION_ID);
+        when(receivedSequenceNumberIndex.lastKnownSequenceNumber(SESSION_ID)).thenReturn(10);
+
+        assertEquals(CONTINUE, framer.onReplayMessages(LIBRARY_ID, SESSION_ID, CORR_ID, 5, 0, 1, 0));
+
+        framer.doWork();
+
+        verify(inboundPublication).saveReplayMessagesReply(
+            LIBRARY_ID, SessionReplyStatus.SEQUENCE_NUMBER_TOO_HIGH, CORR_ID);
+        verifyNoMoreInteractions(replayQuery);
+    }
+
     private void neverSavesUnknownSession()
     {
         verify(inboundPublication, never())
@@ -691,7 +773,8 @@ public class FramerTest
 
     private Action onRequestSession()
     {
-        return framer.onRequestSession(LIBRARY_ID, SESSION_ID, CORR_ID, NO_MESSAGE_REPLAY, NO_MESSAGE_REPLAY);
+        return framer.onRequestSession(
+            LIBRARY_ID, SESSION_ID, CORR_ID, NO_MESSAGE_REPLAY, NO_MESSAGE_REPLAY, UNLIMITED_CATCHUP_REPLAY);
     }
 
     private void sessionIsActive()
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InboundRateLimiterTest
+{
+    private final FakeEpochClock clock = new FakeEpochClock();
+
+    @Test
+    public void shouldAllowABurstOfUpToASecondsWorthOfMessages()
+    {
+        final InboundRateLimiter rateLimiter = new InboundRateLimiter(clock, 10, 0);
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(rateLimiter.tryAcquire(100));
+        }
+        assertFalse(rateLimiter.tryAcquire(100));
+
+        clock.advanceMilliSeconds(100);
+        assertTrue(rateLimiter.tryAcquire(100));
+        assertFalse(rateLimiter.tryAcquire(100));
+    }
+
+    @Test
+    public void shouldLimitBytesPerSecond()
+    {
+        final InboundRateLimiter rateLimiter = new InboundRateLimiter(clock, 0, 1000);
+
+        assertTrue(rateLimiter.tryAcquire(600));
+        assertFalse(rateLimiter.tryAcquire(600));
+
+        clock.advanceMilliSeconds(200);
+        assertTrue(rateLimiter.tryAcquire(600));
+    }
+
+    @Test
+    public void shouldAllowMessagesLargerThanTheByteLimitOnceTheBucketIsFull()
+    {
+        final InboundRateLimiter rateLimiter = new InboundRateLimiter(clock, 0, 1000);
+
+        assertTrue(rateLimiter.tryAcquire(1500));
+        assertFalse(rateLimiter.tryAcquire(1));
+
+        clock.advanceMilliSeconds(1000);
+        assertFalse(rateLimiter.tryAcquire(1500));
+
+        clock.advanceMilliSeconds(500);
+        assertTrue(rateLimiter.tryAcquire(1500));
+    }
+
+    @Test
+    public void shouldNotTakeTokensWhenTheMessageIsNotAllowed()
+    {
+        final InboundRateLimiter rateLimiter = new InboundRateLimiter(clock, 2, 1000);
+
+        assertTrue(rateLimiter.tryAcquire(600));
+        assertFalse(rateLimiter.tryAcquire(600));
+        assertTrue(rateLimiter.tryAcquire(400));
+    }
+}
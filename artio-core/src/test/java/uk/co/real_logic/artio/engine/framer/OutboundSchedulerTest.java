@@ -0,0 +1,233 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.decoder.HeartbeatDecoder;
+import uk.co.real_logic.artio.engine.OutboundWeightStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class OutboundSchedulerTest
+{
+    private static final int QUANTUM = 100;
+    private static final int LIBRARY_BYTE_BUDGET = 1000;
+    private static final int MAX_QUEUED_BYTES = 10_000;
+    private static final int LIBRARY_ID = 2;
+    private static final int OTHER_LIBRARY_ID = 3;
+    private static final int APP = 'D';
+    private static final int ADMIN = HeartbeatDecoder.MESSAGE_TYPE;
+
+    private final SenderEndPoints senderEndPoints = mock(SenderEndPoints.class);
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+    private final List<String> sent = new ArrayList<>();
+
+    private OutboundScheduler scheduler = newScheduler(LIBRARY_BYTE_BUDGET, MAX_QUEUED_BYTES);
+
+    @Before
+    public void setUp()
+    {
+        doAnswer((invocation) ->
+        {
+            final long connectionId = invocation.getArgument(1);
+            final DirectBuffer buffer = invocation.getArgument(2);
+            final int offset = invocation.getArgument(3);
+            final int length = invocation.getArgument(4);
+            final int sequenceNumber = invocation.getArgument(5);
+            assertEquals(length, buffer.getInt(offset));
+            sent.add(connectionId + ":" + sequenceNumber);
+            return null;
+        }).when(senderEndPoints).onMessage(
+            anyInt(), anyLong(), any(DirectBuffer.class), anyInt(), anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    public void shouldSendAdminMessagesBeforeOtherConnectionsMessages()
+    {
+        enqueue(1, 1, APP, QUANTUM);
+        enqueue(1, 2, APP, QUANTUM);
+        enqueue(2, 1, ADMIN, QUANTUM);
+
+        scheduler.dispatch();
+
+        assertSent("2:1", "1:1");
+    }
+
+    @Test
+    public void shouldNotReorderMessagesWithinAConnectionToSendAdminMessages()
+    {
+        enqueue(1, 1, APP, QUANTUM);
+        enqueue(1, 2, APP, QUANTUM);
+        enqueue(1, 3, ADMIN, QUANTUM);
+        enqueue(1, 4, APP, QUANTUM);
+
+        scheduler.dispatch();
+
+        assertSent("1:1", "1:2", "1:3", "1:4");
+    }
+
+    @Test
+    public void shouldShareBytesBetweenConnectionsInProportionToTheirWeight()
+    {
+        for (int i = 1; i <= 10; i++)
+        {
+            enqueue(1, i, APP, QUANTUM);
+            enqueue(3, i, APP, QUANTUM);
+        }
+
+        scheduler.dispatch();
+
+        assertSent("1:1", "3:1", "3:2", "3:3");
+    }
+
+    @Test
+    public void shouldCarryDeficitOverToSendMessagesLargerThanTheQuantum()
+    {
+        enqueue(1, 1, APP, QUANTUM * 2 + 1);
+
+        scheduler.dispatch();
+        scheduler.dispatch();
+        assertSent();
+
+        scheduler.dispatch();
+        assertSent("1:1");
+    }
+
+    @Test
+    public void shouldLimitTheBytesALibrarySendsPerDutyCycle()
+    {
+        scheduler = newScheduler(QUANTUM * 2, MAX_QUEUED_BYTES);
+
+        enqueue(LIBRARY_ID, 1, 1, APP, QUANTUM);
+        enqueue(LIBRARY_ID, 2, 1, APP, QUANTUM);
+        enqueue(LIBRARY_ID, 4, 1, APP, QUANTUM);
+        enqueue(OTHER_LIBRARY_ID, 5, 1, APP, QUANTUM);
+
+        scheduler.dispatch();
+        assertSent("1:1", "2:1", "5:1");
+
+        scheduler.dispatch();
+        assertSent("1:1", "2:1", "5:1", "4:1");
+    }
+
+    @Test
+    public void shouldBackPressureOnceTheMaximumIsQueued()
+    {
+        scheduler = newScheduler(LIBRARY_BYTE_BUDGET, QUANTUM * 2);
+
+        assertTrue(enqueue(1, 1, APP, QUANTUM));
+        assertTrue(enqueue(1, 2, APP, QUANTUM));
+        assertFalse(enqueue(1, 3, APP, QUANTUM));
+
+        scheduler.dispatch();
+
+        assertEquals(QUANTUM, scheduler.queuedBytes());
+        assertTrue(enqueue(1, 3, APP, QUANTUM));
+    }
+
+    @Test
+    public void shouldSendEverythingQueuedWhenFlushed()
+    {
+        enqueue(1, 1, APP, QUANTUM);
+        enqueue(1, 2, APP, QUANTUM);
+        enqueue(1, 3, ADMIN, QUANTUM);
+
+        scheduler.flush(1);
+        scheduler.removeConnection(1);
+
+        assertSent("1:1", "1:2", "1:3");
+        assertEquals(0, scheduler.queuedBytes());
+    }
+
+    @Test
+    public void shouldKeepOrderWhenAQueueIsCompacted()
+    {
+        final int length = 1000;
+        for (int i = 1; i <= 8; i++)
+        {
+            enqueue(1, i, APP, length);
+        }
+
+        for (int i = 0; i < 40; i++)
+        {
+            scheduler.dispatch();
+        }
+        enqueue(1, 9, APP, length);
+        enqueue(1, 10, APP, length);
+
+        for (int i = 0; i < 100; i++)
+        {
+            scheduler.dispatch();
+        }
+
+        assertSent("1:1", "1:2", "1:3", "1:4", "1:5", "1:6", "1:7", "1:8", "1:9", "1:10");
+    }
+
+    private OutboundScheduler newScheduler(final int libraryByteBudget, final int maxQueuedBytes)
+    {
+        // Connection ids double as session ids and weights
+        final OutboundWeightStrategy weightStrategy = new OutboundWeightStrategy()
+        {
+            public int sessionWeight(final long sessionId)
+            {
+                return (int)sessionId;
+            }
+
+            public int libraryWeight(final int libraryId)
+            {
+                return 1;
+            }
+        };
+
+        return new OutboundScheduler(senderEndPoints, weightStrategy, QUANTUM, libraryByteBudget, maxQueuedBytes);
+    }
+
+    private boolean enqueue(final long connectionId, final int sequenceNumber, final int messageType, final int length)
+    {
+        return enqueue(LIBRARY_ID, connectionId, sequenceNumber, messageType, length);
+    }
+
+    private boolean enqueue(
+        final int libraryId,
+        final long connectionId,
+        final int sequenceNumber,
+        final int messageType,
+        final int length)
+    {
+        buffer.putInt(0, length);
+        return scheduler.enqueue(
+            libraryId, connectionId, connectionId, messageType, buffer, 0, length, sequenceNumber, sequenceNumber);
+    }
+
+    private void assertSent(final String... messages)
+    {
+        assertEquals(asList(messages), sent);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ReceiveBufferPoolTest
+{
+    private final AtomicCounter borrowedBytes = mock(AtomicCounter.class);
+    private final AtomicCounter freeBytes = mock(AtomicCounter.class);
+    private final ReceiveBufferPool pool = new ReceiveBufferPool(64, 1024, 4096, 4096, borrowedBytes, freeBytes);
+
+    @Test
+    public void shouldRoundSlabsUpToTheirSizeClass()
+    {
+        assertEquals(1024, pool.acquire(65).capacity());
+        assertEquals(2048, pool.acquire(1025).capacity());
+        assertEquals(4096, pool.acquire(1 << 20).capacity());
+        assertEquals(1024 + 2048 + 4096, pool.borrowedBytes());
+    }
+
+    @Test
+    public void shouldReuseReleasedSlabs()
+    {
+        final ByteBuffer slab = pool.acquire(1024);
+        slab.position(100);
+        pool.release(slab);
+
+        assertEquals(0, pool.borrowedBytes());
+        assertEquals(1024, pool.freeBytes());
+
+        final ByteBuffer reusedSlab = pool.acquire(1024);
+        assertSame(slab, reusedSlab);
+        assertEquals(0, reusedSlab.position());
+        assertEquals(0, pool.freeBytes());
+    }
+
+    @Test
+    public void shouldFreeSlabsBeyondTheMaximumFreeBytes()
+    {
+        final ByteBuffer first = pool.acquire(4096);
+        final ByteBuffer second = pool.acquire(1024);
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(0, pool.borrowedBytes());
+        assertEquals(4096, pool.freeBytes());
+    }
+
+    @Test
+    public void shouldExportBorrowedAndFreeBytes()
+    {
+        pool.release(pool.acquire(1024));
+
+        verify(borrowedBytes).setOrdered(1024);
+        verify(freeBytes).setOrdered(1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateResidualBufferSize()
+    {
+        new ReceiveBufferPool(1024, 1024, 4096, 4096, borrowedBytes, freeBytes);
+    }
+}
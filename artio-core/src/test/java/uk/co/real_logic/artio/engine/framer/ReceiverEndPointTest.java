@@ -27,6 +27,7 @@ import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.mockito.verification.VerificationMode;
 import uk.co.real_logic.artio.engine.FixEngine;
+import uk.co.real_logic.artio.engine.InboundRateLimitAction;
 import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexReader;
 import uk.co.real_logic.artio.messages.*;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
@@ -44,6 +45,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.dictionary.ExampleDictionary.TAG_SPECIFIED_OUT_OF_REQUIRED_ORDER_MESSAGE_BYTES;
+import static uk.co.real_logic.artio.messages.DisconnectReason.RATE_LIMIT_EXCEEDED;
 import static uk.co.real_logic.artio.messages.DisconnectReason.REMOTE_DISCONNECT;
 import static uk.co.real_logic.artio.messages.MessageStatus.*;
 import static uk.co.real_logic.artio.messages.SequenceNumberType.DETERMINE_AT_LOGON;
@@ -72,6 +74,8 @@ public class ReceiverEndPointTest
     private GatewaySession gatewaySession = mock(GatewaySession.class);
     private Session session = mock(Session.class);
     private final LongHashSet replicatedConnectionIds = new LongHashSet();
+    private final FakeEpochClock clock = new FakeEpochClock();
+    private final AtomicCounter rateLimitedMessages = mock(AtomicCounter.class);
     private final AuthenticationResult authenticationResult = AuthenticationResult.authenticatedSession(
         gatewaySession, 1, 1);
     private GatewaySessions mockGatewaySessions = mock(GatewaySessions.class);
@@ -80,10 +84,11 @@ public class ReceiverEndPointTest
         .onInitiateLogon("ACCEPTOR", "", "", "INIATOR", "", "");
 
     private ReceiverEndPoint endPoint = new ReceiverEndPoint(
-        mockChannel, BUFFER_SIZE, libraryPublication, clusterablePublication,
+        mockChannel, BUFFER_SIZE, null, libraryPublication, clusterablePublication,
         CONNECTION_ID, UNKNOWN, SEQUENCE_INDEX, mockSessionContexts,
         sentSequenceNumbers, receivedSequenceNumbers, messagesRead, framer, errorHandler, LIBRARY_ID,
-        DETERMINE_AT_LOGON, ConnectionType.ACCEPTOR, replicatedConnectionIds, mockGatewaySessions);
+        DETERMINE_AT_LOGON, ConnectionType.ACCEPTOR, replicatedConnectionIds, mockGatewaySessions,
+        null, InboundRateLimitAction.DELAY, null);
 
     @Before
     public void setUp()
@@ -228,6 +233,98 @@ public class ReceiverEndPointTest
         sessionReceivesTwoMessageAtBufferStart();
     }
 
+    @Test
+    public void shouldDelayMessagesOverTheRateLimitUntilTheRateAllowsThem()
+    {
+        givenARateLimitOfOneMessagePerSecond(InboundRateLimitAction.DELAY);
+
+        theEndpointReceivesTwoCompleteMessages();
+        endPoint.pollForData();
+
+        savesAFramedMessage();
+        verify(rateLimitedMessages).incrementOrdered();
+
+        theEndpointReceivesNothing();
+        endPoint.pollForData();
+        savesAFramedMessage();
+
+        clock.advanceSeconds(1);
+        theEndpointReceivesNothing();
+        endPoint.pollForData();
+
+        savesFramedMessages(2, OK, MSG_LEN);
+        verify(rateLimitedMessages).incrementOrdered();
+    }
+
+    @Test
+    public void shouldMarkMessagesOverTheRateLimitToBeRejected()
+    {
+        givenARateLimitOfOneMessagePerSecond(InboundRateLimitAction.REJECT);
+
+        theEndpointReceivesTwoCompleteMessages();
+        endPoint.pollForData();
+
+        savesAFramedMessage();
+        verify(libraryPublication).saveMessage(
+            anyBuffer(), eq(MSG_LEN), eq(MSG_LEN), eq(LIBRARY_ID),
+            eq(MESSAGE_TYPE), eq(SESSION_ID), eq(SEQUENCE_INDEX), eq(CONNECTION_ID),
+            eq(RATE_LIMITED), eq(0));
+        verify(gatewaySession).onRateLimitedMessage(any(), eq(MSG_LEN), eq(MSG_LEN));
+        sessionReceivedCountIs(1);
+        verify(rateLimitedMessages).incrementOrdered();
+    }
+
+    @Test
+    public void shouldDisconnectSessionsOverTheRateLimit()
+    {
+        givenARateLimitOfOneMessagePerSecond(InboundRateLimitAction.DISCONNECT);
+
+        theEndpointReceivesTwoCompleteMessages();
+        endPoint.pollForData();
+
+        savesAFramedMessage();
+        verify(libraryPublication).saveDisconnect(LIBRARY_ID, CONNECTION_ID, RATE_LIMIT_EXCEEDED);
+        assertTrue(endPoint.hasDisconnected());
+    }
+
+    @Test
+    public void shouldBorrowASlabOnceTheResidualBufferIsFullAndGiveItBackWhenIdle()
+    {
+        final ReceiveBufferPool pool = givenPooledReceiveBuffers(64, 256, 512);
+
+        theEndpointReceivesInChunksThatFit(EG_MESSAGE);
+        pollsData(64);
+        assertEquals(256, pool.borrowedBytes());
+
+        pollsData(2 * MSG_LEN - 64);
+        savesAFramedMessage();
+        sessionReceivesOneMessage();
+
+        pollsData(0);
+        assertEquals(0, pool.borrowedBytes());
+        assertEquals(256, pool.freeBytes());
+    }
+
+    @Test
+    public void shouldBorrowALargerSlabWhenAMessageDoesNotFit()
+    {
+        final ReceiveBufferPool pool = givenPooledReceiveBuffers(64, 128, 512);
+
+        theEndpointReceivesInChunksThatFit(EG_MESSAGE);
+        pollsData(64);
+        pollsData(64);
+        assertEquals(256, pool.borrowedBytes());
+
+        pollsData(2 * MSG_LEN - 128);
+        savesAFramedMessage();
+        sessionReceivesOneMessage();
+
+        pollsData(0);
+        assertEquals(0, pool.borrowedBytes());
+        assertEquals(128 + 256, pool.freeBytes());
+        verifyNoError();
+    }
+
     @Test
     public void aClosedSocketSavesItsDisconnect() throws IOException
     {
@@ -378,6 +475,37 @@ public class ReceiverEndPointTest
         return any(AtomicBuffer.class);
     }
 
+    private void givenARateLimitOfOneMessagePerSecond(final InboundRateLimitAction action)
+    {
+        endPoint = new ReceiverEndPoint(
+            mockChannel, BUFFER_SIZE, null, libraryPublication, clusterablePublication,
+            CONNECTION_ID, UNKNOWN, SEQUENCE_INDEX, mockSessionContexts,
+            sentSequenceNumbers, receivedSequenceNumbers, messagesRead, framer, errorHandler, LIBRARY_ID,
+            DETERMINE_AT_LOGON, ConnectionType.ACCEPTOR, replicatedConnectionIds, mockGatewaySessions,
+            new InboundRateLimiter(clock, 1, 0), action, rateLimitedMessages);
+        endPoint.gatewaySession(gatewaySession);
+    }
+
+    private ReceiveBufferPool givenPooledReceiveBuffers(
+        final int residualBufferSize, final int minSlabSize, final int maxSlabSize)
+    {
+        final ReceiveBufferPool pool = new ReceiveBufferPool(
+            residualBufferSize,
+            minSlabSize,
+            maxSlabSize,
+            Long.MAX_VALUE,
+            mock(AtomicCounter.class),
+            mock(AtomicCounter.class));
+        endPoint = new ReceiverEndPoint(
+            mockChannel, BUFFER_SIZE, pool, libraryPublication, clusterablePublication,
+            CONNECTION_ID, UNKNOWN, SEQUENCE_INDEX, mockSessionContexts,
+            sentSequenceNumbers, receivedSequenceNumbers, messagesRead, framer, errorHandler, LIBRARY_ID,
+            DETERMINE_AT_LOGON, ConnectionType.ACCEPTOR, replicatedConnectionIds, mockGatewaySessions,
+            null, InboundRateLimitAction.DELAY, null);
+        endPoint.gatewaySession(gatewaySession);
+        return pool;
+    }
+
     private void pollsData(final int bytesReadAndSaved)
     {
         assertEquals(bytesReadAndSaved, endPoint.pollForData());
@@ -498,6 +626,19 @@ public class ReceiverEndPointTest
             });
     }
 
+    private void theEndpointReceivesInChunksThatFit(final byte[] data)
+    {
+        final ByteBuffer pending = ByteBuffer.wrap(data);
+        endpointBufferUpdatedWith(
+            (buffer) ->
+            {
+                final int length = Math.min(buffer.remaining(), pending.remaining());
+                buffer.put(data, pending.position(), length);
+                pending.position(pending.position() + length);
+                return length;
+            });
+    }
+
     private void theEndpointReceivesNothing()
     {
         endpointBufferUpdatedWith(buffer -> 0);
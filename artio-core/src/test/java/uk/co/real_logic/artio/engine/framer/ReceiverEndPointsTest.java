@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.CloseHelper;
+import org.agrona.ErrorHandler;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.FixEngine;
+import uk.co.real_logic.artio.engine.InboundRateLimitAction;
+import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexReader;
+import uk.co.real_logic.artio.messages.ConnectionType;
+import uk.co.real_logic.artio.messages.SessionState;
+import uk.co.real_logic.artio.protocol.GatewayPublication;
+import uk.co.real_logic.artio.session.Session;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+import static uk.co.real_logic.artio.messages.SequenceNumberType.DETERMINE_AT_LOGON;
+import static uk.co.real_logic.artio.session.Session.UNKNOWN;
+import static uk.co.real_logic.artio.util.TestMessages.EG_MESSAGE;
+import static uk.co.real_logic.artio.util.TestMessages.MSG_LEN;
+
+public class ReceiverEndPointsTest
+{
+    // More than TransportPoller.ITERATION_THRESHOLD, so that the endpoints are polled through the selector.
+    private static final int CONNECTIONS = 6;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final long SESSION_ID = 4L;
+
+    private final GatewayPublication libraryPublication = mock(GatewayPublication.class);
+    private final GatewaySession gatewaySession = mock(GatewaySession.class);
+    private final GatewaySessions gatewaySessions = mock(GatewaySessions.class);
+    private final Session session = mock(Session.class);
+    private final FakeEpochClock clock = new FakeEpochClock();
+    private final List<SocketChannel> clientChannels = new ArrayList<>();
+    private final ReceiverEndPoints receiverEndPoints = new ReceiverEndPoints();
+
+    private ServerSocketChannel serverChannel;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        when(gatewaySession.session()).thenReturn(session);
+        when(gatewaySession.sessionId()).thenReturn(SESSION_ID);
+        when(gatewaySessions.authenticateAndInitiate(any(), anyLong(), any(), any(), eq(gatewaySession)))
+            .thenReturn(AuthenticationResult.authenticatedSession(gatewaySession, 1, 1));
+        when(session.state()).thenReturn(SessionState.ACTIVE);
+
+        serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+        for (int connectionId = 0; connectionId < CONNECTIONS; connectionId++)
+        {
+            clientChannels.add(SocketChannel.open(serverChannel.getLocalAddress()));
+
+            final SocketChannel channel = serverChannel.accept();
+            channel.configureBlocking(false);
+            receiverEndPoints.add(newEndPoint(channel, connectionId));
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        receiverEndPoints.close();
+        clientChannels.forEach(CloseHelper::close);
+        CloseHelper.close(serverChannel);
+    }
+
+    @Test(timeout = 10_000L)
+    public void shouldFrameDelayedMessagesWithoutReceivingMoreData() throws IOException
+    {
+        final ByteBuffer messages = ByteBuffer.allocate(2 * MSG_LEN).put(EG_MESSAGE).put(EG_MESSAGE);
+        messages.flip();
+        clientChannels.get(0).write(messages);
+
+        assertEventuallyTrue(
+            "Failed to frame first message",
+            () ->
+            {
+                receiverEndPoints.pollEndPoints();
+                verify(libraryPublication).saveMessage(
+                    any(AtomicBuffer.class), eq(0), eq(MSG_LEN), anyInt(), anyInt(), anyLong(), anyInt(), eq(0L),
+                    eq(OK), eq(0));
+            });
+
+        clock.advanceSeconds(1);
+        receiverEndPoints.pollEndPoints();
+
+        verify(libraryPublication, times(2)).saveMessage(
+            any(AtomicBuffer.class), eq(0), eq(MSG_LEN), anyInt(), anyInt(), anyLong(), anyInt(), eq(0L),
+            eq(OK), eq(0));
+    }
+
+    private ReceiverEndPoint newEndPoint(final SocketChannel channel, final long connectionId) throws IOException
+    {
+        final ReceiverEndPoint endPoint = new ReceiverEndPoint(
+            new TcpChannel(channel), BUFFER_SIZE, null, libraryPublication, mock(GatewayPublication.class),
+            connectionId, UNKNOWN, 0, mock(SessionContexts.class),
+            mock(SequenceNumberIndexReader.class), mock(SequenceNumberIndexReader.class), mock(AtomicCounter.class),
+            mock(Framer.class), mock(ErrorHandler.class), FixEngine.ENGINE_LIBRARY_ID,
+            DETERMINE_AT_LOGON, ConnectionType.ACCEPTOR, new LongHashSet(), gatewaySessions,
+            new InboundRateLimiter(clock, 1, 0), InboundRateLimitAction.DELAY, mock(AtomicCounter.class));
+        endPoint.gatewaySession(gatewaySession);
+        return endPoint;
+    }
+}
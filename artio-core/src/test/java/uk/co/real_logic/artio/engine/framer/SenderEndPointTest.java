@@ -17,6 +17,7 @@ package uk.co.real_logic.artio.engine.framer;
 
 import io.aeron.logbuffer.ControlledFragmentHandler.Action;
 import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
 import org.agrona.LangUtil;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.concurrent.status.AtomicCounter;
@@ -26,6 +27,7 @@ import org.mockito.verification.VerificationMode;
 import uk.co.real_logic.artio.engine.SenderSequenceNumber;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
@@ -76,7 +78,8 @@ public class SenderEndPointTest
         MAX_BYTES_IN_BUFFER,
         DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS,
         0,
-        senderSequenceNumber);
+        senderSequenceNumber,
+        null);
 
     @Test
     public void shouldRetrySlowConsumerMessage()
@@ -383,6 +386,84 @@ public class SenderEndPointTest
         verifyNoMoreErrors();
     }
 
+    @Test
+    public void shouldSpillUnwrittenBytesWithoutBlockingLibrary() throws IOException
+    {
+        useSpillBuffer();
+
+        channelWillWrite(41);
+        onOutboundMessage(0, POSITION);
+        byteBufferWritten();
+        onOutboundMessage(0, POSITION + FRAGMENT_LENGTH);
+        byteBufferNotWritten();
+        assertBytesInBuffer(2 * BODY_LENGTH - 41);
+        verify(framer).slowStatus(LIBRARY_ID, CONNECTION_ID, true);
+
+        onSlowOutboundMessage();
+        byteBufferNotWritten();
+        verifyDoesNotBlockLibrary();
+
+        spillWillBeWritten();
+        assertEquals(1, endPoint.drainSpillBuffer(100));
+        assertBytesInBuffer(0);
+        verify(framer).slowStatus(LIBRARY_ID, CONNECTION_ID, false);
+        verifyNoMoreErrors();
+
+        endPoint.close();
+    }
+
+    @Test
+    public void shouldDisconnectSpillingConsumerWithTooManyBytesInBuffer()
+    {
+        useSpillBuffer();
+
+        channelWillWrite(0);
+        long position = POSITION;
+        for (int i = 0; i < 4; i++)
+        {
+            onOutboundMessage(0, position);
+            position += FRAGMENT_LENGTH;
+        }
+
+        verifySlowConsumerDisconnect(times(1));
+        verifyDoesNotBlockLibrary();
+
+        endPoint.close();
+    }
+
+    private void useSpillBuffer()
+    {
+        final File overflowFile = new File(IoUtil.tmpDirName(), "sender-end-point-test-spill");
+        IoUtil.deleteIfExists(overflowFile);
+
+        endPoint = new SenderEndPoint(
+            CONNECTION_ID,
+            LIBRARY_ID,
+            libraryBlockablePosition,
+            replayBlockablePosition,
+            tcpChannel,
+            bytesInBuffer,
+            invalidLibraryAttempts,
+            errorHandler,
+            framer,
+            MAX_BYTES_IN_BUFFER,
+            DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS,
+            0,
+            senderSequenceNumber,
+            new SpillBuffer(BODY_LENGTH, MAX_BYTES_IN_BUFFER, overflowFile));
+    }
+
+    private void spillWillBeWritten() throws IOException
+    {
+        when(tcpChannel.write(any(ByteBuffer.class))).then((invocation) ->
+        {
+            final ByteBuffer src = invocation.getArgument(0);
+            final int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        });
+    }
+
     private void byteBufferNotWritten()
     {
         byteBufferWritten(never());
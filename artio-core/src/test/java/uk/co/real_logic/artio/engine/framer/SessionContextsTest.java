@@ -106,6 +106,63 @@ public class SessionContextsTest
         assertNotEquals("C is a duplicate of B", bContext, cContext);
     }
 
+    @Test
+    public void acceptedLogonFindsExistingSessionContext()
+    {
+        final SessionContext sessionContext = sessionContexts.onLogon(aSession);
+        sessionContexts.onDisconnect(sessionContext.sessionId());
+
+        final SessionContext acceptedContext = sessionContexts.onAcceptLogon(acceptorHeader(aSession));
+
+        assertValuesEqual(sessionContext, acceptedContext);
+        assertSame(aSession, acceptedContext.compositeKey());
+    }
+
+    @Test
+    public void acceptedLogonAllocatesNewSessionContext()
+    {
+        final SessionContext aContext = sessionContexts.onLogon(aSession);
+
+        final SessionContext cContext = sessionContexts.onAcceptLogon(acceptorHeader(cSession));
+
+        assertValidSessionId(cContext.sessionId());
+        assertNotEquals(aContext, cContext);
+        assertEquals(cSession, cContext.compositeKey());
+        assertEquals(SessionContexts.DUPLICATE_SESSION, sessionContexts.onLogon(cSession));
+    }
+
+    @Test
+    public void acceptedLogonFindsDuplicateSessions()
+    {
+        sessionContexts.onLogon(aSession);
+
+        assertEquals(SessionContexts.DUPLICATE_SESSION, sessionContexts.onAcceptLogon(acceptorHeader(aSession)));
+    }
+
+    @Test
+    public void acceptedLogonFindsSessionContextsAfterRestart()
+    {
+        final List<CompositeKey> keys = IntStream
+            .range(0, 200)
+            .mapToObj((i) -> idStrategy.onInitiateLogon("b" + i, null, null, "a" + i, null, null))
+            .collect(toList());
+
+        final List<SessionContext> contexts = keys
+            .stream()
+            .map(sessionContexts::onLogon)
+            .peek(SessionContext::onSequenceReset)
+            .collect(toList());
+
+        final SessionContexts contextsAfterRestart = newSessionContexts(buffer);
+        IntStream
+            .range(0, keys.size())
+            .forEach((i) ->
+            {
+                final HeaderDecoder header = acceptorHeader(keys.get(i));
+                assertValuesEqual(contexts.get(i), contextsAfterRestart.onAcceptLogon(header));
+            });
+    }
+
     @Test
     public void checksFileCorruption()
     {
@@ -214,9 +271,21 @@ public class SessionContextsTest
         sessionContexts.onSentFollowerLogon(header, sessionId, SEQUENCE_INDEX);
 
         final SessionContext sessionContext = sessionContexts.onLogon(aSession);
-        assertValuesEqual(
-            sessionContext,
-            new SessionContext(sessionId, SEQUENCE_INDEX, Session.NO_LOGON_TIME, sessionContexts, FILE_POSITION));
+        final SessionContext expectedContext = new SessionContext(
+            aSession, sessionId, SEQUENCE_INDEX, Session.NO_LOGON_TIME, sessionContexts, FILE_POSITION);
+        assertValuesEqual(sessionContext, expectedContext);
+    }
+
+    private HeaderDecoder acceptorHeader(final CompositeKey compositeKey)
+    {
+        final String senderCompId = compositeKey.remoteCompId();
+        final String targetCompId = compositeKey.localCompId();
+        final HeaderDecoder header = mock(HeaderDecoder.class);
+        when(header.senderCompID()).thenReturn(senderCompId.toCharArray());
+        when(header.senderCompIDLength()).thenReturn(senderCompId.length());
+        when(header.targetCompID()).thenReturn(targetCompId.toCharArray());
+        when(header.targetCompIDLength()).thenReturn(targetCompId.length());
+        return header;
     }
 
     private void verifyNoBackUp()
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SpillBufferTest
+{
+    private static final int MEMORY_CAPACITY = 8;
+    private static final int OVERFLOW_CAPACITY = 64;
+
+    private final File overflowFile = new File(IoUtil.tmpDirName(), "spill-buffer-test");
+    private final TcpChannel channel = mock(TcpChannel.class);
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    private SpillBuffer spillBuffer;
+    private int writeLimit;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        IoUtil.deleteIfExists(overflowFile);
+        spillBuffer = new SpillBuffer(MEMORY_CAPACITY, OVERFLOW_CAPACITY, overflowFile);
+
+        when(channel.write(any(ByteBuffer.class))).then((invocation) ->
+        {
+            final ByteBuffer src = invocation.getArgument(0);
+            final int length = Math.min(src.remaining(), writeLimit);
+            for (int i = 0; i < length; i++)
+            {
+                written.write(src.get());
+            }
+            writeLimit -= length;
+            return length;
+        });
+    }
+
+    @After
+    public void tearDown()
+    {
+        spillBuffer.close();
+    }
+
+    @Test
+    public void shouldDrainBytesInOrderWhenTheyWrapAroundMemory() throws IOException
+    {
+        append("abcdef");
+        drain(4);
+        append("ghij");
+
+        drain(Integer.MAX_VALUE);
+
+        assertWritten("abcdefghij");
+        assertTrue(spillBuffer.isEmpty());
+        assertFalse(overflowFile.exists());
+    }
+
+    @Test
+    public void shouldOverflowIntoFileOnceMemoryIsFull() throws IOException
+    {
+        append("abcdef");
+        append("ghijkl");
+        append("mn");
+        assertEquals(14, spillBuffer.size());
+        assertTrue(overflowFile.exists());
+
+        drain(7);
+        append("op");
+        drain(Integer.MAX_VALUE);
+
+        assertWritten("abcdefghijklmnop");
+        assertTrue(spillBuffer.isEmpty());
+    }
+
+    @Test
+    public void shouldOnlyWriteWhatTheChannelAccepts() throws IOException
+    {
+        append("abcdef");
+
+        assertEquals(2, drain(2));
+        assertEquals(4, spillBuffer.size());
+        assertEquals(0, drain(0));
+
+        assertWritten("ab");
+    }
+
+    @Test
+    public void shouldDeleteOverflowFileWhenClosed()
+    {
+        append("abcdefghijkl");
+
+        spillBuffer.close();
+
+        assertFalse(overflowFile.exists());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectBytesThatDoNotFit()
+    {
+        append(new String(new char[OVERFLOW_CAPACITY + 1]).replace('\0', 'a'));
+    }
+
+    private void append(final String value)
+    {
+        final byte[] bytes = value.getBytes(US_ASCII);
+        spillBuffer.append(new UnsafeBuffer(bytes), 0, bytes.length);
+    }
+
+    private int drain(final int writeLimit) throws IOException
+    {
+        this.writeLimit = writeLimit;
+        return spillBuffer.drainTo(channel);
+    }
+
+    private void assertWritten(final String expected)
+    {
+        assertEquals(expected, new String(written.toByteArray(), US_ASCII));
+    }
+}
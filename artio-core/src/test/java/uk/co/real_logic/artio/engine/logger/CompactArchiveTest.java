@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.DirectBuffer;
+import org.junit.Test;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CompactArchiveTest extends AbstractLogTest
+{
+    private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final List<byte[]> frames = new ArrayList<>();
+
+    @Test
+    public void shouldReadBackExactlyTheFramesThatWereWritten()
+    {
+        final List<byte[]> expectedFrames = new ArrayList<>();
+        try (CompactArchiveWriter writer = new CompactArchiveWriter(output))
+        {
+            for (int sequenceNumber = 1; sequenceNumber <= 3; sequenceNumber++)
+            {
+                bufferContainsTestRequest(sequenceNumber);
+                write(writer);
+                expectedFrames.add(frame(buffer, START + MessageHeaderEncoder.ENCODED_LENGTH, fragmentLength()));
+            }
+
+            bufferContainsExampleMessage(true);
+            write(writer);
+            expectedFrames.add(frame(buffer, START + MessageHeaderEncoder.ENCODED_LENGTH, fragmentLength()));
+        }
+
+        final long messageCount;
+        try (CompactArchiveReader reader = new CompactArchiveReader(new ByteArrayInputStream(output.toByteArray())))
+        {
+            messageCount = reader.read(
+                (message, buffer, offset, length, header) -> frames.add(frame(buffer, offset, length)));
+        }
+
+        assertEquals(expectedFrames.size(), messageCount);
+        for (int i = 0; i < expectedFrames.size(); i++)
+        {
+            assertArrayEquals(expectedFrames.get(i), frames.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFilesThatAreNotCompactArchives()
+    {
+        new CompactArchiveReader(new ByteArrayInputStream(new byte[]{ 'A', 'B', 'C' }));
+    }
+
+    private void write(final CompactArchiveWriter writer)
+    {
+        final int offset = START + MessageHeaderEncoder.ENCODED_LENGTH;
+        fixMessage.wrap(buffer, offset, messageFrame.sbeBlockLength(), messageFrame.sbeSchemaVersion());
+        writer.onMessage(fixMessage, buffer, offset, fragmentLength(), null);
+    }
+
+    private static byte[] frame(final DirectBuffer buffer, final int offset, final int length)
+    {
+        final int frameOffset = offset - MessageHeaderEncoder.ENCODED_LENGTH;
+        final byte[] frame = new byte[length];
+        buffer.getBytes(frameOffset, frame);
+        return frame;
+    }
+}
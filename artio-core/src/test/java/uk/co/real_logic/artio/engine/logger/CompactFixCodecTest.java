@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ExpandableArrayBuffer;
+import org.junit.Test;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class CompactFixCodecTest
+{
+    private static final String NEW_ORDER_SINGLE =
+        "8=FIX.4.4\0019=0154\00135=D\00134=27\00149=SENDER_COMP\00152=20171019-10:15:30.123\00156=TARGET_COMP\001" +
+        "11=ORDER-0001\00121=1\00155=VOD.L\00154=1\00160=20171019-10:15:30.120\00138=000100\00140=2\00144=-12.50\001" +
+        "58=\00110=042\001";
+
+    private final CompactFixCodec encoder = new CompactFixCodec();
+    private final CompactFixCodec decoder = new CompactFixCodec();
+    private final ExpandableArrayBuffer encoded = new ExpandableArrayBuffer();
+    private final ExpandableArrayBuffer decoded = new ExpandableArrayBuffer();
+
+    @Test
+    public void shouldRoundTripMessageExactly()
+    {
+        final int encodedLength = encode(NEW_ORDER_SINGLE);
+
+        assertThat(encodedLength, lessThan(NEW_ORDER_SINGLE.length()));
+        assertEquals(NEW_ORDER_SINGLE, decode(encodedLength));
+    }
+
+    @Test
+    public void shouldEncodeRepeatedValuesFromDictionary()
+    {
+        final int firstLength = encode(NEW_ORDER_SINGLE);
+        assertEquals(NEW_ORDER_SINGLE, decode(firstLength));
+
+        final String secondMessage = NEW_ORDER_SINGLE.replace("11=ORDER-0001", "11=ORDER-0002");
+        final int secondLength = encode(secondMessage);
+
+        assertThat(secondLength, lessThan(firstLength));
+        assertEquals(secondMessage, decode(secondLength));
+        assertEquals(encoder.dictionarySize(), decoder.dictionarySize());
+    }
+
+    @Test
+    public void shouldStoreMalformedMessagesAsTheyAre()
+    {
+        assertRoundTrips("8=FIX.4.4\0019=5\00135=0\00110=000");
+        assertRoundTrips("8=FIX.4.4\001=oops\00110=000\001");
+        assertRoundTrips("8=FIX.4.4\00109=5\00110=000\001");
+        assertRoundTrips("8=FIX.4.4\0011234567890=5\00110=000\001");
+        assertRoundTrips("");
+    }
+
+    @Test
+    public void shouldRoundTripValuesContainingSeparators()
+    {
+        assertRoundTrips("8=FIX.4.4\00195=5\00196=a=b=c\00110=000\001");
+        assertRoundTrips("8=FIX.4.4\00158=" + 99999999999999999L + "\00158=" + Long.MAX_VALUE + "\00110=000\001");
+    }
+
+    private void assertRoundTrips(final String message)
+    {
+        assertEquals(message, decode(encode(message)));
+    }
+
+    private int encode(final String message)
+    {
+        final MutableAsciiBuffer buffer = new MutableAsciiBuffer(new byte[message.length() + 1]);
+        buffer.putAscii(1, message);
+        return encoder.encode(buffer, 1, message.length(), encoded, 0);
+    }
+
+    private String decode(final int encodedLength)
+    {
+        final int decodedLength = decoder.decode(encoded, 0, encodedLength, decoded, 0);
+        return decoded.getStringWithoutLengthAscii(0, decodedLength);
+    }
+}
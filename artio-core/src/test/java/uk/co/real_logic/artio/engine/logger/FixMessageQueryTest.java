@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+
+import java.io.ByteArrayOutputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.*;
+
+public class FixMessageQueryTest
+{
+    private static final String NEW_ORDER_SINGLE =
+        "8=FIX.4.4\0019=0100\00135=D\00149=BROKER\00156=EXCHANGE\00134=5\00111=ORDER,1\00155=VOD.L\001" +
+        "38=100\00144=12.50\00110=042\001";
+
+    private final MessageHeaderEncoder header = new MessageHeaderEncoder();
+    private final FixMessageEncoder messageFrame = new FixMessageEncoder();
+    private final FixMessageDecoder message = new FixMessageDecoder();
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+
+    @Test
+    public void shouldMatchMessagesThatPassAllConditions()
+    {
+        final FixMessageQuery query = new FixMessageQuery()
+            .whereIn(35, "D", "G")
+            .whereEquals(49, "BROKER")
+            .whereBetween(44, "10", "12.5");
+
+        assertTrue(query.test(messageWithBody(NEW_ORDER_SINGLE)));
+    }
+
+    @Test
+    public void shouldNotMatchMessagesThatFailAnyCondition()
+    {
+        assertFalse(new FixMessageQuery().whereEquals(49, "BROKE").test(messageWithBody(NEW_ORDER_SINGLE)));
+        assertFalse(new FixMessageQuery().whereIn(35, "F", "G").test(messageWithBody(NEW_ORDER_SINGLE)));
+        assertFalse(new FixMessageQuery().whereBetween(44, "12.51", "20").test(messageWithBody(NEW_ORDER_SINGLE)));
+        assertFalse(new FixMessageQuery().whereBetween(38, "0", "99.9").test(messageWithBody(NEW_ORDER_SINGLE)));
+        assertFalse(new FixMessageQuery().whereBetween(55, "0", "100").test(messageWithBody(NEW_ORDER_SINGLE)));
+    }
+
+    @Test
+    public void shouldNotMatchMessagesThatAreMissingATagWithACondition()
+    {
+        assertFalse(new FixMessageQuery().whereEquals(58, "text").test(messageWithBody(NEW_ORDER_SINGLE)));
+    }
+
+    @Test
+    public void shouldProjectSelectedTagsOfMatchingMessages()
+    {
+        final FixMessageQuery query = new FixMessageQuery()
+            .whereEquals(35, "D")
+            .select(11, 58, 35);
+
+        assertTrue(query.test(messageWithBody(NEW_ORDER_SINGLE)));
+
+        assertEquals(3, query.columnCount());
+        assertEquals("ORDER,1", selectedValue(query, 0));
+        assertEquals(-1, query.valueLength(1));
+        assertEquals("D", selectedValue(query, 2));
+    }
+
+    @Test
+    public void shouldWriteCsvRows()
+    {
+        final FixMessageQuery query = new FixMessageQuery().select(11, 58, 55);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final FixMessageConsumer consumer = query.project(new CsvFixMessageProjection(output, query));
+
+        final FixMessageDecoder message = messageWithBody(NEW_ORDER_SINGLE);
+        consumer.onMessage(message, buffer, message.offset(), 0, null);
+
+        assertEquals("11,58,55\n\"ORDER,1\",,VOD.L\n", new String(output.toByteArray(), US_ASCII));
+    }
+
+    @Test
+    public void shouldWriteBinaryRows()
+    {
+        final FixMessageQuery query = new FixMessageQuery().select(55, 58);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final FixMessageConsumer consumer = query.project(new BinaryFixMessageProjection(output, query));
+
+        final FixMessageDecoder message = messageWithBody(NEW_ORDER_SINGLE);
+        consumer.onMessage(message, buffer, message.offset(), 0, null);
+
+        assertArrayEquals(new byte[]{ 2, 55, 58, 6, 'V', 'O', 'D', '.', 'L', 0 }, output.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSecondConditionOnSameTag()
+    {
+        new FixMessageQuery().whereEquals(35, "D").whereIn(35, "G");
+    }
+
+    private FixMessageDecoder messageWithBody(final String body)
+    {
+        final byte[] bodyBytes = body.getBytes(US_ASCII);
+        messageFrame
+            .wrapAndApplyHeader(buffer, 0, header)
+            .putBody(bodyBytes, 0, bodyBytes.length);
+
+        final int offset = MessageHeaderEncoder.ENCODED_LENGTH;
+        message.wrap(buffer, offset, messageFrame.sbeBlockLength(), messageFrame.sbeSchemaVersion());
+        return message;
+    }
+
+    private static String selectedValue(final FixMessageQuery query, final int column)
+    {
+        return query.buffer().getStringWithoutLengthAscii(query.valueOffset(column), query.valueLength(column));
+    }
+}
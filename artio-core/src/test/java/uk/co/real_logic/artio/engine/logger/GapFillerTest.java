@@ -39,7 +39,7 @@ public class GapFillerTest extends AbstractLogTest
 {
     private GatewayPublication publication = mock(GatewayPublication.class);
     private ClusterableSubscription subscription = mock(ClusterableSubscription.class);
-    private SenderSequenceNumbers senderSequenceNumbers = mock(SenderSequenceNumbers.class);
+    private SenderSequenceNumbers.Reader senderSequenceNumbers = mock(SenderSequenceNumbers.Reader.class);
     private GapFiller gapFiller = new GapFiller(subscription, publication, DEFAULT_NAME_PREFIX, senderSequenceNumbers);
 
     @Test
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015-2018 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class ParallelIndexerTest
+{
+    @Test
+    public void shouldCloseCreatedIndexersIfAnotherFails()
+    {
+        final Indexer indexer = mock(Indexer.class);
+        final IllegalStateException exception = new IllegalStateException("Unable to catch up");
+        final List<Supplier<Indexer>> indexerFactories = Arrays.asList(
+            () -> indexer,
+            () ->
+            {
+                throw exception;
+            });
+
+        try
+        {
+            new ParallelIndexer(
+                indexerFactories, BusySpinIdleStrategy::new, mock(ErrorHandler.class), "");
+            fail("Expected an exception");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertSame(exception, e);
+        }
+
+        verify(indexer).close();
+        verify(indexer, never()).onClose();
+    }
+}
@@ -82,7 +82,7 @@ public class ReplayerTest extends AbstractLogTest
         ArgumentCaptor.forClass(ControlledFragmentHandler.class);
     private Header fragmentHeader = mock(Header.class);
     private ReplayHandler replayHandler = mock(ReplayHandler.class);
-    private SenderSequenceNumbers senderSequenceNumbers = mock(SenderSequenceNumbers.class);
+    private SenderSequenceNumbers.Reader senderSequenceNumbers = mock(SenderSequenceNumbers.Reader.class);
 
     private Replayer replayer;
 
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.ControlledFragmentHandler;
+import org.agrona.BitUtil;
+import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+import uk.co.real_logic.artio.replication.StreamIdentifier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.GatewayProcess.OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+
+public class SecondaryIndexTest
+{
+    private static final int STREAM_ID = OUTBOUND_LIBRARY_STREAM;
+    private static final int AERON_SESSION_ID = 3;
+    private static final int INDEX_FILE_SIZE = 64 * 1024;
+    private static final int CL_ORD_ID = 11;
+
+    private final File logFileDir = new File(IoUtil.tmpDirName(), "secondary-index-test");
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final ArchiveReader archiveReader = mock(ArchiveReader.class);
+    private final Long2ObjectHashMap<UnsafeBuffer> archive = new Long2ObjectHashMap<>();
+    private final List<Long> foundTimestamps = new ArrayList<>();
+    private final FixMessageConsumer consumer =
+        (message, buffer, offset, length, header) -> foundTimestamps.add(message.timestamp());
+
+    private long position;
+    private TagValueIndex tagValueIndex;
+    private TimeIndex timeIndex;
+    private SecondaryIndexQuery query;
+
+    @Before
+    public void setUp()
+    {
+        IoUtil.delete(logFileDir, true);
+        IoUtil.ensureDirectoryExists(logFileDir, logFileDir.getPath());
+
+        when(archiveReader.fullStreamId()).thenReturn(new StreamIdentifier("aeron:ipc", STREAM_ID));
+        when(archiveReader.read(anyInt(), anyLong(), any())).then((invocation) ->
+        {
+            final UnsafeBuffer frame = archive.get((long)invocation.getArgument(1));
+            final ControlledFragmentHandler handler = invocation.getArgument(2);
+            handler.onFragment(frame, 0, frame.capacity(), null);
+            return 0L;
+        });
+
+        newIndices(INDEX_FILE_SIZE);
+        query = new SecondaryIndexQuery(logFileDir.getPath(), archiveReader);
+    }
+
+    @After
+    public void tearDown()
+    {
+        closeIndices();
+        query.close();
+        IoUtil.delete(logFileDir, true);
+    }
+
+    @Test
+    public void shouldFindMessagesByTagValueInArchiveOrder()
+    {
+        archive(1, "ORDER-1");
+        archive(2, "ORDER-2");
+        archive(3, "ORDER-1");
+
+        assertEquals(2, query.messagesWithValue(CL_ORD_ID, "ORDER-1", consumer));
+
+        assertFound(1L, 3L);
+    }
+
+    @Test
+    public void shouldNotFindValuesThatWereNotArchived()
+    {
+        archive(1, "ORDER-1");
+
+        assertEquals(0, query.messagesWithValue(CL_ORD_ID, "ORDER-2", consumer));
+        assertEquals(0, query.messagesWithValue(37, "ORDER-1", consumer));
+    }
+
+    @Test
+    public void shouldFindMessagesWithinTimeRange()
+    {
+        for (int timestamp = 1; timestamp <= 10; timestamp++)
+        {
+            archive(timestamp, "ORDER-" + timestamp);
+        }
+
+        assertEquals(3, query.messagesBetween(4, 7, consumer));
+
+        assertFound(4L, 5L, 6L);
+    }
+
+    @Test
+    public void shouldContinueIndexingAfterRestart()
+    {
+        archive(1, "ORDER-1");
+        archive(2, "ORDER-1");
+        closeIndices();
+
+        newIndices(INDEX_FILE_SIZE);
+        archive(3, "ORDER-1");
+
+        assertEquals(3, query.messagesWithValue(CL_ORD_ID, "ORDER-1", consumer));
+        assertEquals(1, query.messagesBetween(3, 4, consumer));
+        assertFound(1L, 2L, 3L, 3L);
+
+        final IndexedPositionConsumer positionConsumer = mock(IndexedPositionConsumer.class);
+        tagValueIndex.readLastPosition(positionConsumer);
+        verify(positionConsumer).accept(AERON_SESSION_ID, position);
+    }
+
+    @Test
+    public void shouldReportOnceWhenFull()
+    {
+        closeIndices();
+        IoUtil.delete(logFileDir, true);
+        IoUtil.ensureDirectoryExists(logFileDir, logFileDir.getPath());
+        newIndices(1024);
+
+        for (int timestamp = 1; timestamp <= 100; timestamp++)
+        {
+            archive(timestamp, "ORDER-1");
+        }
+
+        verify(errorHandler, times(2)).onError(any(IllegalStateException.class));
+    }
+
+    private void newIndices(final int indexFileSize)
+    {
+        final String logFileDir = this.logFileDir.getPath();
+        tagValueIndex = new TagValueIndex(
+            logFileDir, CL_ORD_ID, STREAM_ID, indexFileSize, LoggerUtil::map, errorHandler);
+        timeIndex = new TimeIndex(logFileDir, STREAM_ID, indexFileSize, LoggerUtil::map, errorHandler);
+    }
+
+    private void closeIndices()
+    {
+        tagValueIndex.close();
+        timeIndex.close();
+    }
+
+    private void archive(final long timestamp, final String clOrdId)
+    {
+        final byte[] body = ("8=FIX.4.4\0019=0050\00135=D\00134=1\001" + CL_ORD_ID + "=" + clOrdId + "\00110=000\001")
+            .getBytes(US_ASCII);
+        final int length = MessageHeaderEncoder.ENCODED_LENGTH + FixMessageEncoder.BLOCK_LENGTH +
+            FixMessageEncoder.bodyHeaderLength() + body.length;
+        final UnsafeBuffer frame = new UnsafeBuffer(new byte[length]);
+        new FixMessageEncoder()
+            .wrapAndApplyHeader(frame, 0, new MessageHeaderEncoder())
+            .timestamp(timestamp)
+            .status(OK)
+            .putBody(body, 0, body.length);
+
+        archive.put(position, frame);
+        position += BitUtil.align(length, FRAME_ALIGNMENT);
+
+        tagValueIndex.indexRecord(frame, 0, length, STREAM_ID, AERON_SESSION_ID, position);
+        timeIndex.indexRecord(frame, 0, length, STREAM_ID, AERON_SESSION_ID, position);
+    }
+
+    private void assertFound(final Long... timestamps)
+    {
+        assertEquals(Arrays.asList(timestamps), foundTimestamps);
+    }
+}
@@ -246,6 +246,20 @@ public class SequenceNumberIndexTest extends AbstractLogTest
         assertUnknownSession();
     }
 
+    @Test
+    public void shouldNotReadSequenceNumberOfAnotherSessionAfterReset()
+    {
+        indexFixMessage();
+        assertLastKnownSequenceNumberIs(SESSION_ID, SEQUENCE_NUMBER);
+
+        writer.resetSequenceNumbers();
+        bufferContainsExampleMessage(true, SESSION_ID_2, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+        indexRecord(alignedEndPosition());
+
+        assertUnknownSession();
+        assertLastKnownSequenceNumberIs(SESSION_ID_2, SEQUENCE_NUMBER + 1);
+    }
+
     @After
     public void verifyNoErrors()
     {
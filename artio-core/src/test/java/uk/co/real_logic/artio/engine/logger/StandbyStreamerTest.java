@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.ExclusivePublication;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import uk.co.real_logic.artio.engine.logger.Archiver.ArchivedPositionHandler;
+
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_SIZE;
+
+public class StandbyStreamerTest
+{
+    private static final int AERON_SESSION_ID = 3;
+    private static final int LENGTH = 256;
+    private static final long MAX_LAG_IN_BYTES = 4 * LENGTH;
+
+    private final Archiver inboundArchiver = mock(Archiver.class);
+    private final Archiver outboundArchiver = mock(Archiver.class);
+    private final ArchiveReader inboundArchiveReader = mock(ArchiveReader.class);
+    private final ArchiveReader outboundArchiveReader = mock(ArchiveReader.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+
+    private ArchivedPositionHandler inboundPositionHandler;
+    private StandbyStreamer standbyStreamer;
+    private long archivedPosition;
+    private boolean standbyKeepsUp;
+
+    @Before
+    public void setUp()
+    {
+        when(inboundArchiveReader.readUpTo(anyInt(), anyLong(), anyLong(), any())).then((inv) ->
+            standbyKeepsUp ? (long)inv.getArgument(2) + HEADER_LENGTH : (long)inv.getArgument(1));
+
+        standbyStreamer = new StandbyStreamer(
+            inboundArchiver,
+            inboundArchiveReader,
+            mock(ExclusivePublication.class),
+            outboundArchiver,
+            outboundArchiveReader,
+            mock(ExclusivePublication.class),
+            mock(ExclusivePublication.class),
+            new UnsafeBuffer(new byte[SECTOR_SIZE]),
+            mock(AtomicCounter.class),
+            MAX_LAG_IN_BYTES,
+            errorHandler,
+            mock(EpochClock.class),
+            1000,
+            "");
+
+        final ArgumentCaptor<ArchivedPositionHandler> positionHandler =
+            ArgumentCaptor.forClass(ArchivedPositionHandler.class);
+        verify(inboundArchiver).positionHandler(positionHandler.capture());
+        inboundPositionHandler = positionHandler.getValue();
+    }
+
+    @Test
+    public void shouldNotReportLagWithinMaximum()
+    {
+        archiveMessages(4);
+
+        standbyStreamer.doWork();
+
+        verify(errorHandler, never()).onError(any());
+    }
+
+    @Test
+    public void shouldReportLagBeyondMaximumOnce()
+    {
+        archiveMessages(5);
+
+        standbyStreamer.doWork();
+        standbyStreamer.doWork();
+
+        verify(errorHandler, times(1)).onError(any(IllegalStateException.class));
+    }
+
+    @Test
+    public void shouldReportLagBeyondMaximumAgainAfterStandbyCatchesUp()
+    {
+        archiveMessages(5);
+        standbyStreamer.doWork();
+
+        standbyKeepsUp = true;
+        standbyStreamer.doWork();
+
+        standbyKeepsUp = false;
+        archiveMessages(5);
+        standbyStreamer.doWork();
+
+        verify(errorHandler, times(2)).onError(any(IllegalStateException.class));
+    }
+
+    private void archiveMessages(final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            archivedPosition += LENGTH;
+            inboundPositionHandler.onArchivedPosition(AERON_SESSION_ID, archivedPosition, LENGTH);
+        }
+    }
+}
@@ -25,9 +25,11 @@ import org.mockito.stubbing.Answer;
 import org.mockito.stubbing.OngoingStubbing;
 import org.mockito.verification.VerificationMode;
 import uk.co.real_logic.artio.FixCounters;
+import uk.co.real_logic.artio.Reply;
 import uk.co.real_logic.artio.engine.framer.FakeEpochClock;
 import uk.co.real_logic.artio.messages.ControlNotificationDecoder.SessionsDecoder;
 import uk.co.real_logic.artio.messages.LogonStatus;
+import uk.co.real_logic.artio.messages.SessionReplyStatus;
 import uk.co.real_logic.artio.messages.SlowStatus;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.session.Session;
@@ -38,15 +40,20 @@ import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
 import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.Publication.BACK_PRESSURED;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_REPLY_TIMEOUT_IN_MS;
 import static uk.co.real_logic.artio.LivenessDetector.SEND_INTERVAL_FRACTION;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
+import static uk.co.real_logic.artio.library.FixLibrary.NO_MESSAGE_REPLAY;
 import static uk.co.real_logic.artio.messages.ConnectionType.ACCEPTOR;
+import static uk.co.real_logic.artio.messages.SessionReplyStatus.OK;
+import static uk.co.real_logic.artio.messages.SessionReplyStatus.UNKNOWN_SESSION;
 import static uk.co.real_logic.artio.messages.SessionState.ACTIVE;
 
 public class LibraryPollerTest
@@ -225,6 +232,102 @@ public class LibraryPollerTest
         doesNotAttemptConnectTo(LEADER_CHANNEL);
     }
 
+    @Test
+    public void shouldSendAllRequestsOfABatchBeforeAnyReply()
+    {
+        connectToSingleEngine();
+
+        final Reply<List<Reply<SessionReplyStatus>>> reply = requestSessions();
+
+        verify(outboundPublication).saveRequestSession(
+            eq(libraryId()), eq(SESSION_ID), anyLong(), eq(NO_MESSAGE_REPLAY), eq(NO_MESSAGE_REPLAY), anyInt());
+        verify(outboundPublication).saveRequestSession(
+            eq(libraryId()), eq(OTHER_SESSION_ID), anyLong(), eq(NO_MESSAGE_REPLAY), eq(NO_MESSAGE_REPLAY), anyInt());
+        assertTrue(reply.isExecuting());
+    }
+
+    @Test
+    public void shouldCompleteBatchOnceAllRepliesHaveArrived()
+    {
+        connectToSingleEngine();
+
+        final ArgumentCaptor<Long> correlationIds = ArgumentCaptor.forClass(Long.class);
+        final Reply<List<Reply<SessionReplyStatus>>> reply = requestSessions();
+        verify(outboundPublication, times(2)).saveRequestSession(
+            eq(libraryId()), anyLong(), correlationIds.capture(), anyInt(), anyInt(), anyInt());
+
+        library.onRequestSessionReply(libraryId(), correlationIds.getAllValues().get(1), UNKNOWN_SESSION);
+        poll();
+        assertTrue(reply.isExecuting());
+
+        library.onRequestSessionReply(libraryId(), correlationIds.getAllValues().get(0), OK);
+        poll();
+        assertTrue(reply.hasCompleted());
+
+        final List<Reply<SessionReplyStatus>> replies = reply.resultIfPresent();
+        assertEquals(OK, replies.get(0).resultIfPresent());
+        assertEquals(UNKNOWN_SESSION, replies.get(1).resultIfPresent());
+    }
+
+    @Test
+    public void shouldTimeoutBatchIfAnyReplyIsMissing()
+    {
+        connectToSingleEngine();
+
+        final Reply<List<Reply<SessionReplyStatus>>> reply = requestSessions();
+
+        advanceBeyondReplyTimeout();
+        poll();
+
+        assertEquals(Reply.State.TIMED_OUT, reply.state());
+    }
+
+    @Test
+    public void shouldCompleteReplayMessagesUponReply()
+    {
+        connectToSingleEngine();
+
+        final Reply<SessionReplyStatus> reply = library.replayMessages(
+            SESSION_ID, 1, 0, 5, 0, DEFAULT_REPLY_TIMEOUT_IN_MS);
+
+        final ArgumentCaptor<Long> correlationId = ArgumentCaptor.forClass(Long.class);
+        verify(outboundPublication).saveReplayMessages(
+            eq(libraryId()), eq(SESSION_ID), correlationId.capture(), eq(1), eq(0), eq(5), eq(0));
+        assertTrue(reply.isExecuting());
+
+        library.onReplayMessagesReply(libraryId(), correlationId.getValue(), OK);
+        poll();
+
+        assertEquals(OK, reply.resultIfPresent());
+    }
+
+    @Test
+    public void shouldResendReplayMessagesWhenBackPressured()
+    {
+        connectToSingleEngine();
+
+        when(outboundPublication.saveReplayMessages(
+            anyInt(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt(), anyInt()))
+            .thenReturn(BACK_PRESSURED, 1L);
+
+        final Reply<SessionReplyStatus> reply = library.replayMessages(
+            SESSION_ID, 1, 0, 5, 0, DEFAULT_REPLY_TIMEOUT_IN_MS);
+        poll();
+
+        verify(outboundPublication, times(2)).saveReplayMessages(
+            eq(libraryId()), eq(SESSION_ID), anyLong(), eq(1), eq(0), eq(5), eq(0));
+        assertTrue(reply.isExecuting());
+    }
+
+    private Reply<List<Reply<SessionReplyStatus>>> requestSessions()
+    {
+        return library.requestSessions(
+            new long[]{ SESSION_ID, OTHER_SESSION_ID },
+            new int[]{ NO_MESSAGE_REPLAY, NO_MESSAGE_REPLAY },
+            new int[]{ NO_MESSAGE_REPLAY, NO_MESSAGE_REPLAY },
+            DEFAULT_REPLY_TIMEOUT_IN_MS);
+    }
+
     private void sendsLibraryConnect(final VerificationMode times)
     {
         verify(outboundPublication, times)
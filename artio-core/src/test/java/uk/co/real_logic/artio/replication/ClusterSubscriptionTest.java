@@ -119,6 +119,39 @@ public class ClusterSubscriptionTest
         verifyNoOtherFragmentsReceived();
     }
 
+    @Test
+    public void shouldMoveImagePositionToAppliedPosition()
+    {
+        onConsensusHeartbeatPoll(1, LEADER, FIRST_TERM_END, 0, FIRST_TERM_LENGTH);
+        when(leaderDataImage.controlledPeek(anyLong(), any(), anyLong())).thenReturn((long)FIRST_TERM_LENGTH);
+
+        poll();
+
+        verify(leaderDataImage).position(FIRST_TERM_LENGTH);
+    }
+
+    @Test
+    public void shouldMoveImagePositionWhenPositionIsSet()
+    {
+        onConsensusHeartbeatPoll(1, LEADER, FIRST_TERM_END, 0, FIRST_TERM_LENGTH);
+
+        clusterSubscription.position(FIRST_TERM_END + FIRST_TERM_LENGTH);
+
+        verify(leaderDataImage).position(FIRST_TERM_LENGTH);
+    }
+
+    @Test
+    public void shouldNotMoveImagePositionBackwards()
+    {
+        when(leaderDataImage.position()).thenReturn((long)FIRST_TERM_LENGTH);
+        onConsensusHeartbeatPoll(1, LEADER, FIRST_TERM_END, 0, FIRST_TERM_LENGTH);
+        when(leaderDataImage.controlledPeek(anyLong(), any(), anyLong())).thenReturn((long)FIRST_TERM_LENGTH);
+
+        poll();
+
+        verify(leaderDataImage, never()).position(anyLong());
+    }
+
     @Test
     public void shouldTransitionBetweenLeadersWithDifferentPositionDeltasWhenDataLagsControl()
     {
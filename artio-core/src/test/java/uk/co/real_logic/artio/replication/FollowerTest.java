@@ -110,6 +110,18 @@ public class FollowerTest
         verify(archiver).session(SESSION_ID_4);
     }
 
+    @Test
+    public void shouldFollowLeaderOfTermAlreadyVotedIn()
+    {
+        termState.leadershipTerm(NEW_LEADERSHIP_TERM);
+        follower.follow(0);
+        reset(archiver);
+
+        follower.onConsensusHeartbeat(ID_5, NEW_LEADERSHIP_TERM, POSITION, POSITION, POSITION, SESSION_ID_5);
+
+        verify(archiver).session(SESSION_ID_5);
+    }
+
     @Test
     public void shouldNotifyMissingLogEntries()
     {
@@ -147,6 +159,20 @@ public class FollowerTest
         acknowledgeLogEntries(times(2));
     }
 
+    @Test
+    public void shouldResendAcknowledgementIfConsensusIsBehind()
+    {
+        when(leaderArchiver.poll()).thenReturn(LENGTH, 0);
+
+        poll();
+
+        follower.onConsensusHeartbeat(ID_4, OLD_LEADERSHIP_TERM, POSITION, POSITION, POSITION, SESSION_ID_4);
+
+        poll();
+
+        acknowledgeLogEntries(times(2));
+    }
+
     private void backPressureFirstAcknowledgement()
     {
         when(acknowledgementPublication.saveMessageAcknowledgement(anyLong(), anyShort(), any()))
@@ -195,6 +221,18 @@ public class FollowerTest
         notifyMissingLogEntries(times(2));
     }
 
+    @Test
+    public void shouldCloseDataSubscriptionWhenNoLongerFollowing()
+    {
+        final Subscription dataSubscription = mock(Subscription.class);
+        follower.dataSubscription(dataSubscription);
+
+        follower.closeStreams();
+        follower.closeStreams();
+
+        verify(dataSubscription).close();
+    }
+
     private void onHeartbeat()
     {
         follower.onConsensusHeartbeat(ID_4, NEW_LEADERSHIP_TERM, POSITION, POSITION, POSITION, SESSION_ID_4);
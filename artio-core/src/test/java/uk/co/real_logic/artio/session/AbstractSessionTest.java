@@ -26,6 +26,7 @@ import uk.co.real_logic.artio.builder.HeaderEncoder;
 import uk.co.real_logic.artio.builder.TestRequestEncoder;
 import uk.co.real_logic.artio.decoder.SequenceResetDecoder;
 import uk.co.real_logic.artio.engine.framer.FakeEpochClock;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
 import uk.co.real_logic.artio.messages.SessionState;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
@@ -41,6 +42,7 @@ import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_REASONABLE_TRANSMISSION_TIME_IN_S;
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_SESSION_BUFFER_SIZE;
 import static uk.co.real_logic.artio.Constants.NEW_SEQ_NO;
 import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.MISSING_INT;
 import static uk.co.real_logic.artio.fields.RejectReason.*;
@@ -194,6 +196,33 @@ public abstract class AbstractSessionTest
         verify(mockProxy).reject(2, 2, MSG_TYPE_BYTES, MSG_TYPE_BYTES.length, REQUIRED_TAG_MISSING, SEQUENCE_INDEX);
     }
 
+    @Test
+    public void shouldRejectRateLimitedMessage()
+    {
+        givenActive();
+        session().lastReceivedMsgSeqNum(1);
+
+        session().onRateLimitedMessage(2, MSG_TYPE_BYTES, MSG_TYPE_BYTES.length, sendingTime(), UNKNOWN, false);
+
+        verify(mockProxy).rateLimitedReject(
+            anyInt(), eq(2), eq(MSG_TYPE_BYTES), eq(MSG_TYPE_BYTES.length), eq(SEQUENCE_INDEX));
+        assertEquals(3, session().expectedReceivedSeqNum());
+    }
+
+    @Test
+    public void shouldRequestResendForRateLimitedMessageAfterGap()
+    {
+        givenActive();
+        session().lastReceivedMsgSeqNum(1);
+
+        session().onRateLimitedMessage(4, MSG_TYPE_BYTES, MSG_TYPE_BYTES.length, sendingTime(), UNKNOWN, false);
+
+        verify(mockProxy).resendRequest(anyInt(), eq(2), eq(0), eq(SEQUENCE_INDEX));
+        verify(mockProxy, never()).rateLimitedReject(anyInt(), anyInt(), any(), anyInt(), anyInt());
+        assertEquals(2, session().expectedReceivedSeqNum());
+        assertState(AWAITING_RESEND);
+    }
+
     @Test
     public void shouldNotifyClientUponSequenceReset()
     {
@@ -665,6 +694,173 @@ public abstract class AbstractSessionTest
         assertThat(secondMessage, containsString(":01\001"));
     }
 
+    @Test
+    public void shouldSendBatchedMessagesWithConsecutiveSequenceNumbers()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+
+        final MessageBatch batch = new MessageBatch(DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_SESSION_BUFFER_SIZE);
+        batch.add(session(), testRequest.testReqID("first"));
+        batch.add(session(), testRequest.testReqID("second"));
+
+        assertEquals(POSITION, batch.send());
+
+        verifyBatchedMessageSent(lastSentMsgSeqNum + 1);
+        verifyBatchedMessageSent(lastSentMsgSeqNum + 2);
+        assertEquals(lastSentMsgSeqNum + 2, session().lastSentMsgSeqNum());
+        assertEquals(0, batch.unsentMessageCount());
+    }
+
+    @Test
+    public void shouldResumeBatchAfterBackPressure()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+        when(mockPublication.saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), anyInt(), anyLong(), any(), anyInt()))
+            .thenReturn(POSITION, BACK_PRESSURED, POSITION);
+
+        final MessageBatch batch = new MessageBatch(DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_SESSION_BUFFER_SIZE);
+        batch.add(session(), testRequest.testReqID("first"));
+        batch.add(session(), testRequest.testReqID("second"));
+
+        assertEquals(BACK_PRESSURED, batch.send());
+        assertEquals(1, batch.unsentMessageCount());
+        assertEquals(lastSentMsgSeqNum + 1, session().lastSentMsgSeqNum());
+
+        assertEquals(POSITION, batch.send());
+        assertEquals(0, batch.unsentMessageCount());
+        assertEquals(lastSentMsgSeqNum + 2, session().lastSentMsgSeqNum());
+        verify(mockPublication, times(2)).saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), anyInt(), anyLong(), any(),
+            eq(lastSentMsgSeqNum + 2));
+    }
+
+    @Test
+    public void shouldNotSendHeartbeatsWhilstBatchIsUnsent()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+
+        final MessageBatch batch = new MessageBatch(DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_SESSION_BUFFER_SIZE);
+        batch.add(session(), testRequest.testReqID("first"));
+        fakeClock.advanceSeconds(SESSION_TIMEOUT + 1);
+        poll();
+        batch.add(session(), testRequest.testReqID("second"));
+        poll();
+
+        verify(mockProxy, never()).heartbeat(anyInt(), anyInt());
+        verify(mockProxy, never()).testRequest(anyInt(), any(), anyInt());
+
+        assertEquals(POSITION, batch.send());
+        verifyBatchedMessageSent(lastSentMsgSeqNum + 1);
+        verifyBatchedMessageSent(lastSentMsgSeqNum + 2);
+
+        fakeClock.advanceSeconds(HEARTBEAT_INTERVAL);
+        poll();
+
+        verify(mockProxy).heartbeat(lastSentMsgSeqNum + 3, SEQUENCE_INDEX);
+    }
+
+    @Test
+    public void shouldNumberOtherMessagesAfterUnsentBatchedMessages()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+
+        final MessageBatch batch = new MessageBatch(DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_SESSION_BUFFER_SIZE);
+        batch.add(session(), testRequest.testReqID("first"));
+        batch.add(session(), testRequest.testReqID("second"));
+
+        assertEquals(lastSentMsgSeqNum + 3, session().newSentSeqNum());
+        try
+        {
+            session().send(testRequest.testReqID("direct"));
+            fail("Expected an exception");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertThat(e.getMessage(), containsString("batch"));
+        }
+
+        batch.clear();
+
+        assertEquals(lastSentMsgSeqNum + 1, session().newSentSeqNum());
+    }
+
+    @Test
+    public void shouldNotResendBatchedMessagesSentBeforeSessionBecameInactive()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+        when(mockPublication.saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), anyInt(), anyLong(), any(), anyInt()))
+            .then(inv ->
+            {
+                session().state(AWAITING_LOGOUT);
+                return POSITION;
+            });
+
+        final MessageBatch batch = new MessageBatch(DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_SESSION_BUFFER_SIZE);
+        batch.add(session(), testRequest.testReqID("first"));
+        batch.add(session(), testRequest.testReqID("second"));
+
+        try
+        {
+            batch.send();
+            fail("Expected an exception");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertEquals(1, batch.unsentMessageCount());
+        }
+
+        givenActive();
+        batch.send();
+
+        verifyBatchedMessageSent(lastSentMsgSeqNum + 1);
+        verifyBatchedMessageSent(lastSentMsgSeqNum + 2);
+    }
+
+    @Test
+    public void shouldUpdateSendingTimeWhenResumingBatchAfterBackPressure()
+    {
+        givenActive();
+        when(mockPublication.saveMessage(
+            bufferCaptor.capture(), offsetCaptor.capture(), lengthCaptor.capture(), anyInt(), anyInt(), anyLong(),
+            anyInt(), anyLong(), any(), anyInt()))
+            .thenReturn(BACK_PRESSURED, POSITION);
+
+        final MessageBatch batch = new MessageBatch(DEFAULT_SESSION_BUFFER_SIZE, DEFAULT_SESSION_BUFFER_SIZE);
+        batch.add(session(), testRequest.testReqID("first"));
+        assertEquals(BACK_PRESSURED, batch.send());
+
+        fakeClock.advanceSeconds(1);
+        assertEquals(POSITION, batch.send());
+
+        final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
+        final int sendingTimeLength = timestampEncoder.encode(fakeClock.time());
+        final String sendingTime = new String(timestampEncoder.buffer(), 0, sendingTimeLength, US_ASCII);
+        final String message = getSentMessage();
+        assertThat(message, containsString("\00152=" + sendingTime + "\001"));
+
+        final int checksumOffset = message.lastIndexOf("\00110=") + 1;
+        int checksum = 0;
+        for (int i = 0; i < checksumOffset; i++)
+        {
+            checksum += message.charAt(i);
+        }
+        assertEquals(checksum % 256, Integer.parseInt(message.substring(checksumOffset + 3, checksumOffset + 6)));
+    }
+
+    private void verifyBatchedMessageSent(final int sequenceNumber)
+    {
+        verify(mockPublication).saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), anyInt(), anyLong(), any(),
+            eq(sequenceNumber));
+    }
+
     private String sendTestRequest(final long nonSecondDurationInMs)
     {
         testRequest.reset();
@@ -709,7 +905,7 @@ public abstract class AbstractSessionTest
         session().lastReceivedMsgSeqNum(3).lastSentMsgSeqNum(3);
     }
 
-    private void incorrectBeginStringLogout(final int times)
+    protected void incorrectBeginStringLogout(final int times)
     {
         verify(mockProxy, times(times)).incorrectBeginStringLogout(1, SEQUENCE_INDEX);
     }
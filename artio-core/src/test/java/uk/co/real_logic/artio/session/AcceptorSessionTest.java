@@ -17,12 +17,17 @@ package uk.co.real_logic.artio.session;
 
 import io.aeron.logbuffer.ControlledFragmentHandler.Action;
 import org.junit.Test;
+import uk.co.real_logic.artio.Constants;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import static io.aeron.Publication.BACK_PRESSURED;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.ABORT;
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_SESSION_BUFFER_SIZE;
 import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_REASONABLE_TRANSMISSION_TIME_IN_MS;
@@ -178,6 +183,30 @@ public class AcceptorSessionTest extends AbstractSessionTest
         shouldStartAcceptLogonBasedSequenceNumberResetWhenSequenceNumberIsOne(SEQUENCE_INDEX);
     }
 
+    @Test
+    public void shouldUseAcceptedBeginStringOfLogon()
+    {
+        session.beginStrings(Constants.VERSION, "FIX.4.2");
+        final char[] beginString = "FIX.4.2".toCharArray();
+
+        assertTrue(session.onBeginString(beginString, beginString.length, true));
+
+        assertEquals("FIX.4.2", session.beginString());
+        verify(mockProxy).beginString(aryEq("FIX.4.2".getBytes(US_ASCII)));
+    }
+
+    @Test
+    public void shouldDisconnectIfBeginStringDiffersFromLogon()
+    {
+        session.beginStrings(Constants.VERSION, "FIX.4.2");
+        final char[] beginString = "FIX.4.2".toCharArray();
+        assertTrue(session.onBeginString(beginString, beginString.length, true));
+
+        assertFalse(session.onBeginString(Constants.VERSION_CHARS, Constants.VERSION_CHARS.length, false));
+        incorrectBeginStringLogout(1);
+        verifyDisconnect(times(1));
+    }
+
     protected void readyForLogon()
     {
         // Deliberately blank
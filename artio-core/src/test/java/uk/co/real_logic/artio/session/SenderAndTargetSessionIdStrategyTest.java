@@ -18,6 +18,7 @@ package uk.co.real_logic.artio.session;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Test;
+import uk.co.real_logic.artio.decoder.HeaderDecoder;
 
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +29,9 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static uk.co.real_logic.artio.session.SessionIdStrategy.INSUFFICIENT_SPACE;
 
 @SuppressWarnings("Indentation")
@@ -62,6 +66,23 @@ public class SenderAndTargetSessionIdStrategyTest
             }));
     }
 
+    @Test
+    public void looksUpTheEquivalentKeyFromAnAcceptedLogonHeader()
+    {
+        IDS.forEach((sender) ->
+            IDS.forEach((target) ->
+            {
+                final CompositeKey key = strategy.onInitiateLogon(sender, null, null, target, null, null);
+                final HeaderDecoder headerDecoder = acceptorHeader(target, sender);
+
+                assertEquals(key.hashCode(), strategy.acceptLogonHash(headerDecoder));
+                assertTrue(strategy.isAcceptLogonKey(key, headerDecoder));
+
+                final CompositeKey reversedKey = strategy.onInitiateLogon(target, null, null, sender, null, null);
+                assertEquals(sender.equals(target), strategy.isAcceptLogonKey(reversedKey, headerDecoder));
+            }));
+    }
+
     @Test
     public void savesAndLoadsACompositeKey()
     {
@@ -87,4 +108,16 @@ public class SenderAndTargetSessionIdStrategyTest
 
         assertEquals(INSUFFICIENT_SPACE, length);
     }
+
+    private HeaderDecoder acceptorHeader(final String acceptorSenderComp, final String acceptorTargetComp)
+    {
+        final HeaderDecoder headerDecoder = mock(HeaderDecoder.class);
+
+        when(headerDecoder.senderCompID()).thenReturn(acceptorSenderComp.toCharArray());
+        when(headerDecoder.senderCompIDLength()).thenReturn(acceptorSenderComp.length());
+        when(headerDecoder.targetCompID()).thenReturn(acceptorTargetComp.toCharArray());
+        when(headerDecoder.targetCompIDLength()).thenReturn(acceptorTargetComp.length());
+
+        return headerDecoder;
+    }
 }
@@ -26,7 +26,9 @@ import static java.util.stream.Collectors.toSet;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static uk.co.real_logic.artio.session.SenderAndTargetSessionIdStrategyTest.IDS;
@@ -75,17 +77,8 @@ public class SenderTargetAndSubSessionIdStrategyTest
                     final Object first = strategy.onInitiateLogon(
                         initiatorSenderComp, initiatorSenderSub, null, initiatorTargetComp, null, null);
 
-                    final String acceptorSenderComp = initiatorTargetComp;
-                    final String acceptorTargetComp = initiatorSenderComp;
-                    final String acceptorTargetSub = initiatorSenderSub;
-                    final HeaderDecoder headerDecoder = mock(HeaderDecoder.class);
-
-                    when(headerDecoder.senderCompID()).thenReturn(acceptorSenderComp.toCharArray());
-                    when(headerDecoder.senderCompIDLength()).thenReturn(acceptorSenderComp.length());
-                    when(headerDecoder.targetCompID()).thenReturn(acceptorTargetComp.toCharArray());
-                    when(headerDecoder.targetCompIDLength()).thenReturn(acceptorTargetComp.length());
-                    when(headerDecoder.targetSubID()).thenReturn(acceptorTargetSub.toCharArray());
-                    when(headerDecoder.targetSubIDLength()).thenReturn(acceptorTargetSub.length());
+                    final HeaderDecoder headerDecoder = acceptorHeader(
+                        initiatorTargetComp, initiatorSenderComp, initiatorSenderSub);
 
                     final Object second = strategy.onAcceptLogon(headerDecoder);
                     assertEquals(first, second);
@@ -93,6 +86,19 @@ public class SenderTargetAndSubSessionIdStrategyTest
                 })));
     }
 
+    @Test
+    public void looksUpTheEquivalentKeyFromAnAcceptedLogonHeader()
+    {
+        final CompositeKey key = strategy.onInitiateLogon("SIGMAX", "LEH_LZJ02", null, "ABC_DEFG04", null, null);
+        final CompositeKey otherKey = strategy.onInitiateLogon(
+            "SIGMAX", "ABC_DEFG04", null, "ABC_DEFG04", null, null);
+        final HeaderDecoder headerDecoder = acceptorHeader("ABC_DEFG04", "SIGMAX", "LEH_LZJ02");
+
+        assertEquals(key.hashCode(), strategy.acceptLogonHash(headerDecoder));
+        assertTrue(strategy.isAcceptLogonKey(key, headerDecoder));
+        assertFalse(strategy.isAcceptLogonKey(otherKey, headerDecoder));
+    }
+
     @Test
     public void savesAndLoadsACompositeKey()
     {
@@ -118,4 +124,19 @@ public class SenderTargetAndSubSessionIdStrategyTest
 
         assertEquals(INSUFFICIENT_SPACE, length);
     }
+
+    private HeaderDecoder acceptorHeader(
+        final String acceptorSenderComp, final String acceptorTargetComp, final String acceptorTargetSub)
+    {
+        final HeaderDecoder headerDecoder = mock(HeaderDecoder.class);
+
+        when(headerDecoder.senderCompID()).thenReturn(acceptorSenderComp.toCharArray());
+        when(headerDecoder.senderCompIDLength()).thenReturn(acceptorSenderComp.length());
+        when(headerDecoder.targetCompID()).thenReturn(acceptorTargetComp.toCharArray());
+        when(headerDecoder.targetCompIDLength()).thenReturn(acceptorTargetComp.length());
+        when(headerDecoder.targetSubID()).thenReturn(acceptorTargetSub.toCharArray());
+        when(headerDecoder.targetSubIDLength()).thenReturn(acceptorTargetSub.length());
+
+        return headerDecoder;
+    }
 }
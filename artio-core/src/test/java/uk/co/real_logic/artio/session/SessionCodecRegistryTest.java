@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SessionCodecRegistryTest
+{
+    private final SessionCodecRegistry<String> registry = new SessionCodecRegistry<String>()
+        .register("FIX.4.2", "fix42")
+        .register("FIX.4.4", "fix44")
+        .register("FIXT.1.1", "fixt")
+        .register("FIXT.1.1", "9", "fix50sp2");
+
+    @Test
+    public void shouldLookupCodecsByBeginString()
+    {
+        assertEquals("fix42", registry.lookup("FIX.4.2", null));
+        assertEquals("fix44", registry.lookup("FIX.4.4", null));
+    }
+
+    @Test
+    public void shouldPreferCodecsForDefaultApplVerId()
+    {
+        assertEquals("fix50sp2", registry.lookup("FIXT.1.1", "9"));
+        assertEquals("fixt", registry.lookup("FIXT.1.1", "7"));
+        assertEquals("fixt", registry.lookup("FIXT.1.1", null));
+    }
+
+    @Test
+    public void shouldNotFindCodecsForUnregisteredVersion()
+    {
+        assertNull(registry.lookup("FIX.4.0", null));
+    }
+
+    @Test
+    public void shouldListEachBeginStringOnce()
+    {
+        assertArrayEquals(new String[]{ "FIX.4.2", "FIX.4.4", "FIXT.1.1" }, registry.beginStrings());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotRegisterVersionTwice()
+    {
+        registry.register("FIX.4.2", "other");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldValidateBeginStringLength()
+    {
+        registry.register("FIX.4.4.SP2", "other");
+    }
+}
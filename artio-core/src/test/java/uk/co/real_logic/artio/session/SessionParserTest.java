@@ -91,6 +91,32 @@ public class SessionParserTest
         verify(mockSession, never()).onInvalidMessageType(anyInt(), any(), anyInt());
     }
 
+    @Test
+    public void shouldNotifySessionOfRateLimitedMessage()
+    {
+        final UnsafeBuffer buffer = bufferOf(
+            "8=FIX.4.2\0019=146\00135=D\00134=4\00149=abc\001" +
+            "52=20090323-15:40:29\00156=das\001115=XYZ\00111=NF 0542/03232009\00154=1\00138=100\001" +
+            "55=CVS\00140=1\00159=0\00147=A\00160=20090323-15:40:29\00121=1\001207=N\00110=195\001");
+
+        parser.onRateLimitedMessage(buffer, 0, buffer.capacity());
+
+        verify(mockSession).onRateLimitedMessage(eq(4), any(byte[].class), eq(1), anyLong(), anyLong(), eq(false));
+        verify(mockSession, never()).onMessage(anyInt(), any(), anyInt(), anyLong(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void shouldNotFindDefaultApplVerIdIfMissing()
+    {
+        final UnsafeBuffer buffer = bufferOf(
+            "8=FIXT.1.1\0019=61\00135=A\00134=1\00149=abc\00152=20090323-15:40:29\00156=das\001" +
+            "98=0\001108=10\00110=000\001");
+
+        parser.onMessage(buffer, 0, buffer.capacity(), 'A', 1);
+
+        verify(mockSession).defaultApplVerId(null);
+    }
+
     private UnsafeBuffer bufferOf(final String str)
     {
         return new UnsafeBuffer(str.getBytes(US_ASCII));
@@ -37,6 +37,11 @@ public final class BenchmarkConfiguration
     public static final int MAX_MESSAGES_IN_FLIGHT = Integer.getInteger("fix.benchmark.max_messages_in_flight", 20);
     public static final int SEND_RATE_PER_SECOND = Integer.getInteger("fix.benchmark.send_rate_sec", 1_000);
     public static final int NUMBER_OF_SESSIONS = Integer.getInteger("fix.benchmark.num_sessions", 1);
+    public static final String CLUSTER_AERON_CHANNEL = System.getProperty(
+        "fix.benchmark.cluster_aeron_channel", "aeron:udp?endpoint=224.0.1.1:40456|interface=localhost");
+    public static final int CLUSTER_TIMEOUT_IN_MS = Integer.getInteger("fix.benchmark.cluster_timeout", 1_000);
+    public static final String HISTOGRAM_LOG_FILE =
+        System.getProperty("fix.benchmark.histogram_log", "cluster-benchmark-histograms.log");
 
     static IdleStrategy idleStrategy()
     {
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.system_benchmarks;
+
+import org.HdrHistogram.Histogram;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.IntHashSet;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.builder.Encoder;
+import uk.co.real_logic.artio.builder.TestRequestEncoder;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.timing.HistogramLogReader;
+import uk.co.real_logic.artio.timing.HistogramLogWriter;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.agrona.concurrent.AgentRunner.startOnThread;
+import static uk.co.real_logic.artio.system_benchmarks.BenchmarkConfiguration.*;
+
+/**
+ * Benchmarks a three node cluster that runs in a single process, each node with its own embedded media driver,
+ * over the {@link BenchmarkConfiguration#CLUSTER_AERON_CHANNEL}. All the nodes publish and subscribe to this
+ * channel so it needs to be a multicast UDP channel.
+ *
+ * FIX messages are published through the leader and the benchmark reports their commit latency, the throughput
+ * of the cluster, the time that followers take to catch up with the leader and the time it takes to elect a new
+ * leader after the leader has been killed. The latency histograms are also written to the
+ * {@link BenchmarkConfiguration#HISTOGRAM_LOG_FILE} in a format that can be read by {@link HistogramLogReader}.
+ */
+public final class ClusterBenchmark
+{
+    private static final short[] NODE_IDS = { 1, 2, 3 };
+    private static final int COMMIT_LATENCY_ID = 1;
+    private static final int APPLY_LATENCY_ID = 2;
+    private static final long TIMEOUT_IN_NS = SECONDS.toNanos(60);
+    private static final double MICROS_SCALING_FACTOR = 1000;
+
+    private final List<ClusterBenchmarkNode> nodes = new ArrayList<>();
+    private final List<AgentRunner> runners = new ArrayList<>();
+    private final IdleStrategy idleStrategy = idleStrategy();
+
+    public static void main(final String[] args)
+    {
+        new ClusterBenchmark().runBenchmark();
+    }
+
+    private void runBenchmark()
+    {
+        System.out.printf("Using %s idle strategy on %s%n",
+            idleStrategy.getClass().getSimpleName(), CLUSTER_AERON_CHANNEL);
+
+        try
+        {
+            final long startTimeInNs = System.nanoTime();
+            launchNodes();
+
+            final ClusterBenchmarkNode leader = awaitLeader();
+            System.out.printf("Node %d elected leader in %d ms%n",
+                leader.nodeId(), NANOSECONDS.toMillis(leader.becameLeaderTimeInNs() - startTimeInNs));
+
+            sendMessages(leader, WARMUP_MESSAGES);
+            awaitFollowersCatchingUp(leader);
+            resetHistograms();
+            System.out.println("Warmup Complete");
+
+            final long runStartTimeInNs = System.nanoTime();
+            sendMessages(leader, MESSAGES_EXCHANGED);
+            final long runEndTimeInNs = System.nanoTime();
+            final long caughtUpTimeInNs = awaitFollowersCatchingUp(leader);
+
+            printThroughput(runEndTimeInNs - runStartTimeInNs, MESSAGES_EXCHANGED);
+            System.out.printf("Followers caught up %d us after the last commit%n",
+                NANOSECONDS.toMicros(caughtUpTimeInNs - runEndTimeInNs));
+            printAndLogHistograms(leader);
+
+            killLeaderAndAwaitElection(leader);
+        }
+        finally
+        {
+            Exceptions.closeAll(runners);
+        }
+    }
+
+    private void launchNodes()
+    {
+        final DirectBuffer message = fixMessage();
+        for (final short nodeId : NODE_IDS)
+        {
+            final IntHashSet otherNodes = new IntHashSet();
+            for (final short otherNodeId : NODE_IDS)
+            {
+                if (otherNodeId != nodeId)
+                {
+                    otherNodes.add(otherNodeId);
+                }
+            }
+
+            final ClusterBenchmarkNode node = new ClusterBenchmarkNode(
+                nodeId,
+                otherNodes,
+                CLUSTER_AERON_CHANNEL,
+                CLUSTER_TIMEOUT_IN_MS,
+                message,
+                MAX_MESSAGES_IN_FLIGHT);
+            final AgentRunner runner = new AgentRunner(idleStrategy(), Throwable::printStackTrace, null, node);
+            nodes.add(node);
+            runners.add(runner);
+            startOnThread(runner);
+        }
+    }
+
+    private void killLeaderAndAwaitElection(final ClusterBenchmarkNode leader)
+    {
+        final int leaderIndex = nodes.indexOf(leader);
+        final long killTimeInNs = System.nanoTime();
+        runners.remove(leaderIndex).close();
+        nodes.remove(leaderIndex);
+
+        final ClusterBenchmarkNode newLeader = awaitLeader();
+        System.out.printf("Node %d elected leader %d ms after node %d was killed%n",
+            newLeader.nodeId(), NANOSECONDS.toMillis(newLeader.becameLeaderTimeInNs() - killTimeInNs), leader.nodeId());
+
+        final long sendTimeInNs = System.nanoTime();
+        sendMessages(newLeader, WARMUP_MESSAGES);
+        final long caughtUpTimeInNs = awaitFollowersCatchingUp(newLeader);
+        System.out.printf("%d messages committed and caught up by followers in %d ms after failover%n",
+            WARMUP_MESSAGES, NANOSECONDS.toMillis(caughtUpTimeInNs - sendTimeInNs));
+    }
+
+    private ClusterBenchmarkNode awaitLeader()
+    {
+        final ClusterBenchmarkNode[] leader = new ClusterBenchmarkNode[1];
+        await("a leader to be elected", () ->
+        {
+            for (final ClusterBenchmarkNode node : nodes)
+            {
+                if (node.isLeader())
+                {
+                    leader[0] = node;
+                    return true;
+                }
+            }
+
+            return false;
+        });
+
+        return leader[0];
+    }
+
+    private void sendMessages(final ClusterBenchmarkNode leader, final int messageCount)
+    {
+        final long messagesCommitted = leader.messagesCommitted() + messageCount;
+        leader.send(messageCount);
+        await("messages to be committed", () -> leader.messagesCommitted() >= messagesCommitted);
+    }
+
+    private long awaitFollowersCatchingUp(final ClusterBenchmarkNode leader)
+    {
+        final long leaderPosition = leader.appliedPosition();
+        await("followers to catch up", () ->
+        {
+            for (final ClusterBenchmarkNode node : nodes)
+            {
+                if (node.appliedPosition() < leaderPosition)
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        });
+
+        return System.nanoTime();
+    }
+
+    private void resetHistograms()
+    {
+        nodes.forEach(ClusterBenchmarkNode::resetHistograms);
+        await("histograms to be reset", () -> nodes.stream().allMatch(ClusterBenchmarkNode::histogramsReset));
+    }
+
+    private void await(final String description, final BooleanSupplier condition)
+    {
+        final long deadlineInNs = System.nanoTime() + TIMEOUT_IN_NS;
+        while (!condition.getAsBoolean())
+        {
+            if (System.nanoTime() > deadlineInNs)
+            {
+                throw new IllegalStateException("Timed out waiting for " + description);
+            }
+
+            idleStrategy.idle();
+        }
+
+        idleStrategy.reset();
+    }
+
+    private void printAndLogHistograms(final ClusterBenchmarkNode leader)
+    {
+        final Histogram commitLatency = leader.commitLatency().copy();
+        final Histogram applyLatency = new Histogram(3);
+        for (final ClusterBenchmarkNode node : nodes)
+        {
+            if (node != leader)
+            {
+                applyLatency.add(node.applyLatency());
+            }
+        }
+
+        final long timeInMs = System.currentTimeMillis();
+        HistogramLogReader.prettyPrint(timeInMs, commitLatency, "Commit Latency in Micros", MICROS_SCALING_FACTOR);
+        HistogramLogReader.prettyPrint(
+            timeInMs, applyLatency, "Follower Apply Latency in Micros", MICROS_SCALING_FACTOR);
+
+        try (HistogramLogWriter writer = new HistogramLogWriter(2, HISTOGRAM_LOG_FILE, Throwable::printStackTrace))
+        {
+            writer.identifyTimer(COMMIT_LATENCY_ID, "Commit Latency");
+            writer.identifyTimer(APPLY_LATENCY_ID, "Follower Apply Latency");
+            writer.onEndTimerIdentification();
+            writer.onBeginTimerUpdate(timeInMs);
+            writer.onTimerUpdate(COMMIT_LATENCY_ID, commitLatency);
+            writer.onTimerUpdate(APPLY_LATENCY_ID, applyLatency);
+            writer.onEndTimerUpdate();
+        }
+
+        System.out.printf("Histograms written to %s%n", HISTOGRAM_LOG_FILE);
+    }
+
+    private static void printThroughput(final long durationInNs, final int messageCount)
+    {
+        final long durationInMs = Math.max(1, NANOSECONDS.toMillis(durationInNs));
+        System.out.printf("%d messages committed in %d ms%n", messageCount, durationInMs);
+        System.out.printf("%G messages / s%n", (double)messageCount / durationInMs * MILLISECONDS.convert(1, SECONDS));
+    }
+
+    private static DirectBuffer fixMessage()
+    {
+        final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
+        timestampEncoder.encode(System.currentTimeMillis());
+
+        final TestRequestEncoder testRequest = new TestRequestEncoder();
+        testRequest.testReqID("a");
+        testRequest.header()
+            .sendingTime(timestampEncoder.buffer())
+            .senderCompID(INITIATOR_ID)
+            .targetCompID(ACCEPTOR_ID)
+            .msgSeqNum(1);
+
+        final MutableAsciiBuffer buffer = new MutableAsciiBuffer(new byte[1024]);
+        final long result = testRequest.encode(buffer, 0);
+
+        return new UnsafeBuffer(buffer, Encoder.offset(result), Encoder.length(result));
+    }
+}
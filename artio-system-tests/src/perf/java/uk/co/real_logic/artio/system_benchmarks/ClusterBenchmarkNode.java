@@ -0,0 +1,316 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.system_benchmarks;
+
+import io.aeron.Aeron;
+import io.aeron.driver.MediaDriver;
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
+import io.aeron.logbuffer.ExclusiveBufferClaim;
+import org.HdrHistogram.Histogram;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntHashSet;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.CompletionPosition;
+import uk.co.real_logic.artio.engine.logger.ArchiveMetaData;
+import uk.co.real_logic.artio.engine.logger.ArchiveReader;
+import uk.co.real_logic.artio.engine.logger.Archiver;
+import uk.co.real_logic.artio.replication.*;
+
+import java.io.File;
+
+import static io.aeron.CommonContext.AERON_DIR_PROP_DEFAULT;
+import static io.aeron.driver.ThreadingMode.SHARED;
+import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.SIZE_OF_SHORT;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_LOGGER_CACHE_NUM_SETS;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_LOGGER_CACHE_SET_SIZE;
+import static uk.co.real_logic.artio.engine.logger.LoggerUtil.newArchiveMetaData;
+import static uk.co.real_logic.artio.replication.ClusterConfiguration.DEFAULT_DATA_STREAM_ID;
+import static uk.co.real_logic.artio.replication.ReservedValue.NO_FILTER;
+
+/**
+ * A node of the benchmarked cluster, run on its own thread with its own embedded media driver.
+ *
+ * When it's the leader it publishes the messages that it has been asked to send, each prefixed with the time it
+ * was sent and the id of the node that sent it. Messages are only received once they've been committed, so the
+ * leader times the commit latency of its own messages and followers time how long it took them to be applied.
+ */
+final class ClusterBenchmarkNode implements Agent, ClusterFragmentHandler, RoleHandler, NodeStateHandler
+{
+    private static final int CLUSTER_STREAM_ID = 1;
+    private static final int FRAGMENT_LIMIT = 10;
+    private static final int SENT_TIME_OFFSET = 0;
+    private static final int NODE_ID_OFFSET = SENT_TIME_OFFSET + SIZE_OF_LONG;
+    private static final int MESSAGE_OFFSET = NODE_ID_OFFSET + SIZE_OF_INT;
+
+    private final ExclusiveBufferClaim bufferClaim = new ExclusiveBufferClaim();
+    private final Histogram commitLatency = new Histogram(3);
+    private final Histogram applyLatency = new Histogram(3);
+    private final CompletionPosition completionPosition = new CompletionPosition();
+
+    private final short nodeId;
+    private final DirectBuffer message;
+    private final int maxMessagesInFlight;
+    private final MediaDriver mediaDriver;
+    private final Aeron aeron;
+    private final ClusterAgent clusterAgent;
+    private final ClusterableSubscription subscription;
+    private final ClusterablePublication publication;
+
+    // Written by the main thread
+    private volatile long messagesToSend;
+    private volatile boolean resetRequested;
+
+    // Written by the node's thread
+    private volatile boolean isLeader;
+    private volatile long becameLeaderTimeInNs;
+    private volatile long appliedPosition;
+    private volatile long messagesCommitted;
+    private volatile boolean histogramsReset;
+    private long messagesSent;
+
+    ClusterBenchmarkNode(
+        final short nodeId,
+        final IntHashSet otherNodes,
+        final String aeronChannel,
+        final long timeoutIntervalInMs,
+        final DirectBuffer message,
+        final int maxMessagesInFlight)
+    {
+        this.nodeId = nodeId;
+        this.message = message;
+        this.maxMessagesInFlight = maxMessagesInFlight;
+
+        final String logFileDir = logFileDir(nodeId);
+        final File dir = new File(logFileDir);
+        if (dir.exists())
+        {
+            IoUtil.delete(dir, false);
+        }
+
+        final MediaDriver.Context context = new MediaDriver.Context()
+            .threadingMode(SHARED)
+            .dirDeleteOnStart(true)
+            .aeronDirectoryName(AERON_DIR_PROP_DEFAULT + "-cluster-benchmark-" + nodeId);
+        mediaDriver = MediaDriver.launch(context);
+        aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(context.aeronDirectoryName()));
+
+        final StreamIdentifier dataStream = new StreamIdentifier(aeronChannel, DEFAULT_DATA_STREAM_ID);
+        final ArchiveMetaData metaData = newArchiveMetaData(logFileDir);
+        final ArchiveReader archiveReader = new ArchiveReader(
+            metaData, DEFAULT_LOGGER_CACHE_NUM_SETS, DEFAULT_LOGGER_CACHE_SET_SIZE, dataStream, NO_FILTER);
+        final Archiver archiver = new Archiver(
+            metaData, DEFAULT_LOGGER_CACHE_NUM_SETS, DEFAULT_LOGGER_CACHE_SET_SIZE, dataStream, nodeId + "-",
+            completionPosition);
+        final UnsafeBuffer nodeState = new UnsafeBuffer(new byte[SIZE_OF_SHORT]);
+        nodeState.putShort(0, nodeId);
+
+        final ClusterConfiguration configuration = new ClusterConfiguration()
+            .nodeId(nodeId)
+            .aeron(aeron)
+            .otherNodes(otherNodes)
+            .timeoutIntervalInMs(timeoutIntervalInMs)
+            .failCounter(aeron.addCounter(0, "Failed raft publications for node " + nodeId))
+            .aeronChannel(aeronChannel)
+            .archiver(archiver)
+            .archiveReaderSupplier(() -> archiveReader)
+            .nodeState(nodeState)
+            .nodeStateHandler(this)
+            .nodeHandler(this)
+            .agentNamePrefix(nodeId + "-");
+
+        clusterAgent = new ClusterAgent(configuration, System.currentTimeMillis());
+        final ClusterableStreams clusterStreams = clusterAgent.clusterStreams();
+        subscription = clusterStreams.subscription(CLUSTER_STREAM_ID, "benchmark");
+        publication = clusterStreams.publication(CLUSTER_STREAM_ID, "benchmark");
+    }
+
+    static String logFileDir(final short nodeId)
+    {
+        return "cluster_benchmark_logs" + File.separator + "node" + nodeId;
+    }
+
+    public int doWork()
+    {
+        if (resetRequested)
+        {
+            commitLatency.reset();
+            applyLatency.reset();
+            resetRequested = false;
+            histogramsReset = true;
+        }
+
+        int work = clusterAgent.doWork();
+        isLeader = clusterAgent.isLeader();
+
+        if (isLeader)
+        {
+            work += sendMessages();
+        }
+
+        return work + subscription.poll(this, FRAGMENT_LIMIT);
+    }
+
+    private int sendMessages()
+    {
+        final long messagesToSend = this.messagesToSend;
+        final long maxMessagesSent = messagesCommitted + maxMessagesInFlight;
+        final int length = MESSAGE_OFFSET + message.capacity();
+        int work = 0;
+
+        while (messagesSent < messagesToSend && messagesSent < maxMessagesSent)
+        {
+            if (publication.tryClaim(length, bufferClaim) < 0)
+            {
+                break;
+            }
+
+            final MutableDirectBuffer buffer = bufferClaim.buffer();
+            final int offset = bufferClaim.offset();
+            buffer.putLong(offset + SENT_TIME_OFFSET, System.nanoTime());
+            buffer.putInt(offset + NODE_ID_OFFSET, nodeId);
+            buffer.putBytes(offset + MESSAGE_OFFSET, message, 0, message.capacity());
+            bufferClaim.commit();
+
+            messagesSent++;
+            work++;
+        }
+
+        return work;
+    }
+
+    public Action onFragment(final DirectBuffer buffer, final int offset, final int length, final ClusterHeader header)
+    {
+        final long latencyInNs = System.nanoTime() - buffer.getLong(offset + SENT_TIME_OFFSET);
+        if (buffer.getInt(offset + NODE_ID_OFFSET) == nodeId)
+        {
+            commitLatency.recordValue(latencyInNs);
+            messagesCommitted++;
+        }
+        else
+        {
+            applyLatency.recordValue(latencyInNs);
+        }
+
+        appliedPosition = header.position();
+
+        return CONTINUE;
+    }
+
+    /**
+     * Ask the node to publish more messages, only call this on the leader.
+     *
+     * @param messageCount the number of messages to send.
+     */
+    void send(final long messageCount)
+    {
+        messagesToSend += messageCount;
+    }
+
+    void resetHistograms()
+    {
+        histogramsReset = false;
+        resetRequested = true;
+    }
+
+    boolean histogramsReset()
+    {
+        return histogramsReset;
+    }
+
+    short nodeId()
+    {
+        return nodeId;
+    }
+
+    boolean isLeader()
+    {
+        return isLeader;
+    }
+
+    long becameLeaderTimeInNs()
+    {
+        return becameLeaderTimeInNs;
+    }
+
+    long appliedPosition()
+    {
+        return appliedPosition;
+    }
+
+    long messagesCommitted()
+    {
+        return messagesCommitted;
+    }
+
+    Histogram commitLatency()
+    {
+        return commitLatency;
+    }
+
+    Histogram applyLatency()
+    {
+        return applyLatency;
+    }
+
+    public void onTransitionToLeader(final int leadershipTerm)
+    {
+        becameLeaderTimeInNs = System.nanoTime();
+    }
+
+    public void onTransitionToFollower(final int leadershipTerm)
+    {
+    }
+
+    public void onTransitionToCandidate(final int leadershipTerm)
+    {
+    }
+
+    public void onNewNodeState(
+        final short nodeId, final int aeronSessionId, final DirectBuffer nodeStateBuffer, final int nodeStateLength)
+    {
+    }
+
+    public void onNewLeader(final int leaderSessionId)
+    {
+    }
+
+    public void noLeader()
+    {
+    }
+
+    public String roleName()
+    {
+        return "ClusterBenchmarkNode-" + nodeId;
+    }
+
+    public void onClose()
+    {
+        isLeader = false;
+        completionPosition.complete(new Long2LongHashMap(CompletionPosition.MISSING_VALUE));
+        clusterAgent.onClose();
+        CloseHelper.close(aeron);
+        CloseHelper.close(mediaDriver);
+        IoUtil.delete(new File(mediaDriver.aeronDirectoryName()), true);
+    }
+}
@@ -21,26 +21,36 @@ import uk.co.real_logic.artio.Constants;
 import uk.co.real_logic.artio.Reply;
 import uk.co.real_logic.artio.builder.ExampleMessageEncoder;
 import uk.co.real_logic.artio.builder.ResendRequestEncoder;
+import uk.co.real_logic.artio.builder.TestRequestEncoder;
 import uk.co.real_logic.artio.engine.FixEngine;
 import uk.co.real_logic.artio.engine.SessionInfo;
+import uk.co.real_logic.artio.engine.SessionStateTableReader;
+import uk.co.real_logic.artio.engine.logger.FixArchiveTailer;
 import uk.co.real_logic.artio.engine.framer.LibraryInfo;
 import uk.co.real_logic.artio.library.FixLibrary;
 import uk.co.real_logic.artio.library.LibraryConfiguration;
 import uk.co.real_logic.artio.messages.SessionReplyStatus;
 import uk.co.real_logic.artio.messages.SessionState;
 import uk.co.real_logic.artio.session.CompositeKey;
+import uk.co.real_logic.artio.session.MessageBatch;
 import uk.co.real_logic.artio.session.Session;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.IntSupplier;
 
+import static io.aeron.CommonContext.IPC_CHANNEL;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_REPLY_TIMEOUT_IN_MS;
 import static uk.co.real_logic.artio.Constants.*;
 import static uk.co.real_logic.artio.FixMatchers.*;
 import static uk.co.real_logic.artio.TestFixtures.launchMediaDriver;
 import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
+import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
+import static uk.co.real_logic.artio.engine.logger.FixArchiveScanner.MessageType.RECEIVED;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.messageTypeOf;
 import static uk.co.real_logic.artio.library.FixLibrary.NO_MESSAGE_REPLAY;
 import static uk.co.real_logic.artio.messages.SessionReplyStatus.OK;
 import static uk.co.real_logic.artio.messages.SessionReplyStatus.SEQUENCE_NUMBER_TOO_HIGH;
@@ -79,6 +89,74 @@ public class GatewayToGatewaySystemTest extends AbstractGatewayToGatewaySystemTe
         assertInitiatingSequenceIndexIs(0);
     }
 
+    @Test
+    public void messagesCanBeSentInABatch()
+    {
+        final MessageBatch batch = initiatingLibrary.newMessageBatch();
+        batch.add(initiatingSession, new TestRequestEncoder().testReqID("first"));
+        batch.add(initiatingSession, new TestRequestEncoder().testReqID("second"));
+
+        assertThat(batch.send(), greaterThan(0L));
+
+        assertReceivedSingleHeartbeat(testSystem, initiatingOtfAcceptor, "first");
+        assertReceivedSingleHeartbeat(testSystem, initiatingOtfAcceptor, "second");
+    }
+
+    @Test
+    public void archiveCanBeTailedWhileMessagesAreReceived()
+    {
+        final List<String> tailedMessages = new ArrayList<>();
+        try (FixArchiveTailer tailer = new FixArchiveTailer(
+            ACCEPTOR_LOGS, IPC_CHANNEL, RECEIVED, messageTypeOf(TEST_REQUEST_MESSAGE_AS_STR)))
+        {
+            tailer.poll((message, buffer, offset, length, header) -> tailedMessages.add(message.body()), 100);
+            tailedMessages.clear();
+
+            final String testReqID = testReqId();
+            sendTestRequest(initiatingSession, testReqID);
+            assertReceivedSingleHeartbeat(testSystem, initiatingOtfAcceptor, testReqID);
+
+            assertEventuallyTrue("Never tailed the test request", () ->
+            {
+                tailer.poll((message, buffer, offset, length, header) -> tailedMessages.add(message.body()), 100);
+                return tailedMessages.size() == 1;
+            });
+            assertThat(tailedMessages.get(0), containsString("112=" + testReqID));
+        }
+    }
+
+    @Test
+    public void sessionStateCanBeReadWithoutRequestingItFromTheEngine()
+    {
+        try (SessionStateTableReader reader = SessionStateTableReader.open(ACCEPTOR_LOGS))
+        {
+            final IntSupplier lastReceivedSequenceNumber = () ->
+            {
+                final int[] sequenceNumber = { UNK_SESSION };
+                reader.forEach(entry ->
+                {
+                    if (entry.remoteCompId().equals(INITIATOR_ID) && entry.state() == SessionState.ACTIVE)
+                    {
+                        assertEquals(ACCEPTOR_ID, entry.localCompId());
+                        sequenceNumber[0] = entry.lastReceivedSequenceNumber();
+                    }
+                });
+                return sequenceNumber[0];
+            };
+
+            assertEventuallyTrue("Never published the accepted session",
+                () -> lastReceivedSequenceNumber.getAsInt() != UNK_SESSION);
+            final int sequenceNumberBeforeTestRequest = lastReceivedSequenceNumber.getAsInt();
+
+            final String testReqID = testReqId();
+            sendTestRequest(initiatingSession, testReqID);
+            assertReceivedSingleHeartbeat(testSystem, initiatingOtfAcceptor, testReqID);
+
+            assertEventuallyTrue("Never published the test request's sequence number",
+                () -> lastReceivedSequenceNumber.getAsInt() > sequenceNumberBeforeTestRequest);
+        }
+    }
+
     @Test
     public void messagesCanBeSentFromInitiatorToAcceptingLibrary()
     {
@@ -396,6 +474,26 @@ public class GatewayToGatewaySystemTest extends AbstractGatewayToGatewaySystemTe
         assertInitiatingSequenceIndexIs(1);
     }
 
+    @Test
+    public void librariesShouldBeAbleToReplayMessagesOnDemand()
+    {
+        acquireAcceptingSession();
+
+        final String testReqID = largeTestReqId();
+        final FixMessage message = exchangeExampleMessageFromInitiatorToAcceptor(testReqID);
+        final int sequenceNumber = message.getMessageSequenceNumber();
+        clearMessages();
+
+        final Reply<SessionReplyStatus> reply = testSystem.awaitReply(acceptingLibrary.replayMessages(
+            acceptingSession.id(), sequenceNumber, 0, sequenceNumber, 0, DEFAULT_REPLY_TIMEOUT_IN_MS));
+        assertEquals(OK, reply.resultIfPresent());
+
+        final FixMessage replayedMessage = testSystem.await(acceptingOtfAcceptor, EXAMPLE_MESSAGE_MESSAGE_AS_STR);
+        assertThat(replayedMessage, hasMessageSequenceNumber(sequenceNumber));
+        assertEquals("Y", replayedMessage.getPossDup());
+        assertEquals(testReqID, replayedMessage.getTestReqId());
+    }
+
     @Test
     public void enginesShouldManageAcceptingSession()
     {
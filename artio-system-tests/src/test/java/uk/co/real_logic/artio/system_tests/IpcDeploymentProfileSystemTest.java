@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2017 Real Logic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.system_tests;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.CloseChecker;
+import uk.co.real_logic.artio.IpcDeploymentProfile;
+import uk.co.real_logic.artio.engine.FixEngine;
+
+import static uk.co.real_logic.artio.system_tests.SystemTestUtil.*;
+
+public class IpcDeploymentProfileSystemTest extends AbstractGatewayToGatewaySystemTest
+{
+    @Before
+    public void launch()
+    {
+        delete(ACCEPTOR_LOGS);
+
+        final IpcDeploymentProfile profile = new IpcDeploymentProfile()
+            .expectedMessagesPerSecond(1_000)
+            .expectedSessions(1)
+            .runDriverOnEngineThread(true)
+            .launchMediaDriver();
+        mediaDriver = profile.mediaDriver();
+        CloseChecker.onOpen(profile.aeronDirectoryName(), mediaDriver);
+
+        acceptingEngine = FixEngine.launch(profile.applyTo(acceptingConfig(port, ACCEPTOR_ID, INITIATOR_ID)));
+        initiatingEngine = launchInitiatingEngine(libraryAeronPort);
+
+        acceptingLibrary = connect(profile.applyTo(acceptingLibraryConfig(acceptingHandler)));
+        initiatingLibrary = newInitiatingLibrary(libraryAeronPort, initiatingHandler);
+        testSystem = new TestSystem(acceptingLibrary, initiatingLibrary);
+
+        connectSessions();
+    }
+
+    @Test
+    public void messagesCanBeSentFromInitiatorToAcceptor()
+    {
+        messagesCanBeExchanged();
+    }
+}
@@ -15,15 +15,19 @@
  */
 package uk.co.real_logic.artio.system_tests;
 
+import org.agrona.CloseHelper;
 import org.agrona.IoUtil;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import uk.co.real_logic.artio.Constants;
 import uk.co.real_logic.artio.Reply;
+import uk.co.real_logic.artio.Timing;
 import uk.co.real_logic.artio.builder.ResendRequestEncoder;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
 import uk.co.real_logic.artio.engine.FixEngine;
+import uk.co.real_logic.artio.engine.OutboundWeightStrategy;
+import uk.co.real_logic.artio.engine.StandbyEngine;
 import uk.co.real_logic.artio.library.DynamicLibraryScheduler;
 import uk.co.real_logic.artio.library.SessionConfiguration;
 import uk.co.real_logic.artio.messages.SessionReplyStatus;
@@ -31,6 +35,7 @@ import uk.co.real_logic.artio.session.Session;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -39,6 +44,8 @@ import static org.junit.Assert.*;
 import static uk.co.real_logic.artio.Constants.LOGOUT_MESSAGE_AS_STR;
 import static uk.co.real_logic.artio.Constants.SEQUENCE_RESET_MESSAGE_AS_STR;
 import static uk.co.real_logic.artio.TestFixtures.launchMediaDriver;
+import static uk.co.real_logic.artio.TestFixtures.unusedPort;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_SESSION_ID_FILE;
 import static uk.co.real_logic.artio.library.FixLibrary.NO_MESSAGE_REPLAY;
 import static uk.co.real_logic.artio.library.SessionConfiguration.AUTOMATIC_INITIAL_SEQUENCE_NUMBER;
 import static uk.co.real_logic.artio.messages.SessionReplyStatus.MISSING_MESSAGES;
@@ -53,6 +60,7 @@ public class PersistentSequenceNumberGatewayToGatewaySystemTest extends Abstract
     private static final long TEST_TIMEOUT = 10_000L;
     private static final int DOES_NOT_MATTER = -1;
     private static final int DEFAULT_SEQ_NUM_AFTER = 4;
+    private static final String STANDBY_LOGS = "standby-logs";
 
     private File backupLocation = null;
 
@@ -69,22 +77,31 @@ public class PersistentSequenceNumberGatewayToGatewaySystemTest extends Abstract
         assertConnected(initiatingSession);
     };
 
+    private Runnable beforeRestart = this::nothing;
     private Runnable duringRestart = this::nothing;
     private Runnable beforeReconnect = this::nothing;
     private boolean printErrorMessages = true;
     private boolean resetSequenceNumbersOnLogon = false;
+    private boolean parallelIndexing = false;
+    private OutboundWeightStrategy outboundWeightStrategy = null;
+    private int receiverResidualBufferSize = 0;
+    private String standbyAeronChannel = null;
+    private StandbyEngine standbyEngine = null;
 
     @Before
     public void setUp() throws IOException
     {
         deleteAcceptorLogs();
         delete(CLIENT_LOGS);
+        delete(STANDBY_LOGS);
         backupLocation = File.createTempFile("backup", "tmp");
     }
 
     @After
     public void cleanupBackup()
     {
+        CloseHelper.close(standbyEngine);
+
         if (null != backupLocation)
         {
             assertTrue("Failed to delete: " + backupLocation, backupLocation.delete());
@@ -162,6 +179,40 @@ public class PersistentSequenceNumberGatewayToGatewaySystemTest extends Abstract
         assertSequenceIndicesAre(0);
     }
 
+    @Test(timeout = TEST_TIMEOUT)
+    public void messagesCanBeReplayedOverRestartWithParallelIndexing()
+    {
+        parallelIndexing = true;
+
+        messagesCanBeReplayedOverRestart();
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void messagesCanBeReplayedOverRestartWithOutboundScheduling()
+    {
+        outboundWeightStrategy = OutboundWeightStrategy.equalWeights();
+
+        messagesCanBeReplayedOverRestart();
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void messagesCanBeReplayedOverRestartWithPooledReceiveBuffers()
+    {
+        receiverResidualBufferSize = 64;
+
+        messagesCanBeReplayedOverRestart();
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void messagesCanBeReplayedAfterStandbyTakesOver()
+    {
+        standbyAeronChannel = "aeron:udp?endpoint=localhost:" + unusedPort();
+        beforeRestart = this::awaitStandbyCatchingUp;
+        duringRestart = this::takeOverFromStandby;
+
+        messagesCanBeReplayedOverRestart();
+    }
+
     @Test(timeout = TEST_TIMEOUT)
     public void customInitialSequenceNumbersCanBeSet()
     {
@@ -252,7 +303,19 @@ public class PersistentSequenceNumberGatewayToGatewaySystemTest extends Abstract
         final EngineConfiguration config = acceptingConfig(port, ACCEPTOR_ID, INITIATOR_ID);
         config.sessionPersistenceStrategy(logon -> REPLICATED);
         config.printErrorMessages(printErrorMessages);
+        config.parallelIndexing(parallelIndexing);
+        config.outboundWeightStrategy(outboundWeightStrategy);
+        config.receiverResidualBufferSize(receiverResidualBufferSize);
+        config.standbyAeronChannel(standbyAeronChannel);
+        config.standbySnapshotIntervalInMs(10);
         acceptingEngine = FixEngine.launch(config);
+        if (standbyAeronChannel != null)
+        {
+            standbyEngine = StandbyEngine.launch(acceptingConfig(port, ACCEPTOR_ID, INITIATOR_ID)
+                .logFileDir(STANDBY_LOGS)
+                .monitoringFile(acceptorMonitoringFile("standbyCounters"))
+                .standbyAeronChannel(standbyAeronChannel));
+        }
         initiatingEngine = launchInitiatingEngineWithSameLogs(libraryAeronPort);
 
         // Use so that the SharedLibraryScheduler is integration tested
@@ -307,6 +370,7 @@ public class PersistentSequenceNumberGatewayToGatewaySystemTest extends Abstract
         assertSessionsDisconnected();
 
         assertInitiatingSequenceIndexIs(0);
+        beforeRestart.run();
         clearMessages();
         close();
 
@@ -391,6 +455,33 @@ public class PersistentSequenceNumberGatewayToGatewaySystemTest extends Abstract
         }
     }
 
+    private void awaitStandbyCatchingUp()
+    {
+        final long sessionId = acceptingSession.id();
+        final int lastSentSequenceNumber = acceptingSession.lastSentMsgSeqNum();
+        final int lastReceivedSequenceNumber = acceptingSession.lastReceivedMsgSeqNum();
+        final File sessionIds = new File(ACCEPTOR_LOGS, DEFAULT_SESSION_ID_FILE);
+        final File standbySessionIds = new File(STANDBY_LOGS, DEFAULT_SESSION_ID_FILE);
+
+        Timing.assertEventuallyTrue("Standby hasn't caught up with the primary", () ->
+        {
+            assertEquals(lastSentSequenceNumber, standbyEngine.lastSentSequenceNumber(sessionId));
+            assertEquals(lastReceivedSequenceNumber, standbyEngine.lastReceivedSequenceNumber(sessionId));
+            assertArrayEquals(
+                Files.readAllBytes(sessionIds.toPath()), Files.readAllBytes(standbySessionIds.toPath()));
+        });
+
+        standbyEngine.close();
+        standbyEngine = null;
+    }
+
+    private void takeOverFromStandby()
+    {
+        standbyAeronChannel = null;
+        deleteAcceptorLogs();
+        assertTrue(new File(STANDBY_LOGS).renameTo(new File(ACCEPTOR_LOGS)));
+    }
+
     private void deleteAcceptorLogs()
     {
         delete(ACCEPTOR_LOGS);
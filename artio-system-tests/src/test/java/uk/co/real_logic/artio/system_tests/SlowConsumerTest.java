@@ -69,6 +69,7 @@ public class SlowConsumerTest
     private LockStepFramerEngineScheduler scheduler = new LockStepFramerEngineScheduler();
     private SocketChannel socket;
     private Session session;
+    private int senderSpillBufferSize = 0;
 
     @Test(timeout = TEST_TIMEOUT)
     public void shouldQuarantineThenDisconnectASlowConsumer() throws IOException
@@ -134,6 +135,22 @@ public class SlowConsumerTest
         assertTrue(socketIsConnected());
     }
 
+    @Test(timeout = TEST_TIMEOUT)
+    public void shouldDisconnectASlowConsumerWithASpillBuffer() throws IOException
+    {
+        senderSpillBufferSize = 4 * 1024;
+
+        shouldQuarantineThenDisconnectASlowConsumer();
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void shouldRestoreConnectionWithASpillBufferWhenItCatchesUp() throws IOException
+    {
+        senderSpillBufferSize = 4 * 1024;
+
+        shouldRestoreConnectionFromSlowGroupWhenItCatchesUp();
+    }
+
     @Test(timeout = TEST_TIMEOUT)
     public void shouldNotifyLibraryOfSlowConnectionWhenAcquired() throws IOException
     {
@@ -261,6 +278,7 @@ public class SlowConsumerTest
         final EngineConfiguration config = acceptingConfig(port, ACCEPTOR_ID, INITIATOR_ID)
             .scheduler(scheduler);
         config.senderMaxBytesInBuffer(senderMaxBytesInBuffer);
+        config.senderSpillBufferSize(senderSpillBufferSize);
         engine = FixEngine.launch(config);
         testSystem = new TestSystem(scheduler);
         final LibraryConfiguration libraryConfiguration = acceptingLibraryConfig(handler);